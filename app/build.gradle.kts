@@ -19,6 +19,8 @@ android {
 
         ndk {
             abiFilters.add("arm64-v8a")
+            // Uses the portable C kernels instead of the Assembly, e.g. on emulators.
+            abiFilters.add("x86_64")
         }
     }
 
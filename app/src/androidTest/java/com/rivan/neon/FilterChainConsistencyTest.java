@@ -0,0 +1,119 @@
+package com.rivan.neon;
+
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.rivan.neon.filters.params.BrightnessFilterParams;
+import com.rivan.neon.filters.params.ContrastFilterParams;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Instrumented tests checking that the Java and the Assembly implementations collapse a
+ * {@link FilterChain} the same way, and that both give the result of applying its filters one
+ * after another, including when a stage saturates.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FilterChainConsistencyTest {
+
+    private static final int SIZE = 64;
+
+    @BeforeClass
+    public static void loadLibrary() {
+        System.loadLibrary("neon");
+    }
+
+    @Test
+    public void saturatingPerChannelRun_matchesAcrossImplementations() {
+        // 200 + 100 saturates at 255, so the result is 155, not 200.
+        assertConsistent(new FilterChain()
+                .add(Filter.BRIGHTNESS, brightness(100))
+                .add(Filter.BRIGHTNESS, brightness(-100)));
+        assertConsistent(new FilterChain()
+                .add(Filter.CONTRAST, contrast(2.0f))
+                .add(Filter.INVERT, null)
+                .add(Filter.CONTRAST, contrast(0.5f)));
+    }
+
+    @Test
+    public void saturatingMixedRun_matchesAcrossImplementations() {
+        assertConsistent(new FilterChain()
+                .add(Filter.BRIGHTNESS, brightness(100))
+                .add(Filter.SEPIA, null));
+        assertConsistent(new FilterChain()
+                .add(Filter.SEPIA, null)
+                .add(Filter.GRAYSCALE, null)
+                .add(Filter.SEPIA, null));
+    }
+
+    @Test
+    public void nonSaturatingMatrixRun_matchesAcrossImplementations() {
+        assertConsistent(new FilterChain()
+                .add(Filter.GRAYSCALE, null)
+                .add(Filter.SEPIA, null));
+    }
+
+    /**
+     * Applies a chain with both implementations, and every filter of it one after another with
+     * Java, and checks that the three results match within rounding.
+     */
+    private static void assertConsistent(FilterChain chain) {
+        Bitmap source = createImage();
+
+        Bitmap java = FilterProcessor.applyFilterChainToBitmap(source, chain, false);
+        Bitmap assembly = FilterProcessor.applyFilterChainToBitmap(source, chain, true);
+
+        Bitmap sequential = source;
+        for (FilterChain.Stage stage : chain.getStages()) {
+            sequential = FilterProcessor.applyFilterToBitmap(sequential, stage.getFilter(),
+                    stage.getParams(), false);
+        }
+
+        assertPixelsMatch("Java and Assembly", java, assembly);
+        assertPixelsMatch("Java and one filter at a time", sequential, java);
+    }
+
+    /** Opaque pixels covering every value of every channel. */
+    private static Bitmap createImage() {
+        int[] colors = new int[SIZE * SIZE];
+        for (int i = 0; i < colors.length; i++) {
+            int value = i & 0xFF;
+            colors[i] = 0xFF000000 | value << 16 | (255 - value) << 8 | (value * 7 & 0xFF);
+        }
+        return Bitmap.createBitmap(colors, SIZE, SIZE, Bitmap.Config.ARGB_8888);
+    }
+
+    private static void assertPixelsMatch(String message, Bitmap expected, Bitmap actual) {
+        int[] expectedPixels = new int[SIZE * SIZE];
+        int[] actualPixels = new int[SIZE * SIZE];
+        expected.getPixels(expectedPixels, 0, SIZE, 0, 0, SIZE, SIZE);
+        actual.getPixels(actualPixels, 0, SIZE, 0, 0, SIZE, SIZE);
+
+        for (int i = 0; i < expectedPixels.length; i++) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                int e = (expectedPixels[i] >>> shift) & 0xFF;
+                int a = (actualPixels[i] >>> shift) & 0xFF;
+                assertTrue(message + ", pixel " + i + ": "
+                        + Integer.toHexString(expectedPixels[i]) + " != "
+                        + Integer.toHexString(actualPixels[i]), Math.abs(e - a) <= 1);
+            }
+        }
+    }
+
+    private static BrightnessFilterParams brightness(int brightness) {
+        BrightnessFilterParams params = new BrightnessFilterParams();
+        params.setBrightness(brightness);
+        return params;
+    }
+
+    private static ContrastFilterParams contrast(float contrast) {
+        ContrastFilterParams params = new ContrastFilterParams();
+        params.setContrast(contrast);
+        return params;
+    }
+}
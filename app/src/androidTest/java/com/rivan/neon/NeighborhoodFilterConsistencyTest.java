@@ -0,0 +1,104 @@
+package com.rivan.neon;
+
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.rivan.neon.filters.params.BlurFilterParams;
+import com.rivan.neon.filters.params.SharpenFilterParams;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Instrumented tests checking that the Java and the Assembly implementations of the neighborhood
+ * filters give the same result on translucent images. Both must filter premultiplied colors, so
+ * the results are compared as the premultiplied bytes of the bitmaps, which is also what is drawn.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NeighborhoodFilterConsistencyTest {
+
+    private static final int SIZE = 64;
+
+    @BeforeClass
+    public static void loadLibrary() {
+        System.loadLibrary("neon");
+    }
+
+    @Test
+    public void sharpen_matchesAcrossImplementations() {
+        SharpenFilterParams params = new SharpenFilterParams();
+        params.setAmount(SharpenFilterParams.MAX_AMOUNT);
+        params.setRadius(3);
+        assertConsistent(Filter.SHARPEN, params);
+    }
+
+    @Test
+    public void emboss_matchesAcrossImplementations() {
+        assertConsistent(Filter.EMBOSS, null);
+    }
+
+    @Test
+    public void gaussianBlur_matchesAcrossImplementations() {
+        BlurFilterParams params = new BlurFilterParams();
+        params.setMode(BlurFilterParams.Mode.GAUSSIAN);
+        params.setRadius(4);
+        assertConsistent(Filter.BLUR, params);
+    }
+
+    @Test
+    public void boxBlur_matchesAcrossImplementations() {
+        BlurFilterParams params = new BlurFilterParams();
+        params.setMode(BlurFilterParams.Mode.BOX);
+        params.setRadius(5);
+        assertConsistent(Filter.BLUR, params);
+    }
+
+    @Test
+    public void stackedBoxBlur_matchesAcrossImplementations() {
+        BlurFilterParams params = new BlurFilterParams();
+        params.setMode(BlurFilterParams.Mode.STACKED_BOX);
+        params.setRadius(40);
+        assertConsistent(Filter.BLUR, params);
+    }
+
+    private static void assertConsistent(Filter filter, FilterParams params) {
+        Bitmap java = FilterProcessor.applyFilterToBitmap(createImage(), filter, params, false);
+        Bitmap assembly = FilterProcessor.applyFilterToBitmap(createImage(), filter, params,
+                true);
+
+        byte[] expected = premultipliedBytes(java);
+        byte[] actual = premultipliedBytes(assembly);
+        for (int i = 0; i < expected.length; i++) {
+            int e = expected[i] & 0xFF;
+            int a = actual[i] & 0xFF;
+            assertTrue(filter + ", byte " + i + ": " + e + " != " + a, Math.abs(e - a) <= 1);
+        }
+    }
+
+    /**
+     * Stripes of opaque, translucent and fully transparent pixels, whose colors differ from those
+     * of their neighbours, so that unpremultiplied colors would bleed across the stripes.
+     */
+    private static Bitmap createImage() {
+        int[] colors = new int[SIZE * SIZE];
+        for (int i = 0; i < colors.length; i++) {
+            int x = i % SIZE;
+            int alpha = x % 12 < 4 ? 0xFF : x % 12 < 8 ? 0x40 + (i & 0x3F) : 0;
+            int value = i * 37 & 0xFF;
+            colors[i] = alpha << 24 | value << 16 | (255 - value) << 8 | (x * 11 & 0xFF);
+        }
+        return Bitmap.createBitmap(colors, SIZE, SIZE, Bitmap.Config.ARGB_8888);
+    }
+
+    private static byte[] premultipliedBytes(Bitmap bitmap) {
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.getByteCount());
+        bitmap.copyPixelsToBuffer(buffer);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,37 @@
+#pragma once
+
+#include <stdint.h>
+
+// Box blurs of RGBA_8888 images with running sums, used by the large-radius modes of the blur
+// filter.
+//
+// A box pass of radius r replaces every channel with the average of the 2 * r + 1 values around
+// it along a row or a column. The sum of the window is updated by adding the value entering it
+// and subtracting the value leaving it, so a pass costs the same per pixel whatever the radius.
+// Three passes of suitable radii approximate a Gaussian blur closely. All four channels are
+// treated alike, and pixels outside of the image are read according to the edge mode of
+// convolution.h. Pixels are premultiplied, and the rounded average of colors never exceeds the
+// rounded average of their alphas, so unlike the convolution the colors need no clamping.
+//
+// Horizontal passes work on bands of rows and vertical passes on strips of columns, so both can
+// run on different threads.
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+// Runs 'passes' horizontal box passes, of the given radii, over rows [firstRow, lastRow). src
+// and dst may be the same image. Returns 0, or -1 if the scratch memory cannot be allocated.
+int box_blur_rows(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                  uint32_t width, uint32_t firstRow, uint32_t lastRow, const uint32_t* radii,
+                  uint32_t passes, int edgeMode);
+
+// Runs one vertical box pass over columns [firstColumn, lastColumn). src and dst must not
+// overlap. Returns 0, or -1 if the scratch memory cannot be allocated.
+int box_blur_columns(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                     uint32_t height, uint32_t firstColumn, uint32_t lastColumn, uint32_t radius,
+                     int edgeMode);
+
+#ifdef __cplusplus
+}
+#endif
@@ -0,0 +1,255 @@
+    .text
+    .global color_matrix
+    .type color_matrix, %function
+    .p2align 4
+
+// Function signature (parameters passed in registers):
+// X0: Pixels pointer (uint8_t* pixels) - Base address of the bitmap pixel data
+// W1 (or X1): Width of bitmap (uint32_t width) - Number of pixels per row
+// W2 (or X2): Height of bitmap (uint32_t height) - Number of rows
+// W3 (or X3): Stride (Bytes per row) (uint32_t stride) - Total bytes to move to the next row
+// X4: Packed matrix (const float* matrix) - 20 floats laid out as the four multiplier rows
+//     (R, G, B, A), each holding the coefficients for R, G, B and A, followed by the four
+//     offsets (R, G, B, A). See packColorMatrix() in filters.cpp.
+//
+// Unlike the other filters, this routine processes 8 pixels per iteration. Applying a 4x5 matrix
+// needs 16 registers for the widened inputs and 8 for the outputs, which leaves no room for a
+// second set of 8 pixels without spilling the callee-saved registers V8 to V15.
+
+color_matrix:
+    STP FP, LR, [SP, #-16]!
+
+    MOV FP, SP
+
+    STP X19, X20, [SP, #-16]!
+
+    MOV X19, X0
+    MOV X20, #0
+
+    // Load the matrix. Each multiplier row stays in a single register and is accessed
+    // by element, so the whole matrix only occupies V24 to V28.
+    LD1 { V24.4S, V25.4S, V26.4S, V27.4S }, [X4], #64   // Red, green, blue and alpha rows
+    LD1 { V28.4S }, [X4]                                // Offsets
+
+    MOVI V29.4S, #0            // 0.0 for clamping
+    MOV W5, #0x437F0000        // 255.0 for clamping
+    DUP V30.4S, W5
+
+loop_rows:
+    CBZ W2, exit_color_matrix
+    ADD X0, X19, X20
+
+    LSR W6, W1, #3             // Divide width by 8 (2^3)
+    CBZ W6, process_remaining_pixels
+
+vectors:
+    LD4 { V0.8B, V1.8B, V2.8B, V3.8B }, [X0], #32
+
+    // Convert all four channels of the 8 pixels to single-precision floating-point words.
+    // Red ends up in V16/V17, green in V18/V19, blue in V20/V21 and alpha in V22/V23.
+    UXTL V31.8H, V0.8B
+    UXTL V16.4S, V31.4H
+    UXTL2 V17.4S, V31.8H
+
+    UXTL V31.8H, V1.8B
+    UXTL V18.4S, V31.4H
+    UXTL2 V19.4S, V31.8H
+
+    UXTL V31.8H, V2.8B
+    UXTL V20.4S, V31.4H
+    UXTL2 V21.4S, V31.8H
+
+    UXTL V31.8H, V3.8B
+    UXTL V22.4S, V31.4H
+    UXTL2 V23.4S, V31.8H
+
+    UCVTF V16.4S, V16.4S
+    UCVTF V17.4S, V17.4S
+    UCVTF V18.4S, V18.4S
+    UCVTF V19.4S, V19.4S
+    UCVTF V20.4S, V20.4S
+    UCVTF V21.4S, V21.4S
+    UCVTF V22.4S, V22.4S
+    UCVTF V23.4S, V23.4S
+
+    // Perform the matrix multiplication. Each output channel starts from its offset and
+    // accumulates the product of every input channel with the corresponding coefficient.
+    // Red output in V0/V1
+    DUP V0.4S, V28.S[0]
+    DUP V1.4S, V28.S[0]
+    FMLA V0.4S, V16.4S, V24.S[0]
+    FMLA V1.4S, V17.4S, V24.S[0]
+    FMLA V0.4S, V18.4S, V24.S[1]
+    FMLA V1.4S, V19.4S, V24.S[1]
+    FMLA V0.4S, V20.4S, V24.S[2]
+    FMLA V1.4S, V21.4S, V24.S[2]
+    FMLA V0.4S, V22.4S, V24.S[3]
+    FMLA V1.4S, V23.4S, V24.S[3]
+
+    // Green output in V2/V3
+    DUP V2.4S, V28.S[1]
+    DUP V3.4S, V28.S[1]
+    FMLA V2.4S, V16.4S, V25.S[0]
+    FMLA V3.4S, V17.4S, V25.S[0]
+    FMLA V2.4S, V18.4S, V25.S[1]
+    FMLA V3.4S, V19.4S, V25.S[1]
+    FMLA V2.4S, V20.4S, V25.S[2]
+    FMLA V3.4S, V21.4S, V25.S[2]
+    FMLA V2.4S, V22.4S, V25.S[3]
+    FMLA V3.4S, V23.4S, V25.S[3]
+
+    // Blue output in V4/V5
+    DUP V4.4S, V28.S[2]
+    DUP V5.4S, V28.S[2]
+    FMLA V4.4S, V16.4S, V26.S[0]
+    FMLA V5.4S, V17.4S, V26.S[0]
+    FMLA V4.4S, V18.4S, V26.S[1]
+    FMLA V5.4S, V19.4S, V26.S[1]
+    FMLA V4.4S, V20.4S, V26.S[2]
+    FMLA V5.4S, V21.4S, V26.S[2]
+    FMLA V4.4S, V22.4S, V26.S[3]
+    FMLA V5.4S, V23.4S, V26.S[3]
+
+    // Alpha output in V6/V7
+    DUP V6.4S, V28.S[3]
+    DUP V7.4S, V28.S[3]
+    FMLA V6.4S, V16.4S, V27.S[0]
+    FMLA V7.4S, V17.4S, V27.S[0]
+    FMLA V6.4S, V18.4S, V27.S[1]
+    FMLA V7.4S, V19.4S, V27.S[1]
+    FMLA V6.4S, V20.4S, V27.S[2]
+    FMLA V7.4S, V21.4S, V27.S[2]
+    FMLA V6.4S, V22.4S, V27.S[3]
+    FMLA V7.4S, V23.4S, V27.S[3]
+
+    // Clamp the calculated values to the range of 0 to 255
+    FMAX V0.4S, V0.4S, V29.4S
+    FMIN V0.4S, V0.4S, V30.4S
+    FMAX V1.4S, V1.4S, V29.4S
+    FMIN V1.4S, V1.4S, V30.4S
+    FMAX V2.4S, V2.4S, V29.4S
+    FMIN V2.4S, V2.4S, V30.4S
+    FMAX V3.4S, V3.4S, V29.4S
+    FMIN V3.4S, V3.4S, V30.4S
+    FMAX V4.4S, V4.4S, V29.4S
+    FMIN V4.4S, V4.4S, V30.4S
+    FMAX V5.4S, V5.4S, V29.4S
+    FMIN V5.4S, V5.4S, V30.4S
+    FMAX V6.4S, V6.4S, V29.4S
+    FMIN V6.4S, V6.4S, V30.4S
+    FMAX V7.4S, V7.4S, V29.4S
+    FMIN V7.4S, V7.4S, V30.4S
+
+    // Convert the floats back to integers. FCVTZS truncates towards zero, which matches the
+    // (int) cast used by the Java implementation.
+    FCVTZS V0.4S, V0.4S
+    FCVTZS V1.4S, V1.4S
+    FCVTZS V2.4S, V2.4S
+    FCVTZS V3.4S, V3.4S
+    FCVTZS V4.4S, V4.4S
+    FCVTZS V5.4S, V5.4S
+    FCVTZS V6.4S, V6.4S
+    FCVTZS V7.4S, V7.4S
+
+    // Narrow the words back down to bytes. The values are already within 0 to 255, so no
+    // saturation is needed. Each pair is consumed before its register is reused.
+    XTN V0.4H, V0.4S
+    XTN2 V0.8H, V1.4S
+    XTN V0.8B, V0.8H
+
+    XTN V1.4H, V2.4S
+    XTN2 V1.8H, V3.4S
+    XTN V1.8B, V1.8H
+
+    XTN V2.4H, V4.4S
+    XTN2 V2.8H, V5.4S
+    XTN V2.8B, V2.8H
+
+    XTN V3.4H, V6.4S
+    XTN2 V3.8H, V7.4S
+    XTN V3.8B, V3.8H
+
+    SUB X9, X0, #32
+    ST4 { V0.8B, V1.8B, V2.8B, V3.8B }, [X9]
+
+    SUBS W6, W6, #1
+    B.NE vectors
+
+process_remaining_pixels:
+    ANDS W6, W1, #7            // Find the remainder when divided by 8
+    B.EQ end_row_processing
+
+singles:
+    LDR W8, [X0]
+
+    AND W9, W8, #0xFF
+    UBFX W10, W8, #8, #8
+    UBFX W11, W8, #16, #8
+    LSR W12, W8, #24
+
+    UCVTF S16, W9
+    UCVTF S17, W10
+    UCVTF S18, W11
+    UCVTF S19, W12
+
+    // Perform the matrix multiplication for a single pixel.
+    MOV S0, V28.S[0]
+    FMLA S0, S16, V24.S[0]
+    FMLA S0, S17, V24.S[1]
+    FMLA S0, S18, V24.S[2]
+    FMLA S0, S19, V24.S[3]
+
+    MOV S1, V28.S[1]
+    FMLA S1, S16, V25.S[0]
+    FMLA S1, S17, V25.S[1]
+    FMLA S1, S18, V25.S[2]
+    FMLA S1, S19, V25.S[3]
+
+    MOV S2, V28.S[2]
+    FMLA S2, S16, V26.S[0]
+    FMLA S2, S17, V26.S[1]
+    FMLA S2, S18, V26.S[2]
+    FMLA S2, S19, V26.S[3]
+
+    MOV S3, V28.S[3]
+    FMLA S3, S16, V27.S[0]
+    FMLA S3, S17, V27.S[1]
+    FMLA S3, S18, V27.S[2]
+    FMLA S3, S19, V27.S[3]
+
+    // Clamp the values to the range of 0 to 255.
+    FMAX S0, S0, S29
+    FMIN S0, S0, S30
+    FMAX S1, S1, S29
+    FMIN S1, S1, S30
+    FMAX S2, S2, S29
+    FMIN S2, S2, S30
+    FMAX S3, S3, S29
+    FMIN S3, S3, S30
+
+    FCVTZS W9, S0
+    FCVTZS W10, S1
+    FCVTZS W11, S2
+    FCVTZS W12, S3
+
+    ORR W8, W9, W10, LSL #8
+    ORR W8, W8, W11, LSL #16
+    ORR W8, W8, W12, LSL #24
+
+    STR W8, [X0], #4
+
+    SUBS W6, W6, #1
+    B.NE singles
+
+end_row_processing:
+    ADD X20, X20, W3, UXTW
+
+    SUBS W2, W2, #1
+    B.NE loop_rows
+
+exit_color_matrix:
+    LDP X19, X20, [SP], #16
+
+    LDP FP, LR, [SP], #16
+
+    RET
@@ -0,0 +1,299 @@
+// Convolution engine for the neighborhood filters, see convolution.h.
+//
+// Pixels are widened to floats once per row, and every tap of the kernel is then a
+// multiply-accumulate over a whole row of a tile, which vectorizes with Neon on arm64 and is left
+// to the compiler elsewhere.
+
+#include "convolution.h"
+
+#include <stddef.h>
+#include <stdlib.h>
+#include <string.h>
+
+#if defined(__aarch64__)
+#include <arm_neon.h>
+#endif
+
+// Bytes of filtered rows kept for a tile: the ring of horizontally filtered rows for separable
+// kernels, and the ring of widened source rows for 2D kernels. Small enough to stay in L2 along
+// with the source and destination rows.
+#define TILE_BYTES (128 * 1024)
+
+// Narrower tiles would spend more time on the edges than on the pixels.
+#define MIN_TILE_WIDTH 64
+
+// Adding and subtracting 1.5 * 2^23 rounds any float in [-2^22, 2^22] to the nearest integer,
+// ties to even, like FCVTNS. See kernels_portable.c.
+static const float ROUND_MAGIC = 12582912.0f;
+
+static inline uint8_t roundToByte(float value) {
+    int32_t rounded = (int32_t) ((value + ROUND_MAGIC) - ROUND_MAGIC);
+    rounded = rounded < 0 ? 0 : rounded;
+    return (uint8_t) (rounded > 255 ? 255 : rounded);
+}
+
+int32_t convolution_edge_index(int32_t index, int32_t size, int edgeMode) {
+    if (index >= 0 && index < size) {
+        return index;
+    }
+    switch (edgeMode) {
+        case EDGE_MODE_REFLECT: {
+            if (size == 1) {
+                return 0;
+            }
+            int32_t period = 2 * (size - 1);
+            index = (index < 0 ? -index : index) % period;
+            return index < size ? index : period - index;
+        }
+        case EDGE_MODE_WRAP:
+            index %= size;
+            return index < 0 ? index + size : index;
+        default:
+            return index < 0 ? 0 : size - 1;
+    }
+}
+
+// out[i] = in[i] for 'count' channels.
+static void widen(const uint8_t* restrict in, float* restrict out, uint32_t count) {
+    uint32_t i = 0;
+#if defined(__aarch64__)
+    for (; i + 16 <= count; i += 16) {
+        uint8x16_t bytes = vld1q_u8(in + i);
+        uint16x8_t low = vmovl_u8(vget_low_u8(bytes));
+        uint16x8_t high = vmovl_u8(vget_high_u8(bytes));
+        vst1q_f32(out + i, vcvtq_f32_u32(vmovl_u16(vget_low_u16(low))));
+        vst1q_f32(out + i + 4, vcvtq_f32_u32(vmovl_u16(vget_high_u16(low))));
+        vst1q_f32(out + i + 8, vcvtq_f32_u32(vmovl_u16(vget_low_u16(high))));
+        vst1q_f32(out + i + 12, vcvtq_f32_u32(vmovl_u16(vget_high_u16(high))));
+    }
+#endif
+    for (; i < count; i++) {
+        out[i] = in[i];
+    }
+}
+
+// out[i] += weight * in[i] for 'count' channels.
+static void accumulate(const float* restrict in, float weight, float* restrict out,
+                       uint32_t count) {
+    uint32_t i = 0;
+#if defined(__aarch64__)
+    float32x4_t w = vdupq_n_f32(weight);
+    for (; i + 16 <= count; i += 16) {
+        vst1q_f32(out + i, vfmaq_f32(vld1q_f32(out + i), vld1q_f32(in + i), w));
+        vst1q_f32(out + i + 4, vfmaq_f32(vld1q_f32(out + i + 4), vld1q_f32(in + i + 4), w));
+        vst1q_f32(out + i + 8, vfmaq_f32(vld1q_f32(out + i + 8), vld1q_f32(in + i + 8), w));
+        vst1q_f32(out + i + 12, vfmaq_f32(vld1q_f32(out + i + 12), vld1q_f32(in + i + 12), w));
+    }
+#endif
+    for (; i < count; i++) {
+        out[i] += weight * in[i];
+    }
+}
+
+// out[i] = weight * in[i] for 'count' channels, which saves clearing out before accumulating.
+static void scale(const float* restrict in, float weight, float* restrict out, uint32_t count) {
+    for (uint32_t i = 0; i < count; i++) {
+        out[i] = weight * in[i];
+    }
+}
+
+// out[i] = round(sum[i] + identityWeight * source[i]), clamped to 0 to 255 and, for the colors,
+// to the alpha of their pixel.
+static void store(const float* restrict sum, const uint8_t* restrict source, float identityWeight,
+                  uint8_t* restrict out, uint32_t count) {
+    uint32_t i = 0;
+#if defined(__aarch64__)
+    float32x4_t identity = vdupq_n_f32(identityWeight);
+    // Selects the alpha of every pixel for all of its channels.
+    static const uint8_t ALPHA_INDEX[16] = {3, 3, 3, 3, 7, 7, 7, 7, 11, 11, 11, 11, 15, 15, 15, 15};
+    uint8x16_t alphaIndex = vld1q_u8(ALPHA_INDEX);
+    for (; i + 16 <= count; i += 16) {
+        uint8x16_t bytes = vld1q_u8(source + i);
+        uint16x8_t low = vmovl_u8(vget_low_u8(bytes));
+        uint16x8_t high = vmovl_u8(vget_high_u8(bytes));
+        float32x4_t v0 = vfmaq_f32(vld1q_f32(sum + i), identity,
+                                   vcvtq_f32_u32(vmovl_u16(vget_low_u16(low))));
+        float32x4_t v1 = vfmaq_f32(vld1q_f32(sum + i + 4), identity,
+                                   vcvtq_f32_u32(vmovl_u16(vget_high_u16(low))));
+        float32x4_t v2 = vfmaq_f32(vld1q_f32(sum + i + 8), identity,
+                                   vcvtq_f32_u32(vmovl_u16(vget_low_u16(high))));
+        float32x4_t v3 = vfmaq_f32(vld1q_f32(sum + i + 12), identity,
+                                   vcvtq_f32_u32(vmovl_u16(vget_high_u16(high))));
+        // Round to nearest, then saturate to 16 and 8 bits.
+        uint16x8_t narrowLow = vcombine_u16(vqmovun_s32(vcvtnq_s32_f32(v0)),
+                                            vqmovun_s32(vcvtnq_s32_f32(v1)));
+        uint16x8_t narrowHigh = vcombine_u16(vqmovun_s32(vcvtnq_s32_f32(v2)),
+                                             vqmovun_s32(vcvtnq_s32_f32(v3)));
+        uint8x16_t rounded = vcombine_u8(vqmovn_u16(narrowLow), vqmovn_u16(narrowHigh));
+        vst1q_u8(out + i, vminq_u8(rounded, vqtbl1q_u8(rounded, alphaIndex)));
+    }
+#endif
+    for (; i < count; i += 4) {
+        uint8_t alpha = roundToByte(sum[i + 3] + identityWeight * source[i + 3]);
+        for (uint32_t channel = 0; channel < 3; channel++) {
+            uint8_t value = roundToByte(sum[i + channel] + identityWeight * source[i + channel]);
+            out[i + channel] = value < alpha ? value : alpha;
+        }
+        out[i + 3] = alpha;
+    }
+}
+
+// Widens the pixels of a row from column x0 - radius to x0 + tileWidth + radius - 1 into out,
+// reading the pixels outside of the row according to the edge mode. Only tiles that touch the
+// edges of the image go through the gather buffer.
+static void loadPaddedRow(const uint8_t* row, uint32_t width, uint32_t x0, uint32_t tileWidth,
+                          uint32_t radius, int edgeMode, uint8_t* gather, float* out) {
+    uint32_t paddedWidth = tileWidth + 2 * radius;
+    if (x0 >= radius && x0 + tileWidth + radius <= width) {
+        widen(row + (size_t) (x0 - radius) * 4, out, paddedWidth * 4);
+        return;
+    }
+
+    for (uint32_t i = 0; i < paddedWidth; i++) {
+        int32_t x = convolution_edge_index((int32_t) (x0 + i) - (int32_t) radius,
+                                           (int32_t) width, edgeMode);
+        memcpy(gather + (size_t) i * 4, row + (size_t) x * 4, 4);
+    }
+    widen(gather, out, paddedWidth * 4);
+}
+
+// Number of pixels in a tile, for a ring of 'rows' rows of 'extraPixels' + tile width pixels.
+static uint32_t tileWidthFor(uint32_t width, uint32_t rows, uint32_t extraPixels) {
+    size_t rowBytes = (size_t) rows * 4 * sizeof(float);
+    size_t tileWidth = TILE_BYTES / rowBytes;
+    tileWidth = tileWidth > extraPixels ? tileWidth - extraPixels : 0;
+    tileWidth = tileWidth < MIN_TILE_WIDTH ? MIN_TILE_WIDTH : tileWidth;
+    return (uint32_t) (tileWidth < width ? tileWidth : width);
+}
+
+int convolve_separable(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                       uint32_t width, uint32_t height, uint32_t firstRow, uint32_t lastRow,
+                       const float* horizontal, const float* vertical, uint32_t radius,
+                       float identityWeight, int edgeMode) {
+    if (width == 0 || firstRow >= lastRow) {
+        return 0;
+    }
+
+    const uint32_t size = 2 * radius + 1;
+    const uint32_t tileWidth = tileWidthFor(width, size, 0);
+    const size_t paddedChannels = (size_t) (tileWidth + 2 * radius) * 4;
+    const size_t tileChannels = (size_t) tileWidth * 4;
+
+    // The widened source row, the ring of horizontally filtered rows and the output sums.
+    float* scratch = malloc(sizeof(float) * (paddedChannels + (size + 1) * tileChannels));
+    uint8_t* gather = malloc(paddedChannels);
+    if (scratch == NULL || gather == NULL) {
+        free(scratch);
+        free(gather);
+        return -1;
+    }
+    float* padded = scratch;
+    float* ring = padded + paddedChannels;
+    float* sum = ring + size * tileChannels;
+
+    // Every source row from radius rows above the band to radius rows below it is filtered
+    // horizontally once into the ring. Once the ring holds the 'size' rows around an output row,
+    // the vertical pass sums them up.
+    const int32_t top = (int32_t) firstRow - (int32_t) radius;
+    const int32_t bottom = (int32_t) lastRow + (int32_t) radius;
+
+    for (uint32_t x0 = 0; x0 < width; x0 += tileWidth) {
+        uint32_t columns = width - x0 < tileWidth ? width - x0 : tileWidth;
+        uint32_t count = columns * 4;
+
+        for (int32_t y = top; y < bottom; y++) {
+            uint32_t j = (uint32_t) (y - top);
+            const uint8_t* row = src
+                    + (size_t) convolution_edge_index(y, (int32_t) height, edgeMode) * srcStride;
+            loadPaddedRow(row, width, x0, columns, radius, edgeMode, gather, padded);
+
+            float* filtered = ring + (j % size) * tileChannels;
+            scale(padded, horizontal[0], filtered, count);
+            for (uint32_t k = 1; k < size; k++) {
+                accumulate(padded + k * 4, horizontal[k], filtered, count);
+            }
+
+            if (j + 1 < size) {
+                continue;
+            }
+
+            uint32_t first = j + 1 - size;
+            scale(ring + (first % size) * tileChannels, vertical[0], sum, count);
+            for (uint32_t k = 1; k < size; k++) {
+                accumulate(ring + ((first + k) % size) * tileChannels, vertical[k], sum, count);
+            }
+
+            size_t outY = (size_t) (y - (int32_t) radius);
+            store(sum, src + outY * srcStride + (size_t) x0 * 4, identityWeight,
+                  dst + outY * dstStride + (size_t) x0 * 4, count);
+        }
+    }
+
+    free(gather);
+    free(scratch);
+    return 0;
+}
+
+int convolve_2d(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                uint32_t width, uint32_t height, uint32_t firstRow, uint32_t lastRow,
+                const float* weights, uint32_t radius, float identityWeight, int edgeMode) {
+    if (width == 0 || firstRow >= lastRow) {
+        return 0;
+    }
+
+    const uint32_t size = 2 * radius + 1;
+    const uint32_t tileWidth = tileWidthFor(width, size, 2 * radius);
+    const size_t paddedChannels = (size_t) (tileWidth + 2 * radius) * 4;
+    const size_t tileChannels = (size_t) tileWidth * 4;
+
+    // The ring of widened source rows and the output sums.
+    float* scratch = malloc(sizeof(float) * (size * paddedChannels + tileChannels));
+    uint8_t* gather = malloc(paddedChannels);
+    if (scratch == NULL || gather == NULL) {
+        free(scratch);
+        free(gather);
+        return -1;
+    }
+    float* ring = scratch;
+    float* sum = ring + size * paddedChannels;
+
+    const int32_t top = (int32_t) firstRow - (int32_t) radius;
+    const int32_t bottom = (int32_t) lastRow + (int32_t) radius;
+
+    for (uint32_t x0 = 0; x0 < width; x0 += tileWidth) {
+        uint32_t columns = width - x0 < tileWidth ? width - x0 : tileWidth;
+        uint32_t count = columns * 4;
+
+        for (int32_t y = top; y < bottom; y++) {
+            uint32_t j = (uint32_t) (y - top);
+            const uint8_t* row = src
+                    + (size_t) convolution_edge_index(y, (int32_t) height, edgeMode) * srcStride;
+            loadPaddedRow(row, width, x0, columns, radius, edgeMode, gather,
+                          ring + (j % size) * paddedChannels);
+
+            if (j + 1 < size) {
+                continue;
+            }
+
+            uint32_t first = j + 1 - size;
+            memset(sum, 0, count * sizeof(float));
+            for (uint32_t ky = 0; ky < size; ky++) {
+                const float* padded = ring + ((first + ky) % size) * paddedChannels;
+                for (uint32_t kx = 0; kx < size; kx++) {
+                    float weight = weights[ky * size + kx];
+                    if (weight != 0.0f) {
+                        accumulate(padded + kx * 4, weight, sum, count);
+                    }
+                }
+            }
+
+            size_t outY = (size_t) (y - (int32_t) radius);
+            store(sum, src + outY * srcStride + (size_t) x0 * 4, identityWeight,
+                  dst + outY * dstStride + (size_t) x0 * 4, count);
+        }
+    }
+
+    free(gather);
+    free(scratch);
+    return 0;
+}
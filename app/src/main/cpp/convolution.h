@@ -0,0 +1,61 @@
+#pragma once
+
+#include <stdint.h>
+
+// Convolution of RGBA_8888 images with square kernels of odd size (2 * radius + 1), used by the
+// neighborhood filters (blur, sharpen, emboss).
+//
+// Every output channel is
+//
+//     identityWeight * in(x, y) + sum over (i, j) of weight(i, j) * in(x + i, y + j)
+//
+// rounded and clamped to 0 to 255, where pixels outside of the image are taken from inside it
+// according to the edge mode. The identity weight lets unsharp masking (2 * in - blur(in)) run as
+// a single separable pass.
+//
+// Pixels are premultiplied, with alpha in their last byte. All four channels are convolved alike,
+// then the colors are clamped to the alpha of their pixel, which kernels with negative weights
+// (sharpen, emboss) can otherwise exceed. The order of the three colors does not matter.
+//
+// Separable kernels run as a horizontal and a vertical 1D pass, which costs O(radius) per pixel
+// instead of O(radius^2). The image is processed in columns of tiles narrow enough for the
+// (2 * radius + 1) horizontally filtered rows of a tile to stay in cache: every source row is
+// filtered horizontally once into a ring buffer, and every output row is the weighted sum of the
+// rows in the ring. Nothing is written to dst outside of [firstRow, lastRow), so bands of rows
+// can run on different threads.
+//
+// src and dst must not overlap.
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+// How pixels outside of the image are read. These must match the ordinals of
+// com.rivan.neon.filters.kernels.Convolution.EdgeMode.
+enum {
+    EDGE_MODE_CLAMP = 0,    // The nearest edge pixel: aaa|abc|ccc
+    EDGE_MODE_REFLECT = 1,  // Mirrored without repeating the edge pixel: cb|abc|ba
+    EDGE_MODE_WRAP = 2,     // The opposite side of the image: bc|abc|ab
+    EDGE_MODE_COUNT = 3,
+};
+
+// Maps a coordinate to [0, size) according to the edge mode.
+int32_t convolution_edge_index(int32_t index, int32_t size, int edgeMode);
+
+// Convolves rows [firstRow, lastRow) with the separable kernel horizontal^T * vertical, where
+// both have 2 * radius + 1 weights. Returns 0, or -1 if the scratch memory cannot be allocated.
+int convolve_separable(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                       uint32_t width, uint32_t height, uint32_t firstRow, uint32_t lastRow,
+                       const float* horizontal, const float* vertical, uint32_t radius,
+                       float identityWeight, int edgeMode);
+
+// Convolves rows [firstRow, lastRow) with a (2 * radius + 1)^2 kernel, row-major. Costs
+// O(radius^2) per pixel: only meant for small kernels that are not separable.
+// Returns 0, or -1 if the scratch memory cannot be allocated.
+int convolve_2d(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                uint32_t width, uint32_t height, uint32_t firstRow, uint32_t lastRow,
+                const float* weights, uint32_t radius, float identityWeight, int edgeMode);
+
+#ifdef __cplusplus
+}
+#endif
@@ -1,49 +1,371 @@
 #include <android/bitmap.h>
 #include <android/log.h>
+#include <algorithm>
+#include <atomic>
 #include <chrono>
+#include <cmath>
+#include <cstdint>
+#include <cstring>
+#include <functional>
 #include <jni.h>
+#include <mutex>
+#include <new>
+#include <string>
+#include <utility>
+#include <vector>
+
+#include "box_blur.h"
+#include "convolution.h"
+#include "histogram.h"
+#include "kernel_dispatch.h"
+#include "resize.h"
+#include "thread_pool.h"
 
 #define LOG_TAG "neon"
 #define LOGE(...) __android_log_print(ANDROID_LOG_ERROR, LOG_TAG, __VA_ARGS__)
+#define LOGI(...) __android_log_print(ANDROID_LOG_INFO, LOG_TAG, __VA_ARGS__)
+
+// The kernels selected for this CPU by JNI_OnLoad, which runs before any other JNI function.
+static const KernelTable* kernels = nullptr;
+
+// Number of values in a row-major 4x5 color matrix, as used by com.rivan.neon.filters.kernels.ColorMatrix.
+static constexpr int COLOR_MATRIX_SIZE = 20;
+
+// Rearranges a row-major 4x5 color matrix into the layout expected by color_matrix.s:
+// the four multiplier rows (4 floats each) followed by the four offsets.
+static void packColorMatrix(const jfloat* matrix, float* packed) {
+    for (int row = 0; row < 4; row++) {
+        for (int column = 0; column < 4; column++) {
+            packed[row * 4 + column] = matrix[row * 5 + column];
+        }
+        packed[16 + row] = matrix[row * 5 + 4];
+    }
+}
+
+// Reads a color matrix from a Java float array and packs it for color_matrix.s.
+// Returns false if the array does not have exactly COLOR_MATRIX_SIZE values.
+static bool readColorMatrix(JNIEnv* env, jfloatArray matrix, float* packed) {
+    if (matrix == nullptr || env->GetArrayLength(matrix) != COLOR_MATRIX_SIZE) {
+        LOGE("Color matrix must have %d values", COLOR_MATRIX_SIZE);
+        return false;
+    }
+
+    jfloat values[COLOR_MATRIX_SIZE];
+    env->GetFloatArrayRegion(matrix, 0, COLOR_MATRIX_SIZE, values);
+    packColorMatrix(values, packed);
+    return true;
+}
+
+// Filter ids used by applyChain, see CHAIN_FILTERS. These must match the FILTER_* constants
+// in com.rivan.neon.filters.NativeFilters.
+enum ChainFilter : jint {
+    CHAIN_GRAYSCALE = KERNEL_GRAYSCALE,
+    CHAIN_INVERT = KERNEL_INVERT,
+    CHAIN_BRIGHTNESS = KERNEL_BRIGHTNESS,
+    CHAIN_CONTRAST = KERNEL_CONTRAST,
+    CHAIN_SEPIA = KERNEL_SEPIA,
+    CHAIN_COLOR_MATRIX = KERNEL_COLOR_MATRIX,
+};
+
+// How applyChain runs each filter, indexed by filter id: the number of parameters the filter
+// takes from the packed array, and the call to its selected kernel. Adding a filter to the chain
+// only takes a new id and a new entry here.
+struct ChainFilterInfo {
+    int paramCount;
+    void (*run)(uint8_t* band, uint32_t width, uint32_t rows, uint32_t stride,
+                const float* params);
+};
+
+static const ChainFilterInfo CHAIN_FILTERS[] = {
+        // CHAIN_GRAYSCALE
+        {3, [](uint8_t* band, uint32_t width, uint32_t rows, uint32_t stride, const float* p) {
+            kernels->grayscale(band, width, rows, stride, p[0], p[1], p[2]);
+        }},
+        // CHAIN_INVERT
+        {0, [](uint8_t* band, uint32_t width, uint32_t rows, uint32_t stride, const float*) {
+            kernels->invert(band, width, rows, stride);
+        }},
+        // CHAIN_BRIGHTNESS
+        {1, [](uint8_t* band, uint32_t width, uint32_t rows, uint32_t stride, const float* p) {
+            kernels->brightness(band, width, rows, stride, static_cast<int32_t>(p[0]));
+        }},
+        // CHAIN_CONTRAST
+        {1, [](uint8_t* band, uint32_t width, uint32_t rows, uint32_t stride, const float* p) {
+            kernels->contrast(band, width, rows, stride, p[0]);
+        }},
+        // CHAIN_SEPIA
+        {0, [](uint8_t* band, uint32_t width, uint32_t rows, uint32_t stride, const float*) {
+            kernels->sepia(band, width, rows, stride);
+        }},
+        // CHAIN_COLOR_MATRIX, already packed by readChain.
+        {COLOR_MATRIX_SIZE,
+         [](uint8_t* band, uint32_t width, uint32_t rows, uint32_t stride, const float* p) {
+             kernels->colorMatrix(band, width, rows, stride, p);
+         }},
+};
+
+static_assert(sizeof(CHAIN_FILTERS) / sizeof(CHAIN_FILTERS[0]) == KERNEL_COUNT,
+              "Every filter id needs an entry in CHAIN_FILTERS");
+
+// Returns the number of parameters of a filter, or -1 if the id is unknown.
+static int chainParamCount(jint filterId) {
+    if (filterId < 0 || filterId >= KERNEL_COUNT) {
+        return -1;
+    }
+    return CHAIN_FILTERS[filterId].paramCount;
+}
+
+// A single stage of a chain, with its parameters already converted to what the Assembly
+// routine expects (e.g., the color matrix is packed).
+struct ChainStage {
+    jint filterId;
+    float params[COLOR_MATRIX_SIZE];
+};
+
+// Number of bytes processed by every stage of a chain before moving on to the next band of rows.
+// Small enough for the band to stay in L2 (and mostly in L1) between stages.
+static constexpr uint32_t CHAIN_BAND_BYTES = 64 * 1024;
+
+// Reads and validates a chain from Java arrays. Returns false, without touching any pixels,
+// if a filter id is unknown or the number of parameters does not match the filters.
+static bool readChain(JNIEnv* env, jintArray filterIds, jfloatArray packedParams,
+                      std::vector<ChainStage>& stages) {
+    if (filterIds == nullptr) {
+        LOGE("Filter ids must not be null");
+        return false;
+    }
+
+    jsize stageCount = env->GetArrayLength(filterIds);
+    jsize paramCount = packedParams != nullptr ? env->GetArrayLength(packedParams) : 0;
+
+    std::vector<jint> ids(stageCount);
+    std::vector<jfloat> params(paramCount);
+    if (stageCount > 0) {
+        env->GetIntArrayRegion(filterIds, 0, stageCount, ids.data());
+    }
+    if (paramCount > 0) {
+        env->GetFloatArrayRegion(packedParams, 0, paramCount, params.data());
+    }
+
+    stages.resize(stageCount);
+    jsize offset = 0;
+    for (jsize i = 0; i < stageCount; i++) {
+        int count = chainParamCount(ids[i]);
+        if (count < 0) {
+            LOGE("Unknown filter id %d at stage %d", ids[i], i);
+            return false;
+        }
+        if (offset + count > paramCount) {
+            LOGE("Not enough parameters for stage %d", i);
+            return false;
+        }
+
+        stages[i].filterId = ids[i];
+        const jfloat* stageParams = params.data() + offset;
+        if (ids[i] == CHAIN_COLOR_MATRIX) {
+            packColorMatrix(stageParams, stages[i].params);
+        } else {
+            std::copy(stageParams, stageParams + count, stages[i].params);
+        }
+        offset += count;
+    }
+
+    if (offset != paramCount) {
+        LOGE("Expected %d parameters but got %d", offset, paramCount);
+        return false;
+    }
+    return true;
+}
+
+// Runs every stage of a chain, one after the other, on a block of rows.
+static void runStages(const std::vector<ChainStage>& stages, uint8_t* band,
+                      uint32_t width, uint32_t rows, uint32_t stride) {
+    for (const ChainStage& stage : stages) {
+        CHAIN_FILTERS[stage.filterId].run(band, width, rows, stride, stage.params);
+    }
+}
+
+// Runs every stage of a chain on a band of rows before moving on to the next band, so that
+// each band is only fetched from memory once for the whole chain.
+static void runChainBands(const std::vector<ChainStage>& stages, uint8_t* pixels,
+                          uint32_t width, uint32_t height, uint32_t stride) {
+    uint32_t bandRows = std::max<uint32_t>(1, CHAIN_BAND_BYTES / stride);
+
+    for (uint32_t y = 0; y < height; y += bandRows) {
+        uint32_t rows = std::min(bandRows, height - y);
+        runStages(stages, pixels + static_cast<size_t>(y) * stride, width, rows, stride);
+    }
+}
+
+// Runs a chain over a whole image, with every thread of the pool working through its own
+// share of the rows cache-sized band by band.
+static void runChain(const std::vector<ChainStage>& stages, uint8_t* pixels,
+                     uint32_t width, uint32_t height, uint32_t stride) {
+    forEachBand(pixels, height, stride, [&](uint8_t* band, uint32_t rows) {
+        runChainBands(stages, band, width, rows, stride);
+    });
+}
+
+static void runChain(const std::vector<ChainStage>& stages, uint8_t* pixels,
+                     const AndroidBitmapInfo& info) {
+    runChain(stages, pixels, info.width, info.height, info.stride);
+}
+
+// Pixel formats accepted by applyChainToBuffer. These must match the PIXEL_FORMAT_* constants
+// in com.rivan.neon.filters.NativeFilters.
+enum PixelFormat : jint {
+    PIXEL_FORMAT_RGBA_8888 = 0,
+    PIXEL_FORMAT_BGRA_8888 = 1,
+};
+
+// For BGRA_8888 pixels: the memory channel each RGBA channel is stored in, which is also the
+// RGBA channel stored in each memory channel.
+static constexpr int BGRA_CHANNELS[4] = {2, 1, 0, 3};
+
+// Rewrites the stages of a chain so that the RGBA kernels give the right result on BGRA_8888
+// pixels. Invert, brightness and contrast treat every color channel alike and are unchanged.
+// Grayscale swaps its red and blue coefficients, and color matrices have their rows and columns
+// swapped the same way. Sepia becomes the equivalent color matrix, with 0.5 offsets so that
+// color_matrix.s truncating gives the same rounding as sepia.s.
+static void convertChainToBgra(std::vector<ChainStage>& stages) {
+    static constexpr float SEPIA[4][4] = {
+            {0.393f, 0.769f, 0.189f, 0.0f},
+            {0.349f, 0.686f, 0.168f, 0.0f},
+            {0.272f, 0.534f, 0.131f, 0.0f},
+            {0.0f, 0.0f, 0.0f, 1.0f},
+    };
+
+    for (ChainStage& stage : stages) {
+        float* p = stage.params;
+        switch (stage.filterId) {
+            case CHAIN_GRAYSCALE:
+                std::swap(p[0], p[2]);
+                break;
+            case CHAIN_SEPIA:
+                stage.filterId = CHAIN_COLOR_MATRIX;
+                for (int row = 0; row < 4; row++) {
+                    for (int column = 0; column < 4; column++) {
+                        p[row * 4 + column] = SEPIA[BGRA_CHANNELS[row]][BGRA_CHANNELS[column]];
+                    }
+                    p[16 + row] = 0.5f;
+                }
+                break;
+            case CHAIN_COLOR_MATRIX: {
+                float rgba[COLOR_MATRIX_SIZE];
+                std::copy(p, p + COLOR_MATRIX_SIZE, rgba);
+                for (int row = 0; row < 4; row++) {
+                    for (int column = 0; column < 4; column++) {
+                        p[row * 4 + column] =
+                                rgba[BGRA_CHANNELS[row] * 4 + BGRA_CHANNELS[column]];
+                    }
+                    p[16 + row] = rgba[16 + BGRA_CHANNELS[row]];
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+}
+
+// Out-of-place version of runChainBands. Each band of rows is copied from the source and
+// then filtered in place while it is still in the cache, so the image only makes one trip
+// through memory: the source is read once and the destination written once.
+static void runChainBandsTo(const std::vector<ChainStage>& stages, const uint8_t* src,
+                            uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                            uint32_t width, uint32_t height) {
+    uint32_t bandRows = std::max<uint32_t>(1, CHAIN_BAND_BYTES / dstStride);
+    size_t rowBytes = static_cast<size_t>(width) * 4;
+
+    for (uint32_t y = 0; y < height; y += bandRows) {
+        uint32_t rows = std::min(bandRows, height - y);
+        uint8_t* band = dst + static_cast<size_t>(y) * dstStride;
+
+        for (uint32_t row = y; row < y + rows; row++) {
+            std::memcpy(dst + static_cast<size_t>(row) * dstStride,
+                        src + static_cast<size_t>(row) * srcStride, rowBytes);
+        }
+        runStages(stages, band, width, rows, dstStride);
+    }
+}
+
+// Out-of-place version of runChain. An empty chain copies the pixels.
+static void runChainTo(const std::vector<ChainStage>& stages,
+                       const uint8_t* src, const AndroidBitmapInfo& srcInfo,
+                       uint8_t* dst, const AndroidBitmapInfo& dstInfo) {
+    forEachBand(dst, dstInfo.height, dstInfo.stride, [&](uint8_t* band, uint32_t rows) {
+        auto firstRow = static_cast<uint32_t>((band - dst) / dstInfo.stride);
+        runChainBandsTo(stages, src + static_cast<size_t>(firstRow) * srcInfo.stride,
+                        srcInfo.stride, band, dstInfo.stride, dstInfo.width, rows);
+    });
+}
+
+// Locks a source and a destination bitmap and runs a chain from one into the other. If both
+// are the same bitmap, the chain runs in place.
+// Returns 0, or a negative error code: -1 to -3 as for the measure functions, and -5 if the
+// bitmaps do not have the same size.
+static int applyChainToBitmap(JNIEnv* env, jobject src, jobject dst,
+                              const std::vector<ChainStage>& stages) {
+    AndroidBitmapInfo srcInfo;
+    AndroidBitmapInfo dstInfo;
+    void* srcPixels;
+    void* dstPixels;
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, src, &srcInfo)) < 0
+            || (ret = AndroidBitmap_getInfo(env, dst, &dstInfo)) < 0) {
+        LOGE("AndroidBitmapInfo_getInfo() failed! error=%d", ret);
+        return -1;
+    }
+
+    if (srcInfo.format != ANDROID_BITMAP_FORMAT_RGBA_8888
+            || dstInfo.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888");
+        return -2;
+    }
+
+    if (srcInfo.width != dstInfo.width || srcInfo.height != dstInfo.height) {
+        LOGE("Destination is %ux%u but source is %ux%u",
+             dstInfo.width, dstInfo.height, srcInfo.width, srcInfo.height);
+        return -5;
+    }
+
+    if (env->IsSameObject(src, dst)) {
+        if ((ret = AndroidBitmap_lockPixels(env, dst, &dstPixels)) < 0) {
+            LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+            return -3;
+        }
+        runChain(stages, reinterpret_cast<uint8_t*>(dstPixels), dstInfo);
+        AndroidBitmap_unlockPixels(env, dst);
+        return 0;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, src, &srcPixels)) < 0) {
+        LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+        return -3;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, dst, &dstPixels)) < 0) {
+        LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+        AndroidBitmap_unlockPixels(env, src);
+        return -3;
+    }
+
+    runChainTo(stages, reinterpret_cast<const uint8_t*>(srcPixels), srcInfo,
+               reinterpret_cast<uint8_t*>(dstPixels), dstInfo);
+
+    AndroidBitmap_unlockPixels(env, dst);
+    AndroidBitmap_unlockPixels(env, src);
+    return 0;
+}
 
-// These functions are implemented in separate Assembly files (e.g., grayscale.s, invert.s, etc.)
-// and perform the actual pixel manipulation. They are declared 'extern "C"' to ensure C linkage
-// so the JNI functions can call them directly.
-
-extern "C" void grayscale(
-        uint8_t* pixels,
-        uint32_t width,
-        uint32_t height,
-        uint32_t stride,
-        float redCoefficient,
-        float greenCoefficient,
-        float blueCoefficient);
-
-extern "C" void invert(
-        uint8_t* pixels,
-        uint32_t width,
-        uint32_t height,
-        uint32_t stride);
-
-extern "C" void brightness(
-        uint8_t* pixels,
-        uint32_t width,
-        uint32_t height,
-        uint32_t stride,
-        int32_t brightness);
-
-extern "C" void contrast(
-        uint8_t* pixels,
-        uint32_t width,
-        uint32_t height,
-        uint32_t stride,
-        float contrast);
-
-extern "C" void sepia(
-        uint8_t* pixels,
-        uint32_t width,
-        uint32_t height,
-        uint32_t stride);
+// Builds a single-stage chain for the out-of-place entry points of the individual filters.
+static std::vector<ChainStage> singleStage(jint filterId, std::initializer_list<float> params) {
+    std::vector<ChainStage> stages(1);
+    stages[0].filterId = filterId;
+    std::copy(params.begin(), params.end(), stages[0].params);
+    return stages;
+}
 
 // These JNI (Java Native Interface) functions serve as the bridge between the Java/Kotlin
 // layer and the native Assembly filter implementations.
@@ -51,7 +373,8 @@ extern "C" void sepia(
 // For 'apply' functions:
 // 1. They retrieve the Android Bitmap's information and validate its format (RGBA_8888).
 // 2. They lock the bitmap's pixels to obtain a direct pointer to the raw pixel data.
-// 3. They call the corresponding external Assembly function to perform the image processing.
+// 3. They call the corresponding external Assembly function to perform the image processing,
+//    splitting the image into row bands that run in parallel on the shared ThreadPool.
 // 4. Finally, they unlock the bitmap's pixels, making the modified data available to Java.
 //
 // For 'measure' functions:
@@ -86,14 +409,11 @@ Java_com_rivan_neon_filters_NativeFilters_applyGrayscale(
         return;
     }
 
-    grayscale(
-            reinterpret_cast<uint8_t*>(pixels),
-            info.width,
-            info.height,
-            info.stride,
-            redCoefficient,
-            greenCoefficient,
-            blueCoefficient);
+    forEachBand(reinterpret_cast<uint8_t*>(pixels), info.height, info.stride,
+                [&](uint8_t* band, uint32_t rows) {
+        kernels->grayscale(band, info.width, rows, info.stride,
+                  redCoefficient, greenCoefficient, blueCoefficient);
+    });
 
     AndroidBitmap_unlockPixels(env, bitmap);
 }
@@ -127,14 +447,11 @@ Java_com_rivan_neon_filters_NativeFilters_measureGrayscale(
 
     auto start_time = std::chrono::high_resolution_clock::now();
 
-    grayscale(
-            reinterpret_cast<uint8_t*>(pixels),
-            info.width,
-            info.height,
-            info.stride,
-            redCoefficient,
-            greenCoefficient,
-            blueCoefficient);
+    forEachBand(reinterpret_cast<uint8_t*>(pixels), info.height, info.stride,
+                [&](uint8_t* band, uint32_t rows) {
+        kernels->grayscale(band, info.width, rows, info.stride,
+                  redCoefficient, greenCoefficient, blueCoefficient);
+    });
 
     auto end_time = std::chrono::high_resolution_clock::now();
 
@@ -167,11 +484,10 @@ Java_com_rivan_neon_filters_NativeFilters_applyInvert(
         return;
     }
 
-    invert(
-           reinterpret_cast<uint8_t*>(pixels),
-           info.width,
-           info.height,
-           info.stride);
+    forEachBand(reinterpret_cast<uint8_t*>(pixels), info.height, info.stride,
+                [&](uint8_t* band, uint32_t rows) {
+        kernels->invert(band, info.width, rows, info.stride);
+    });
 
     AndroidBitmap_unlockPixels(env, bitmap);
 }
@@ -202,11 +518,10 @@ Java_com_rivan_neon_filters_NativeFilters_measureInvert(
 
     auto start_time = std::chrono::high_resolution_clock::now();
 
-    invert(
-            reinterpret_cast<uint8_t*>(pixels),
-            info.width,
-            info.height,
-            info.stride);
+    forEachBand(reinterpret_cast<uint8_t*>(pixels), info.height, info.stride,
+                [&](uint8_t* band, uint32_t rows) {
+        kernels->invert(band, info.width, rows, info.stride);
+    });
 
     auto end_time = std::chrono::high_resolution_clock::now();
 
@@ -240,12 +555,10 @@ Java_com_rivan_neon_filters_NativeFilters_applyBrightness(
         return;
     }
 
-    brightness(
-           reinterpret_cast<uint8_t*>(pixels),
-           info.width,
-           info.height,
-           info.stride,
-           brightnessAdjustment);
+    forEachBand(reinterpret_cast<uint8_t*>(pixels), info.height, info.stride,
+                [&](uint8_t* band, uint32_t rows) {
+        kernels->brightness(band, info.width, rows, info.stride, brightnessAdjustment);
+    });
 
     AndroidBitmap_unlockPixels(env, bitmap);
 }
@@ -277,12 +590,10 @@ Java_com_rivan_neon_filters_NativeFilters_measureBrightness(
 
     auto start_time = std::chrono::high_resolution_clock::now();
 
-    brightness(
-            reinterpret_cast<uint8_t*>(pixels),
-            info.width,
-            info.height,
-            info.stride,
-            brightnessAdjustment);
+    forEachBand(reinterpret_cast<uint8_t*>(pixels), info.height, info.stride,
+                [&](uint8_t* band, uint32_t rows) {
+        kernels->brightness(band, info.width, rows, info.stride, brightnessAdjustment);
+    });
 
     auto end_time = std::chrono::high_resolution_clock::now();
 
@@ -316,12 +627,10 @@ Java_com_rivan_neon_filters_NativeFilters_applyContrast(
         return;
     }
 
-    contrast(
-            reinterpret_cast<uint8_t*>(pixels),
-            info.width,
-            info.height,
-            info.stride,
-            contrastFactor);
+    forEachBand(reinterpret_cast<uint8_t*>(pixels), info.height, info.stride,
+                [&](uint8_t* band, uint32_t rows) {
+        kernels->contrast(band, info.width, rows, info.stride, contrastFactor);
+    });
 
     AndroidBitmap_unlockPixels(env, bitmap);
 }
@@ -353,12 +662,10 @@ Java_com_rivan_neon_filters_NativeFilters_measureContrast(
 
     auto start_time = std::chrono::high_resolution_clock::now();
 
-    contrast(
-            reinterpret_cast<uint8_t*>(pixels),
-            info.width,
-            info.height,
-            info.stride,
-            contrastFactor);
+    forEachBand(reinterpret_cast<uint8_t*>(pixels), info.height, info.stride,
+                [&](uint8_t* band, uint32_t rows) {
+        kernels->contrast(band, info.width, rows, info.stride, contrastFactor);
+    });
 
     auto end_time = std::chrono::high_resolution_clock::now();
 
@@ -391,11 +698,10 @@ Java_com_rivan_neon_filters_NativeFilters_applySepia(
         return;
     }
 
-    sepia(
-          reinterpret_cast<uint8_t*>(pixels),
-          info.width,
-          info.height,
-          info.stride);
+    forEachBand(reinterpret_cast<uint8_t*>(pixels), info.height, info.stride,
+                [&](uint8_t* band, uint32_t rows) {
+        kernels->sepia(band, info.width, rows, info.stride);
+    });
 
     AndroidBitmap_unlockPixels(env, bitmap);
 }
@@ -426,11 +732,88 @@ Java_com_rivan_neon_filters_NativeFilters_measureSepia(
 
     auto start_time = std::chrono::high_resolution_clock::now();
 
-    sepia(
-            reinterpret_cast<uint8_t*>(pixels),
-            info.width,
-            info.height,
-            info.stride);
+    forEachBand(reinterpret_cast<uint8_t*>(pixels), info.height, info.stride,
+                [&](uint8_t* band, uint32_t rows) {
+        kernels->sepia(band, info.width, rows, info.stride);
+    });
+
+    auto end_time = std::chrono::high_resolution_clock::now();
+
+    AndroidBitmap_unlockPixels(env, bitmap);
+
+    return std::chrono::duration_cast<std::chrono::nanoseconds>(end_time - start_time).count();
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyChain(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject bitmap,
+        jintArray filterIds,
+        jfloatArray packedParams) {
+    AndroidBitmapInfo info;
+    void* pixels;
+    int ret;
+    std::vector<ChainStage> stages;
+
+    if (!readChain(env, filterIds, packedParams, stages) || stages.empty()) {
+        return;
+    }
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmap, &info)) < 0) {
+        LOGE("AndroidBitmapInfo_getInfo() failed! error=%d", ret);
+        return;
+    }
+
+    if (info.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888");
+        return;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmap, &pixels)) < 0) {
+        LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+        return;
+    }
+
+    runChain(stages, reinterpret_cast<uint8_t*>(pixels), info);
+
+    AndroidBitmap_unlockPixels(env, bitmap);
+}
+
+extern "C" JNIEXPORT jlong JNICALL
+Java_com_rivan_neon_filters_NativeFilters_measureChain(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject bitmap,
+        jintArray filterIds,
+        jfloatArray packedParams) {
+    AndroidBitmapInfo info;
+    void* pixels;
+    int ret;
+    std::vector<ChainStage> stages;
+
+    if (!readChain(env, filterIds, packedParams, stages)) {
+        return -4;
+    }
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmap, &info)) < 0) {
+        LOGE("AndroidBitmapInfo_getInfo() failed! error=%d", ret);
+        return -1;
+    }
+
+    if (info.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888");
+        return -2;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmap, &pixels)) < 0) {
+        LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+        return -3;
+    }
+
+    auto start_time = std::chrono::high_resolution_clock::now();
+
+    runChain(stages, reinterpret_cast<uint8_t*>(pixels), info);
 
     auto end_time = std::chrono::high_resolution_clock::now();
 
@@ -438,3 +821,783 @@ Java_com_rivan_neon_filters_NativeFilters_measureSepia(
 
     return std::chrono::duration_cast<std::chrono::nanoseconds>(end_time - start_time).count();
 }
+
+// Out-of-place entry points. They read every pixel from 'src' and write the result into
+// 'dst', which must have the same size, in a single pass, instead of filtering a copy of the
+// source in place. Passing the same bitmap twice filters it in place.
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyGrayscaleTo(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst,
+        jfloat redCoefficient,
+        jfloat greenCoefficient,
+        jfloat blueCoefficient) {
+    applyChainToBitmap(env, src, dst, singleStage(CHAIN_GRAYSCALE,
+                                                  {redCoefficient, greenCoefficient,
+                                                   blueCoefficient}));
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyInvertTo(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst) {
+    applyChainToBitmap(env, src, dst, singleStage(CHAIN_INVERT, {}));
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyBrightnessTo(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst,
+        jint brightnessAdjustment) {
+    applyChainToBitmap(env, src, dst, singleStage(CHAIN_BRIGHTNESS,
+                                                  {static_cast<float>(brightnessAdjustment)}));
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyContrastTo(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst,
+        jfloat contrastFactor) {
+    applyChainToBitmap(env, src, dst, singleStage(CHAIN_CONTRAST, {contrastFactor}));
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applySepiaTo(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst) {
+    applyChainToBitmap(env, src, dst, singleStage(CHAIN_SEPIA, {}));
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyColorMatrixTo(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst,
+        jfloatArray matrix) {
+    std::vector<ChainStage> stages(1);
+    stages[0].filterId = CHAIN_COLOR_MATRIX;
+    if (!readColorMatrix(env, matrix, stages[0].params)) {
+        return;
+    }
+    applyChainToBitmap(env, src, dst, stages);
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyChainTo(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst,
+        jintArray filterIds,
+        jfloatArray packedParams) {
+    std::vector<ChainStage> stages;
+    if (!readChain(env, filterIds, packedParams, stages)) {
+        return;
+    }
+    applyChainToBitmap(env, src, dst, stages);
+}
+
+// Applies a chain in place to pixels held in a direct ByteBuffer, e.g. a decoded frame or a
+// memory-mapped file, without copying them into a Bitmap. The first pixel is at 'offset' bytes
+// from the start of the buffer, and nothing is written at or past 'limit', the buffer's limit.
+// The buffer must be writable, which the Java side checks: JNI cannot tell.
+// Returns 0, or a negative error code: -1 if the buffer is not direct, -2 if the format is
+// unknown, -4 if the chain is invalid and -5 if the image does not fit in the buffer.
+extern "C" JNIEXPORT jint JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyChainToBuffer(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject buffer,
+        jint offset,
+        jint limit,
+        jint width,
+        jint height,
+        jint stride,
+        jint format,
+        jintArray filterIds,
+        jfloatArray packedParams) {
+    auto* address = static_cast<uint8_t*>(env->GetDirectBufferAddress(buffer));
+    jlong capacity = env->GetDirectBufferCapacity(buffer);
+    if (address == nullptr || capacity < 0) {
+        LOGE("Pixels must be in a direct ByteBuffer");
+        return -1;
+    }
+
+    if (format != PIXEL_FORMAT_RGBA_8888 && format != PIXEL_FORMAT_BGRA_8888) {
+        LOGE("Unknown pixel format %d", format);
+        return -2;
+    }
+
+    std::vector<ChainStage> stages;
+    if (!readChain(env, filterIds, packedParams, stages)) {
+        return -4;
+    }
+
+    // Computed in 64 bits: width * 4 overflows a jint for widths above 2^29. The kernels take
+    // 32-bit sizes, so wider rows are rejected too.
+    jlong rowBytes = static_cast<jlong>(width) * 4;
+    if (width <= 0 || height <= 0 || offset < 0 || limit > capacity
+            || rowBytes > UINT32_MAX || stride < rowBytes
+            || offset + static_cast<jlong>(stride) * (height - 1) + rowBytes > limit) {
+        LOGE("A %dx%d image with a stride of %d at offset %d does not fit in %d bytes",
+             width, height, stride, offset, limit);
+        return -5;
+    }
+
+    if (format == PIXEL_FORMAT_BGRA_8888) {
+        convertChainToBgra(stages);
+    }
+
+    runChain(stages, address + offset, static_cast<uint32_t>(width),
+             static_cast<uint32_t>(height), static_cast<uint32_t>(stride));
+    return 0;
+}
+
+// A convolution kernel read from Java, see convolution.h. 'weights' holds the 2D weights of
+// kernels that are not separable, and is empty otherwise.
+struct Convolution {
+    uint32_t radius;
+    std::vector<float> horizontal;
+    std::vector<float> vertical;
+    std::vector<float> weights;
+    float identityWeight;
+    int edgeMode;
+};
+
+// Largest radius accepted from Java, far beyond what any filter uses.
+static constexpr uint32_t MAX_CONVOLUTION_RADIUS = 1024;
+
+static bool readWeights(JNIEnv* env, jfloatArray array, std::vector<float>& weights) {
+    if (array == nullptr) {
+        LOGE("Convolution weights must not be null");
+        return false;
+    }
+    weights.resize(env->GetArrayLength(array));
+    if (!weights.empty()) {
+        env->GetFloatArrayRegion(array, 0, static_cast<jsize>(weights.size()), weights.data());
+    }
+    return true;
+}
+
+// Runs a convolution from one locked image into another, one band of rows per thread of the
+// pool. Returns false if a band runs out of memory.
+static bool runConvolution(const Convolution& convolution, const uint8_t* src,
+                           uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                           uint32_t width, uint32_t height) {
+    std::atomic<bool> failed(false);
+    forEachBand(dst, height, dstStride, [&](uint8_t* band, uint32_t rows) {
+        auto firstRow = static_cast<uint32_t>((band - dst) / dstStride);
+        int ret;
+        if (convolution.weights.empty()) {
+            ret = convolve_separable(src, srcStride, dst, dstStride, width, height, firstRow,
+                                     firstRow + rows, convolution.horizontal.data(),
+                                     convolution.vertical.data(), convolution.radius,
+                                     convolution.identityWeight, convolution.edgeMode);
+        } else {
+            ret = convolve_2d(src, srcStride, dst, dstStride, width, height, firstRow,
+                              firstRow + rows, convolution.weights.data(), convolution.radius,
+                              convolution.identityWeight, convolution.edgeMode);
+        }
+        if (ret != 0) {
+            failed = true;
+        }
+    });
+    return !failed;
+}
+
+// Runs a neighborhood filter from one locked image into another, of the same size. Returns false
+// if the scratch memory cannot be allocated.
+using NeighborhoodFilter = std::function<bool(const uint8_t* src, uint32_t srcStride,
+                                              uint8_t* dst, uint32_t dstStride, uint32_t width,
+                                              uint32_t height)>;
+
+// Locks a source and a destination bitmap and runs a neighborhood filter from one into the other.
+// If both are the same bitmap and copyInPlace is true, the source pixels are copied first, for
+// filters that cannot read and write the same image.
+// Returns 0, or a negative error code: -1 to -3 as for the measure functions, -5 if the bitmaps
+// do not have the same size and -6 if the scratch memory cannot be allocated.
+static int runOnBitmaps(JNIEnv* env, jobject src, jobject dst, bool copyInPlace,
+                        const NeighborhoodFilter& filter) {
+    AndroidBitmapInfo srcInfo;
+    AndroidBitmapInfo dstInfo;
+    void* srcPixels;
+    void* dstPixels;
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, src, &srcInfo)) < 0
+            || (ret = AndroidBitmap_getInfo(env, dst, &dstInfo)) < 0) {
+        LOGE("AndroidBitmapInfo_getInfo() failed! error=%d", ret);
+        return -1;
+    }
+
+    if (srcInfo.format != ANDROID_BITMAP_FORMAT_RGBA_8888
+            || dstInfo.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888");
+        return -2;
+    }
+
+    if (srcInfo.width != dstInfo.width || srcInfo.height != dstInfo.height) {
+        LOGE("Destination is %ux%u but source is %ux%u",
+             dstInfo.width, dstInfo.height, srcInfo.width, srcInfo.height);
+        return -5;
+    }
+
+    bool inPlace = env->IsSameObject(src, dst);
+    if (!inPlace && (ret = AndroidBitmap_lockPixels(env, src, &srcPixels)) < 0) {
+        LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+        return -3;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, dst, &dstPixels)) < 0) {
+        LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+        if (!inPlace) {
+            AndroidBitmap_unlockPixels(env, src);
+        }
+        return -3;
+    }
+
+    std::vector<uint8_t> copy;
+    bool ok = true;
+    if (inPlace && copyInPlace) {
+        auto* pixels = reinterpret_cast<uint8_t*>(dstPixels);
+        try {
+            copy.assign(pixels, pixels + static_cast<size_t>(dstInfo.stride) * dstInfo.height);
+            srcPixels = copy.data();
+        } catch (const std::bad_alloc&) {
+            ok = false;
+        }
+    } else if (inPlace) {
+        srcPixels = dstPixels;
+    }
+
+    ok = ok && filter(reinterpret_cast<const uint8_t*>(srcPixels), srcInfo.stride,
+                      reinterpret_cast<uint8_t*>(dstPixels), dstInfo.stride, dstInfo.width,
+                      dstInfo.height);
+
+    AndroidBitmap_unlockPixels(env, dst);
+    if (!inPlace) {
+        AndroidBitmap_unlockPixels(env, src);
+    }
+    if (!ok) {
+        LOGE("Not enough memory for the filter");
+        return -6;
+    }
+    return 0;
+}
+
+// Locks a source and a destination bitmap and convolves one into the other. If both are the
+// same bitmap, the source pixels are copied first, as every output pixel reads its neighbours.
+// Returns 0, or a negative error code as for runOnBitmaps.
+static int convolveBitmap(JNIEnv* env, jobject src, jobject dst,
+                          const Convolution& convolution) {
+    return runOnBitmaps(env, src, dst, true,
+                        [&](const uint8_t* srcPixels, uint32_t srcStride, uint8_t* dstPixels,
+                            uint32_t dstStride, uint32_t width, uint32_t height) {
+                            return runConvolution(convolution, srcPixels, srcStride, dstPixels,
+                                                  dstStride, width, height);
+                        });
+}
+
+// Convolves src into dst with the separable kernel horizontal^T * vertical, plus identityWeight
+// times the source, see convolution.h. Both weight arrays must have the same odd length.
+// Returns 0, or a negative error code as for convolveBitmap, and -4 if the kernel is invalid.
+extern "C" JNIEXPORT jint JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applySeparableConvolution(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst,
+        jfloatArray horizontal,
+        jfloatArray vertical,
+        jfloat identityWeight,
+        jint edgeMode) {
+    Convolution convolution;
+    if (!readWeights(env, horizontal, convolution.horizontal)
+            || !readWeights(env, vertical, convolution.vertical)) {
+        return -4;
+    }
+
+    size_t size = convolution.horizontal.size();
+    if (size % 2 == 0 || size != convolution.vertical.size()
+            || size > 2 * MAX_CONVOLUTION_RADIUS + 1) {
+        LOGE("Invalid separable kernel of %zu x %zu weights", size,
+             convolution.vertical.size());
+        return -4;
+    }
+    if (edgeMode < 0 || edgeMode >= EDGE_MODE_COUNT) {
+        LOGE("Unknown edge mode %d", edgeMode);
+        return -4;
+    }
+
+    convolution.radius = static_cast<uint32_t>(size / 2);
+    convolution.identityWeight = identityWeight;
+    convolution.edgeMode = edgeMode;
+    return convolveBitmap(env, src, dst, convolution);
+}
+
+// Convolves src into dst with a square kernel of odd size, row-major, plus identityWeight times
+// the source, see convolution.h. Costs O(radius^2) per pixel.
+// Returns 0, or a negative error code as for convolveBitmap, and -4 if the kernel is invalid.
+extern "C" JNIEXPORT jint JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyConvolution(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst,
+        jfloatArray weights,
+        jfloat identityWeight,
+        jint edgeMode) {
+    Convolution convolution;
+    if (!readWeights(env, weights, convolution.weights)) {
+        return -4;
+    }
+
+    auto size = static_cast<size_t>(std::lround(std::sqrt(convolution.weights.size())));
+    if (size % 2 == 0 || size * size != convolution.weights.size()
+            || size > 2 * MAX_CONVOLUTION_RADIUS + 1) {
+        LOGE("Invalid kernel of %zu weights", convolution.weights.size());
+        return -4;
+    }
+    if (edgeMode < 0 || edgeMode >= EDGE_MODE_COUNT) {
+        LOGE("Unknown edge mode %d", edgeMode);
+        return -4;
+    }
+
+    convolution.radius = static_cast<uint32_t>(size / 2);
+    convolution.identityWeight = identityWeight;
+    convolution.edgeMode = edgeMode;
+    return convolveBitmap(env, src, dst, convolution);
+}
+
+// Largest number of box passes accepted from Java. Three already approximate a Gaussian.
+static constexpr jsize MAX_BOX_PASSES = 8;
+
+// Runs stacked box passes from one locked image into another, see box_blur.h. All horizontal
+// passes run on each band of rows at once, in place when src is dst, then every vertical pass
+// runs on strips of columns. The vertical passes alternate between dst and a scratch image, and
+// the horizontal passes write into whichever makes the last vertical pass end in dst.
+// Returns false if the scratch memory cannot be allocated.
+static bool runBoxBlur(const std::vector<uint32_t>& radii, int edgeMode, const uint8_t* src,
+                       uint32_t srcStride, uint8_t* dst, uint32_t dstStride, uint32_t width,
+                       uint32_t height) {
+    const uint32_t scratchStride = width * 4;
+    std::vector<uint8_t> scratch;
+    try {
+        scratch.resize(static_cast<size_t>(scratchStride) * height);
+    } catch (const std::bad_alloc&) {
+        return false;
+    }
+
+    auto passes = static_cast<uint32_t>(radii.size());
+    bool oddPasses = passes % 2 == 1;
+    uint8_t* in = oddPasses ? scratch.data() : dst;
+    uint32_t inStride = oddPasses ? scratchStride : dstStride;
+    uint8_t* out = oddPasses ? dst : scratch.data();
+    uint32_t outStride = oddPasses ? dstStride : scratchStride;
+
+    std::atomic<bool> failed(false);
+    forEachBand(in, height, inStride, [&](uint8_t* band, uint32_t rows) {
+        auto firstRow = static_cast<uint32_t>((band - in) / inStride);
+        if (box_blur_rows(src, srcStride, in, inStride, width, firstRow, firstRow + rows,
+                          radii.data(), passes, edgeMode) != 0) {
+            failed = true;
+        }
+    });
+
+    for (uint32_t radius : radii) {
+        forEachColumnStrip(width, [&](uint32_t firstColumn, uint32_t lastColumn) {
+            if (box_blur_columns(in, inStride, out, outStride, height, firstColumn, lastColumn,
+                                 radius, edgeMode) != 0) {
+                failed = true;
+            }
+        });
+        std::swap(in, out);
+        std::swap(inStride, outStride);
+    }
+    return !failed;
+}
+
+// Blurs src into dst with one box pass of every radius along the rows and then along the
+// columns, see box_blur.h. Every pass costs the same per pixel whatever its radius.
+// Returns 0, or a negative error code as for runOnBitmaps, and -4 if the radii or the edge mode
+// are invalid.
+extern "C" JNIEXPORT jint JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyBoxBlur(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst,
+        jintArray radii,
+        jint edgeMode) {
+    jsize passes = radii != nullptr ? env->GetArrayLength(radii) : 0;
+    if (passes < 1 || passes > MAX_BOX_PASSES) {
+        LOGE("Invalid number of box passes %d", passes);
+        return -4;
+    }
+    if (edgeMode < 0 || edgeMode >= EDGE_MODE_COUNT) {
+        LOGE("Unknown edge mode %d", edgeMode);
+        return -4;
+    }
+
+    jint values[MAX_BOX_PASSES];
+    env->GetIntArrayRegion(radii, 0, passes, values);
+    std::vector<uint32_t> boxRadii;
+    for (jsize i = 0; i < passes; i++) {
+        if (values[i] < 0 || static_cast<uint32_t>(values[i]) > MAX_CONVOLUTION_RADIUS) {
+            LOGE("Invalid box radius %d", values[i]);
+            return -4;
+        }
+        boxRadii.push_back(static_cast<uint32_t>(values[i]));
+    }
+
+    return runOnBitmaps(env, src, dst, false,
+                        [&](const uint8_t* srcPixels, uint32_t srcStride, uint8_t* dstPixels,
+                            uint32_t dstStride, uint32_t width, uint32_t height) {
+                            return runBoxBlur(boxRadii, edgeMode, srcPixels, srcStride,
+                                              dstPixels, dstStride, width, height);
+                        });
+}
+
+// Counts the values of every channel of a bitmap, see histogram.h. Every band of rows is counted
+// into its own counters, which are added to the totals once the band is done. 'counts' receives
+// HISTOGRAM_CHANNELS * HISTOGRAM_BINS values, channel by channel.
+// Returns 0, or a negative error code: -1 to -3 as for the measure functions, and -4 if 'counts'
+// is too short.
+extern "C" JNIEXPORT jint JNICALL
+Java_com_rivan_neon_filters_NativeFilters_computeHistogram(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject bitmap,
+        jintArray counts) {
+    constexpr jsize COUNT_SIZE = HISTOGRAM_CHANNELS * HISTOGRAM_BINS;
+    if (counts == nullptr || env->GetArrayLength(counts) < COUNT_SIZE) {
+        LOGE("The histogram needs %d counts", COUNT_SIZE);
+        return -4;
+    }
+
+    AndroidBitmapInfo info;
+    void* pixels;
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmap, &info)) < 0) {
+        LOGE("AndroidBitmapInfo_getInfo() failed! error=%d", ret);
+        return -1;
+    }
+
+    if (info.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888");
+        return -2;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmap, &pixels)) < 0) {
+        LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+        return -3;
+    }
+
+    auto* base = reinterpret_cast<uint8_t*>(pixels);
+    uint32_t totals[HISTOGRAM_CHANNELS][HISTOGRAM_BINS] = {};
+    std::mutex totalsMutex;
+    forEachBand(base, info.height, info.stride, [&](uint8_t* band, uint32_t rows) {
+        uint32_t bandCounts[HISTOGRAM_CHANNELS][HISTOGRAM_BINS] = {};
+        histogram_rows(band, info.stride, info.width, 0, rows, bandCounts);
+
+        std::lock_guard<std::mutex> lock(totalsMutex);
+        for (int c = 0; c < HISTOGRAM_CHANNELS; c++) {
+            for (int v = 0; v < HISTOGRAM_BINS; v++) {
+                totals[c][v] += bandCounts[c][v];
+            }
+        }
+    });
+
+    AndroidBitmap_unlockPixels(env, bitmap);
+
+    env->SetIntArrayRegion(counts, 0, COUNT_SIZE, reinterpret_cast<const jint*>(totals));
+    return 0;
+}
+
+// Maps the red, green and blue channels of src through a table each and writes the result into
+// dst, see histogram.h. 'tables' holds the 256 entries of the red table, then the green and the
+// blue ones. Passing the same bitmap twice maps it in place.
+// Returns 0, or a negative error code as for runOnBitmaps, and -4 if 'tables' is too short.
+extern "C" JNIEXPORT jint JNICALL
+Java_com_rivan_neon_filters_NativeFilters_applyLut(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst,
+        jbyteArray tables) {
+    constexpr jsize TABLE_SIZE = 3 * HISTOGRAM_BINS;
+    if (tables == nullptr || env->GetArrayLength(tables) < TABLE_SIZE) {
+        LOGE("The lookup tables need %d entries", TABLE_SIZE);
+        return -4;
+    }
+    uint8_t lut[3][HISTOGRAM_BINS];
+    env->GetByteArrayRegion(tables, 0, TABLE_SIZE, reinterpret_cast<jbyte*>(lut));
+
+    return runOnBitmaps(env, src, dst, false,
+                        [&](const uint8_t* srcPixels, uint32_t srcStride, uint8_t* dstPixels,
+                            uint32_t dstStride, uint32_t width, uint32_t height) {
+                            forEachBand(dstPixels, height, dstStride,
+                                        [&](uint8_t* band, uint32_t rows) {
+                                auto firstRow = static_cast<uint32_t>(
+                                        (band - dstPixels) / dstStride);
+                                lut_apply_rows(srcPixels, srcStride, dstPixels, dstStride,
+                                               width, firstRow, firstRow + rows, lut);
+                            });
+                            return true;
+                        });
+}
+
+// Resamples src into dst, which usually has another size, see resize.h. The columns are resized
+// into an intermediate image of the source width and the destination height, then its rows are
+// resized into dst, both in bands of rows on the shared pool. src and dst must be different
+// bitmaps.
+// Returns 0, or a negative error code: -1 to -3 as for runOnBitmaps, -4 if the method is invalid
+// or both bitmaps are the same and -6 if the scratch memory cannot be allocated.
+extern "C" JNIEXPORT jint JNICALL
+Java_com_rivan_neon_filters_NativeFilters_resize(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject src,
+        jobject dst,
+        jint method) {
+    if (method < RESIZE_AUTO || method > RESIZE_AREA || env->IsSameObject(src, dst)) {
+        LOGE("Invalid resize of method %d", method);
+        return -4;
+    }
+
+    AndroidBitmapInfo srcInfo;
+    AndroidBitmapInfo dstInfo;
+    void* srcPixels;
+    void* dstPixels;
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, src, &srcInfo)) < 0
+            || (ret = AndroidBitmap_getInfo(env, dst, &dstInfo)) < 0) {
+        LOGE("AndroidBitmapInfo_getInfo() failed! error=%d", ret);
+        return -1;
+    }
+
+    if (srcInfo.format != ANDROID_BITMAP_FORMAT_RGBA_8888
+            || dstInfo.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888");
+        return -2;
+    }
+
+    ResizeTaps horizontal;
+    ResizeTaps vertical;
+    if (resize_taps_init(&horizontal, srcInfo.width, dstInfo.width, method) != 0) {
+        return -6;
+    }
+    if (resize_taps_init(&vertical, srcInfo.height, dstInfo.height, method) != 0) {
+        resize_taps_free(&horizontal);
+        return -6;
+    }
+
+    std::vector<uint8_t> middle;
+    uint32_t middleStride = srcInfo.width * 4;
+    try {
+        middle.resize(static_cast<size_t>(middleStride) * dstInfo.height);
+    } catch (const std::bad_alloc&) {
+        resize_taps_free(&vertical);
+        resize_taps_free(&horizontal);
+        LOGE("Not enough memory for the resize");
+        return -6;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, src, &srcPixels)) < 0) {
+        LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+        resize_taps_free(&vertical);
+        resize_taps_free(&horizontal);
+        return -3;
+    }
+    if ((ret = AndroidBitmap_lockPixels(env, dst, &dstPixels)) < 0) {
+        LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+        AndroidBitmap_unlockPixels(env, src);
+        resize_taps_free(&vertical);
+        resize_taps_free(&horizontal);
+        return -3;
+    }
+
+    auto* in = reinterpret_cast<const uint8_t*>(srcPixels);
+    auto* out = reinterpret_cast<uint8_t*>(dstPixels);
+    uint8_t* intermediate = middle.data();
+    forEachBand(intermediate, dstInfo.height, middleStride, [&](uint8_t* band, uint32_t rows) {
+        auto firstRow = static_cast<uint32_t>((band - intermediate) / middleStride);
+        resize_columns(in, srcInfo.stride, intermediate, middleStride, srcInfo.width, firstRow,
+                       firstRow + rows, &vertical);
+    });
+    forEachBand(out, dstInfo.height, dstInfo.stride, [&](uint8_t* band, uint32_t rows) {
+        auto firstRow = static_cast<uint32_t>((band - out) / dstInfo.stride);
+        resize_rows(intermediate, middleStride, out, dstInfo.stride, firstRow, firstRow + rows,
+                    &horizontal);
+    });
+
+    AndroidBitmap_unlockPixels(env, dst);
+    AndroidBitmap_unlockPixels(env, src);
+    resize_taps_free(&vertical);
+    resize_taps_free(&horizontal);
+    return 0;
+}
+
+// Runs a chain repeatedly on a locked bitmap and records the time of every iteration.
+//
+// The source pixels are copied once into native memory and copied back before each iteration,
+// outside of the timed region, so every sample processes the same input without going back to
+// Java. The first warmupIterations samples are discarded. The bitmap is left holding the result
+// of the last iteration, i.e. the chain applied once.
+//
+// Returns one sample in nanoseconds per measured iteration, or null if the bitmap cannot be
+// accessed, the chain is invalid, the counts are out of range or the copy of the pixels cannot be
+// allocated.
+extern "C" JNIEXPORT jlongArray JNICALL
+Java_com_rivan_neon_filters_NativeFilters_benchmarkChain(
+        JNIEnv *env,
+        jclass /* this */,
+        jobject bitmap,
+        jintArray filterIds,
+        jfloatArray packedParams,
+        jint warmupIterations,
+        jint iterations) {
+    AndroidBitmapInfo info;
+    void* pixels;
+    int ret;
+    std::vector<ChainStage> stages;
+
+    if (warmupIterations < 0 || iterations <= 0) {
+        LOGE("Invalid iteration counts: warmup=%d, iterations=%d", warmupIterations, iterations);
+        return nullptr;
+    }
+
+    if (!readChain(env, filterIds, packedParams, stages)) {
+        return nullptr;
+    }
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmap, &info)) < 0) {
+        LOGE("AndroidBitmapInfo_getInfo() failed! error=%d", ret);
+        return nullptr;
+    }
+
+    if (info.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888");
+        return nullptr;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmap, &pixels)) < 0) {
+        LOGE("AndroidBitmap_lockPixels() failed! error=%d", ret);
+        return nullptr;
+    }
+
+    auto* data = reinterpret_cast<uint8_t*>(pixels);
+    size_t size = static_cast<size_t>(info.stride) * info.height;
+    std::vector<uint8_t> source;
+    std::vector<jlong> samples;
+    try {
+        source.assign(data, data + size);
+        samples.resize(iterations);
+    } catch (const std::bad_alloc&) {
+        AndroidBitmap_unlockPixels(env, bitmap);
+        LOGE("Not enough memory for the benchmark");
+        return nullptr;
+    }
+
+    for (jint i = -warmupIterations; i < iterations; i++) {
+        std::memcpy(data, source.data(), size);
+
+        auto start_time = std::chrono::steady_clock::now();
+
+        runChain(stages, data, info);
+
+        auto end_time = std::chrono::steady_clock::now();
+
+        if (i >= 0) {
+            samples[i] = std::chrono::duration_cast<std::chrono::nanoseconds>(
+                    end_time - start_time).count();
+        }
+    }
+
+    AndroidBitmap_unlockPixels(env, bitmap);
+
+    jlongArray result = env->NewLongArray(iterations);
+    if (result != nullptr) {
+        env->SetLongArrayRegion(result, 0, iterations, samples.data());
+    }
+    return result;
+}
+
+extern "C" JNIEXPORT void JNICALL
+Java_com_rivan_neon_filters_NativeFilters_setThreadCount(
+        JNIEnv* /* env */,
+        jclass /* this */,
+        jint threadCount) {
+    ThreadPool::setThreadCount(threadCount);
+}
+
+extern "C" JNIEXPORT jint JNICALL
+Java_com_rivan_neon_filters_NativeFilters_getThreadCount(
+        JNIEnv* /* env */,
+        jclass /* this */) {
+    return ThreadPool::threadCount();
+}
+
+extern "C" JNIEXPORT jint JNICALL
+JNI_OnLoad(JavaVM* /* vm */, void* /* reserved */) {
+    kernels = activeKernels();
+
+    for (int id = 0; id < KERNEL_COUNT; id++) {
+        LOGI("Filter %d uses the %s kernels", id, kernels->variants[id]);
+    }
+    return JNI_VERSION_1_6;
+}
+
+extern "C" JNIEXPORT jstring JNICALL
+Java_com_rivan_neon_filters_NativeFilters_getKernelVariant(
+        JNIEnv* env,
+        jclass /* this */,
+        jint filterId) {
+    if (filterId < 0 || filterId >= KERNEL_COUNT) {
+        LOGE("Unknown filter id %d", filterId);
+        return nullptr;
+    }
+    return env->NewStringUTF(kernels->variants[filterId]);
+}
+
+extern "C" JNIEXPORT jstring JNICALL
+Java_com_rivan_neon_filters_NativeFilters_getCpuFeatures(
+        JNIEnv* env,
+        jclass /* this */) {
+    static const struct {
+        uint32_t feature;
+        const char* name;
+    } names[] = {
+            {CPU_FEATURE_ASIMD, "asimd"},
+            {CPU_FEATURE_FP16, "fp16"},
+            {CPU_FEATURE_DOTPROD, "dotprod"},
+            {CPU_FEATURE_SVE, "sve"},
+            {CPU_FEATURE_AVX2, "avx2"},
+    };
+
+    uint32_t features = cpuFeatures();
+    std::string result;
+    for (const auto& entry : names) {
+        if (features & entry.feature) {
+            if (!result.empty()) {
+                result += ' ';
+            }
+            result += entry.name;
+        }
+    }
+    return env->NewStringUTF(result.c_str());
+}
@@ -0,0 +1,173 @@
+// Histograms and table lookups, see histogram.h.
+//
+// Counting is a scatter, which has no vector form: what limits it is that two pixels with the
+// same value increment the same counter back to back, and every increment waits for the
+// previous one to be stored. Alternate pixels therefore go to two sets of counters, summed at
+// the end of the band. The luma of a chunk of pixels is computed first, with Neon on arm64.
+//
+// Translucent pixels are unpremultiplied first. Opaque images, the usual case, skip it after
+// checking the alpha of every chunk.
+
+#include "histogram.h"
+
+#include <string.h>
+
+#if defined(__aarch64__)
+#include <arm_neon.h>
+#endif
+
+// Pixels whose luma is computed at once.
+#define CHUNK_PIXELS 64
+
+#define LUMA_RED 77
+#define LUMA_GREEN 150
+#define LUMA_BLUE 29
+
+// The unpremultiplied value of a color channel, rounded to the nearest like Bitmap.getPixels.
+// alpha must not be 0.
+static inline uint8_t unpremultiply(uint8_t value, uint8_t alpha) {
+    uint32_t result = ((uint32_t) value * 255 + alpha / 2) / alpha;
+    return (uint8_t) (result > 255 ? 255 : result);
+}
+
+// The premultiplied value of a color channel, rounded to the nearest like Bitmap.setPixels.
+static inline uint8_t premultiply(uint8_t value, uint8_t alpha) {
+    uint32_t product = (uint32_t) value * alpha + 128;
+    return (uint8_t) ((product + (product >> 8)) >> 8);
+}
+
+// Returns 'count' RGBA pixels unpremultiplied, either the pixels themselves if they are all
+// opaque, or 'scratch' holding a copy.
+static const uint8_t* unpremultiplyChunk(const uint8_t* restrict pixels,
+                                         uint8_t* restrict scratch, uint32_t count) {
+    uint8_t minAlpha = 255;
+    for (uint32_t i = 0; i < count; i++) {
+        uint8_t alpha = pixels[(size_t) i * 4 + 3];
+        minAlpha = alpha < minAlpha ? alpha : minAlpha;
+    }
+    if (minAlpha == 255) {
+        return pixels;
+    }
+
+    for (uint32_t i = 0; i < count; i++) {
+        const uint8_t* pixel = pixels + (size_t) i * 4;
+        uint8_t* result = scratch + (size_t) i * 4;
+        uint8_t alpha = pixel[3];
+        if (alpha == 0) {
+            memset(result, 0, 4);
+        } else {
+            result[0] = unpremultiply(pixel[0], alpha);
+            result[1] = unpremultiply(pixel[1], alpha);
+            result[2] = unpremultiply(pixel[2], alpha);
+            result[3] = alpha;
+        }
+    }
+    return scratch;
+}
+
+// luma[i] for 'count' RGBA pixels.
+static void lumaChunk(const uint8_t* restrict pixels, uint8_t* restrict luma, uint32_t count) {
+    uint32_t i = 0;
+#if defined(__aarch64__)
+    const uint8x8_t red = vdup_n_u8(LUMA_RED);
+    const uint8x8_t green = vdup_n_u8(LUMA_GREEN);
+    const uint8x8_t blue = vdup_n_u8(LUMA_BLUE);
+    for (; i + 16 <= count; i += 16) {
+        uint8x16x4_t rgba = vld4q_u8(pixels + (size_t) i * 4);
+        uint16x8_t low = vmull_u8(vget_low_u8(rgba.val[0]), red);
+        low = vmlal_u8(low, vget_low_u8(rgba.val[1]), green);
+        low = vmlal_u8(low, vget_low_u8(rgba.val[2]), blue);
+        uint16x8_t high = vmull_u8(vget_high_u8(rgba.val[0]), red);
+        high = vmlal_u8(high, vget_high_u8(rgba.val[1]), green);
+        high = vmlal_u8(high, vget_high_u8(rgba.val[2]), blue);
+        // The weights add up to 256, so the sums fit in 16 bits, and a rounding shift by 8
+        // adds the 128.
+        vst1q_u8(luma + i, vcombine_u8(vrshrn_n_u16(low, 8), vrshrn_n_u16(high, 8)));
+    }
+#endif
+    for (; i < count; i++) {
+        const uint8_t* pixel = pixels + (size_t) i * 4;
+        luma[i] = (uint8_t) ((LUMA_RED * pixel[0] + LUMA_GREEN * pixel[1]
+                + LUMA_BLUE * pixel[2] + 128) >> 8);
+    }
+}
+
+void histogram_rows(const uint8_t* pixels, uint32_t stride, uint32_t width, uint32_t firstRow,
+                    uint32_t lastRow, uint32_t counts[HISTOGRAM_CHANNELS][HISTOGRAM_BINS]) {
+    uint32_t stripes[2][HISTOGRAM_CHANNELS][HISTOGRAM_BINS];
+    memset(stripes, 0, sizeof(stripes));
+    uint8_t luma[CHUNK_PIXELS];
+    uint8_t unpremultiplied[CHUNK_PIXELS * 4];
+
+    for (uint32_t y = firstRow; y < lastRow; y++) {
+        const uint8_t* row = pixels + (size_t) y * stride;
+        for (uint32_t x0 = 0; x0 < width; x0 += CHUNK_PIXELS) {
+            uint32_t count = width - x0 < CHUNK_PIXELS ? width - x0 : CHUNK_PIXELS;
+            const uint8_t* chunk = unpremultiplyChunk(row + (size_t) x0 * 4, unpremultiplied,
+                                                      count);
+            lumaChunk(chunk, luma, count);
+
+            uint32_t i = 0;
+            for (; i + 2 <= count; i += 2) {
+                const uint8_t* even = chunk + (size_t) i * 4;
+                const uint8_t* odd = even + 4;
+                stripes[0][HISTOGRAM_RED][even[0]]++;
+                stripes[1][HISTOGRAM_RED][odd[0]]++;
+                stripes[0][HISTOGRAM_GREEN][even[1]]++;
+                stripes[1][HISTOGRAM_GREEN][odd[1]]++;
+                stripes[0][HISTOGRAM_BLUE][even[2]]++;
+                stripes[1][HISTOGRAM_BLUE][odd[2]]++;
+                stripes[0][HISTOGRAM_LUMA][luma[i]]++;
+                stripes[1][HISTOGRAM_LUMA][luma[i + 1]]++;
+            }
+            if (i < count) {
+                const uint8_t* last = chunk + (size_t) i * 4;
+                stripes[0][HISTOGRAM_RED][last[0]]++;
+                stripes[0][HISTOGRAM_GREEN][last[1]]++;
+                stripes[0][HISTOGRAM_BLUE][last[2]]++;
+                stripes[0][HISTOGRAM_LUMA][luma[i]]++;
+            }
+        }
+    }
+
+    for (int c = 0; c < HISTOGRAM_CHANNELS; c++) {
+        for (int v = 0; v < HISTOGRAM_BINS; v++) {
+            counts[c][v] += stripes[0][c][v] + stripes[1][c][v];
+        }
+    }
+}
+
+void lut_apply_rows(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                    uint32_t width, uint32_t firstRow, uint32_t lastRow,
+                    const uint8_t tables[3][HISTOGRAM_BINS]) {
+    for (uint32_t y = firstRow; y < lastRow; y++) {
+        const uint8_t* in = src + (size_t) y * srcStride;
+        uint8_t* out = dst + (size_t) y * dstStride;
+        for (uint32_t x = 0; x < width; x++) {
+            const uint8_t* pixel = in + (size_t) x * 4;
+            uint8_t* result = out + (size_t) x * 4;
+            uint8_t alpha = pixel[3];
+            if (alpha == 255) {
+                uint8_t red = tables[0][pixel[0]];
+                uint8_t green = tables[1][pixel[1]];
+                uint8_t blue = tables[2][pixel[2]];
+                result[0] = red;
+                result[1] = green;
+                result[2] = blue;
+                result[3] = alpha;
+            } else if (alpha == 0) {
+                // Transparent pixels have no color to map.
+                memset(result, 0, 4);
+            } else {
+                // Premultiplying the mapped values again keeps every channel within alpha.
+                uint8_t red = tables[0][unpremultiply(pixel[0], alpha)];
+                uint8_t green = tables[1][unpremultiply(pixel[1], alpha)];
+                uint8_t blue = tables[2][unpremultiply(pixel[2], alpha)];
+                result[0] = premultiply(red, alpha);
+                result[1] = premultiply(green, alpha);
+                result[2] = premultiply(blue, alpha);
+                result[3] = alpha;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+#pragma once
+
+#include <stdint.h>
+
+// Image statistics and table lookups for the histogram-based filters (auto levels, equalize).
+//
+// A histogram counts, for every channel, how many pixels have each of the 256 values. Besides
+// red, green and blue, it counts the luma (77 * R + 150 * G + 29 * B + 128) >> 8, the Rec. 601
+// weights in 8-bit fixed point, which com.rivan.neon.filters.kernels.Histogram computes alike.
+// Alpha is not counted. Pixels are premultiplied RGBA_8888, like those of an Android bitmap, but
+// colors are counted and mapped unpremultiplied, as Bitmap.getPixels returns them, so that the
+// native and the Java implementations agree on translucent images.
+//
+// Counting works on bands of rows, so that every thread fills its own counters and the bands are
+// merged once at the end.
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+#define HISTOGRAM_BINS 256
+
+// Channels of a histogram. These must match the ordinals of
+// com.rivan.neon.filters.kernels.Histogram.Channel.
+enum {
+    HISTOGRAM_RED = 0,
+    HISTOGRAM_GREEN = 1,
+    HISTOGRAM_BLUE = 2,
+    HISTOGRAM_LUMA = 3,
+    HISTOGRAM_CHANNELS = 4,
+};
+
+// Adds the pixels of rows [firstRow, lastRow) to the counts.
+void histogram_rows(const uint8_t* pixels, uint32_t stride, uint32_t width, uint32_t firstRow,
+                    uint32_t lastRow, uint32_t counts[HISTOGRAM_CHANNELS][HISTOGRAM_BINS]);
+
+// Maps the unpremultiplied red, green and blue channels of rows [firstRow, lastRow) through
+// their tables, premultiplies them again and copies alpha. src and dst may be the same image.
+void lut_apply_rows(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                    uint32_t width, uint32_t firstRow, uint32_t lastRow,
+                    const uint8_t tables[3][HISTOGRAM_BINS]);
+
+#ifdef __cplusplus
+}
+#endif
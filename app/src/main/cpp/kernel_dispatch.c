@@ -0,0 +1,114 @@
+#include "kernel_dispatch.h"
+
+#include <pthread.h>
+#include <stddef.h>
+
+#include "kernels.h"
+
+#if defined(__aarch64__) && (defined(__linux__) || defined(__ANDROID__))
+#include <sys/auxv.h>
+
+// From the arm64 <asm/hwcap.h>, which older NDKs do not always provide.
+#ifndef HWCAP_ASIMD
+#define HWCAP_ASIMD (1 << 1)
+#endif
+#ifndef HWCAP_ASIMDHP
+#define HWCAP_ASIMDHP (1 << 10)
+#endif
+#ifndef HWCAP_ASIMDDP
+#define HWCAP_ASIMDDP (1 << 20)
+#endif
+#ifndef HWCAP_SVE
+#define HWCAP_SVE (1 << 22)
+#endif
+#endif
+
+// Every variant compiled for this ABI, best first. The portable variant must come last, as it
+// is the only one that needs no feature and implements every filter.
+static const KernelVariant VARIANTS[] = {
+#if defined(__aarch64__)
+        {"neon", CPU_FEATURE_ASIMD,
+                grayscale, invert, brightness, contrast, sepia, color_matrix},
+#endif
+#if defined(__x86_64__) || defined(__i386__)
+        {"avx2", CPU_FEATURE_AVX2,
+                grayscale_avx2, invert_avx2, brightness_avx2, contrast_avx2, sepia_avx2,
+                color_matrix_avx2},
+#endif
+        {"portable", 0,
+                grayscale_portable, invert_portable, brightness_portable, contrast_portable,
+                sepia_portable, color_matrix_portable},
+};
+
+static const int VARIANT_COUNT = sizeof(VARIANTS) / sizeof(VARIANTS[0]);
+
+static uint32_t probeCpuFeatures(void) {
+    uint32_t features = 0;
+#if defined(__aarch64__) && (defined(__linux__) || defined(__ANDROID__))
+    unsigned long hwcap = getauxval(AT_HWCAP);
+    if (hwcap & HWCAP_ASIMD) features |= CPU_FEATURE_ASIMD;
+    if (hwcap & HWCAP_ASIMDHP) features |= CPU_FEATURE_FP16;
+    if (hwcap & HWCAP_ASIMDDP) features |= CPU_FEATURE_DOTPROD;
+    if (hwcap & HWCAP_SVE) features |= CPU_FEATURE_SVE;
+#elif defined(__aarch64__)
+    // Advanced SIMD is mandatory in AArch64.
+    features |= CPU_FEATURE_ASIMD;
+#elif defined(__x86_64__) || defined(__i386__)
+    __builtin_cpu_init();
+    if (__builtin_cpu_supports("avx2") && __builtin_cpu_supports("fma")) {
+        features |= CPU_FEATURE_AVX2;
+    }
+#endif
+    return features;
+}
+
+static pthread_once_t featuresOnce = PTHREAD_ONCE_INIT;
+static uint32_t probedFeatures;
+
+static void initFeatures(void) {
+    probedFeatures = probeCpuFeatures();
+}
+
+uint32_t cpuFeatures(void) {
+    pthread_once(&featuresOnce, initFeatures);
+    return probedFeatures;
+}
+
+const KernelVariant* kernelVariants(int* count) {
+    *count = VARIANT_COUNT;
+    return VARIANTS;
+}
+
+static pthread_once_t tableOnce = PTHREAD_ONCE_INIT;
+static KernelTable table;
+
+// Stores the kernel of the first variant that the CPU supports and that implements it. The
+// portable variant always matches.
+#define SELECT_KERNEL(field, id) \
+    for (int i = 0; i < VARIANT_COUNT; i++) { \
+        if ((VARIANTS[i].requiredFeatures & ~supported) == 0 && VARIANTS[i].field != NULL) { \
+            table.field = VARIANTS[i].field; \
+            table.variants[id] = VARIANTS[i].name; \
+            break; \
+        } \
+    }
+
+static void buildTable(void) {
+    uint32_t supported = cpuFeatures();
+
+    SELECT_KERNEL(grayscale, KERNEL_GRAYSCALE)
+    SELECT_KERNEL(invert, KERNEL_INVERT)
+    SELECT_KERNEL(brightness, KERNEL_BRIGHTNESS)
+    SELECT_KERNEL(contrast, KERNEL_CONTRAST)
+    SELECT_KERNEL(sepia, KERNEL_SEPIA)
+    SELECT_KERNEL(colorMatrix, KERNEL_COLOR_MATRIX)
+}
+
+void selectKernels(void) {
+    pthread_once(&tableOnce, buildTable);
+}
+
+const KernelTable* activeKernels(void) {
+    selectKernels();
+    return &table;
+}
@@ -0,0 +1,90 @@
+#pragma once
+
+#include <stdint.h>
+
+// Selects the filter kernels to use at runtime, based on the features of the CPU.
+//
+// Every variant of the kernels (see kernels.h) is described by a KernelVariant, which lists the
+// CPU features it needs. A variant may leave some kernels out (null), e.g. one that only speeds
+// up contrast. selectKernels() then picks, for every filter, the first variant in order of
+// preference that the CPU supports and that implements the filter.
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+// CPU features probed by cpuFeatures().
+enum {
+    CPU_FEATURE_ASIMD = 1 << 0,    // Arm Advanced SIMD (Neon)
+    CPU_FEATURE_FP16 = 1 << 1,     // Arm half-precision Advanced SIMD arithmetic
+    CPU_FEATURE_DOTPROD = 1 << 2,  // Arm SDOT/UDOT
+    CPU_FEATURE_SVE = 1 << 3,      // Arm Scalable Vector Extension
+    CPU_FEATURE_AVX2 = 1 << 4,     // x86 AVX2 with FMA
+};
+
+// Filter ids, used to index KernelTable::variants. These must match the FILTER_* constants
+// in com.rivan.neon.filters.NativeFilters.
+enum {
+    KERNEL_GRAYSCALE = 0,
+    KERNEL_INVERT = 1,
+    KERNEL_BRIGHTNESS = 2,
+    KERNEL_CONTRAST = 3,
+    KERNEL_SEPIA = 4,
+    KERNEL_COLOR_MATRIX = 5,
+    KERNEL_COUNT = 6,
+};
+
+typedef void (*GrayscaleKernel)(uint8_t* pixels, uint32_t width, uint32_t height,
+                                uint32_t stride, float redCoefficient, float greenCoefficient,
+                                float blueCoefficient);
+typedef void (*InvertKernel)(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride);
+typedef void (*BrightnessKernel)(uint8_t* pixels, uint32_t width, uint32_t height,
+                                 uint32_t stride, int32_t brightness);
+typedef void (*ContrastKernel)(uint8_t* pixels, uint32_t width, uint32_t height,
+                               uint32_t stride, float contrast);
+typedef void (*SepiaKernel)(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride);
+typedef void (*ColorMatrixKernel)(uint8_t* pixels, uint32_t width, uint32_t height,
+                                  uint32_t stride, const float* matrix);
+
+typedef struct {
+    const char* name;
+    // Every CPU_FEATURE_* bit the variant needs.
+    uint32_t requiredFeatures;
+
+    GrayscaleKernel grayscale;
+    InvertKernel invert;
+    BrightnessKernel brightness;
+    ContrastKernel contrast;
+    SepiaKernel sepia;
+    ColorMatrixKernel colorMatrix;
+} KernelVariant;
+
+// The kernels selected for this CPU, one per filter, and the name of the variant each of them
+// comes from. No kernel is ever null: the portable variant implements every filter.
+typedef struct {
+    GrayscaleKernel grayscale;
+    InvertKernel invert;
+    BrightnessKernel brightness;
+    ContrastKernel contrast;
+    SepiaKernel sepia;
+    ColorMatrixKernel colorMatrix;
+
+    const char* variants[KERNEL_COUNT];
+} KernelTable;
+
+// Returns the CPU_FEATURE_* bits supported by the CPU. Probed once.
+uint32_t cpuFeatures(void);
+
+// Returns every variant compiled into the library, in order of preference, whether or not
+// the CPU supports it.
+const KernelVariant* kernelVariants(int* count);
+
+// Builds the kernel table. Called from JNI_OnLoad; safe to call more than once.
+void selectKernels(void);
+
+// Returns the kernel table, building it first if needed.
+const KernelTable* activeKernels(void);
+
+#ifdef __cplusplus
+}
+#endif
@@ -0,0 +1,91 @@
+#pragma once
+
+#include <stdint.h>
+
+// The filter kernels called by the JNI functions in filters.cpp.
+//
+// Each kernel comes in several variants, and kernel_dispatch.h picks the best one the CPU
+// supports for every filter. The unsuffixed functions are implemented in separate Assembly files
+// (e.g., grayscale.s, invert.s, etc.) and only exist on arm64-v8a. kernels_portable.c provides
+// C versions with the same results, compiled once per suffix (e.g., grayscale_portable, and
+// grayscale_avx2 on x86_64). They are declared 'extern "C"' to ensure C linkage.
+//
+// Every kernel works in place on RGBA_8888 pixels: 'width' pixels per row, 'height' rows, and
+// 'stride' bytes from the start of a row to the start of the next. Bytes between the end of a
+// row and the next row are never touched.
+//
+// color_matrix takes 20 floats: the four multiplier rows (R, G, B, A), each holding the
+// coefficients for R, G, B and A, followed by the four offsets. See packColorMatrix() in
+// filters.cpp.
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+#if defined(__aarch64__)
+void grayscale(
+        uint8_t* pixels,
+        uint32_t width,
+        uint32_t height,
+        uint32_t stride,
+        float redCoefficient,
+        float greenCoefficient,
+        float blueCoefficient);
+
+void invert(
+        uint8_t* pixels,
+        uint32_t width,
+        uint32_t height,
+        uint32_t stride);
+
+void brightness(
+        uint8_t* pixels,
+        uint32_t width,
+        uint32_t height,
+        uint32_t stride,
+        int32_t brightness);
+
+void contrast(
+        uint8_t* pixels,
+        uint32_t width,
+        uint32_t height,
+        uint32_t stride,
+        float contrast);
+
+void sepia(
+        uint8_t* pixels,
+        uint32_t width,
+        uint32_t height,
+        uint32_t stride);
+
+void color_matrix(
+        uint8_t* pixels,
+        uint32_t width,
+        uint32_t height,
+        uint32_t stride,
+        const float* matrix);
+#endif
+
+// Declares the kernels of a variant of kernels_portable.c, e.g. grayscale_portable.
+#define DECLARE_KERNEL_VARIANT(suffix) \
+    void grayscale_##suffix(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride, \
+                            float redCoefficient, float greenCoefficient, \
+                            float blueCoefficient); \
+    void invert_##suffix(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride); \
+    void brightness_##suffix(uint8_t* pixels, uint32_t width, uint32_t height, \
+                             uint32_t stride, int32_t brightness); \
+    void contrast_##suffix(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride, \
+                           float contrast); \
+    void sepia_##suffix(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride); \
+    void color_matrix_##suffix(uint8_t* pixels, uint32_t width, uint32_t height, \
+                               uint32_t stride, const float* matrix);
+
+DECLARE_KERNEL_VARIANT(portable)
+
+#if defined(__x86_64__) || defined(__i386__)
+DECLARE_KERNEL_VARIANT(avx2)
+#endif
+
+#ifdef __cplusplus
+}
+#endif
@@ -0,0 +1,6 @@
+// The AVX2 variant of the portable kernels: the same C code, compiled with -mavx2 -mfma (see
+// CMakeLists.txt) so that the compiler vectorizes the row loops with 256-bit registers.
+// kernel_dispatch.c only selects it on CPUs that support both extensions.
+
+#define KERNEL_SUFFIX avx2
+#include "kernels_portable.c"
@@ -0,0 +1,162 @@
+// Portable C implementations of the filter kernels declared in kernels.h.
+//
+// These are used on every ABI other than arm64-v8a (e.g., x86_64 emulators) and by the host
+// build, and produce the same results as the Assembly routines: floating-point filters clamp
+// to 0 to 255 and round to nearest even like FCVTNS, while color_matrix truncates like FCVTZS.
+//
+// Each row is processed by a simple loop over the pixels, without any branch that depends on
+// the pixel values, so that the compiler can vectorize it for the target. The file is compiled
+// once per variant: KERNEL_SUFFIX names the variant, e.g. kernels_avx2.c includes it with
+// KERNEL_SUFFIX set to avx2 and is built with -mavx2 -mfma.
+
+#include "kernels.h"
+
+#include <stddef.h>
+
+#ifndef KERNEL_SUFFIX
+#define KERNEL_SUFFIX portable
+#endif
+
+#define KERNEL_CONCAT(name, suffix) name##_##suffix
+#define KERNEL_EXPAND(name, suffix) KERNEL_CONCAT(name, suffix)
+#define KERNEL_NAME(name) KERNEL_EXPAND(name, KERNEL_SUFFIX)
+
+// Adding and subtracting 1.5 * 2^23 rounds any float in [-2^22, 2^22] to the nearest integer,
+// ties to even, in the default rounding mode. Unlike lrintf, this vectorizes.
+static const float ROUND_MAGIC = 12582912.0f;
+
+// Clamping is done on integers: the compiler cannot turn float comparisons into min/max
+// instructions without relaxing NaN semantics, and would emit branches instead.
+static inline uint8_t clampToByte(int32_t value) {
+    value = value < 0 ? 0 : value;
+    return (uint8_t) (value > 255 ? 255 : value);
+}
+
+// Rounds to nearest even and clamps to 0 to 255, like FCVTNS followed by the saturating
+// narrows. The Assembly clamps before rounding, which gives the same result.
+static inline uint8_t roundToByte(float value) {
+    return clampToByte((int32_t) ((value + ROUND_MAGIC) - ROUND_MAGIC));
+}
+
+// Truncates and clamps to 0 to 255, like FMAX/FMIN followed by FCVTZS. Truncating first is
+// only different for values in (-1, 0), which become 0 either way.
+static inline uint8_t truncateToByte(float value) {
+    return clampToByte((int32_t) value);
+}
+
+static void grayscaleRow(uint8_t* restrict row, uint32_t width,
+                         float redCoefficient, float greenCoefficient, float blueCoefficient) {
+    for (uint32_t x = 0; x < width; x++) {
+        uint8_t* pixel = row + (size_t) x * 4;
+        uint8_t gray = roundToByte(redCoefficient * pixel[0] + greenCoefficient * pixel[1]
+                + blueCoefficient * pixel[2]);
+        pixel[0] = gray;
+        pixel[1] = gray;
+        pixel[2] = gray;
+    }
+}
+
+void KERNEL_NAME(grayscale)(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride,
+                            float redCoefficient, float greenCoefficient,
+                            float blueCoefficient) {
+    for (uint32_t y = 0; y < height; y++) {
+        grayscaleRow(pixels + (size_t) y * stride, width,
+                     redCoefficient, greenCoefficient, blueCoefficient);
+    }
+}
+
+static void invertRow(uint8_t* restrict row, uint32_t width) {
+    for (uint32_t x = 0; x < width; x++) {
+        uint8_t* pixel = row + (size_t) x * 4;
+        pixel[0] = (uint8_t) (255 - pixel[0]);
+        pixel[1] = (uint8_t) (255 - pixel[1]);
+        pixel[2] = (uint8_t) (255 - pixel[2]);
+    }
+}
+
+void KERNEL_NAME(invert)(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride) {
+    for (uint32_t y = 0; y < height; y++) {
+        invertRow(pixels + (size_t) y * stride, width);
+    }
+}
+
+static void brightnessRow(uint8_t* restrict row, uint32_t width, int16_t adjustment) {
+    for (uint32_t x = 0; x < width; x++) {
+        uint8_t* pixel = row + (size_t) x * 4;
+        pixel[0] = clampToByte(pixel[0] + adjustment);
+        pixel[1] = clampToByte(pixel[1] + adjustment);
+        pixel[2] = clampToByte(pixel[2] + adjustment);
+    }
+}
+
+void KERNEL_NAME(brightness)(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride,
+                             int32_t brightness) {
+    // brightness.s adds the value as a 16-bit half-word.
+    int16_t adjustment = (int16_t) brightness;
+    for (uint32_t y = 0; y < height; y++) {
+        brightnessRow(pixels + (size_t) y * stride, width, adjustment);
+    }
+}
+
+static void contrastRow(uint8_t* restrict row, uint32_t width, float contrast) {
+    for (uint32_t x = 0; x < width; x++) {
+        uint8_t* pixel = row + (size_t) x * 4;
+        pixel[0] = roundToByte((pixel[0] - 128.0f) * contrast + 128.0f);
+        pixel[1] = roundToByte((pixel[1] - 128.0f) * contrast + 128.0f);
+        pixel[2] = roundToByte((pixel[2] - 128.0f) * contrast + 128.0f);
+    }
+}
+
+void KERNEL_NAME(contrast)(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride,
+                           float contrast) {
+    for (uint32_t y = 0; y < height; y++) {
+        contrastRow(pixels + (size_t) y * stride, width, contrast);
+    }
+}
+
+static void sepiaRow(uint8_t* restrict row, uint32_t width) {
+    for (uint32_t x = 0; x < width; x++) {
+        uint8_t* pixel = row + (size_t) x * 4;
+        float red = pixel[0];
+        float green = pixel[1];
+        float blue = pixel[2];
+        pixel[0] = roundToByte(red * 0.393f + green * 0.769f + blue * 0.189f);
+        pixel[1] = roundToByte(red * 0.349f + green * 0.686f + blue * 0.168f);
+        pixel[2] = roundToByte(red * 0.272f + green * 0.534f + blue * 0.131f);
+    }
+}
+
+void KERNEL_NAME(sepia)(uint8_t* pixels, uint32_t width, uint32_t height, uint32_t stride) {
+    for (uint32_t y = 0; y < height; y++) {
+        sepiaRow(pixels + (size_t) y * stride, width);
+    }
+}
+
+static void colorMatrixRow(uint8_t* restrict row, uint32_t width,
+                           const float* restrict matrix) {
+    for (uint32_t x = 0; x < width; x++) {
+        uint8_t* pixel = row + (size_t) x * 4;
+        float red = pixel[0];
+        float green = pixel[1];
+        float blue = pixel[2];
+        float alpha = pixel[3];
+        for (int channel = 0; channel < 4; channel++) {
+            const float* coefficients = matrix + channel * 4;
+            pixel[channel] = truncateToByte(matrix[16 + channel]
+                    + red * coefficients[0] + green * coefficients[1]
+                    + blue * coefficients[2] + alpha * coefficients[3]);
+        }
+    }
+}
+
+void KERNEL_NAME(color_matrix)(uint8_t* pixels, uint32_t width, uint32_t height,
+                               uint32_t stride, const float* matrix) {
+    // Keep a local copy so the compiler knows the matrix cannot alias the pixels.
+    float local[20];
+    for (int i = 0; i < 20; i++) {
+        local[i] = matrix[i];
+    }
+    for (uint32_t y = 0; y < height; y++) {
+        colorMatrixRow(pixels + (size_t) y * stride, width, local);
+    }
+}
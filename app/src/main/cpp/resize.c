@@ -0,0 +1,224 @@
+// Separable resampling, see resize.h.
+//
+// The vertical pass computes every output row as a weighted sum of whole input rows, which Neon
+// does 64 bytes at a time on arm64. The horizontal pass gathers a few pixels per output pixel and
+// stays scalar.
+
+#include "resize.h"
+
+#include <stdlib.h>
+#include <string.h>
+
+#if defined(__aarch64__)
+#include <arm_neon.h>
+#endif
+
+#define WEIGHT_ONE (1u << RESIZE_WEIGHT_BITS)
+#define WEIGHT_HALF (1u << (RESIZE_WEIGHT_BITS - 1))
+
+// Bytes of a row summed at once by the vertical pass.
+#define BLOCK_BYTES 64
+
+int resize_method(uint32_t srcSize, uint32_t dstSize, int method) {
+    if (method == RESIZE_AUTO) {
+        return srcSize >= 2 * (uint64_t) dstSize ? RESIZE_AREA : RESIZE_BILINEAR;
+    }
+    if (method == RESIZE_AREA && srcSize <= dstSize) {
+        return RESIZE_BILINEAR;
+    }
+    return method;
+}
+
+// Rounds numerator / denominator * WEIGHT_ONE.
+static uint32_t weightOf(uint64_t numerator, uint64_t denominator) {
+    return (uint32_t) ((numerator * WEIGHT_ONE + denominator / 2) / denominator);
+}
+
+// Writes the weights of output pixel x, relative to input pixel 'start', into weights[0, taps).
+// Returns the start.
+static uint32_t areaTaps(uint32_t x, uint32_t srcSize, uint32_t dstSize, uint32_t* weights) {
+    // Positions are in units of 1 / dstSize input pixels, so that output pixel x covers
+    // [x * srcSize, (x + 1) * srcSize) exactly.
+    uint64_t low = (uint64_t) x * srcSize;
+    uint64_t high = low + srcSize;
+    uint32_t start = (uint32_t) (low / dstSize);
+    uint32_t end = (uint32_t) ((high + dstSize - 1) / dstSize);
+    for (uint32_t i = start; i < end; i++) {
+        uint64_t from = (uint64_t) i * dstSize > low ? (uint64_t) i * dstSize : low;
+        uint64_t to = (uint64_t) (i + 1) * dstSize < high ? (uint64_t) (i + 1) * dstSize : high;
+        weights[i - start] = weightOf(to - from, srcSize);
+    }
+    return start;
+}
+
+static uint32_t bilinearTaps(uint32_t x, uint32_t srcSize, uint32_t dstSize, uint32_t* weights) {
+    // The center of output pixel x, in units of 1 / (2 * dstSize) input pixels.
+    int64_t center = (int64_t) (2 * x + 1) * srcSize - dstSize;
+    uint64_t unit = 2 * (uint64_t) dstSize;
+    if (center <= 0) {
+        weights[0] = WEIGHT_ONE;
+        return 0;
+    }
+    uint32_t start = (uint32_t) ((uint64_t) center / unit);
+    if (start >= srcSize - 1) {
+        weights[0] = WEIGHT_ONE;
+        return srcSize - 1;
+    }
+    uint32_t next = weightOf((uint64_t) center % unit, unit);
+    weights[0] = WEIGHT_ONE - next;
+    weights[1] = next;
+    return start;
+}
+
+int resize_taps_init(ResizeTaps* taps, uint32_t srcSize, uint32_t dstSize, int method) {
+    method = resize_method(srcSize, dstSize, method);
+    // An area of srcSize / dstSize pixels overlaps one more pixel unless it is a whole number.
+    uint32_t count = 2;
+    if (method == RESIZE_AREA) {
+        count = srcSize / dstSize + (srcSize % dstSize == 0 ? 0 : 2);
+    }
+    if (count > srcSize) {
+        count = srcSize;
+    }
+
+    taps->size = dstSize;
+    taps->taps = count;
+    taps->first = malloc(sizeof(uint32_t) * dstSize);
+    taps->weights = calloc((size_t) dstSize * count, sizeof(uint16_t));
+    uint32_t* weights = malloc(sizeof(uint32_t) * (count + 1));
+    if (taps->first == NULL || taps->weights == NULL || weights == NULL) {
+        free(weights);
+        resize_taps_free(taps);
+        return -1;
+    }
+
+    for (uint32_t x = 0; x < dstSize; x++) {
+        memset(weights, 0, sizeof(uint32_t) * (count + 1));
+        uint32_t start = method == RESIZE_AREA ? areaTaps(x, srcSize, dstSize, weights)
+                                               : bilinearTaps(x, srcSize, dstSize, weights);
+
+        // Rounding may leave the sum a little off; the largest weight absorbs the difference.
+        uint32_t sum = 0;
+        uint32_t largest = 0;
+        for (uint32_t t = 0; t <= count; t++) {
+            sum += weights[t];
+            largest = weights[t] > weights[largest] ? t : largest;
+        }
+        weights[largest] += WEIGHT_ONE - sum;
+
+        // Every output pixel reads 'count' pixels, so the last ones start earlier.
+        uint32_t first = start + count > srcSize ? srcSize - count : start;
+        uint16_t* out = taps->weights + (size_t) x * count;
+        for (uint32_t t = 0; t <= count; t++) {
+            if (weights[t] != 0) {
+                out[start + t - first] = (uint16_t) weights[t];
+            }
+        }
+        taps->first[x] = first;
+    }
+
+    free(weights);
+    return 0;
+}
+
+void resize_taps_free(ResizeTaps* taps) {
+    free(taps->first);
+    free(taps->weights);
+    taps->first = NULL;
+    taps->weights = NULL;
+}
+
+void resize_rows(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                 uint32_t firstRow, uint32_t lastRow, const ResizeTaps* taps) {
+    const uint32_t count = taps->taps;
+    for (uint32_t y = firstRow; y < lastRow; y++) {
+        const uint8_t* in = src + (size_t) y * srcStride;
+        uint8_t* out = dst + (size_t) y * dstStride;
+        const uint16_t* weights = taps->weights;
+        for (uint32_t x = 0; x < taps->size; x++, weights += count) {
+            const uint8_t* pixel = in + (size_t) taps->first[x] * 4;
+            uint32_t r = WEIGHT_HALF;
+            uint32_t g = WEIGHT_HALF;
+            uint32_t b = WEIGHT_HALF;
+            uint32_t a = WEIGHT_HALF;
+            for (uint32_t t = 0; t < count; t++, pixel += 4) {
+                uint32_t weight = weights[t];
+                r += weight * pixel[0];
+                g += weight * pixel[1];
+                b += weight * pixel[2];
+                a += weight * pixel[3];
+            }
+            uint8_t* result = out + (size_t) x * 4;
+            result[0] = (uint8_t) (r >> RESIZE_WEIGHT_BITS);
+            result[1] = (uint8_t) (g >> RESIZE_WEIGHT_BITS);
+            result[2] = (uint8_t) (b >> RESIZE_WEIGHT_BITS);
+            result[3] = (uint8_t) (a >> RESIZE_WEIGHT_BITS);
+        }
+    }
+}
+
+void resize_columns(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                    uint32_t width, uint32_t firstRow, uint32_t lastRow,
+                    const ResizeTaps* taps) {
+    const uint32_t count = taps->taps;
+    const uint32_t bytes = width * 4;
+    for (uint32_t y = firstRow; y < lastRow; y++) {
+        const uint8_t* in = src + (size_t) taps->first[y] * srcStride;
+        const uint16_t* weights = taps->weights + (size_t) y * count;
+        uint8_t* out = dst + (size_t) y * dstStride;
+
+        // Rows are summed a block at a time, so that every input row is read sequentially and
+        // the sums of a block stay in registers.
+        uint32_t i = 0;
+#if defined(__aarch64__)
+        for (; i + BLOCK_BYTES <= bytes; i += BLOCK_BYTES) {
+            uint32x4_t sums[BLOCK_BYTES / 4];
+            for (int k = 0; k < BLOCK_BYTES / 4; k++) {
+                sums[k] = vdupq_n_u32(0);
+            }
+            const uint8_t* row = in + i;
+            for (uint32_t t = 0; t < count; t++, row += srcStride) {
+                for (int k = 0; k < BLOCK_BYTES / 16; k++) {
+                    uint8x16_t values = vld1q_u8(row + k * 16);
+                    uint16x8_t low = vmovl_u8(vget_low_u8(values));
+                    uint16x8_t high = vmovl_u8(vget_high_u8(values));
+                    sums[4 * k] = vmlal_n_u16(sums[4 * k], vget_low_u16(low), weights[t]);
+                    sums[4 * k + 1] = vmlal_n_u16(sums[4 * k + 1], vget_high_u16(low),
+                                                  weights[t]);
+                    sums[4 * k + 2] = vmlal_n_u16(sums[4 * k + 2], vget_low_u16(high),
+                                                  weights[t]);
+                    sums[4 * k + 3] = vmlal_n_u16(sums[4 * k + 3], vget_high_u16(high),
+                                                  weights[t]);
+                }
+            }
+            // The weights add up to 1.0, so the rounded sums fit in 8 bits.
+            for (int k = 0; k < BLOCK_BYTES / 16; k++) {
+                uint16x8_t low = vcombine_u16(vrshrn_n_u32(sums[4 * k], RESIZE_WEIGHT_BITS),
+                                              vrshrn_n_u32(sums[4 * k + 1], RESIZE_WEIGHT_BITS));
+                uint16x8_t high = vcombine_u16(vrshrn_n_u32(sums[4 * k + 2], RESIZE_WEIGHT_BITS),
+                                               vrshrn_n_u32(sums[4 * k + 3],
+                                                            RESIZE_WEIGHT_BITS));
+                vst1q_u8(out + i + k * 16, vcombine_u8(vmovn_u16(low), vmovn_u16(high)));
+            }
+        }
+#endif
+        while (i < bytes) {
+            uint32_t length = bytes - i < BLOCK_BYTES ? bytes - i : BLOCK_BYTES;
+            uint32_t sums[BLOCK_BYTES];
+            for (uint32_t j = 0; j < length; j++) {
+                sums[j] = WEIGHT_HALF;
+            }
+            const uint8_t* row = in + i;
+            for (uint32_t t = 0; t < count; t++, row += srcStride) {
+                uint32_t weight = weights[t];
+                for (uint32_t j = 0; j < length; j++) {
+                    sums[j] += weight * row[j];
+                }
+            }
+            for (uint32_t j = 0; j < length; j++) {
+                out[i + j] = (uint8_t) (sums[j] >> RESIZE_WEIGHT_BITS);
+            }
+            i += length;
+        }
+    }
+}
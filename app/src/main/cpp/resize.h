@@ -0,0 +1,66 @@
+#pragma once
+
+#include <stdint.h>
+
+// Resampling of RGBA_8888 images to another size, used to render the filter previews from a
+// smaller copy of the image.
+//
+// Images are resized separably: every column is first resampled to the new height, then every row
+// to the new width. When downscaling, the vertical pass, which weighs whole rows and vectorizes
+// well, then leaves few rows for the horizontal one. Along each axis, every output pixel is a weighted sum of a few consecutive
+// input pixels, its taps. Downscaling by a factor of 2 or more averages the area that each output
+// pixel covers, so that every input pixel contributes and fine detail does not alias; smaller
+// factors, and upscaling, interpolate bilinearly between the two nearest pixels. Weights are in
+// 1.14 fixed point and computed with integers only, exactly as
+// com.rivan.neon.filters.kernels.Resampler computes them. All four channels are treated alike.
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+// Resampling methods. These must match the ordinals of
+// com.rivan.neon.filters.kernels.Resampler.Method.
+enum {
+    RESIZE_AUTO = 0,
+    RESIZE_BILINEAR = 1,
+    RESIZE_AREA = 2,
+};
+
+// Fractional bits of the weights.
+#define RESIZE_WEIGHT_BITS 14
+
+// The taps of every output pixel along one axis. Every output pixel has the same number of taps,
+// some of them with a weight of 0, and its weights add up to 1 << RESIZE_WEIGHT_BITS.
+typedef struct {
+    // Number of output pixels.
+    uint32_t size;
+    uint32_t taps;
+    // Index of the first input pixel of every output pixel.
+    uint32_t* first;
+    // 'taps' weights per output pixel.
+    uint16_t* weights;
+} ResizeTaps;
+
+// Returns the method used to resize an axis from srcSize to dstSize pixels: RESIZE_AUTO becomes
+// RESIZE_AREA from a factor of 2, and RESIZE_AREA becomes RESIZE_BILINEAR when upscaling.
+int resize_method(uint32_t srcSize, uint32_t dstSize, int method);
+
+// Computes the taps to resize an axis from srcSize to dstSize pixels, both non-zero. Returns 0,
+// or -1 if the memory cannot be allocated. The taps must be freed with resize_taps_free.
+int resize_taps_init(ResizeTaps* taps, uint32_t srcSize, uint32_t dstSize, int method);
+
+void resize_taps_free(ResizeTaps* taps);
+
+// Resamples rows [firstRow, lastRow) of src to the width of the taps, into the same rows of dst.
+void resize_rows(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                 uint32_t firstRow, uint32_t lastRow, const ResizeTaps* taps);
+
+// Computes rows [firstRow, lastRow) of dst from the rows of src selected by the taps. Both images
+// are 'width' pixels wide.
+void resize_columns(const uint8_t* src, uint32_t srcStride, uint8_t* dst, uint32_t dstStride,
+                    uint32_t width, uint32_t firstRow, uint32_t lastRow,
+                    const ResizeTaps* taps);
+
+#ifdef __cplusplus
+}
+#endif
@@ -0,0 +1,178 @@
+#include "thread_pool.h"
+
+#include <algorithm>
+
+// Bands with fewer rows cost more in synchronisation than they gain in parallelism.
+static constexpr uint32_t MIN_BAND_ROWS = 16;
+
+// Strips are a whole number of 64-byte cache lines wide, so that two threads do not write to the
+// same line of an aligned row.
+static constexpr uint32_t STRIP_ALIGNMENT_PIXELS = 16;
+
+// The thread count of the calling thread, as passed to setThreadCount.
+static thread_local int callerThreadCount = 1;
+
+ThreadPool& ThreadPool::shared() {
+    static ThreadPool pool;
+    return pool;
+}
+
+ThreadPool::~ThreadPool() {
+    stopWorkers();
+}
+
+int ThreadPool::coreCount() {
+    return static_cast<int>(std::max(1u, std::thread::hardware_concurrency()));
+}
+
+void ThreadPool::setThreadCount(int count) {
+    callerThreadCount = std::max(0, count);
+}
+
+int ThreadPool::threadCount() {
+    return callerThreadCount == 0 ? coreCount() : callerThreadCount;
+}
+
+void ThreadPool::forEach(int count, const std::function<void(int)>& function) {
+    if (count <= 1) {
+        for (int i = 0; i < count; i++) {
+            function(i);
+        }
+        return;
+    }
+
+    std::lock_guard<std::mutex> dispatchLock(dispatchMutex);
+
+    if (workers.empty()) {
+        startWorkers(coreCount() - 1);
+    }
+    if (workers.empty()) {
+        for (int i = 0; i < count; i++) {
+            function(i);
+        }
+        return;
+    }
+
+    {
+        std::lock_guard<std::mutex> lock(stateMutex);
+        task = &function;
+        taskCount = count;
+        nextTask = 0;
+        pendingTasks = count;
+        generation++;
+    }
+    workAvailable.notify_all();
+
+    runTasks();
+
+    std::unique_lock<std::mutex> lock(stateMutex);
+    workDone.wait(lock, [this] { return pendingTasks == 0; });
+    task = nullptr;
+}
+
+void ThreadPool::startWorkers(int workerCount) {
+    stopping = false;
+    for (int i = 0; i < workerCount; i++) {
+        workers.emplace_back(&ThreadPool::workerLoop, this);
+    }
+}
+
+void ThreadPool::stopWorkers() {
+    {
+        std::lock_guard<std::mutex> lock(stateMutex);
+        stopping = true;
+    }
+    workAvailable.notify_all();
+    for (std::thread& worker : workers) {
+        worker.join();
+    }
+    workers.clear();
+}
+
+void ThreadPool::workerLoop() {
+    uint64_t seenGeneration;
+    {
+        std::lock_guard<std::mutex> lock(stateMutex);
+        seenGeneration = generation;
+    }
+
+    while (true) {
+        {
+            std::unique_lock<std::mutex> lock(stateMutex);
+            workAvailable.wait(lock, [&] { return stopping || generation != seenGeneration; });
+            if (stopping) {
+                return;
+            }
+            seenGeneration = generation;
+        }
+        runTasks();
+    }
+}
+
+// Claims and runs tasks of the current job until none are left.
+void ThreadPool::runTasks() {
+    while (true) {
+        const std::function<void(int)>* function;
+        int index;
+        {
+            std::lock_guard<std::mutex> lock(stateMutex);
+            if (task == nullptr || nextTask >= taskCount) {
+                return;
+            }
+            function = task;
+            index = nextTask++;
+        }
+
+        (*function)(index);
+
+        std::lock_guard<std::mutex> lock(stateMutex);
+        if (--pendingTasks == 0) {
+            workDone.notify_one();
+        }
+    }
+}
+
+void forEachBand(uint8_t* pixels, uint32_t height, uint32_t stride,
+                 const std::function<void(uint8_t* band, uint32_t rows)>& kernel) {
+    ThreadPool& pool = ThreadPool::shared();
+
+    uint32_t maxBands = std::max<uint32_t>(1, height / MIN_BAND_ROWS);
+    uint32_t bandCount = std::min(static_cast<uint32_t>(ThreadPool::threadCount()), maxBands);
+    uint32_t bandRows = (height + bandCount - 1) / bandCount;
+
+    if (bandCount <= 1) {
+        kernel(pixels, height);
+        return;
+    }
+
+    pool.forEach(static_cast<int>(bandCount), [&](int band) {
+        uint32_t startRow = static_cast<uint32_t>(band) * bandRows;
+        if (startRow >= height) {
+            return;
+        }
+        uint32_t rows = std::min(bandRows, height - startRow);
+        kernel(pixels + static_cast<size_t>(startRow) * stride, rows);
+    });
+}
+
+void forEachColumnStrip(uint32_t width,
+                        const std::function<void(uint32_t firstColumn,
+                                                 uint32_t lastColumn)>& kernel) {
+    ThreadPool& pool = ThreadPool::shared();
+
+    auto threads = static_cast<uint32_t>(ThreadPool::threadCount());
+    uint32_t stripWidth = (width + threads - 1) / threads;
+    stripWidth = (stripWidth + STRIP_ALIGNMENT_PIXELS - 1) / STRIP_ALIGNMENT_PIXELS
+            * STRIP_ALIGNMENT_PIXELS;
+    uint32_t stripCount = (width + stripWidth - 1) / stripWidth;
+
+    if (stripCount <= 1) {
+        kernel(0, width);
+        return;
+    }
+
+    pool.forEach(static_cast<int>(stripCount), [&](int strip) {
+        uint32_t firstColumn = static_cast<uint32_t>(strip) * stripWidth;
+        kernel(firstColumn, std::min(width, firstColumn + stripWidth));
+    });
+}
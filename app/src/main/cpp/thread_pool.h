@@ -0,0 +1,77 @@
+#pragma once
+
+#include <condition_variable>
+#include <cstdint>
+#include <functional>
+#include <mutex>
+#include <thread>
+#include <vector>
+
+// A persistent pool of worker threads used to run the filter kernels on several cores.
+//
+// Threads are created once and then sleep on a condition variable between jobs, so dispatching
+// a job costs a wake-up rather than a thread creation. The pool has one worker per core but one,
+// started on the first job that needs them and never resized, and the calling thread always
+// takes part in the work. How many of them a job uses is up to each calling thread, see
+// setThreadCount.
+class ThreadPool {
+public:
+    // Returns the pool shared by all JNI entry points.
+    static ThreadPool& shared();
+
+    ~ThreadPool();
+
+    // Sets the total number of threads (including the calling thread) used by forEachBand and
+    // forEachColumnStrip when they are called from the calling thread. 0 uses one thread per
+    // available core. The count belongs to the calling thread alone, so callers with different
+    // counts neither resize the pool nor change each other's count. Defaults to 1.
+    static void setThreadCount(int count);
+
+    // Returns the count set by setThreadCount on the calling thread, with 0 resolved to the
+    // number of cores.
+    static int threadCount();
+
+    // Calls task(i) for every i in [0, count), spread across the pool, and returns once every
+    // call has finished. Jobs are serialised: concurrent callers wait for each other.
+    void forEach(int count, const std::function<void(int)>& task);
+
+private:
+    ThreadPool() = default;
+
+    static int coreCount();
+
+    void startWorkers(int workerCount);
+    void stopWorkers();
+    void workerLoop();
+    void runTasks();
+
+    // Held for the whole duration of a job, and while the workers start.
+    std::mutex dispatchMutex;
+
+    // Protects everything below.
+    std::mutex stateMutex;
+    std::condition_variable workAvailable;
+    std::condition_variable workDone;
+
+    std::vector<std::thread> workers;
+    bool stopping = false;
+    uint64_t generation = 0;
+
+    const std::function<void(int)>* task = nullptr;
+    int taskCount = 0;
+    int nextTask = 0;
+    int pendingTasks = 0;
+};
+
+// Splits the rows of an image into one band per thread of the shared pool (each at least
+// MIN_BAND_ROWS rows) and calls kernel(band, rows) for every band, in parallel.
+// band points at the first byte of the band's first row.
+void forEachBand(uint8_t* pixels, uint32_t height, uint32_t stride,
+                 const std::function<void(uint8_t* band, uint32_t rows)>& kernel);
+
+// Splits the columns of an image into one strip per thread of the shared pool (each a multiple of
+// 16 pixels wide) and calls kernel(firstColumn, lastColumn) for every strip, in parallel. Used by
+// passes that walk down columns, such as the vertical pass of a box blur.
+void forEachColumnStrip(uint32_t width,
+                        const std::function<void(uint32_t firstColumn,
+                                                 uint32_t lastColumn)>& kernel);
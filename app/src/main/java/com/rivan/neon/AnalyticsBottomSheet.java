@@ -58,6 +58,11 @@ public class AnalyticsBottomSheet extends BottomSheetDialogFragment {
         filterChipIdToEnumMap.put(R.id.brightness_filter_chip, Filter.BRIGHTNESS);
         filterChipIdToEnumMap.put(R.id.contrast_filter_chip, Filter.CONTRAST);
         filterChipIdToEnumMap.put(R.id.sepia_filter_chip, Filter.SEPIA);
+        filterChipIdToEnumMap.put(R.id.blur_filter_chip, Filter.BLUR);
+        filterChipIdToEnumMap.put(R.id.sharpen_filter_chip, Filter.SHARPEN);
+        filterChipIdToEnumMap.put(R.id.emboss_filter_chip, Filter.EMBOSS);
+        filterChipIdToEnumMap.put(R.id.auto_levels_filter_chip, Filter.AUTO_LEVELS);
+        filterChipIdToEnumMap.put(R.id.equalize_filter_chip, Filter.EQUALIZE);
 
         languageChipIdToNameMap = new HashMap<>();
         languageChipIdToNameMap.put(R.id.java_language_chip, "Java");
@@ -15,18 +15,27 @@ public class BenchmarkResult {
     private final double stdDevMs;
     /** Number of pixels processed per second. */
     private final double pps;
+    /** The variant of the native kernel that was run, or null for Java benchmarks. */
+    private final String kernelVariant;
 
     public BenchmarkResult(String filterName, String language, double averageTimeMs,
                            double stdDevMs, double pps) {
+        this(filterName, language, averageTimeMs, stdDevMs, pps, null);
+    }
+
+    public BenchmarkResult(String filterName, String language, double averageTimeMs,
+                           double stdDevMs, double pps, String kernelVariant) {
         this.filterName = filterName;
         this.language = language;
         this.averageTimeMs = averageTimeMs;
         this.stdDevMs = stdDevMs;
         this.pps = pps;
+        this.kernelVariant = kernelVariant;
     }
 
     public String getFilterName() { return filterName; }
     public String getLanguage() { return language; }
     public double getAverageTimeMs() { return averageTimeMs; }
+    public String getKernelVariant() { return kernelVariant; }
     public String getDisplayName() { return filterName + " (" + language + ")"; }
 }
\ No newline at end of file
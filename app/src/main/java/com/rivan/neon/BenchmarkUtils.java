@@ -5,43 +5,99 @@ import android.util.Log;
 
 import androidx.annotation.Nullable;
 
+import com.rivan.neon.filters.NativeFilters;
+import com.rivan.neon.filters.kernels.PixelArrayPool;
+
 import java.util.ArrayList;
 import java.util.List;
 
 public class BenchmarkUtils {
 
+    /**
+     * Options used to benchmark the Java filters. The raw pixel access reads and writes the same
+     * premultiplied RGBA_8888 bytes as the native filters, so that the Java timings do not
+     * include the format conversions of {@code getPixels}/{@code setPixels}, which the
+     * Assembly timings never pay. This only holds for opaque images: images with alpha fall back
+     * to the converted access, whose timings include the conversions.
+     */
+    private static final ProcessingOptions JAVA_OPTIONS = new ProcessingOptions();
+
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int MEASURED_ITERATIONS = 50;
+
+    static {
+        JAVA_OPTIONS.setPixelAccess(ProcessingOptions.PixelAccess.RAW);
+    }
+
     public static BenchmarkResult runBenchmark(Bitmap originalBitmap, Filter filter,
                                     @Nullable FilterParams params, boolean useAssembly) {
+        return runBenchmark(originalBitmap, filter, params, useAssembly, JAVA_OPTIONS);
+    }
+
+    /**
+     * Benchmarks a filter with the given {@link ProcessingOptions}. The options only affect
+     * the Java implementation.
+     */
+    public static BenchmarkResult runBenchmark(Bitmap originalBitmap, Filter filter,
+                                               @Nullable FilterParams params, boolean useAssembly,
+                                               ProcessingOptions options) {
+        return runBenchmark(originalBitmap, filter, params, useAssembly, options,
+                useAssembly ? "Assembly" : "Java");
+    }
+
+    private static BenchmarkResult runBenchmark(Bitmap originalBitmap, Filter filter,
+                                                @Nullable FilterParams params, boolean useAssembly,
+                                                ProcessingOptions options, String language) {
         if (originalBitmap == null || filter == null || filter == Filter.ORIGINAL) {
             return null;
         }
 
         List<Long> measurementTimesNs = new ArrayList<>();
 
+        PixelArrayPool pool = PixelArrayPool.getShared();
+        pool.resetStats();
+
         try {
-            for (int i = 0; i < 10; i++) {
-                Bitmap bitmapForWarmup = originalBitmap.copy(Bitmap.Config.ARGB_8888, true);
-                Bitmap result = FilterProcessor.applyFilterToBitmap(bitmapForWarmup, filter, params, useAssembly);
-                
-                if (result == null || result.isRecycled()) {
+            if (useAssembly) {
+                // The native harness restores the pixels and times every iteration itself, so
+                // the samples contain no JNI transitions, pixel locks or bitmap copies.
+                Bitmap bitmapForMeasurement = originalBitmap.copy(Bitmap.Config.ARGB_8888, true);
+                long[] samples = FilterProcessor.benchmarkNativeFilter(bitmapForMeasurement,
+                        filter, params, options, WARMUP_ITERATIONS, MEASURED_ITERATIONS);
+                bitmapForMeasurement.recycle();
+
+                if (samples == null) {
                     return null;
                 }
-
-                if (bitmapForWarmup != originalBitmap && !bitmapForWarmup.isRecycled()) {
-                    bitmapForWarmup.recycle();
+                for (long sample : samples) {
+                    measurementTimesNs.add(sample);
+                }
+            } else {
+                for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                    Bitmap bitmapForWarmup = originalBitmap.copy(Bitmap.Config.ARGB_8888, true);
+                    Bitmap result = FilterProcessor.applyFilterToBitmap(bitmapForWarmup, filter,
+                            params, false, options);
+
+                    if (result == null || result.isRecycled()) {
+                        return null;
+                    }
+
+                    if (bitmapForWarmup != originalBitmap && !bitmapForWarmup.isRecycled()) {
+                        bitmapForWarmup.recycle();
+                    }
                 }
-            }
 
-            for (int i = 0; i < 50; i++) {
-                Bitmap bitmapForMeasurement = originalBitmap.copy(Bitmap.Config.ARGB_8888, true);
+                for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                    Bitmap bitmapForMeasurement = originalBitmap.copy(Bitmap.Config.ARGB_8888, true);
 
-                long measuredDurationMs = FilterProcessor.measureFilterTime(
-                        bitmapForMeasurement, filter, params, useAssembly);
+                    long measuredDurationMs = FilterProcessor.measureFilterTime(
+                            bitmapForMeasurement, filter, params, false, options);
 
-                measurementTimesNs.add(measuredDurationMs);
+                    measurementTimesNs.add(measuredDurationMs);
 
-                if (bitmapForMeasurement != originalBitmap && !bitmapForMeasurement.isRecycled()) {
-                    bitmapForMeasurement.recycle();
+                    if (bitmapForMeasurement != originalBitmap && !bitmapForMeasurement.isRecycled()) {
+                        bitmapForMeasurement.recycle();
+                    }
                 }
             }
         } catch (Exception e) {
@@ -67,8 +123,21 @@ public class BenchmarkUtils {
 
         Log.d("NBench", String.format("Average Time: %.2f ms (StdDev: %.2f ms)", averageTimeMs, stdDevMs));
         Log.d("NBench", String.format("Pixels Per Second (PPS): %.2f", pps));
+        String kernelVariant = null;
+        if (useAssembly) {
+            kernelVariant = FilterProcessor.getNativeKernelVariant(filter);
+            Log.d("NBench", "Kernel variant: " + kernelVariant
+                    + ", CPU features: " + NativeFilters.getCpuFeatures());
+        } else {
+            ProcessingOptions.PixelAccess pixelAccess = originalBitmap.hasAlpha()
+                    ? ProcessingOptions.PixelAccess.CONVERTED : options.getPixelAccess();
+            Log.d("NBench", "Pixel access: " + pixelAccess + ", SWAR: " + options.getSwar());
+        }
+        Log.d("NBench", String.format("Scratch pool: %d hits, %d misses, %.1f MB retained",
+                pool.getHitCount(), pool.getMissCount(), pool.getRetainedBytes() / (1024.0 * 1024.0)));
         Log.d("NBench", "--- Benchmarking Complete for " + filter.name() + " ---");
 
-        return new BenchmarkResult(filter.name(), useAssembly ? "Assembly" : "Java", averageTimeMs, stdDevMs, pps);
+        return new BenchmarkResult(filter.name(), language, averageTimeMs, stdDevMs, pps,
+                kernelVariant);
     }
 }
@@ -5,9 +5,13 @@ import android.util.Log;
 import androidx.annotation.Nullable;
 import androidx.annotation.StringRes;
 
+import com.rivan.neon.filters.params.AutoLevelsFilterParams;
+import com.rivan.neon.filters.params.BlurFilterParams;
 import com.rivan.neon.filters.params.BrightnessFilterParams;
 import com.rivan.neon.filters.params.ContrastFilterParams;
+import com.rivan.neon.filters.params.EqualizeFilterParams;
 import com.rivan.neon.filters.params.GrayscaleFilterParams;
+import com.rivan.neon.filters.params.SharpenFilterParams;
 
 /**
  * Defines the various image filters available in the application. Each filter
@@ -22,7 +26,12 @@ public enum Filter {
     INVERT(R.string.filter_invert, null),
     BRIGHTNESS(R.string.filter_brightness, BrightnessFilterParams.class),
     CONTRAST(R.string.filter_contrast, ContrastFilterParams.class),
-    SEPIA(R.string.filter_sepia, null);
+    SEPIA(R.string.filter_sepia, null),
+    BLUR(R.string.filter_blur, BlurFilterParams.class),
+    SHARPEN(R.string.filter_sharpen, SharpenFilterParams.class),
+    EMBOSS(R.string.filter_emboss, null),
+    AUTO_LEVELS(R.string.filter_auto_levels, AutoLevelsFilterParams.class),
+    EQUALIZE(R.string.filter_equalize, EqualizeFilterParams.class);
 
     private final int titleRes;
 
@@ -37,6 +46,13 @@ public enum Filter {
         return titleRes;
     }
 
+    /**
+     * @return {@code true} if this filter has adjustable parameters.
+     */
+    public boolean hasParams() {
+        return paramsClass != null;
+    }
+
     /**
      * Creates and returns a new instance of the default parameters for this filter,
      * if a {@link FilterParams} class is associated with it.
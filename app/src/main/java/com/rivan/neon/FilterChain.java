@@ -0,0 +1,83 @@
+package com.rivan.neon;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An ordered list of {@link Filter}s, each with its own {@link FilterParams}, that are applied
+ * to an image one after another.
+ *
+ * <p>
+ * Applying a chain through {@link FilterProcessor#applyFilterChainToBitmap} is equivalent to
+ * applying each filter in turn, but the stages are fused so that the image is only read from and
+ * written to memory once instead of once per stage.
+ * </p>
+ */
+public class FilterChain {
+
+    /**
+     * A single stage of a {@link FilterChain}.
+     */
+    public static class Stage {
+
+        private final Filter filter;
+        private final FilterParams params;
+
+        Stage(@NonNull Filter filter, @Nullable FilterParams params) {
+            this.filter = filter;
+            this.params = params;
+        }
+
+        @NonNull
+        public Filter getFilter() {
+            return filter;
+        }
+
+        /**
+         * @return The parameters of this stage, or {@code null} if the filter's default
+         * parameters should be used.
+         */
+        @Nullable
+        public FilterParams getParams() {
+            return params;
+        }
+    }
+
+    private final List<Stage> stages = new ArrayList<>();
+
+    /**
+     * Appends a filter to the end of this chain. The parameters are copied, so later changes to
+     * {@code params} do not affect the chain.
+     *
+     * @param filter The {@link Filter} to append.
+     * @param params Optional {@link FilterParams} for the filter. If null, default parameters
+     *               for the filter will be used.
+     *
+     * @return This chain, to allow calls to be chained.
+     */
+    public FilterChain add(@NonNull Filter filter, @Nullable FilterParams params) {
+        if (params != null && params.getFilterType() != filter) {
+            throw new IllegalArgumentException(params.getClass().getSimpleName()
+                    + " cannot be used with " + filter.name());
+        }
+        stages.add(new Stage(filter, params != null ? params.copy() : null));
+        return this;
+    }
+
+    @NonNull
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    public int size() {
+        return stages.size();
+    }
+
+    public boolean isEmpty() {
+        return stages.isEmpty();
+    }
+}
@@ -13,6 +13,12 @@ package com.rivan.neon;
  * Additionally, the <b>constructor of implementing classes should reset the parameters' values</b>
  * to their default state when called.
  * </p>
+ *
+ * <p>
+ * Implementing classes must also implement {@link Object#equals} and {@link Object#hashCode}
+ * over all their values, so that parameters can key the results they produce, e.g. in a
+ * {@link FilterResultCache}.
+ * </p>
  */
 public interface FilterParams {
 
@@ -5,18 +5,35 @@ import android.graphics.Bitmap;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.rivan.neon.filters.FilterKernel;
+import com.rivan.neon.filters.FilterRegistry;
 import com.rivan.neon.filters.JavaFilters;
+import com.rivan.neon.filters.NativeChain;
 import com.rivan.neon.filters.NativeFilters;
-import com.rivan.neon.filters.params.BrightnessFilterParams;
-import com.rivan.neon.filters.params.ContrastFilterParams;
-import com.rivan.neon.filters.params.GrayscaleFilterParams;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+import com.rivan.neon.filters.kernels.FixedPointKernels;
+import com.rivan.neon.filters.kernels.PixelKernels;
+import com.rivan.neon.filters.kernels.Resampler;
+import com.rivan.neon.filters.kernels.RowKernel;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A utility class responsible for applying various image filters to a {@link Bitmap}
  * and measuring the time taken for filter application.
+ *
+ * <p>
+ * Filters are dispatched through {@link FilterRegistry}: the implementation of every filter,
+ * and the traits that decide how it is executed, are declared by its {@link FilterKernel}.
+ * </p>
  */
 public class FilterProcessor {
 
+    /** Options used by the methods that do not take any {@link ProcessingOptions}. */
+    private static final ProcessingOptions DEFAULT_OPTIONS = new ProcessingOptions();
+
     /**
      * Applies a specified {@link Filter} to a given {@link Bitmap}, using either
      * Java or Assembly implementation based on the {@code useAssembly} flag.
@@ -35,87 +52,593 @@ public class FilterProcessor {
      */
     public static Bitmap applyFilterToBitmap(@NonNull Bitmap bitmap, @Nullable Filter filter,
                                              @Nullable FilterParams params, boolean useAssembly) {
+        return applyFilterToBitmap(bitmap, filter, params, useAssembly, DEFAULT_OPTIONS);
+    }
+
+    /**
+     * Applies a specified {@link Filter} to a given {@link Bitmap}, using either
+     * Java or Assembly implementation based on the {@code useAssembly} flag, and the given
+     * {@link ProcessingOptions}.
+     * The original bitmap is not modified; a copy is processed and returned.
+     *
+     * @param bitmap      The original {@link Bitmap} to which the filter will be applied.
+     *                    Must not be null and not recycled.
+     * @param filter      The {@link Filter} to apply.
+     * @param params      Optional {@link FilterParams} specific to the filter. If null,
+     *                    default parameters for the filter will be used.
+     * @param useAssembly {@code true} to use the Assembly implementation,
+     *                    {@code false} to use the Java implementation.
+     * @param options     The {@link ProcessingOptions} that select how the filter is applied.
+     *
+     * @return A new {@link Bitmap} with the applied filter, or {@code null} if the input bitmap
+     * is invalid.
+     */
+    public static Bitmap applyFilterToBitmap(@NonNull Bitmap bitmap, @Nullable Filter filter,
+                                             @Nullable FilterParams params, boolean useAssembly,
+                                             @NonNull ProcessingOptions options) {
         if (bitmap.isRecycled()) {
             return null;
         }
 
-        // Create a copy of the original bitmap to apply the filter to.
-        Bitmap processedBitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
-
-        // If no filter is specified, return the copied original bitmap
+        // If no filter is specified, return a copy of the original bitmap
         if (filter == null) {
-            return processedBitmap;
+            return bitmap.copy(Bitmap.Config.ARGB_8888, true);
         }
 
-        switch (filter) {
-            case GRAYSCALE:
-                GrayscaleFilterParams grayscaleParams = (GrayscaleFilterParams) params;
-                if (grayscaleParams == null) {
-                    grayscaleParams = new GrayscaleFilterParams();
-                }
-                if (useAssembly) {
-                    NativeFilters.applyGrayscale(processedBitmap,
-                            grayscaleParams.getRedCoefficient(),
-                            grayscaleParams.getGreenCoefficient(),
-                            grayscaleParams.getBlueCoefficient());
+        // A single filter is a chain of one stage, and is dispatched the same way.
+        return applyFilterChainToBitmap(bitmap, new FilterChain().add(filter, params),
+                useAssembly, options);
+    }
+
+    /**
+     * Applies a specified {@link Filter} with its Assembly implementation, reading the pixels of
+     * {@code source} and writing the result into {@code destination} in a single pass. Unlike
+     * {@link #applyFilterToBitmap}, no copy of the source is made, and the destination can be
+     * reused across calls.
+     *
+     * @param source      The {@link Bitmap} to read. Must be ARGB_8888 and not recycled. It is
+     *                    not modified, unless it is also the destination.
+     * @param destination A mutable ARGB_8888 {@link Bitmap} with the same size as the source.
+     *                    If the filter would not change the image, the source is copied into it.
+     * @param filter      The {@link Filter} to apply.
+     * @param params      Optional {@link FilterParams} specific to the filter. If null,
+     *                    default parameters for the filter will be used.
+     * @param options     The {@link ProcessingOptions} that select how the filter is applied.
+     *
+     * @throws IllegalArgumentException If either bitmap is not ARGB_8888, the destination is
+     *                                  not mutable, the sizes differ or the filter has no
+     *                                  native kernel.
+     */
+    public static void applyNativeFilterTo(@NonNull Bitmap source, @NonNull Bitmap destination,
+                                           @NonNull Filter filter, @Nullable FilterParams params,
+                                           @NonNull ProcessingOptions options) {
+        if (source.getConfig() != Bitmap.Config.ARGB_8888
+                || destination.getConfig() != Bitmap.Config.ARGB_8888) {
+            throw new IllegalArgumentException("Both bitmaps must be ARGB_8888");
+        }
+        if (!destination.isMutable()) {
+            throw new IllegalArgumentException("The destination bitmap must be mutable");
+        }
+        if (source.getWidth() != destination.getWidth()
+                || source.getHeight() != destination.getHeight()) {
+            throw new IllegalArgumentException("The destination bitmap is "
+                    + destination.getWidth() + "x" + destination.getHeight()
+                    + " but the source is " + source.getWidth() + "x" + source.getHeight());
+        }
+
+        FilterKernel kernel = FilterRegistry.get(filter);
+        NativeFilters.setThreadCount(options.getParallelism());
+        if (kernel.getFootprint() != FilterKernel.Footprint.POINTWISE
+                && !kernel.isIdentity(params)) {
+            if (!kernel.applyNative(source, destination, params)) {
+                throw new IllegalArgumentException(filter.name() + " has no native kernel");
+            }
+            return;
+        }
+
+        NativeChain chain = new NativeChain();
+        addNativeStage(chain, kernel, params);
+        chain.applyTo(source, destination);
+    }
+
+    /**
+     * Applies every stage of a {@link FilterChain} to a given {@link Bitmap}, using either
+     * Java or Assembly implementation based on the {@code useAssembly} flag.
+     * The original bitmap is not modified; a single copy is processed and returned.
+     *
+     * <p>
+     * The execution is chosen from the traits of each stage's {@link FilterKernel}. Stages that
+     * would not change the image are dropped. Consecutive {@link FilterKernel#isAffine() affine}
+     * stages are collapsed into a single lookup table if they are all
+     * {@link FilterKernel#isPerChannel() per-channel} and
+     * {@link FilterKernel#isLutCompilable() LUT-compilable}, and into a single
+     * {@link ColorMatrix} if none of them is per-channel and none but the last can saturate, so
+     * an arbitrary stack of adjustments costs the same as one filter, and gives the same result
+     * as applying them one by one. Both implementations collapse a chain the same way; with
+     * Assembly, a lookup table is applied with {@link NativeFilters#applyLut}. For Java, the
+     * remaining
+     * pointwise kernels are fused so that each pixel is read and written only once, with a single
+     * {@code getPixels}/{@code setPixels} round trip per pass, split into row bands for parallel
+     * execution. For Assembly, every stage is applied with a single {@link NativeChain} call that
+     * reads the original bitmap and writes the new one. Neighborhood stages end the current pass
+     * and are applied to the whole image on their own. Global stages, such as a histogram
+     * equalization, end it too; with Java, their table is then computed from the whole image and
+     * fused with the pointwise stages that follow.
+     * </p>
+     *
+     * @param bitmap      The original {@link Bitmap} to which the chain will be applied.
+     *                    Must not be null and not recycled.
+     * @param chain       The {@link FilterChain} to apply.
+     * @param useAssembly {@code true} to use the Assembly implementation,
+     *                    {@code false} to use the Java implementation.
+     *
+     * @return A new {@link Bitmap} with all filters of the chain applied, or {@code null} if the
+     * input bitmap is invalid.
+     */
+    public static Bitmap applyFilterChainToBitmap(@NonNull Bitmap bitmap, @NonNull FilterChain chain,
+                                                  boolean useAssembly) {
+        return applyFilterChainToBitmap(bitmap, chain, useAssembly, DEFAULT_OPTIONS);
+    }
+
+    /**
+     * Applies every stage of a {@link FilterChain} to a given {@link Bitmap} with the given
+     * {@link ProcessingOptions}.
+     *
+     * @see #applyFilterChainToBitmap(Bitmap, FilterChain, boolean)
+     */
+    public static Bitmap applyFilterChainToBitmap(@NonNull Bitmap bitmap, @NonNull FilterChain chain,
+                                                  boolean useAssembly,
+                                                  @NonNull ProcessingOptions options) {
+        if (bitmap.isRecycled()) {
+            return null;
+        }
+
+        // Stages that would not change the image are dropped first, so that they do not
+        // break up runs of affine stages.
+        List<FilterChain.Stage> stages = new ArrayList<>();
+        boolean alphaPreserving = true;
+        for (FilterChain.Stage stage : chain.getStages()) {
+            FilterKernel kernel = FilterRegistry.get(stage.getFilter());
+            if (!kernel.isIdentity(stage.getParams())) {
+                stages.add(stage);
+                alphaPreserving &= kernel.isAlphaPreserving();
+            }
+        }
+
+        // Pointwise stages are gathered into a pass that is applied all at once.
+        List<RowKernel> kernels = new ArrayList<>();
+        NativeChain nativeChain = new NativeChain();
+        Bitmap processedBitmap = null;
+
+        int runStart = 0;
+        while (runStart < stages.size()) {
+            FilterChain.Stage first = stages.get(runStart);
+            FilterKernel firstKernel = FilterRegistry.get(first.getFilter());
+
+            if (firstKernel.getFootprint() != FilterKernel.Footprint.POINTWISE) {
+                // Every pixel the stage reads must have been through the previous stages. If
+                // there are none, the stage reads the original bitmap directly.
+                Bitmap source = processedBitmap == null && kernels.isEmpty()
+                        && nativeChain.isEmpty() ? bitmap
+                        : applyPass(bitmap, processedBitmap, kernels, nativeChain, useAssembly,
+                        alphaPreserving, options);
+                ChannelLut imageLut = useAssembly ? null
+                        : firstKernel.compileImageLut(source, first.getParams(), options);
+                if (imageLut != null) {
+                    // The table only needed the whole image to be computed; it is applied
+                    // with the next pass.
+                    if (source != bitmap) {
+                        processedBitmap = source;
+                    }
+                    if (!imageLut.isIdentity()) {
+                        kernels.add(imageLut.kernel());
+                    }
                 } else {
-                    processedBitmap = JavaFilters.applyGrayscale(processedBitmap,
-                            grayscaleParams.getRedCoefficient(),
-                            grayscaleParams.getGreenCoefficient(),
-                            grayscaleParams.getBlueCoefficient());
+                    processedBitmap = applyNeighborhoodStage(source, source != bitmap,
+                            firstKernel, first.getParams(), useAssembly, options);
                 }
-                break;
-            case INVERT:
-                if (useAssembly) {
-                    NativeFilters.applyInvert(processedBitmap);
-                } else {
-                    processedBitmap = JavaFilters.applyInvert(processedBitmap);
+                runStart++;
+                continue;
+            }
+
+            // Per-channel stages are only grouped with each other, so that their run can be
+            // composed into a lookup table, and the other affine stages into a color matrix.
+            // Both give the result of applying the stages one after another: the table clamps
+            // after every stage, and the matrix, which does not, only spans stages that cannot
+            // saturate before the last one.
+            boolean perChannel = firstKernel.isPerChannel();
+            ColorMatrix matrix = ColorMatrix.identity();
+            int runEnd = runStart;
+            while (runEnd < stages.size()) {
+                FilterChain.Stage stage = stages.get(runEnd);
+                FilterKernel kernel = FilterRegistry.get(stage.getFilter());
+                if (kernel.getFootprint() != FilterKernel.Footprint.POINTWISE
+                        || !kernel.isAffine() || kernel.isPerChannel() != perChannel
+                        || (perChannel && !kernel.isLutCompilable())
+                        || (!perChannel && matrix.canSaturate())) {
+                    break;
                 }
-                break;
-            case BRIGHTNESS:
-                BrightnessFilterParams brightnessParams = (BrightnessFilterParams) params;
-                if (brightnessParams == null) {
-                    brightnessParams = new BrightnessFilterParams();
+                if (!perChannel) {
+                    matrix = matrix.then(kernel.compileColorMatrix(stage.getParams()));
                 }
-                // Apply the filter only if the value is not default (0)
-                if (brightnessParams.getBrightness() != 0) {
-                    if (useAssembly) {
-                        NativeFilters.applyBrightness(processedBitmap, brightnessParams.getBrightness());
-                    } else {
-                        processedBitmap = JavaFilters.applyBrightness(processedBitmap,
-                                brightnessParams.getBrightness());
+                runEnd++;
+            }
+
+            // Single stages and non-affine stages use their dedicated kernels.
+            if (runEnd - runStart <= 1) {
+                if (useAssembly) {
+                    addNativeStage(nativeChain, firstKernel, first.getParams());
+                } else {
+                    RowKernel kernel = firstKernel.createJavaKernel(first.getParams(), options);
+                    if (kernel != null) {
+                        kernels.add(kernel);
                     }
                 }
-                break;
-            case CONTRAST:
-                ContrastFilterParams contrastParams = (ContrastFilterParams) params;
-                if (contrastParams == null) {
-                    contrastParams = new ContrastFilterParams();
+                runStart++;
+                continue;
+            }
+
+            if (perChannel) {
+                ChannelLut lut = compileLut(stages.subList(runStart, runEnd));
+                if (!lut.isIdentity() && useAssembly) {
+                    // The table runs on its own, after the native stages gathered so far.
+                    if (!nativeChain.isEmpty()) {
+                        processedBitmap = applyPass(bitmap, processedBitmap, kernels,
+                                nativeChain, true, alphaPreserving, options);
+                    }
+                    processedBitmap = applyNativeLut(bitmap, processedBitmap, lut,
+                            alphaPreserving, options);
+                } else if (!lut.isIdentity()) {
+                    kernels.add(lut.kernel());
                 }
-                // Apply the filter only if the value is not default (1.0)
-                if (contrastParams.getContrast() != 1.0f) {
+            } else {
+                if (!matrix.isIdentity()) {
                     if (useAssembly) {
-                        NativeFilters.applyContrast(processedBitmap, contrastParams.getContrast());
+                        nativeChain.colorMatrix(matrix.getValues());
+                    } else if (options.getArithmetic() == ProcessingOptions.Arithmetic.FIXED_POINT) {
+                        kernels.add(FixedPointKernels.colorMatrixKernel(matrix));
                     } else {
-                        processedBitmap = JavaFilters.applyContrast(processedBitmap,
-                                contrastParams.getContrast());
+                        kernels.add(matrix.kernel());
                     }
                 }
-                break;
-            case SEPIA:
-                if (useAssembly) {
-                    NativeFilters.applySepia(processedBitmap);
-                } else {
-                    processedBitmap = JavaFilters.applySepia(processedBitmap);
+            }
+            runStart = runEnd;
+        }
+
+        return applyPass(bitmap, processedBitmap, kernels, nativeChain, useAssembly,
+                alphaPreserving, options);
+    }
+
+    /**
+     * Resizes a {@link Bitmap}, with {@link Resampler.Method#AUTO}: areas are averaged when
+     * downscaling by a factor of 2 or more, and pixels are interpolated bilinearly otherwise.
+     * The original bitmap is not modified.
+     *
+     * @param bitmap      The {@link Bitmap} to resize. Must not be null and not recycled.
+     * @param width       The width of the result.
+     * @param height      The height of the result.
+     * @param useAssembly {@code true} to use the native implementation,
+     *                    {@code false} to use the Java implementation.
+     * @param options     The {@link ProcessingOptions} that select the parallelism.
+     *
+     * @return A new mutable {@link Bitmap} of the given size, or {@code null} if the input
+     * bitmap is invalid.
+     */
+    public static Bitmap resizeBitmap(@NonNull Bitmap bitmap, int width, int height,
+                                      boolean useAssembly, @NonNull ProcessingOptions options) {
+        if (bitmap.isRecycled()) {
+            return null;
+        }
+
+        Bitmap resized = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        resized.setDensity(bitmap.getDensity());
+        resized.setHasAlpha(bitmap.hasAlpha());
+        if (useAssembly && bitmap.getConfig() == Bitmap.Config.ARGB_8888) {
+            NativeFilters.setThreadCount(options.getParallelism());
+            NativeFilters.resize(bitmap, resized, Resampler.Method.AUTO);
+            return resized;
+        }
+        return JavaFilters.resize(bitmap, resized, Resampler.Method.AUTO,
+                options.getParallelism(), options.getMinBandRows());
+    }
+
+    /**
+     * Creates the image that previews are rendered from: the bitmap scaled down, keeping its
+     * aspect ratio, to the smallest size that still covers {@code width} by {@code height}, as an
+     * image view cropping it to its center displays it. Filtering this proxy instead of the
+     * original costs a fraction of the time, while looking the same on screen.
+     *
+     * @param bitmap      The original {@link Bitmap}. Must not be null and not recycled.
+     * @param width       The width the previews are displayed at, in pixels.
+     * @param height      The height the previews are displayed at, in pixels.
+     * @param useAssembly {@code true} to use the native implementation,
+     *                    {@code false} to use the Java implementation.
+     * @param options     The {@link ProcessingOptions} that select the parallelism.
+     *
+     * @return The proxy, or the bitmap itself if it is not larger than the previews, or
+     * {@code null} if the input bitmap is invalid.
+     */
+    public static Bitmap createPreviewBitmap(@NonNull Bitmap bitmap, int width, int height,
+                                             boolean useAssembly,
+                                             @NonNull ProcessingOptions options) {
+        if (bitmap.isRecycled()) {
+            return null;
+        }
+
+        float scale = Math.max((float) width / bitmap.getWidth(),
+                (float) height / bitmap.getHeight());
+        if (width <= 0 || height <= 0 || scale >= 1.0f) {
+            return bitmap;
+        }
+        int previewWidth = Math.max(1, Math.round(bitmap.getWidth() * scale));
+        int previewHeight = Math.max(1, Math.round(bitmap.getHeight() * scale));
+        return resizeBitmap(bitmap, previewWidth, previewHeight, useAssembly, options);
+    }
+
+    /**
+     * Applies the pointwise stages gathered so far, and clears them.
+     *
+     * @param bitmap          The original bitmap.
+     * @param processedBitmap The result of the previous passes, or {@code null} if this is the
+     *                        first one, in which case the original bitmap is read.
+     *
+     * @return The processed bitmap.
+     */
+    private static Bitmap applyPass(@NonNull Bitmap bitmap, @Nullable Bitmap processedBitmap,
+                                    @NonNull List<RowKernel> kernels,
+                                    @NonNull NativeChain nativeChain, boolean useAssembly,
+                                    boolean alphaPreserving, @NonNull ProcessingOptions options) {
+        if (useAssembly) {
+            // All Assembly stages run under a single pixel lock, band by band.
+            NativeFilters.setThreadCount(options.getParallelism());
+            if (processedBitmap == null) {
+                processedBitmap = applyNativeChain(bitmap, nativeChain, alphaPreserving);
+            } else {
+                nativeChain.apply(processedBitmap);
+            }
+            nativeChain.clear();
+            return processedBitmap;
+        }
+
+        if (processedBitmap == null) {
+            processedBitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
+        }
+        if (!kernels.isEmpty()) {
+            processedBitmap = applyJavaKernel(processedBitmap,
+                    PixelKernels.fuse(kernels.toArray(new RowKernel[0])), options);
+            kernels.clear();
+        }
+        return processedBitmap;
+    }
+
+    /**
+     * Applies a {@link FilterKernel.Footprint#NEIGHBORHOOD} or
+     * {@link FilterKernel.Footprint#GLOBAL} stage to a bitmap. With Assembly,
+     * the native implementation reads the source and writes a new bitmap in a single pass;
+     * otherwise the Java implementation filters the source, or a copy of it, in place.
+     *
+     * @param source      The bitmap to filter.
+     * @param ownsSource  {@code true} if the source is an intermediate result that can be
+     *                    modified or recycled, {@code false} if it is the original bitmap.
+     *
+     * @return The processed bitmap.
+     */
+    private static Bitmap applyNeighborhoodStage(@NonNull Bitmap source, boolean ownsSource,
+                                                 @NonNull FilterKernel kernel,
+                                                 @Nullable FilterParams params,
+                                                 boolean useAssembly,
+                                                 @NonNull ProcessingOptions options) {
+        if (useAssembly && source.getConfig() == Bitmap.Config.ARGB_8888) {
+            Bitmap processedBitmap = Bitmap.createBitmap(source.getWidth(), source.getHeight(),
+                    Bitmap.Config.ARGB_8888);
+            processedBitmap.setDensity(source.getDensity());
+            processedBitmap.setHasAlpha(!kernel.isAlphaPreserving() || source.hasAlpha());
+            NativeFilters.setThreadCount(options.getParallelism());
+            if (kernel.applyNative(source, processedBitmap, params)) {
+                if (ownsSource) {
+                    source.recycle();
                 }
-                break;
-            default:
-                break;
+                return processedBitmap;
+            }
+            processedBitmap.recycle();
+        }
+
+        if (!ownsSource) {
+            source = source.copy(Bitmap.Config.ARGB_8888, true);
+        }
+        return kernel.applyJava(source, params, options);
+    }
+
+    /**
+     * Runs a Java kernel over a bitmap in place, using the pixel access and parallelism
+     * selected by the options.
+     */
+    private static Bitmap applyJavaKernel(@NonNull Bitmap bitmap, @NonNull RowKernel kernel,
+                                          @NonNull ProcessingOptions options) {
+        if (options.getPixelAccess() == ProcessingOptions.PixelAccess.RAW) {
+            return JavaFilters.applyKernelRaw(bitmap, kernel, options.getParallelism(),
+                    options.getMinBandRows());
+        }
+        return JavaFilters.applyKernel(bitmap, kernel, options.getParallelism(),
+                options.getMinBandRows());
+    }
+
+    /**
+     * Composes the lookup tables of a run of LUT-compilable stages.
+     */
+    @NonNull
+    private static ChannelLut compileLut(@NonNull List<FilterChain.Stage> run) {
+        ChannelLut lut = ChannelLut.identity();
+        for (FilterChain.Stage stage : run) {
+            lut = lut.then(FilterRegistry.get(stage.getFilter()).compileLut(stage.getParams()));
+        }
+        return lut;
+    }
+
+    /**
+     * Applies a lookup table with the native implementation, to the result of the previous
+     * passes if there is one, or to a new bitmap otherwise.
+     *
+     * @param bitmap          The original bitmap.
+     * @param processedBitmap The result of the previous passes, or {@code null} if the table is
+     *                        applied to the original bitmap.
+     * @param alphaPreserving {@code true} if the chain never changes the alpha channel, in
+     *                        which case a new bitmap keeps the {@code hasAlpha} hint of the
+     *                        original one.
+     *
+     * @return The processed bitmap.
+     */
+    private static Bitmap applyNativeLut(@NonNull Bitmap bitmap, @Nullable Bitmap processedBitmap,
+                                         @NonNull ChannelLut lut, boolean alphaPreserving,
+                                         @NonNull ProcessingOptions options) {
+        NativeFilters.setThreadCount(options.getParallelism());
+        if (processedBitmap == null && bitmap.getConfig() == Bitmap.Config.ARGB_8888) {
+            processedBitmap = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(),
+                    Bitmap.Config.ARGB_8888);
+            processedBitmap.setDensity(bitmap.getDensity());
+            processedBitmap.setHasAlpha(!alphaPreserving || bitmap.hasAlpha());
+            NativeFilters.applyLut(bitmap, processedBitmap, lut);
+            return processedBitmap;
+        }
+
+        if (processedBitmap == null) {
+            processedBitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
+        }
+        NativeFilters.applyLut(processedBitmap, processedBitmap, lut);
+        return processedBitmap;
+    }
+
+    /**
+     * Applies a {@link NativeChain} to a new bitmap. ARGB_8888 sources are read directly by the
+     * out-of-place native kernels, so the source is only read once; other formats are converted
+     * with a copy first and filtered in place.
+     *
+     * @param alphaPreserving {@code true} if the chain never changes the alpha channel, in
+     *                        which case the new bitmap keeps the {@code hasAlpha} hint of the
+     *                        original one.
+     */
+    private static Bitmap applyNativeChain(@NonNull Bitmap bitmap, @NonNull NativeChain chain,
+                                           boolean alphaPreserving) {
+        if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+            Bitmap processedBitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
+            chain.apply(processedBitmap);
+            return processedBitmap;
         }
 
+        Bitmap processedBitmap = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(),
+                Bitmap.Config.ARGB_8888);
+        processedBitmap.setDensity(bitmap.getDensity());
+        processedBitmap.setHasAlpha(!alphaPreserving || bitmap.hasAlpha());
+        chain.applyTo(bitmap, processedBitmap);
         return processedBitmap;
     }
 
+    /**
+     * Appends the Assembly implementation of a filter to a {@link NativeChain}.
+     * Filters that would not change the image are skipped.
+     *
+     * @throws IllegalArgumentException If the filter has no native kernel.
+     */
+    private static void addNativeStage(@NonNull NativeChain chain, @NonNull FilterKernel kernel,
+                                       @Nullable FilterParams params) {
+        if (kernel.isIdentity(params)) {
+            return;
+        }
+        if (kernel.getNativeFilterId() < 0) {
+            throw new IllegalArgumentException(kernel.getFilter().name()
+                    + " has no native kernel");
+        }
+        kernel.addNativeStage(chain, params);
+    }
+
+    /**
+     * Benchmarks the Assembly implementation of a {@link Filter} entirely in native code, see
+     * {@link NativeFilters#benchmarkChain}. The bitmap is modified in place.
+     *
+     * @param warmupIterations Number of untimed iterations run first.
+     * @param iterations       Number of timed iterations.
+     *
+     * @return The duration of every timed iteration in nanoseconds, or {@code null} if the
+     * bitmap or the counts are invalid, or if the filter is not applied
+     * (e.g., brightness 0, contrast 1.0f).
+     */
+    @Nullable
+    public static long[] benchmarkNativeFilter(@NonNull Bitmap bitmap, @NonNull Filter filter,
+                                               @Nullable FilterParams params,
+                                               @NonNull ProcessingOptions options,
+                                               int warmupIterations, int iterations) {
+        if (bitmap.isRecycled()) {
+            return null;
+        }
+
+        FilterKernel kernel = FilterRegistry.get(filter);
+        if (kernel.getFootprint() != FilterKernel.Footprint.POINTWISE) {
+            if (kernel.isIdentity(params) || warmupIterations < 0 || iterations <= 0) {
+                return null;
+            }
+            NativeFilters.setThreadCount(options.getParallelism());
+            return benchmarkNativeNeighborhood(bitmap, kernel, params, warmupIterations,
+                    iterations);
+        }
+
+        NativeChain chain = new NativeChain();
+        addNativeStage(chain, kernel, params);
+        if (chain.isEmpty()) {
+            return null;
+        }
+
+        NativeFilters.setThreadCount(options.getParallelism());
+        return chain.benchmark(bitmap, warmupIterations, iterations);
+    }
+
+    /**
+     * Times the native implementation of a neighborhood or global filter, which reads a copy of the bitmap
+     * and writes the bitmap itself on every iteration, so no iteration reads its own output.
+     * Unlike {@link NativeChain#benchmark}, every sample includes a JNI transition and the
+     * pixel locks, which are negligible next to a convolution.
+     *
+     * @return The duration of every timed iteration in nanoseconds, or {@code null} if the
+     * filter has no native implementation.
+     */
+    @Nullable
+    private static long[] benchmarkNativeNeighborhood(@NonNull Bitmap bitmap,
+                                                      @NonNull FilterKernel kernel,
+                                                      @Nullable FilterParams params,
+                                                      int warmupIterations, int iterations) {
+        Bitmap source = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                if (!kernel.applyNative(source, bitmap, params)) {
+                    return null;
+                }
+            }
+
+            long[] samples = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long startTimeNs = System.nanoTime();
+                if (!kernel.applyNative(source, bitmap, params)) {
+                    return null;
+                }
+                samples[i] = System.nanoTime() - startTimeNs;
+            }
+            return samples;
+        } finally {
+            source.recycle();
+        }
+    }
+
+    /**
+     * Returns the variant of the native kernel that the Assembly implementation of a filter
+     * runs on this device, see {@link NativeFilters#getKernelVariant}.
+     *
+     * @return The name of the variant, or {@code null} if the filter has no native kernel.
+     */
+    @Nullable
+    public static String getNativeKernelVariant(@NonNull Filter filter) {
+        int filterId = FilterRegistry.get(filter).getNativeFilterId();
+        return filterId >= 0 ? NativeFilters.getKernelVariant(filterId) : null;
+    }
+
     /**
      * Measures the time taken to apply a specified {@link Filter} to a given {@link Bitmap}.
      * This method supports both Java and Assembly implementations.
@@ -136,6 +659,18 @@ public class FilterProcessor {
      */
     public static long measureFilterTime(@NonNull Bitmap bitmap, @Nullable Filter filter,
                                          @Nullable FilterParams params, boolean useAssembly) {
+        return measureFilterTime(bitmap, filter, params, useAssembly, DEFAULT_OPTIONS);
+    }
+
+    /**
+     * Measures the time taken to apply a specified {@link Filter} to a given {@link Bitmap}
+     * with the given {@link ProcessingOptions}.
+     *
+     * @see #measureFilterTime(Bitmap, Filter, FilterParams, boolean)
+     */
+    public static long measureFilterTime(@NonNull Bitmap bitmap, @Nullable Filter filter,
+                                         @Nullable FilterParams params, boolean useAssembly,
+                                         @NonNull ProcessingOptions options) {
         if (bitmap.isRecycled()) {
             return -1;
         }
@@ -147,57 +682,28 @@ public class FilterProcessor {
         long measuredDurationNs;
 
         if (useAssembly) {
-            switch (filter) {
-                case GRAYSCALE:
-                    GrayscaleFilterParams grayscaleParams = (GrayscaleFilterParams) params;
-                    if (grayscaleParams == null) {
-                        grayscaleParams = new GrayscaleFilterParams();
-                    }
-                    measuredDurationNs = NativeFilters.measureGrayscale(bitmap,
-                            grayscaleParams.getRedCoefficient(),
-                            grayscaleParams.getGreenCoefficient(),
-                            grayscaleParams.getGreenCoefficient());
-                    break;
-                case INVERT:
-                    measuredDurationNs = NativeFilters.measureInvert(bitmap);
-                    break;
-                case BRIGHTNESS:
-                    BrightnessFilterParams brightnessParams = (BrightnessFilterParams) params;
-                    if (brightnessParams == null) {
-                        brightnessParams = new BrightnessFilterParams();
-                    }
-                    // Only measure if brightness actually changes the image
-                    if (brightnessParams.getBrightness() != 0) {
-                        measuredDurationNs = NativeFilters.measureBrightness(bitmap,
-                                brightnessParams.getBrightness());
-                    } else {
-                        measuredDurationNs = -1;
-                    }
-                    break;
-                case CONTRAST:
-                    ContrastFilterParams contrastParams = (ContrastFilterParams) params;
-                    if (contrastParams == null) {
-                        contrastParams = new ContrastFilterParams();
-                    }
-                    // Only measure if contrast actually changes the image
-                    if (contrastParams.getContrast() != 1.0f) {
-                        measuredDurationNs = NativeFilters.measureContrast(bitmap,
-                                contrastParams.getContrast());
-                    } else {
-                        measuredDurationNs = -1;
-                    }
-                    break;
-                case SEPIA:
-                    measuredDurationNs = NativeFilters.measureSepia(bitmap);
-                    break;
-                default:
-                    measuredDurationNs = -1;
-                    break;
+            NativeChain chain = new NativeChain();
+            FilterKernel kernel = FilterRegistry.get(filter);
+            if (kernel.getFootprint() != FilterKernel.Footprint.POINTWISE) {
+                NativeFilters.setThreadCount(options.getParallelism());
+                long[] samples = kernel.isIdentity(params) ? null
+                        : benchmarkNativeNeighborhood(bitmap, kernel, params, 0, 1);
+                return samples != null ? samples[0] : -1;
+            }
+            if (kernel.getNativeFilterId() >= 0) {
+                addNativeStage(chain, kernel, params);
+            }
+            // Only measure if the filter actually changes the image
+            if (!chain.isEmpty()) {
+                NativeFilters.setThreadCount(options.getParallelism());
+                measuredDurationNs = chain.measure(bitmap);
+            } else {
+                measuredDurationNs = -1;
             }
         } else {
             // Java implementations are measured by timing the applyFilterToBitmap call
             long startTimeNs = System.nanoTime();
-            Bitmap result = applyFilterToBitmap(bitmap, filter, params, false);
+            Bitmap result = applyFilterToBitmap(bitmap, filter, params, false, options);
             long endTimeNs = System.nanoTime();
             measuredDurationNs = endTimeNs - startTimeNs;
 
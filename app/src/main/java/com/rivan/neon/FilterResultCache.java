@@ -0,0 +1,261 @@
+package com.rivan.neon;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the most recently used results of {@link FilterProcessor#applyFilterToBitmap}, so that
+ * going back to parameters seen before, e.g. by scrubbing a slider back or switching between the
+ * Java and the Assembly implementation, shows the result without filtering again.
+ *
+ * <p>
+ * Results are keyed by the source bitmap, the filter, the value of its {@link FilterParams} and
+ * the implementation. Sources are compared by identity, so a copy of an image at another scale,
+ * such as a draft preview, has results of its own. Sources are only weakly referenced, and the
+ * results of a source are dropped once it is recycled or modified, which changes its generation
+ * id.
+ * </p>
+ *
+ * <p>
+ * The cache holds at most {@link #getMaxBytes()} bytes of results, and evicts the least recently
+ * used ones beyond that. Cached bitmaps are shared with every caller that gets them, and must not
+ * be modified or recycled. The cache is safe to use from multiple threads.
+ * </p>
+ */
+public final class FilterResultCache {
+
+    private final long maxBytes;
+
+    /** In access order: least recently used first. */
+    private final LinkedHashMap<Key, Entry> results = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long sizeBytes;
+    private int hitCount;
+    private int missCount;
+    private int evictionCount;
+
+    /**
+     * @param maxBytes The total size of the results the cache may hold, in bytes.
+     */
+    public FilterResultCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The cache size must be positive, not "
+                    + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Looks up the result of a filter.
+     *
+     * @param source      The bitmap the filter was applied to.
+     * @param filter      The {@link Filter} applied.
+     * @param params      The {@link FilterParams} of the filter, or {@code null} for the defaults.
+     * @param useAssembly {@code true} for the result of the Assembly implementation,
+     *                    {@code false} for the Java one.
+     *
+     * @return The cached result, or {@code null} if there is none.
+     */
+    @Nullable
+    public Bitmap get(@NonNull Bitmap source, @NonNull Filter filter,
+                      @Nullable FilterParams params, boolean useAssembly) {
+        Key key = new Key(source, filter, params, useAssembly);
+        synchronized (results) {
+            Entry entry = results.get(key);
+            if (entry != null && !entry.result.isRecycled()) {
+                hitCount++;
+                return entry.result;
+            }
+            if (entry != null) {
+                remove(key);
+            }
+            missCount++;
+            return null;
+        }
+    }
+
+    /**
+     * Caches the result of a filter, evicting the least recently used results if the cache is
+     * full. Results larger than the whole cache are not kept.
+     *
+     * @param source      The bitmap the filter was applied to. Must not be modified afterwards.
+     * @param filter      The {@link Filter} applied.
+     * @param params      The {@link FilterParams} of the filter, or {@code null} for the defaults.
+     *                    A copy is kept.
+     * @param useAssembly {@code true} if the Assembly implementation produced the result,
+     *                    {@code false} if the Java one did.
+     * @param result      The result, which must not be modified afterwards.
+     */
+    public void put(@NonNull Bitmap source, @NonNull Filter filter,
+                    @Nullable FilterParams params, boolean useAssembly,
+                    @NonNull Bitmap result) {
+        long bytes = result.getAllocationByteCount();
+        if (bytes > maxBytes) {
+            return;
+        }
+        Key key = new Key(source, filter, params != null ? params.copy() : null, useAssembly);
+        synchronized (results) {
+            remove(key);
+            removeStale();
+            results.put(key, new Entry(result, bytes));
+            sizeBytes += bytes;
+
+            Iterator<Entry> eldest = results.values().iterator();
+            while (sizeBytes > maxBytes) {
+                sizeBytes -= eldest.next().bytes;
+                eldest.remove();
+                evictionCount++;
+            }
+        }
+    }
+
+    /**
+     * Drops every cached result, e.g. when another image is loaded. The statistics are kept.
+     */
+    public void clear() {
+        synchronized (results) {
+            results.clear();
+            sizeBytes = 0;
+        }
+    }
+
+    /**
+     * @return The total size of the results the cache may hold, in bytes.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return The total size of the cached results, in bytes.
+     */
+    public long getSizeBytes() {
+        synchronized (results) {
+            return sizeBytes;
+        }
+    }
+
+    /**
+     * @return The number of lookups that found a result.
+     */
+    public int getHitCount() {
+        synchronized (results) {
+            return hitCount;
+        }
+    }
+
+    /**
+     * @return The number of lookups that found no result.
+     */
+    public int getMissCount() {
+        synchronized (results) {
+            return missCount;
+        }
+    }
+
+    /**
+     * @return The number of results evicted to make room for others.
+     */
+    public int getEvictionCount() {
+        synchronized (results) {
+            return evictionCount;
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        synchronized (results) {
+            return "FilterResultCache{results=" + results.size() + ", bytes=" + sizeBytes + "/"
+                    + maxBytes + ", hits=" + hitCount + ", misses=" + missCount
+                    + ", evictions=" + evictionCount + "}";
+        }
+    }
+
+    /** Must be called while holding the lock on {@code results}. */
+    private void remove(Key key) {
+        Entry removed = results.remove(key);
+        if (removed != null) {
+            sizeBytes -= removed.bytes;
+        }
+    }
+
+    /**
+     * Drops the results of sources that have been collected, recycled or modified. Must be
+     * called while holding the lock on {@code results}.
+     */
+    private void removeStale() {
+        Iterator<Map.Entry<Key, Entry>> iterator = results.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> cached = iterator.next();
+            Bitmap source = cached.getKey().source.get();
+            if (source == null || source.isRecycled()
+                    || source.getGenerationId() != cached.getKey().generationId) {
+                iterator.remove();
+                sizeBytes -= cached.getValue().bytes;
+            }
+        }
+    }
+
+    private static final class Key {
+
+        final WeakReference<Bitmap> source;
+        final int sourceHash;
+        final int generationId;
+        final Filter filter;
+        final FilterParams params;
+        final boolean useAssembly;
+        final int hash;
+
+        Key(Bitmap source, Filter filter, FilterParams params, boolean useAssembly) {
+            this.source = new WeakReference<>(source);
+            this.sourceHash = System.identityHashCode(source);
+            this.generationId = source.getGenerationId();
+            this.filter = filter;
+            this.params = params;
+            this.useAssembly = useAssembly;
+            this.hash = Objects.hash(sourceHash, generationId, filter, params, useAssembly);
+        }
+
+        /**
+         * Keys whose source has been collected are only equal to themselves, so that they are
+         * never found again and age out of the cache.
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            Bitmap source = this.source.get();
+            return source != null && source == that.source.get()
+                    && generationId == that.generationId
+                    && filter == that.filter
+                    && useAssembly == that.useAssembly
+                    && Objects.equals(params, that.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+
+        final Bitmap result;
+        final long bytes;
+
+        Entry(Bitmap result, long bytes) {
+            this.result = result;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -44,9 +44,16 @@ import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.slider.Slider;
 import com.google.android.material.snackbar.Snackbar;
 import com.rivan.neon.databinding.ActivityMainBinding;
+import com.rivan.neon.filters.FilterRegistry;
+import com.rivan.neon.filters.kernels.DirectBufferPool;
+import com.rivan.neon.filters.kernels.PixelArrayPool;
+import com.rivan.neon.filters.params.AutoLevelsFilterParams;
+import com.rivan.neon.filters.params.BlurFilterParams;
 import com.rivan.neon.filters.params.BrightnessFilterParams;
 import com.rivan.neon.filters.params.ContrastFilterParams;
+import com.rivan.neon.filters.params.EqualizeFilterParams;
 import com.rivan.neon.filters.params.GrayscaleFilterParams;
+import com.rivan.neon.filters.params.SharpenFilterParams;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -62,7 +69,7 @@ public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
 
-    private boolean[] selectedFilters = new boolean[5];
+    private boolean[] selectedFilters = new boolean[Filter.values().length - 1];
     private boolean[] selectedLanguages = new boolean[2];
 
     // Used to load the 'neon' library on application startup.
@@ -108,6 +115,9 @@ public class MainActivity extends AppCompatActivity {
                 int targetWidth = getResources().getDisplayMetrics().widthPixels;
                 int targetHeight = getResources().getDisplayMetrics().heightPixels;
 
+                // Previews only need the resolution of the pager they are shown in.
+                viewModel.setPreviewSize(binding.filterViewPager.getWidth(),
+                        binding.filterViewPager.getHeight());
                 viewModel.loadImageFromUri(uri, targetWidth, targetHeight);
                 viewModel.clearAllBenchmarkResults();
             }
@@ -207,8 +217,7 @@ public class MainActivity extends AppCompatActivity {
                 individualBenchmarkButton.setEnabled(currentFilter != Filter.ORIGINAL);
 
                 // Hide the "Reset" button when no adjustable parameters are there
-                if (currentFilter == Filter.ORIGINAL || currentFilter == Filter.INVERT ||
-                        currentFilter == Filter.SEPIA) {
+                if (!currentFilter.hasParams()) {
                     resetFilterButton.setVisibility(View.GONE);
                 } else {
                     resetFilterButton.setVisibility(View.VISIBLE);
@@ -284,8 +293,7 @@ public class MainActivity extends AppCompatActivity {
                 return;
             }
 
-            if (currentFilter == Filter.ORIGINAL || currentFilter == Filter.INVERT ||
-                    currentFilter == Filter.SEPIA) {
+            if (!currentFilter.hasParams()) {
                 return;
             }
 
@@ -342,14 +350,11 @@ public class MainActivity extends AppCompatActivity {
             }
             FilterParams currentFilterParams = getFilterParamsForFilter(currentFilter, filterParamsMap);
 
-            if (currentFilterParams instanceof BrightnessFilterParams &&
-                    ((BrightnessFilterParams) currentFilterParams).getBrightness() == 0) {
-                Snackbar.make(view, R.string.adjust_brightness_value_text, Snackbar.LENGTH_SHORT)
-                        .setAction(R.string.adjust, snackbarView -> adjustFilterButton.callOnClick())
-                        .show();
-            } else if (currentFilterParams instanceof ContrastFilterParams &&
-            ((ContrastFilterParams) currentFilterParams).getContrast() == 1.0f) {
-                Snackbar.make(view, R.string.adjust_contrast_value_text, Snackbar.LENGTH_SHORT)
+            // Nothing to measure if the parameters leave the image unchanged
+            if (currentFilter.hasParams()
+                    && FilterRegistry.get(currentFilter).isIdentity(currentFilterParams)) {
+                Snackbar.make(view, getString(R.string.adjust_filter_value_text,
+                                getString(currentFilter.getTitleRes())), Snackbar.LENGTH_SHORT)
                         .setAction(R.string.adjust, snackbarView -> adjustFilterButton.callOnClick())
                         .show();
             } else {
@@ -362,6 +367,15 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // Idle scratch buffers can be tens of megabytes each, so give them back as soon as the
+        // system asks for memory.
+        PixelArrayPool.getShared().trim();
+        DirectBufferPool.getShared().trim();
+    }
+
     /**
      * Used to display the {@link FilterParams} for a given {@link Filter}.
      */
@@ -425,6 +439,44 @@ public class MainActivity extends AppCompatActivity {
                         contrastParams.setContrast(value);
                         return contrastParams;
                     }, filter);
+        } else if (filter == Filter.BLUR) {
+            BlurFilterParams blurParams = (BlurFilterParams) currentParams;
+            addParams(paramsContainer, R.string.radius, BlurFilterParams.MIN_RADIUS,
+                    BlurFilterParams.MAX_RADIUS, 1.0f, blurParams.getRadius(),
+                    value -> {
+                        blurParams.setRadius((int) value);
+                        return blurParams;
+                    }, filter);
+        } else if (filter == Filter.SHARPEN) {
+            SharpenFilterParams sharpenParams = (SharpenFilterParams) currentParams;
+            addParams(paramsContainer, R.string.amount, SharpenFilterParams.MIN_AMOUNT,
+                    SharpenFilterParams.MAX_AMOUNT, 0.1f, sharpenParams.getAmount(),
+                    value -> {
+                        sharpenParams.setAmount(value);
+                        return sharpenParams;
+                    }, filter);
+            addParams(paramsContainer, R.string.radius, SharpenFilterParams.MIN_RADIUS,
+                    SharpenFilterParams.MAX_RADIUS, 1.0f, sharpenParams.getRadius(),
+                    value -> {
+                        sharpenParams.setRadius((int) value);
+                        return sharpenParams;
+                    }, filter);
+        } else if (filter == Filter.AUTO_LEVELS) {
+            AutoLevelsFilterParams autoLevelsParams = (AutoLevelsFilterParams) currentParams;
+            addParams(paramsContainer, R.string.clipping, AutoLevelsFilterParams.MIN_CLIP_PERCENT,
+                    AutoLevelsFilterParams.MAX_CLIP_PERCENT, 0.1f, autoLevelsParams.getClipPercent(),
+                    value -> {
+                        autoLevelsParams.setClipPercent(value);
+                        return autoLevelsParams;
+                    }, filter);
+        } else if (filter == Filter.EQUALIZE) {
+            EqualizeFilterParams equalizeParams = (EqualizeFilterParams) currentParams;
+            addParams(paramsContainer, R.string.amount, EqualizeFilterParams.MIN_AMOUNT,
+                    EqualizeFilterParams.MAX_AMOUNT, 0.05f, equalizeParams.getAmount(),
+                    value -> {
+                        equalizeParams.setAmount(value);
+                        return equalizeParams;
+                    }, filter);
         }
     }
 
@@ -709,7 +761,7 @@ public class MainActivity extends AppCompatActivity {
                                     runOnUiThread(() -> {
                                         viewModel.addOrUpdateBenchmarkResults(batchResults);
                                         // Reset selection after batch benchmark
-                                        selectedFilters = new boolean[5];
+                                        selectedFilters = new boolean[Filter.values().length - 1];
                                         selectedLanguages = new boolean[2];
                                     });
                                 }
@@ -16,6 +16,9 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.rivan.neon.filters.FilterRegistry;
+import com.rivan.neon.filters.HistogramCache;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -31,6 +34,18 @@ public class MainActivityViewModel extends AndroidViewModel {
 
     private static final String TAG = "MainActivityViewModel";
 
+    /**
+     * While a slider moves, previews are first rendered from the preview source scaled down by
+     * this factor on each side, which takes a sixteenth of the time.
+     */
+    private static final int DRAFT_SCALE = 4;
+
+    /**
+     * How long the parameters of a filter must stay unchanged before its draft is replaced by a
+     * full-resolution render, so that a moving slider does not queue renders nobody will see.
+     */
+    private static final long REFINE_DELAY_MS = 150;
+
     private final MutableLiveData<Bitmap> _originalBitmap = new MutableLiveData<>();
     public LiveData<Bitmap> getOriginalBitmap() {
         return _originalBitmap;
@@ -157,19 +172,84 @@ public class MainActivityViewModel extends AndroidViewModel {
     private final ExecutorService executorService;
     private final Handler mainHandler;
 
+    /**
+     * Renders the previews on the executor, one slot per filter index, so that a moving slider
+     * keeps at most one render of its filter in flight and one waiting, whatever the rate of its
+     * updates.
+     */
+    private final RenderCoordinator<Bitmap> renderCoordinator;
+
+    /**
+     * Java filters are applied on all cores, directly on the raw pixel bytes, so that previews
+     * update as quickly as possible.
+     */
+    private final ProcessingOptions processingOptions = new ProcessingOptions();
+
     private final List<Filter> allFilters = Arrays.asList(Filter.values());
 
+    /**
+     * The size the previews are displayed at, or 0 to render them from the original image.
+     * Written on the main thread and read by the executor.
+     */
+    private volatile int previewWidth;
+    private volatile int previewHeight;
+
+    /**
+     * The image every preview is filtered from: the original, scaled down to the preview size.
+     * Only accessed on the main thread.
+     */
+    private Bitmap previewSource;
+
+    /**
+     * The preview source scaled down by {@link #DRAFT_SCALE}, or {@code null} if it is too small
+     * to be worth it. Only accessed on the main thread.
+     */
+    private Bitmap draftSource;
+
+    /**
+     * The full-resolution render waiting for {@link #REFINE_DELAY_MS}, for each filter index.
+     * Only accessed on the main thread.
+     */
+    private final Runnable[] pendingRefinements = new Runnable[allFilters.size()];
+
+    /**
+     * The previews rendered so far, so that returning to earlier parameters or to the other
+     * implementation shows them at once. Up to an eighth of the heap, cleared when another image
+     * is loaded.
+     */
+    private final FilterResultCache resultCache =
+            new FilterResultCache(Runtime.getRuntime().maxMemory() / 8);
+
     public MainActivityViewModel(@NonNull Application application) {
         super(application);
         executorService = Executors.newSingleThreadExecutor();
         mainHandler = new Handler(Looper.getMainLooper());
+        renderCoordinator = new RenderCoordinator<>(allFilters.size(), executorService,
+                mainHandler::post);
+        processingOptions.setParallelism(ProcessingOptions.PARALLELISM_AUTO);
+        processingOptions.setPixelAccess(ProcessingOptions.PixelAccess.RAW);
         initializeFilterParams();
     }
 
+    /**
+     * Sets the size the filter previews are displayed at. Images loaded afterwards are filtered
+     * at this size for their previews, and at full size only when they are saved or
+     * benchmarked.
+     *
+     * @param width  The width of a preview in pixels, or 0 to render previews at full size.
+     * @param height The height of a preview in pixels, or 0 to render previews at full size.
+     */
+    public void setPreviewSize(int width, int height) {
+        previewWidth = width;
+        previewHeight = height;
+    }
+
     /**
      * Asynchronously loads an image from the given URI, decodes it to a sampled bitmap
      * to fit specified dimensions, and then updates the LiveData.
      * Upon successful loading, it also initializes filter previews and starts their sequential update.
+     * Previews are rendered from a copy of the image scaled down to the size set by
+     * {@link #setPreviewSize}.
      *
      * @param imageUri       The {@link Uri} of the image to load.
      * @param requiredWidth  The desired width for the sampled bitmap.
@@ -185,13 +265,47 @@ public class MainActivityViewModel extends AndroidViewModel {
                 e.printStackTrace();
             }
 
+            Bitmap preview = null;
+            Bitmap draft = null;
+            if (bitmap != null) {
+                boolean useAssembly = _shouldUseAssembly.getValue() != null
+                        && _shouldUseAssembly.getValue();
+                try {
+                    preview = FilterProcessor.createPreviewBitmap(bitmap, previewWidth,
+                            previewHeight, useAssembly, processingOptions);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to scale the image for the previews.", e);
+                    preview = bitmap;
+                }
+                draft = createDraftSource(preview, useAssembly);
+
+                // The histogram filters of every preview read the same image, so it is
+                // counted once, before the previews start.
+                try {
+                    HistogramCache.getShared().get(preview, useAssembly, processingOptions);
+                    if (draft != null) {
+                        HistogramCache.getShared().get(draft, useAssembly, processingOptions);
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to compute the histogram of the image.", e);
+                }
+            }
+
             Bitmap finalBitmap = bitmap;
+            Bitmap finalPreview = preview;
+            Bitmap finalDraft = draft;
             mainHandler.post(() -> {
+                cancelPreviewUpdates();
+                resultCache.clear();
                 if (finalBitmap != null) {
+                    previewSource = finalPreview;
+                    draftSource = finalDraft;
                     _originalBitmap.setValue(finalBitmap);
-                    initializeAllPreviewsWithOriginal(finalBitmap);
+                    initializeAllPreviewsWithOriginal(finalPreview);
                     startSequentialPreviewUpdate();
                 } else {
+                    previewSource = null;
+                    draftSource = null;
                     _originalBitmap.setValue(null);
                     _allPreviews.setValue(new ArrayList<>());
                     Log.e(TAG, "Failed to load bitmap from URI.");
@@ -200,6 +314,28 @@ public class MainActivityViewModel extends AndroidViewModel {
         });
     }
 
+    /**
+     * Scales the preview source down by {@link #DRAFT_SCALE} for the drafts shown while a slider
+     * moves.
+     *
+     * @return The draft source, or {@code null} if the preview source is too small to scale or
+     * the scaling failed, in which case previews are only rendered at full resolution.
+     */
+    private Bitmap createDraftSource(Bitmap preview, boolean useAssembly) {
+        int width = preview.getWidth() / DRAFT_SCALE;
+        int height = preview.getHeight() / DRAFT_SCALE;
+        if (width < 1 || height < 1) {
+            return null;
+        }
+        try {
+            return FilterProcessor.resizeBitmap(preview, width, height, useAssembly,
+                    processingOptions);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to scale the image for the draft previews.", e);
+            return null;
+        }
+    }
+
     /**
      * Updates the parameters for a specific filter. This will trigger a re-application
      * of the filter to its preview image.
@@ -224,9 +360,10 @@ public class MainActivityViewModel extends AndroidViewModel {
 
     /**
      * Initializes the {@link LiveData} containing all filter preview items.
-     * Each item is initially set with a copy of the original bitmap and a loading state.
+     * Each item is initially set with the preview source and a loading state. Previews are
+     * never modified, so all items share the same bitmap.
      *
-     * @param originalBitmap The original {@link Bitmap} from which previews are derived.
+     * @param originalBitmap The {@link Bitmap} from which previews are derived.
      */
     private void initializeAllPreviewsWithOriginal(Bitmap originalBitmap) {
         if (originalBitmap == null) {
@@ -238,18 +375,18 @@ public class MainActivityViewModel extends AndroidViewModel {
         for (int i = 0; i < allFilters.size(); i++) {
             Filter filter = allFilters.get(i);
             boolean isLoading = (filter != Filter.ORIGINAL);
-            initialPreviewItems.add(new FilterPreviewItem(filter, originalBitmap.copy(Bitmap.Config.ARGB_8888, true), isLoading));
+            initialPreviewItems.add(new FilterPreviewItem(filter, originalBitmap, isLoading));
         }
         _allPreviews.setValue(initialPreviewItems);
     }
 
     /**
-     * Starts the asynchronous process of applying each filter to the original bitmap
+     * Starts the asynchronous process of applying each filter to the preview source
      * and updating its corresponding preview item sequentially. This method is called
      * after the original image is loaded or when all filters need to be re-applied.
      */
     private void startSequentialPreviewUpdate() {
-        Bitmap original = _originalBitmap.getValue();
+        Bitmap original = previewSource;
         if (original == null) {
             return;
         }
@@ -266,20 +403,15 @@ public class MainActivityViewModel extends AndroidViewModel {
             return;
         }
 
+        boolean useAssembly = _shouldUseAssembly.getValue() != null
+                && _shouldUseAssembly.getValue();
         for (int i = 0; i < allFilters.size(); i++) {
-            final int index = i;
             final Filter filter = allFilters.get(i);
             if (filter == Filter.ORIGINAL) {
                 continue;
             }
 
-            final FilterParams params = currentParams.get(filter);
-
-            executorService.execute(() -> {
-                Bitmap finalFilteredPreview = applyFilterToBitmap(original, filter, params,
-                        _shouldUseAssembly.getValue() != null && _shouldUseAssembly.getValue());
-                mainHandler.post(() -> updateFilterPreviewItems(index, finalFilteredPreview, filter));
-            });
+            renderPreview(i, original, filter, currentParams.get(filter), useAssembly, false);
         }
     }
 
@@ -288,6 +420,15 @@ public class MainActivityViewModel extends AndroidViewModel {
      * called when a filter's parameters are changed, or when the underlying implementation
      * (Java/Assembly) preference is toggled.
      *
+     * <p>
+     * The filter is first applied to the draft source, which shows up almost at once however
+     * large the image is, and then, once its parameters have not changed for
+     * {@link #REFINE_DELAY_MS}, to the full preview source. Renders go through the
+     * {@link #renderCoordinator}: a render whose parameters have been changed again is dropped
+     * if it has not started yet, a full-resolution one is stopped between row bands, and a
+     * draft already running finishes without being shown.
+     * </p>
+     *
      * @param filterIndex The index of the filter in the {@code allFilters} list whose preview
      *                    needs to be updated.
      */
@@ -296,7 +437,7 @@ public class MainActivityViewModel extends AndroidViewModel {
             return;
         }
 
-        Bitmap original = _originalBitmap.getValue();
+        Bitmap original = previewSource;
         if (original == null) {
             return;
         }
@@ -310,20 +451,103 @@ public class MainActivityViewModel extends AndroidViewModel {
             return;
         }
 
-        // Set item to loading state before starting background task
-        List<FilterPreviewItem> loadingPreviews = new ArrayList<>(currentPreviews);
-        FilterPreviewItem oldItemForLoading = loadingPreviews.get(filterIndex);
-        FilterPreviewItem newItemForLoading = new FilterPreviewItem(oldItemForLoading.getFilter(), oldItemForLoading.getPreviewBitmap(), true); // Now loading
-        loadingPreviews.set(filterIndex, newItemForLoading); // Replace with new instance
-        _allPreviews.setValue(loadingPreviews); // Trigger UI to show loading indicator
+        cancelRefinement(filterIndex);
+        boolean useAssembly = _shouldUseAssembly.getValue() != null
+                && _shouldUseAssembly.getValue();
 
-        executorService.execute(() -> {
-            Bitmap finalUpdatedPreview = applyFilterToBitmap(original, filterToApply, params,
-                    _shouldUseAssembly.getValue() != null && _shouldUseAssembly.getValue());
-            mainHandler.post(() -> updateFilterPreviewItems(filterIndex, finalUpdatedPreview, filterToApply));
+        Bitmap cached = resultCache.get(original, filterToApply, params, useAssembly);
+        if (cached != null) {
+            renderCoordinator.cancel(filterIndex);
+            updateFilterPreviewItems(filterIndex, cached, filterToApply);
+            return;
+        }
+
+        Bitmap draft = draftSource;
+        if (draft == null || filterToApply == Filter.ORIGINAL) {
+            // Set item to loading state before starting background task
+            List<FilterPreviewItem> loadingPreviews = new ArrayList<>(currentPreviews);
+            FilterPreviewItem oldItemForLoading = loadingPreviews.get(filterIndex);
+            FilterPreviewItem newItemForLoading = new FilterPreviewItem(oldItemForLoading.getFilter(), oldItemForLoading.getPreviewBitmap(), true); // Now loading
+            loadingPreviews.set(filterIndex, newItemForLoading); // Replace with new instance
+            _allPreviews.setValue(loadingPreviews); // Trigger UI to show loading indicator
+
+            renderPreview(filterIndex, original, filterToApply, params, useAssembly,
+                    false);
+            return;
+        }
+
+        // The current preview stays on screen until the draft replaces it. Filters with a
+        // radius get a proportionally smaller one, so that the draft looks like the result.
+        FilterParams draftParams = FilterRegistry.get(filterToApply).scaleParams(params,
+                (float) draft.getWidth() / original.getWidth());
+        renderPreview(filterIndex, draft, filterToApply, draftParams, useAssembly,
+                true);
+
+        Runnable refinement = () -> {
+            pendingRefinements[filterIndex] = null;
+            renderPreview(filterIndex, original, filterToApply, params, useAssembly,
+                    false);
+        };
+        pendingRefinements[filterIndex] = refinement;
+        mainHandler.postDelayed(refinement, REFINE_DELAY_MS);
+    }
+
+    /**
+     * Applies a filter through the {@link #renderCoordinator} and shows the result in its
+     * preview item, unless the preview has been requested again in the meantime. Results in the
+     * {@link #resultCache} are shown right away instead.
+     *
+     * @param filterIndex The index of the filter in the {@code allFilters} list.
+     * @param source      The bitmap to apply the filter to.
+     * @param draft       {@code true} if the result is a draft that will be refined, in which
+     *                    case it runs to the end, and a failed render keeps the current preview.
+     */
+    private void renderPreview(int filterIndex, Bitmap source, Filter filter,
+                               FilterParams params, boolean useAssembly, boolean draft) {
+        Bitmap cached = resultCache.get(source, filter, params, useAssembly);
+        if (cached != null) {
+            renderCoordinator.cancel(filterIndex);
+            updateFilterPreviewItems(filterIndex, cached, filter);
+            return;
+        }
+
+        renderCoordinator.submit(filterIndex, !draft, () -> {
+            Bitmap preview = applyFilterToBitmap(source, filter, params, useAssembly,
+                    processingOptions);
+            if (preview != null) {
+                resultCache.put(source, filter, params, useAssembly, preview);
+            }
+            return preview;
+        }, preview -> {
+            if (preview == null && draft) {
+                Log.w(TAG, "Failed to render the draft of " + filter.name() + ".");
+                return;
+            }
+            updateFilterPreviewItems(filterIndex, preview, filter);
         });
     }
 
+    /**
+     * Drops the pending full-resolution render of a filter, if any.
+     */
+    private void cancelRefinement(int filterIndex) {
+        Runnable pending = pendingRefinements[filterIndex];
+        if (pending != null) {
+            mainHandler.removeCallbacks(pending);
+            pendingRefinements[filterIndex] = null;
+        }
+    }
+
+    /**
+     * Makes every render requested so far obsolete, e.g. when another image is loaded.
+     */
+    private void cancelPreviewUpdates() {
+        for (int i = 0; i < allFilters.size(); i++) {
+            cancelRefinement(i);
+        }
+        renderCoordinator.cancelAll();
+    }
+
     private void updateFilterPreviewItems(int filterIndex, Bitmap finalUpdatedPreview,
                                           Filter filterToApply) {
         List<FilterPreviewItem> postProcessPreviews = _allPreviews.getValue();
@@ -344,18 +568,13 @@ public class MainActivityViewModel extends AndroidViewModel {
     }
 
     public void reapplyAllFilters() {
-        Bitmap original = _originalBitmap.getValue();
+        Bitmap original = previewSource;
         if (original == null) {
             return;
         }
 
-        List<FilterPreviewItem> resetPreviews = new ArrayList<>();
-        for (int i = 0; i < allFilters.size(); i++) {
-            Filter filter = allFilters.get(i);
-            boolean isLoading = (filter != Filter.ORIGINAL);
-            resetPreviews.add(new FilterPreviewItem(filter, original.copy(Bitmap.Config.ARGB_8888, true), isLoading));
-        }
-        _allPreviews.setValue(resetPreviews);
+        cancelPreviewUpdates();
+        initializeAllPreviewsWithOriginal(original);
         startSequentialPreviewUpdate();
     }
 
@@ -477,6 +696,8 @@ public class MainActivityViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        // Cancelled renders end at their next band, and start no pending ones.
+        renderCoordinator.cancelAll();
         executorService.shutdown();
         mainHandler.removeCallbacksAndMessages(null);
     }
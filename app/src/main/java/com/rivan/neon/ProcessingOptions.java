@@ -0,0 +1,169 @@
+package com.rivan.neon;
+
+import androidx.annotation.NonNull;
+
+import com.rivan.neon.filters.kernels.ParallelRows;
+
+/**
+ * Options that control <i>how</i> {@link FilterProcessor} applies filters, as opposed to
+ * {@link FilterParams}, which control <i>what</i> a filter does. None of the options change which
+ * filter is applied; they only select between equivalent implementations.
+ *
+ * <p>
+ * The constructor sets every option to its default value, which matches the behaviour of
+ * the {@link FilterProcessor} methods that do not take any options.
+ * </p>
+ */
+public class ProcessingOptions {
+
+    /**
+     * The kind of arithmetic used by the Java kernels.
+     */
+    public enum Arithmetic {
+        /** Floating-point arithmetic, identical to the reference Java implementation. */
+        FLOAT,
+        /**
+         * Q16 fixed-point integer arithmetic. Results differ from {@link #FLOAT} by at most 1
+         * in any channel; see {@link com.rivan.neon.filters.kernels.FixedPointKernels}.
+         */
+        FIXED_POINT
+    }
+
+    /**
+     * How the Java kernels access the pixels of a bitmap.
+     */
+    public enum PixelAccess {
+        /**
+         * {@code Bitmap.getPixels}/{@code setPixels}, which convert every pixel to
+         * unpremultiplied ARGB and back.
+         */
+        CONVERTED,
+        /**
+         * {@code Bitmap.copyPixelsToBuffer}/{@code copyPixelsFromBuffer}, which copy the
+         * premultiplied RGBA_8888 bytes as-is, like the native filters. Only used for bitmaps
+         * without alpha, whose results are identical to {@link #CONVERTED}; bitmaps with alpha
+         * fall back to {@link #CONVERTED}.
+         */
+        RAW
+    }
+
+    /**
+     * Whether the Invert and Brightness kernels use SIMD-within-a-register arithmetic.
+     * All modes are bit-exact; see {@link com.rivan.neon.filters.kernels.SwarKernels}.
+     */
+    public enum Swar {
+        /** Unpacks and repacks every channel of every pixel. */
+        OFF,
+        /** Processes all channels of a pixel at once in an {@code int}. */
+        INT,
+        /** Processes two pixels at once in a {@code long}. */
+        LONG
+    }
+
+    public static final Arithmetic DEFAULT_ARITHMETIC = Arithmetic.FLOAT;
+
+    public static final Swar DEFAULT_SWAR = Swar.OFF;
+
+    public static final PixelAccess DEFAULT_PIXEL_ACCESS = PixelAccess.CONVERTED;
+
+    /** Uses one band per available processor. */
+    public static final int PARALLELISM_AUTO = ParallelRows.PARALLELISM_AUTO;
+
+    /** Processes the whole image on the calling thread. */
+    public static final int DEFAULT_PARALLELISM = 1;
+
+    public static final int DEFAULT_MIN_BAND_ROWS = ParallelRows.DEFAULT_MIN_BAND_ROWS;
+
+    private Arithmetic arithmetic;
+
+    private PixelAccess pixelAccess;
+
+    private Swar swar;
+
+    private int parallelism;
+
+    private int minBandRows;
+
+    public ProcessingOptions() {
+        arithmetic = DEFAULT_ARITHMETIC;
+        pixelAccess = DEFAULT_PIXEL_ACCESS;
+        swar = DEFAULT_SWAR;
+        parallelism = DEFAULT_PARALLELISM;
+        minBandRows = DEFAULT_MIN_BAND_ROWS;
+    }
+
+    @NonNull
+    public Arithmetic getArithmetic() {
+        return arithmetic;
+    }
+
+    public void setArithmetic(@NonNull Arithmetic arithmetic) {
+        this.arithmetic = arithmetic;
+    }
+
+    @NonNull
+    public PixelAccess getPixelAccess() {
+        return pixelAccess;
+    }
+
+    public void setPixelAccess(@NonNull PixelAccess pixelAccess) {
+        this.pixelAccess = pixelAccess;
+    }
+
+    @NonNull
+    public Swar getSwar() {
+        return swar;
+    }
+
+    public void setSwar(@NonNull Swar swar) {
+        this.swar = swar;
+    }
+
+    /**
+     * @return The maximum number of row bands processed concurrently, or
+     * {@link #PARALLELISM_AUTO}.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the maximum number of row bands processed concurrently. Java bands run on a shared
+     * {@link java.util.concurrent.ForkJoinPool}; Assembly bands run on the persistent native
+     * thread pool, the count being set for the calling thread alone before every native call
+     * (see {@link com.rivan.neon.filters.NativeFilters#setThreadCount(int)}).
+     *
+     * @param parallelism A positive number of bands, or {@link #PARALLELISM_AUTO}.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("parallelism must not be negative: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getMinBandRows() {
+        return minBandRows;
+    }
+
+    /**
+     * Sets the minimum number of rows in a band. Images with fewer than twice as many rows
+     * are processed on the calling thread.
+     */
+    public void setMinBandRows(int minBandRows) {
+        if (minBandRows < 1) {
+            throw new IllegalArgumentException("minBandRows must be positive: " + minBandRows);
+        }
+        this.minBandRows = minBandRows;
+    }
+
+    public ProcessingOptions copy() {
+        ProcessingOptions copy = new ProcessingOptions();
+        copy.setArithmetic(arithmetic);
+        copy.setPixelAccess(pixelAccess);
+        copy.setSwar(swar);
+        copy.setParallelism(parallelism);
+        copy.setMinBandRows(minBandRows);
+        return copy;
+    }
+}
@@ -0,0 +1,210 @@
+package com.rivan.neon;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.filters.kernels.CancellationToken;
+import com.rivan.neon.filters.kernels.ParallelRows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Schedules renders that replace each other, such as the preview of a filter while its slider
+ * moves, so that only the latest one matters.
+ *
+ * <p>
+ * Renders are submitted to numbered slots, e.g. one per filter. A slot has at most one render
+ * in flight and one pending: a render submitted while another is in flight replaces the pending
+ * one, which is dropped without running. A render is {@code interruptible} if a newer one should
+ * cancel it while it runs; its Java filters then stop between row bands, through
+ * {@link ParallelRows#callCancellable}. Native filters cannot be interrupted, and run to the end.
+ * </p>
+ *
+ * <p>
+ * A result is only delivered if no other render has been submitted to its slot since, so the
+ * displayed result never goes back to older parameters. The coordinator is safe to use from
+ * multiple threads.
+ * </p>
+ *
+ * @param <T> The type of the results.
+ */
+public final class RenderCoordinator<T> {
+
+    private final Executor worker;
+    private final Executor delivery;
+    private final List<Slot<T>> slots;
+
+    private int droppedCount;
+    private int cancelledCount;
+
+    /**
+     * @param slotCount The number of slots, numbered from 0.
+     * @param worker    The executor renders run on.
+     * @param delivery  The executor results are delivered on, e.g. the main thread.
+     */
+    public RenderCoordinator(int slotCount, @NonNull Executor worker,
+                             @NonNull Executor delivery) {
+        this.worker = worker;
+        this.delivery = delivery;
+        slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new Slot<>());
+        }
+    }
+
+    /**
+     * Submits a render to a slot. It starts at once if the slot is idle, and after the render in
+     * flight otherwise, unless another one is submitted first.
+     *
+     * @param slot          The slot of the render.
+     * @param interruptible {@code true} if a render submitted later may cancel this one while
+     *                      it runs.
+     * @param render        Produces the result, on the worker.
+     * @param onResult      Receives the result, on the delivery executor, unless another render
+     *                      has been submitted to the slot or it has been {@link #cancel cancelled}
+     *                      in the meantime.
+     */
+    public void submit(int slot, boolean interruptible, @NonNull Supplier<T> render,
+                       @NonNull Consumer<T> onResult) {
+        Job<T> job = new Job<>(render, onResult, interruptible);
+        boolean start;
+        synchronized (slots) {
+            Slot<T> state = slots.get(slot);
+            state.latest = job;
+            start = state.inFlight == null;
+            if (start) {
+                state.inFlight = job;
+            } else {
+                if (state.pending != null) {
+                    droppedCount++;
+                }
+                state.pending = job;
+                if (state.inFlight.interruptible) {
+                    state.inFlight.token.cancel();
+                }
+            }
+        }
+        if (start) {
+            worker.execute(() -> run(slot, job));
+        }
+    }
+
+    /**
+     * Drops the pending render of a slot and cancels the one in flight, whether it is
+     * interruptible or not. Nothing is delivered for either.
+     */
+    public void cancel(int slot) {
+        synchronized (slots) {
+            Slot<T> state = slots.get(slot);
+            state.latest = null;
+            if (state.pending != null) {
+                state.pending = null;
+                droppedCount++;
+            }
+            if (state.inFlight != null) {
+                state.inFlight.token.cancel();
+            }
+        }
+    }
+
+    /**
+     * {@link #cancel Cancels} the renders of every slot, e.g. when another image is loaded.
+     */
+    public void cancelAll() {
+        for (int slot = 0; slot < slots.size(); slot++) {
+            cancel(slot);
+        }
+    }
+
+    /**
+     * @return The number of pending renders dropped because a newer one replaced them.
+     */
+    public int getDroppedCount() {
+        synchronized (slots) {
+            return droppedCount;
+        }
+    }
+
+    /**
+     * @return The number of renders stopped before their end.
+     */
+    public int getCancelledCount() {
+        synchronized (slots) {
+            return cancelledCount;
+        }
+    }
+
+    private void run(int slot, Job<T> job) {
+        T result = null;
+        boolean completed = false;
+        try {
+            result = ParallelRows.callCancellable(job.token, job.render);
+            completed = true;
+        } catch (CancellationException e) {
+            synchronized (slots) {
+                cancelledCount++;
+            }
+        } finally {
+            Job<T> next;
+            synchronized (slots) {
+                Slot<T> state = slots.get(slot);
+                next = state.pending;
+                state.pending = null;
+                state.inFlight = next;
+            }
+            if (next != null) {
+                worker.execute(() -> run(slot, next));
+            }
+        }
+
+        if (completed && isLatest(slot, job)) {
+            T finalResult = result;
+            delivery.execute(() -> {
+                // Another render may have been submitted while this result was on its way.
+                if (isLatest(slot, job)) {
+                    job.onResult.accept(finalResult);
+                }
+            });
+        }
+    }
+
+    private boolean isLatest(int slot, Job<T> job) {
+        synchronized (slots) {
+            return slots.get(slot).latest == job;
+        }
+    }
+
+    private static final class Job<T> {
+
+        final Supplier<T> render;
+        final Consumer<T> onResult;
+        final boolean interruptible;
+        final CancellationToken token = new CancellationToken();
+
+        Job(Supplier<T> render, Consumer<T> onResult, boolean interruptible) {
+            this.render = render;
+            this.onResult = onResult;
+            this.interruptible = interruptible;
+        }
+    }
+
+    private static final class Slot<T> {
+
+        /** The last render submitted, the only one whose result may be delivered. */
+        @Nullable
+        Job<T> latest;
+
+        /** The render submitted to the worker, queued or running. */
+        @Nullable
+        Job<T> inFlight;
+
+        /** The render to start once the one in flight ends. */
+        @Nullable
+        Job<T> pending;
+    }
+}
@@ -0,0 +1,69 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.Histogram;
+import com.rivan.neon.filters.params.AutoLevelsFilterParams;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#AUTO_LEVELS}, which stretches the range of values of
+ * every channel to 0 to 255. The darkest and brightest {@code clipPercent} of the pixels of each
+ * channel are clipped first, and stretching the channels separately also corrects color casts.
+ */
+class AutoLevelsFilterKernel extends HistogramFilterKernel {
+
+    private static final Histogram.Channel[] CHANNELS = {
+            Histogram.Channel.RED, Histogram.Channel.GREEN, Histogram.Channel.BLUE
+    };
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.AUTO_LEVELS;
+    }
+
+    /**
+     * The stretch depends on the image, so no parameters leave every image unchanged.
+     */
+    @Override
+    public boolean isIdentity(@Nullable FilterParams params) {
+        return false;
+    }
+
+    @NonNull
+    @Override
+    ChannelLut createLut(@NonNull Histogram histogram, @Nullable FilterParams params) {
+        float clipPercent = params != null ? ((AutoLevelsFilterParams) params).getClipPercent()
+                : AutoLevelsFilterParams.DEFAULT_CLIP_PERCENT;
+        double clip = Math.max(0.0, Math.min(0.5, clipPercent / 100.0));
+
+        int[][] tables = new int[CHANNELS.length][];
+        for (int c = 0; c < CHANNELS.length; c++) {
+            int low = histogram.percentile(CHANNELS[c], clip);
+            int high = histogram.percentile(CHANNELS[c], 1.0 - clip);
+            tables[c] = stretch(low, high);
+        }
+        return ChannelLut.of(tables[0], tables[1], tables[2]);
+    }
+
+    /**
+     * @return A table mapping {@code low} to 0 and {@code high} to 255, or the identity if the
+     * channel has a single value.
+     */
+    private static int[] stretch(int low, int high) {
+        int[] table = new int[ChannelLut.SIZE];
+        for (int i = 0; i < ChannelLut.SIZE; i++) {
+            if (high > low) {
+                int value = Math.round((i - low) * 255.0f / (high - low));
+                table[i] = Math.max(0, Math.min(255, value));
+            } else {
+                table[i] = i;
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,110 @@
+package com.rivan.neon.filters;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.BoxBlur;
+import com.rivan.neon.filters.kernels.Convolution;
+import com.rivan.neon.filters.kernels.ConvolutionKernel;
+import com.rivan.neon.filters.params.BlurFilterParams;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#BLUR}, a Gaussian blur. Depending on the
+ * {@link BlurFilterParams.Mode}, it convolves the image with a Gaussian or runs box passes with
+ * {@link BoxBlur}, whose cost does not grow with the radius.
+ */
+class BlurFilterKernel extends ConvolutionFilterKernel {
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.BLUR;
+    }
+
+    @Override
+    public boolean isIdentity(@Nullable FilterParams params) {
+        return radiusOf(params) == 0;
+    }
+
+    /**
+     * Scales the radius, rounding it to at least 1 so that a blur stays a blur.
+     */
+    @NonNull
+    @Override
+    public FilterParams scaleParams(@Nullable FilterParams params, float scale) {
+        BlurFilterParams scaled = params != null ? (BlurFilterParams) params.copy()
+                : new BlurFilterParams();
+        int radius = scaled.getRadius();
+        if (radius > 0) {
+            scaled.setRadius(Math.max(1, Math.round(radius * scale)));
+        }
+        return scaled;
+    }
+
+    @NonNull
+    @Override
+    public Bitmap applyJava(@NonNull Bitmap bitmap, @Nullable FilterParams params,
+                            @NonNull ProcessingOptions options) {
+        int[] radii = boxRadiiOf(params);
+        if (radii == null) {
+            return super.applyJava(bitmap, params, options);
+        }
+        return JavaFilters.applyBoxBlur(bitmap, radii, edgeModeOf(params),
+                options.getParallelism(), options.getMinBandRows());
+    }
+
+    @Override
+    public boolean applyNative(@NonNull Bitmap source, @NonNull Bitmap destination,
+                               @Nullable FilterParams params) {
+        int[] radii = boxRadiiOf(params);
+        if (radii == null) {
+            return super.applyNative(source, destination, params);
+        }
+        NativeFilters.applyBoxBlur(source, destination, radii, edgeModeOf(params));
+        return true;
+    }
+
+    @NonNull
+    @Override
+    ConvolutionKernel createConvolution(@Nullable FilterParams params) {
+        return ConvolutionKernel.gaussian(radiusOf(params));
+    }
+
+    @NonNull
+    @Override
+    Convolution.EdgeMode edgeModeOf(@Nullable FilterParams params) {
+        return params != null ? ((BlurFilterParams) params).getEdgeMode()
+                : BlurFilterParams.DEFAULT_EDGE_MODE;
+    }
+
+    /**
+     * @return The radii of the box passes, or {@code null} if the blur is a Gaussian
+     * convolution.
+     */
+    @Nullable
+    private static int[] boxRadiiOf(@Nullable FilterParams params) {
+        if (params == null) {
+            return null;
+        }
+        BlurFilterParams blurParams = (BlurFilterParams) params;
+        int radius = blurParams.getRadius();
+        switch (blurParams.getEffectiveMode()) {
+            case BOX:
+                return new int[]{radius};
+            case STACKED_BOX:
+                return BoxBlur.stackedRadii(radius, BoxBlur.GAUSSIAN_PASSES);
+            default:
+                return null;
+        }
+    }
+
+    private static int radiusOf(@Nullable FilterParams params) {
+        return params != null ? ((BlurFilterParams) params).getRadius()
+                : BlurFilterParams.DEFAULT_RADIUS;
+    }
+}
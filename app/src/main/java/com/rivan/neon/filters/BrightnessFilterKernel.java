@@ -0,0 +1,102 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+import com.rivan.neon.filters.kernels.FixedPointKernels;
+import com.rivan.neon.filters.kernels.PixelKernels;
+import com.rivan.neon.filters.kernels.RowKernel;
+import com.rivan.neon.filters.kernels.SwarKernels;
+import com.rivan.neon.filters.params.BrightnessFilterParams;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#BRIGHTNESS}.
+ */
+class BrightnessFilterKernel extends PointwiseFilterKernel {
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.BRIGHTNESS;
+    }
+
+    @Override
+    public boolean isPerChannel() {
+        return true;
+    }
+
+    @Override
+    public boolean isLutCompilable() {
+        return true;
+    }
+
+    @Override
+    public boolean isAffine() {
+        return true;
+    }
+
+    @Override
+    public boolean isAlphaPreserving() {
+        return true;
+    }
+
+    @Override
+    public boolean isIdentity(@Nullable FilterParams params) {
+        return brightnessOf(params) == 0;
+    }
+
+    @Nullable
+    @Override
+    public RowKernel createJavaKernel(@Nullable FilterParams params,
+                                      @NonNull ProcessingOptions options) {
+        int brightness = brightnessOf(params);
+        if (brightness == 0) {
+            return null;
+        }
+        if (options.getSwar() == ProcessingOptions.Swar.LONG) {
+            return SwarKernels.brightnessKernelLong(brightness);
+        }
+        if (options.getSwar() == ProcessingOptions.Swar.INT) {
+            return SwarKernels.brightnessKernel(brightness);
+        }
+        return options.getArithmetic() == ProcessingOptions.Arithmetic.FIXED_POINT
+                ? FixedPointKernels.brightnessKernel(brightness)
+                : PixelKernels.brightnessKernel(brightness);
+    }
+
+    @Override
+    public int getNativeFilterId() {
+        return NativeFilters.FILTER_BRIGHTNESS;
+    }
+
+    @Override
+    public void addNativeStage(@NonNull NativeChain chain, @Nullable FilterParams params) {
+        int brightness = brightnessOf(params);
+        if (brightness != 0) {
+            chain.brightness(brightness);
+        }
+    }
+
+    @NonNull
+    @Override
+    public ChannelLut compileLut(@Nullable FilterParams params) {
+        return LutCompiler.brightness(brightnessOf(params));
+    }
+
+    @NonNull
+    @Override
+    public ColorMatrix compileColorMatrix(@Nullable FilterParams params) {
+        int brightness = brightnessOf(params);
+        return brightness == 0 ? ColorMatrix.identity() : ColorMatrix.brightness(brightness);
+    }
+
+    private static int brightnessOf(@Nullable FilterParams params) {
+        return params != null ? ((BrightnessFilterParams) params).getBrightness()
+                : BrightnessFilterParams.DEFAULT_BRIGHTNESS;
+    }
+}
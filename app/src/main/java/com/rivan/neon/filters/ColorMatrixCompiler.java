@@ -0,0 +1,41 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+
+/**
+ * Converts affine filters into {@link ColorMatrix} instances.
+ *
+ * @see ColorMatrix
+ */
+public class ColorMatrixCompiler {
+
+    /**
+     * @return {@code true} if the given filter can be expressed as a {@link ColorMatrix}.
+     *
+     * @see FilterKernel#isAffine()
+     */
+    public static boolean isAffine(@NonNull Filter filter) {
+        return FilterRegistry.get(filter).isAffine();
+    }
+
+    /**
+     * Compiles a filter into a {@link ColorMatrix}.
+     *
+     * @param filter The {@link Filter} to compile.
+     * @param params Optional {@link FilterParams} for the filter. If null, default parameters
+     *               for the filter will be used.
+     *
+     * @return The compiled matrix, or {@code null} if the filter is not affine.
+     *
+     * @see FilterKernel#compileColorMatrix(FilterParams)
+     */
+    @Nullable
+    public static ColorMatrix compile(@NonNull Filter filter, @Nullable FilterParams params) {
+        return FilterRegistry.get(filter).compileColorMatrix(params);
+    }
+}
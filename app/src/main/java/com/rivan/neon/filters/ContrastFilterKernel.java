@@ -0,0 +1,95 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+import com.rivan.neon.filters.kernels.FixedPointKernels;
+import com.rivan.neon.filters.kernels.PixelKernels;
+import com.rivan.neon.filters.kernels.RowKernel;
+import com.rivan.neon.filters.params.ContrastFilterParams;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#CONTRAST}.
+ */
+class ContrastFilterKernel extends PointwiseFilterKernel {
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.CONTRAST;
+    }
+
+    @Override
+    public boolean isPerChannel() {
+        return true;
+    }
+
+    @Override
+    public boolean isLutCompilable() {
+        return true;
+    }
+
+    @Override
+    public boolean isAffine() {
+        return true;
+    }
+
+    @Override
+    public boolean isAlphaPreserving() {
+        return true;
+    }
+
+    @Override
+    public boolean isIdentity(@Nullable FilterParams params) {
+        return contrastOf(params) == 1.0f;
+    }
+
+    @Nullable
+    @Override
+    public RowKernel createJavaKernel(@Nullable FilterParams params,
+                                      @NonNull ProcessingOptions options) {
+        float contrast = contrastOf(params);
+        if (contrast == 1.0f) {
+            return null;
+        }
+        return options.getArithmetic() == ProcessingOptions.Arithmetic.FIXED_POINT
+                ? FixedPointKernels.contrastKernel(contrast)
+                : PixelKernels.contrastKernel(contrast);
+    }
+
+    @Override
+    public int getNativeFilterId() {
+        return NativeFilters.FILTER_CONTRAST;
+    }
+
+    @Override
+    public void addNativeStage(@NonNull NativeChain chain, @Nullable FilterParams params) {
+        float contrast = contrastOf(params);
+        if (contrast != 1.0f) {
+            chain.contrast(contrast);
+        }
+    }
+
+    @NonNull
+    @Override
+    public ChannelLut compileLut(@Nullable FilterParams params) {
+        return LutCompiler.contrast(contrastOf(params));
+    }
+
+    @NonNull
+    @Override
+    public ColorMatrix compileColorMatrix(@Nullable FilterParams params) {
+        float contrast = contrastOf(params);
+        return contrast == 1.0f ? ColorMatrix.identity() : ColorMatrix.contrast(contrast);
+    }
+
+    private static float contrastOf(@Nullable FilterParams params) {
+        return params != null ? ((ContrastFilterParams) params).getContrast()
+                : ContrastFilterParams.DEFAULT_CONTRAST;
+    }
+}
@@ -0,0 +1,109 @@
+package com.rivan.neon.filters;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.Convolution;
+import com.rivan.neon.filters.kernels.ConvolutionKernel;
+import com.rivan.neon.filters.kernels.RowKernel;
+
+/**
+ * Base class of the {@link FilterKernel}s that convolve the image with a
+ * {@link ConvolutionKernel}, e.g. a blur. Subclasses only describe the kernel; it is applied by
+ * {@link Convolution} in Java and by {@code convolution.c} natively.
+ *
+ * <p>
+ * Convolutions treat every channel alike, alpha included, so they are per-channel but do not
+ * preserve alpha.
+ * </p>
+ */
+abstract class ConvolutionFilterKernel implements FilterKernel {
+
+    @NonNull
+    @Override
+    public final Footprint getFootprint() {
+        return Footprint.NEIGHBORHOOD;
+    }
+
+    @Override
+    public boolean isPerChannel() {
+        return true;
+    }
+
+    @Override
+    public boolean isLutCompilable() {
+        return false;
+    }
+
+    @Override
+    public boolean isAffine() {
+        return false;
+    }
+
+    @Override
+    public boolean isAlphaPreserving() {
+        return false;
+    }
+
+    @Override
+    public boolean isIdentity(@Nullable FilterParams params) {
+        return createConvolution(params).isIdentity();
+    }
+
+    @Nullable
+    @Override
+    public RowKernel createJavaKernel(@Nullable FilterParams params,
+                                      @NonNull ProcessingOptions options) {
+        return null;
+    }
+
+    @NonNull
+    @Override
+    public Bitmap applyJava(@NonNull Bitmap bitmap, @Nullable FilterParams params,
+                            @NonNull ProcessingOptions options) {
+        return JavaFilters.applyConvolution(bitmap, createConvolution(params), edgeModeOf(params),
+                options.getParallelism(), options.getMinBandRows());
+    }
+
+    @Override
+    public boolean applyNative(@NonNull Bitmap source, @NonNull Bitmap destination,
+                               @Nullable FilterParams params) {
+        NativeFilters.applyConvolution(source, destination, createConvolution(params),
+                edgeModeOf(params));
+        return true;
+    }
+
+    @Override
+    public int getNativeFilterId() {
+        return -1;
+    }
+
+    @Override
+    public void addNativeStage(@NonNull NativeChain chain, @Nullable FilterParams params) {
+        throw new UnsupportedOperationException(getFilter().name()
+                + " is a neighborhood filter");
+    }
+
+    /**
+     * @param params The parameters of the filter, or {@code null} for the defaults.
+     *
+     * @return The kernel to convolve the image with.
+     */
+    @NonNull
+    abstract ConvolutionKernel createConvolution(@Nullable FilterParams params);
+
+    /**
+     * @param params The parameters of the filter, or {@code null} for the defaults.
+     *
+     * @return How pixels outside of the image are read. Defaults to
+     * {@link Convolution.EdgeMode#CLAMP}.
+     */
+    @NonNull
+    Convolution.EdgeMode edgeModeOf(@Nullable FilterParams params) {
+        return Convolution.EdgeMode.CLAMP;
+    }
+}
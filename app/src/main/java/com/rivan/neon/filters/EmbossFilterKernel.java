@@ -0,0 +1,28 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.filters.kernels.ConvolutionKernel;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#EMBOSS}.
+ */
+class EmbossFilterKernel extends ConvolutionFilterKernel {
+
+    private static final ConvolutionKernel EMBOSS = ConvolutionKernel.emboss();
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.EMBOSS;
+    }
+
+    @NonNull
+    @Override
+    ConvolutionKernel createConvolution(@Nullable FilterParams params) {
+        return EMBOSS;
+    }
+}
@@ -0,0 +1,64 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.Histogram;
+import com.rivan.neon.filters.params.EqualizeFilterParams;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#EQUALIZE}, a histogram equalization, which spreads
+ * the luma of the pixels evenly over 0 to 255. The table is computed from the luma histogram and
+ * applied to the red, green and blue channels alike, so colors keep their hue, and it is blended
+ * with the identity by {@code amount}.
+ */
+class EqualizeFilterKernel extends HistogramFilterKernel {
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.EQUALIZE;
+    }
+
+    @Override
+    public boolean isIdentity(@Nullable FilterParams params) {
+        return amountOf(params) == 0.0f;
+    }
+
+    @NonNull
+    @Override
+    ChannelLut createLut(@NonNull Histogram histogram, @Nullable FilterParams params) {
+        float amount = amountOf(params);
+        int[] counts = histogram.getCounts(Histogram.Channel.LUMA);
+        long total = histogram.getPixelCount();
+
+        // The darkest luma present maps to 0, so the cumulative counts start after it.
+        long first = 0;
+        for (int count : counts) {
+            if (count != 0) {
+                first = count;
+                break;
+            }
+        }
+        if (total == first) {
+            return ChannelLut.identity();
+        }
+
+        int[] table = new int[ChannelLut.SIZE];
+        long cumulative = 0;
+        for (int i = 0; i < ChannelLut.SIZE; i++) {
+            cumulative += counts[i];
+            float equalized = Math.max(0, cumulative - first) * 255.0f / (total - first);
+            table[i] = Math.round(i + amount * (equalized - i));
+        }
+        return ChannelLut.of(table);
+    }
+
+    private static float amountOf(@Nullable FilterParams params) {
+        return params != null ? ((EqualizeFilterParams) params).getAmount()
+                : EqualizeFilterParams.DEFAULT_AMOUNT;
+    }
+}
@@ -0,0 +1,216 @@
+package com.rivan.neon.filters;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+import com.rivan.neon.filters.kernels.RowKernel;
+
+/**
+ * Everything {@link com.rivan.neon.FilterProcessor} needs to know about a {@link Filter}: its
+ * Java and native implementations, and the traits that decide how it can be executed.
+ *
+ * <p>
+ * Every filter has exactly one {@code FilterKernel}, registered in {@link FilterRegistry}.
+ * The processor never switches over {@link Filter}; adding a filter only requires a new
+ * kernel (and, for a native implementation, a new entry in {@code filters.cpp}).
+ * </p>
+ *
+ * <p>
+ * The traits are promises about the output, which the processor relies on to pick the fastest
+ * way to run a chain:
+ * </p>
+ * <ul>
+ *     <li>{@link Footprint#POINTWISE} kernels are fused with their neighbours into a single
+ *     pass over the pixels, and split into row bands for parallel execution.</li>
+ *     <li>{@link #isAffine() Affine} kernels are collapsed with their neighbours into a single
+ *     {@link ColorMatrix}, and {@link #isLutCompilable() LUT-compilable} ones into a single
+ *     {@link ChannelLut}.</li>
+ *     <li>{@link Footprint#NEIGHBORHOOD} and {@link Footprint#GLOBAL} kernels end a fused pass
+ *     and are applied to the whole image with {@link #applyJava} or {@link #applyNative}. Global
+ *     kernels that {@link #compileImageLut compile into a table} for the image they are applied
+ *     to start the next fused pass instead.</li>
+ * </ul>
+ *
+ * @see FilterRegistry
+ */
+public interface FilterKernel {
+
+    /**
+     * Which input pixels each output pixel depends on.
+     */
+    enum Footprint {
+        /** Only the pixel at the same position. */
+        POINTWISE,
+        /** The pixels around the same position, e.g. a blur. */
+        NEIGHBORHOOD,
+        /** Statistics of the whole image, e.g. a histogram equalization. */
+        GLOBAL
+    }
+
+    /**
+     * @return The {@link Filter} this kernel implements.
+     */
+    @NonNull
+    Filter getFilter();
+
+    @NonNull
+    Footprint getFootprint();
+
+    /**
+     * @return {@code true} if every color channel of the output only depends on the same
+     * channel of the input, e.g. Brightness, but not Grayscale. {@code FilterProcessor} only
+     * groups pointwise per-channel stages with each other, and composes their runs into a
+     * single lookup table.
+     */
+    boolean isPerChannel();
+
+    /**
+     * @return {@code true} if {@link #compileLut} returns a table for any parameters. Implies
+     * {@link #isPerChannel()} and {@link #isAlphaPreserving()}.
+     */
+    boolean isLutCompilable();
+
+    /**
+     * @return {@code true} if {@link #compileColorMatrix} returns a matrix for any parameters.
+     */
+    boolean isAffine();
+
+    /**
+     * @return {@code true} if the alpha channel of the output is always the alpha channel of
+     * the input.
+     */
+    boolean isAlphaPreserving();
+
+    /**
+     * @param params The parameters of the filter, or {@code null} for the defaults.
+     *
+     * @return {@code true} if the filter would not change any image with these parameters
+     * (e.g., brightness 0, contrast 1.0f), in which case it is skipped.
+     */
+    boolean isIdentity(@Nullable FilterParams params);
+
+    /**
+     * Adapts the parameters of the filter to a copy of an image scaled by {@code scale}, so that
+     * the filtered copy looks like the filtered image scaled, e.g. by scaling a blur radius.
+     * Pointwise filters look the same at any scale, and keep their parameters.
+     *
+     * @param params The parameters of the filter, or {@code null} for the defaults. Not
+     *               modified.
+     * @param scale  The size of the copy relative to the image, e.g. 0.25f for a quarter.
+     *
+     * @return The adapted parameters, which may be {@code params} itself.
+     */
+    @Nullable
+    default FilterParams scaleParams(@Nullable FilterParams params, float scale) {
+        return params;
+    }
+
+    /**
+     * Creates the Java kernel of a {@link Footprint#POINTWISE} filter.
+     *
+     * @param params  The parameters of the filter, or {@code null} for the defaults.
+     * @param options The {@link ProcessingOptions} that select between equivalent kernels.
+     *
+     * @return The kernel, or {@code null} if the filter would not change the image or is not
+     * pointwise.
+     */
+    @Nullable
+    RowKernel createJavaKernel(@Nullable FilterParams params, @NonNull ProcessingOptions options);
+
+    /**
+     * Applies a {@link Footprint#NEIGHBORHOOD} or {@link Footprint#GLOBAL} filter to a whole
+     * bitmap with the Java implementation. Pointwise filters are applied through
+     * {@link #createJavaKernel} instead.
+     *
+     * @param bitmap  A mutable ARGB_8888 bitmap.
+     * @param params  The parameters of the filter, or {@code null} for the defaults.
+     * @param options The {@link ProcessingOptions} that select how the filter is applied.
+     *
+     * @return The filtered bitmap, which may be {@code bitmap} itself.
+     */
+    @NonNull
+    default Bitmap applyJava(@NonNull Bitmap bitmap, @Nullable FilterParams params,
+                             @NonNull ProcessingOptions options) {
+        throw new UnsupportedOperationException(getFilter().name() + " is pointwise");
+    }
+
+    /**
+     * Applies a {@link Footprint#NEIGHBORHOOD} or {@link Footprint#GLOBAL} filter with its
+     * native implementation, reading {@code source} and writing the result into
+     * {@code destination}. Pointwise filters are applied through {@link #addNativeStage}
+     * instead.
+     *
+     * @param source      An ARGB_8888 bitmap.
+     * @param destination A mutable ARGB_8888 bitmap with the same size as the source. May be
+     *                    the source itself.
+     * @param params      The parameters of the filter, or {@code null} for the defaults.
+     *
+     * @return {@code true} if the filter was applied, {@code false} if it has no native
+     * implementation.
+     */
+    default boolean applyNative(@NonNull Bitmap source, @NonNull Bitmap destination,
+                                @Nullable FilterParams params) {
+        return false;
+    }
+
+    /**
+     * @return The {@code FILTER_*} constant of {@link NativeFilters} of the native kernel that
+     * implements this filter, or {@code -1} if it has none.
+     */
+    int getNativeFilterId();
+
+    /**
+     * Appends the native implementation of the filter to a {@link NativeChain}. Nothing is
+     * appended if the filter would not change the image.
+     *
+     * @param chain  The chain to append to.
+     * @param params The parameters of the filter, or {@code null} for the defaults.
+     */
+    void addNativeStage(@NonNull NativeChain chain, @Nullable FilterParams params);
+
+    /**
+     * @param params The parameters of the filter, or {@code null} for the defaults.
+     *
+     * @return The filter as a lookup table, or {@code null} if it is not
+     * {@link #isLutCompilable() LUT-compilable}.
+     */
+    @Nullable
+    default ChannelLut compileLut(@Nullable FilterParams params) {
+        return null;
+    }
+
+    /**
+     * @param params The parameters of the filter, or {@code null} for the defaults.
+     *
+     * @return The filter as a color matrix, or {@code null} if it is not
+     * {@link #isAffine() affine}.
+     */
+    @Nullable
+    default ColorMatrix compileColorMatrix(@Nullable FilterParams params) {
+        return null;
+    }
+
+    /**
+     * Compiles a {@link Footprint#GLOBAL} filter into a lookup table for the image it is applied
+     * to, e.g. from its histogram.
+     *
+     * @param image   The image the filter is applied to, which is not modified.
+     * @param params  The parameters of the filter, or {@code null} for the defaults.
+     * @param options The {@link ProcessingOptions} that select how the image is read.
+     *
+     * @return The filter as a lookup table for this image, or {@code null} if it cannot be
+     * expressed as one.
+     */
+    @Nullable
+    default ChannelLut compileImageLut(@NonNull Bitmap image, @Nullable FilterParams params,
+                                       @NonNull ProcessingOptions options) {
+        return null;
+    }
+}
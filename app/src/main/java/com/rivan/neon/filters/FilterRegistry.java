@@ -0,0 +1,66 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+
+import com.rivan.neon.Filter;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Maps every {@link Filter} to its {@link FilterKernel}.
+ *
+ * <p>
+ * The built-in kernels are registered when the class is loaded. {@link #register} replaces the
+ * kernel of a filter, e.g. with an instrumented one in a benchmark. The registry is safe to use
+ * from multiple threads.
+ * </p>
+ *
+ * @see FilterKernel
+ */
+public class FilterRegistry {
+
+    private static final Map<Filter, FilterKernel> kernels = new EnumMap<>(Filter.class);
+
+    static {
+        register(new OriginalFilterKernel());
+        register(new GrayscaleFilterKernel());
+        register(new InvertFilterKernel());
+        register(new BrightnessFilterKernel());
+        register(new ContrastFilterKernel());
+        register(new SepiaFilterKernel());
+        register(new BlurFilterKernel());
+        register(new SharpenFilterKernel());
+        register(new EmbossFilterKernel());
+        register(new AutoLevelsFilterKernel());
+        register(new EqualizeFilterKernel());
+    }
+
+    /**
+     * Registers the kernel of a filter, replacing any kernel registered for it before.
+     *
+     * @param kernel The kernel to register, under {@link FilterKernel#getFilter()}.
+     */
+    public static void register(@NonNull FilterKernel kernel) {
+        synchronized (kernels) {
+            kernels.put(kernel.getFilter(), kernel);
+        }
+    }
+
+    /**
+     * @return The kernel of the given filter.
+     *
+     * @throws IllegalStateException If no kernel is registered for the filter.
+     */
+    @NonNull
+    public static FilterKernel get(@NonNull Filter filter) {
+        FilterKernel kernel;
+        synchronized (kernels) {
+            kernel = kernels.get(filter);
+        }
+        if (kernel == null) {
+            throw new IllegalStateException("No kernel registered for " + filter.name());
+        }
+        return kernel;
+    }
+}
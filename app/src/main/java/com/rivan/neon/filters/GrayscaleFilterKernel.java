@@ -0,0 +1,91 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+import com.rivan.neon.filters.kernels.FixedPointKernels;
+import com.rivan.neon.filters.kernels.PixelKernels;
+import com.rivan.neon.filters.kernels.RowKernel;
+import com.rivan.neon.filters.params.GrayscaleFilterParams;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#GRAYSCALE}.
+ */
+class GrayscaleFilterKernel extends PointwiseFilterKernel {
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.GRAYSCALE;
+    }
+
+    @Override
+    public boolean isPerChannel() {
+        return false;
+    }
+
+    @Override
+    public boolean isLutCompilable() {
+        return false;
+    }
+
+    @Override
+    public boolean isAffine() {
+        return true;
+    }
+
+    @Override
+    public boolean isAlphaPreserving() {
+        return true;
+    }
+
+    @Override
+    public boolean isIdentity(@Nullable FilterParams params) {
+        return false;
+    }
+
+    @NonNull
+    @Override
+    public RowKernel createJavaKernel(@Nullable FilterParams params,
+                                      @NonNull ProcessingOptions options) {
+        GrayscaleFilterParams grayscaleParams = paramsOf(params);
+        if (options.getArithmetic() == ProcessingOptions.Arithmetic.FIXED_POINT) {
+            return FixedPointKernels.grayscaleKernel(grayscaleParams.getRedCoefficient(),
+                    grayscaleParams.getGreenCoefficient(),
+                    grayscaleParams.getBlueCoefficient());
+        }
+        return PixelKernels.grayscaleKernel(grayscaleParams.getRedCoefficient(),
+                grayscaleParams.getGreenCoefficient(),
+                grayscaleParams.getBlueCoefficient());
+    }
+
+    @Override
+    public int getNativeFilterId() {
+        return NativeFilters.FILTER_GRAYSCALE;
+    }
+
+    @Override
+    public void addNativeStage(@NonNull NativeChain chain, @Nullable FilterParams params) {
+        GrayscaleFilterParams grayscaleParams = paramsOf(params);
+        chain.grayscale(grayscaleParams.getRedCoefficient(),
+                grayscaleParams.getGreenCoefficient(),
+                grayscaleParams.getBlueCoefficient());
+    }
+
+    @NonNull
+    @Override
+    public ColorMatrix compileColorMatrix(@Nullable FilterParams params) {
+        GrayscaleFilterParams grayscaleParams = paramsOf(params);
+        return ColorMatrix.grayscale(grayscaleParams.getRedCoefficient(),
+                grayscaleParams.getGreenCoefficient(),
+                grayscaleParams.getBlueCoefficient());
+    }
+
+    private static GrayscaleFilterParams paramsOf(@Nullable FilterParams params) {
+        return params != null ? (GrayscaleFilterParams) params : new GrayscaleFilterParams();
+    }
+}
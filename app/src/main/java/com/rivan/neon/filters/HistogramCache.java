@@ -0,0 +1,123 @@
+package com.rivan.neon.filters;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.Histogram;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps the {@link Histogram}s of the last few bitmaps read by the histogram-based filters.
+ *
+ * <p>
+ * Every preview and every slider update applies its filter to the same original image, so its
+ * histogram is only counted once, and {@link #get} can be called when an image is loaded to count
+ * it ahead of time. Histograms are kept per implementation, so that each implementation of a
+ * filter only ever sees its own counts. Bitmaps are only weakly referenced, and a histogram is dropped once its
+ * bitmap is recycled or modified, which changes its generation id. The cache is safe to use from
+ * multiple threads.
+ * </p>
+ */
+public final class HistogramCache {
+
+    /**
+     * Enough for an original image and the previews derived from it, counted by both
+     * implementations.
+     */
+    private static final int MAX_ENTRIES = 8;
+
+    private static final HistogramCache SHARED = new HistogramCache();
+
+    /** Most recently used first. */
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * @return The cache shared by the filters.
+     */
+    @NonNull
+    public static HistogramCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the histogram of a bitmap, counting it if it is not cached.
+     *
+     * @param bitmap      The bitmap to read.
+     * @param useAssembly {@code true} to count with the native implementation, on the threads set
+     *                    by {@link NativeFilters#setThreadCount}, {@code false} to count with
+     *                    {@link Histogram#compute}. Both count unpremultiplied colors, but may
+     *                    round translucent ones differently.
+     * @param options     The {@link ProcessingOptions} that select the parallelism of the Java
+     *                    implementation.
+     *
+     * @throws IllegalStateException If the bitmap has been recycled.
+     */
+    @NonNull
+    public Histogram get(@NonNull Bitmap bitmap, boolean useAssembly,
+                         @NonNull ProcessingOptions options) {
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                Bitmap cached = entry.bitmap.get();
+                if (cached == null || cached.isRecycled()) {
+                    iterator.remove();
+                } else if (cached == bitmap && entry.useAssembly == useAssembly) {
+                    iterator.remove();
+                    if (entry.generationId == bitmap.getGenerationId()) {
+                        entries.add(0, entry);
+                        return entry.histogram;
+                    }
+                }
+            }
+        }
+
+        // Counting happens outside of the lock, so that other bitmaps can be looked up meanwhile.
+        int generationId = bitmap.getGenerationId();
+        Histogram histogram = useAssembly && bitmap.getConfig() == Bitmap.Config.ARGB_8888
+                ? NativeFilters.computeHistogram(bitmap)
+                : JavaFilters.computeHistogram(bitmap, options.getParallelism(),
+                options.getMinBandRows());
+        if (histogram == null) {
+            throw new IllegalStateException("The bitmap has been recycled");
+        }
+
+        synchronized (entries) {
+            entries.add(0, new Entry(bitmap, useAssembly, generationId, histogram));
+            while (entries.size() > MAX_ENTRIES) {
+                entries.remove(entries.size() - 1);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Drops every cached histogram.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static final class Entry {
+
+        final WeakReference<Bitmap> bitmap;
+        final boolean useAssembly;
+        final int generationId;
+        final Histogram histogram;
+
+        Entry(Bitmap bitmap, boolean useAssembly, int generationId, Histogram histogram) {
+            this.bitmap = new WeakReference<>(bitmap);
+            this.useAssembly = useAssembly;
+            this.generationId = generationId;
+            this.histogram = histogram;
+        }
+    }
+}
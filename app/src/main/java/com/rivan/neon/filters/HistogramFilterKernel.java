@@ -0,0 +1,117 @@
+package com.rivan.neon.filters;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.Histogram;
+import com.rivan.neon.filters.kernels.RowKernel;
+
+/**
+ * Base class of the {@link FilterKernel}s that map every channel through a {@link ChannelLut}
+ * computed from the {@link Histogram} of the image, e.g. an equalization. Subclasses only turn
+ * the histogram into the table.
+ *
+ * <p>
+ * Histograms are taken from the shared {@link HistogramCache}, so the original image is only
+ * counted once by each implementation. The Java implementation applies the table with the
+ * pointwise stages that follow it, through {@link #compileImageLut}; the native one counts the
+ * image and applies the table with {@code histogram.c}. Both count and map unpremultiplied
+ * colors.
+ * </p>
+ */
+abstract class HistogramFilterKernel implements FilterKernel {
+
+    /**
+     * The native histogram runs on the threads set by {@link NativeFilters#setThreadCount}, so
+     * its options are not used.
+     */
+    private static final ProcessingOptions NATIVE_OPTIONS = new ProcessingOptions();
+
+    @NonNull
+    @Override
+    public final Footprint getFootprint() {
+        return Footprint.GLOBAL;
+    }
+
+    @Override
+    public boolean isPerChannel() {
+        return true;
+    }
+
+    /**
+     * The table depends on the image, so it cannot be compiled from the parameters alone.
+     */
+    @Override
+    public boolean isLutCompilable() {
+        return false;
+    }
+
+    @Override
+    public boolean isAffine() {
+        return false;
+    }
+
+    @Override
+    public boolean isAlphaPreserving() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public RowKernel createJavaKernel(@Nullable FilterParams params,
+                                      @NonNull ProcessingOptions options) {
+        return null;
+    }
+
+    @NonNull
+    @Override
+    public Bitmap applyJava(@NonNull Bitmap bitmap, @Nullable FilterParams params,
+                            @NonNull ProcessingOptions options) {
+        ChannelLut lut = compileImageLut(bitmap, params, options);
+        if (lut.isIdentity()) {
+            return bitmap;
+        }
+        return JavaFilters.applyKernel(bitmap, lut.kernel(), options.getParallelism(),
+                options.getMinBandRows());
+    }
+
+    @Override
+    public boolean applyNative(@NonNull Bitmap source, @NonNull Bitmap destination,
+                               @Nullable FilterParams params) {
+        Histogram histogram = HistogramCache.getShared().get(source, true, NATIVE_OPTIONS);
+        NativeFilters.applyLut(source, destination, createLut(histogram, params));
+        return true;
+    }
+
+    @NonNull
+    @Override
+    public ChannelLut compileImageLut(@NonNull Bitmap image, @Nullable FilterParams params,
+                                      @NonNull ProcessingOptions options) {
+        return createLut(HistogramCache.getShared().get(image, false, options), params);
+    }
+
+    @Override
+    public int getNativeFilterId() {
+        return -1;
+    }
+
+    @Override
+    public void addNativeStage(@NonNull NativeChain chain, @Nullable FilterParams params) {
+        throw new UnsupportedOperationException(getFilter().name()
+                + " depends on the histogram of the whole image");
+    }
+
+    /**
+     * @param histogram The histogram of the image the filter is applied to.
+     * @param params    The parameters of the filter, or {@code null} for the defaults.
+     *
+     * @return The table to map the image through.
+     */
+    @NonNull
+    abstract ChannelLut createLut(@NonNull Histogram histogram, @Nullable FilterParams params);
+}
@@ -0,0 +1,87 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+import com.rivan.neon.filters.kernels.FixedPointKernels;
+import com.rivan.neon.filters.kernels.PixelKernels;
+import com.rivan.neon.filters.kernels.RowKernel;
+import com.rivan.neon.filters.kernels.SwarKernels;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#INVERT}.
+ */
+class InvertFilterKernel extends PointwiseFilterKernel {
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.INVERT;
+    }
+
+    @Override
+    public boolean isPerChannel() {
+        return true;
+    }
+
+    @Override
+    public boolean isLutCompilable() {
+        return true;
+    }
+
+    @Override
+    public boolean isAffine() {
+        return true;
+    }
+
+    @Override
+    public boolean isAlphaPreserving() {
+        return true;
+    }
+
+    @Override
+    public boolean isIdentity(@Nullable FilterParams params) {
+        return false;
+    }
+
+    @NonNull
+    @Override
+    public RowKernel createJavaKernel(@Nullable FilterParams params,
+                                      @NonNull ProcessingOptions options) {
+        if (options.getSwar() == ProcessingOptions.Swar.LONG) {
+            return SwarKernels.invertKernelLong();
+        }
+        if (options.getSwar() == ProcessingOptions.Swar.INT) {
+            return SwarKernels.invertKernel();
+        }
+        return options.getArithmetic() == ProcessingOptions.Arithmetic.FIXED_POINT
+                ? FixedPointKernels.invertKernel() : PixelKernels.invertKernel();
+    }
+
+    @Override
+    public int getNativeFilterId() {
+        return NativeFilters.FILTER_INVERT;
+    }
+
+    @Override
+    public void addNativeStage(@NonNull NativeChain chain, @Nullable FilterParams params) {
+        chain.invert();
+    }
+
+    @NonNull
+    @Override
+    public ChannelLut compileLut(@Nullable FilterParams params) {
+        return LutCompiler.invert();
+    }
+
+    @NonNull
+    @Override
+    public ColorMatrix compileColorMatrix(@Nullable FilterParams params) {
+        return ColorMatrix.invert();
+    }
+}
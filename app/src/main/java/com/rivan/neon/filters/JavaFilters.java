@@ -1,12 +1,28 @@
 package com.rivan.neon.filters;
 
 import android.graphics.Bitmap;
-import android.graphics.Color;
 
 import androidx.annotation.NonNull;
 
+import java.nio.ByteBuffer;
+
+import com.rivan.neon.filters.kernels.BoxBlur;
+import com.rivan.neon.filters.kernels.Convolution;
+import com.rivan.neon.filters.kernels.ConvolutionKernel;
+import com.rivan.neon.filters.kernels.DirectBufferPool;
+import com.rivan.neon.filters.kernels.Histogram;
+import com.rivan.neon.filters.kernels.ParallelRows;
+import com.rivan.neon.filters.kernels.PixelArrayPool;
+import com.rivan.neon.filters.kernels.PixelBuffer;
+import com.rivan.neon.filters.kernels.PixelKernels;
+import com.rivan.neon.filters.kernels.Resampler;
+import com.rivan.neon.filters.kernels.RowKernel;
+
 /**
  * Utility class to apply various filters to a Bitmap using Java.
+ * The methods in this class are thin adapters that move the pixels of a {@link Bitmap} into a
+ * {@link PixelBuffer} and run the corresponding platform-independent kernel from
+ * {@link PixelKernels}.
  *
  * @see com.rivan.neon.FilterProcessor
  */
@@ -24,6 +40,78 @@ public class JavaFilters {
      */
     public static Bitmap applyGrayscale(@NonNull Bitmap bitmap, float redCoefficient,
                                         float greenCoefficient, float blueCoefficient) {
+        return applyKernel(bitmap,
+                PixelKernels.grayscaleKernel(redCoefficient, greenCoefficient, blueCoefficient));
+    }
+
+    /**
+     * Applies the Invert filter to a bitmap.
+     *
+     * @param bitmap The bitmap to which the filter will be applied.
+     *
+     * @return the same bitmap with the Invert filter applied.
+     */
+    public static Bitmap applyInvert(@NonNull Bitmap bitmap) {
+        return applyKernel(bitmap, PixelKernels.invertKernel());
+    }
+
+    /**
+     * Applies the Brightness filter to a bitmap.
+     *
+     * @param bitmap     The bitmap to which the filter will be applied.
+     * @param brightness Amount of brightness to be decreased or increased. Defaults to 0.
+     *
+     * @return the same bitmap with the Brightness filter applied.
+     */
+    public static Bitmap applyBrightness(@NonNull Bitmap bitmap, int brightness) {
+        return applyKernel(bitmap, PixelKernels.brightnessKernel(brightness));
+    }
+
+    /**
+     * Applies the Contrast filter to a bitmap.
+     *
+     * @param bitmap   The bitmap to which the filter will be applied.
+     * @param contrast Amount of contrast to be decreased or increased. Defaults to 1.
+     *
+     * @return the same bitmap with the Contrast filter applied.
+     */
+    public static Bitmap applyContrast(@NonNull Bitmap bitmap, float contrast) {
+        return applyKernel(bitmap, PixelKernels.contrastKernel(contrast));
+    }
+
+    /**
+     * Applies the Sepia filter to a bitmap.
+     *
+     * @param bitmap The bitmap to which the filter will be applied.
+     *
+     * @return the same bitmap with the Sepia filter applied.
+     */
+    public static Bitmap applySepia(@NonNull Bitmap bitmap) {
+        return applyKernel(bitmap, PixelKernels.sepiaKernel());
+    }
+
+    /**
+     * Convolves a bitmap with a {@link ConvolutionKernel} on up to {@code parallelism} threads.
+     * Every output pixel reads its neighbours, so the pixels are convolved from one pooled array
+     * into another before being written back to the same bitmap. Translucent pixels are convolved
+     * premultiplied, like the native filters do, so that the colors of transparent pixels do not
+     * bleed into their neighbours.
+     *
+     * @param bitmap      The bitmap to which the kernel will be applied. Must be mutable.
+     * @param kernel      The {@link ConvolutionKernel} to apply.
+     * @param edgeMode    How pixels outside of the bitmap are read.
+     * @param parallelism Maximum number of row bands to process concurrently, or
+     *                    {@link ParallelRows#PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
+     *
+     * @return the same bitmap with the kernel applied, or {@code null} if it has been recycled.
+     *
+     * @see Convolution
+     */
+    public static Bitmap applyConvolution(@NonNull Bitmap bitmap,
+                                          @NonNull ConvolutionKernel kernel,
+                                          @NonNull Convolution.EdgeMode edgeMode,
+                                          int parallelism, int minBandRows) {
         if (bitmap.isRecycled()) {
             return null;
         }
@@ -32,38 +120,51 @@ public class JavaFilters {
         int height = bitmap.getHeight();
         int size = width * height;
 
-        int[] pixels = new int[size];
-
-        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
-
-        for (int i = 0; i < size; i++) {
-            int pixel = pixels[i];
-
-            int alpha = Color.alpha(pixel);
-            int red = Color.red(pixel);
-            int green = Color.green(pixel);
-            int blue = Color.blue(pixel);
-
-            int gray = (int) (redCoefficient * red + greenCoefficient * green + blueCoefficient * blue);
-
-            gray = clamp(gray);
-
-            pixels[i] = Color.argb(alpha, gray, gray, gray);
+        PixelArrayPool pool = PixelArrayPool.getShared();
+        int[] source = pool.acquire(size);
+        int[] destination = pool.acquire(size);
+
+        try {
+            bitmap.getPixels(source, 0, width, 0, 0, width, height);
+            boolean hasAlpha = bitmap.hasAlpha();
+            if (hasAlpha) {
+                ParallelRows.process(PixelBuffer.wrap(source, width, height),
+                        PixelKernels.premultiplyKernel(), parallelism, minBandRows);
+            }
+            Convolution.apply(source, destination, width, height, kernel, edgeMode, parallelism,
+                    minBandRows);
+            if (hasAlpha) {
+                ParallelRows.process(PixelBuffer.wrap(destination, width, height),
+                        PixelKernels.unpremultiplyKernel(), parallelism, minBandRows);
+            }
+            bitmap.setPixels(destination, 0, width, 0, 0, width, height);
+        } finally {
+            pool.release(destination);
+            pool.release(source);
         }
 
-        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
-
         return bitmap;
     }
 
     /**
-     * Applies the Invert filter to a bitmap.
+     * Blurs a bitmap with one horizontal and one vertical box pass of every radius on up to
+     * {@code parallelism} threads. Every pass costs the same per pixel whatever its radius.
+     * Translucent pixels are blurred premultiplied, like the native filters do.
      *
-     * @param bitmap The bitmap to which the filter will be applied.
+     * @param bitmap      The bitmap to blur. Must be mutable.
+     * @param radii       The radius of every pass, e.g. from {@link BoxBlur#stackedRadii}.
+     * @param edgeMode    How pixels outside of the bitmap are read.
+     * @param parallelism Maximum number of bands or strips to process concurrently, or
+     *                    {@link ParallelRows#PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
      *
-     * @return the same bitmap with the Invert filter applied.
+     * @return the same bitmap blurred, or {@code null} if it has been recycled.
+     *
+     * @see BoxBlur
      */
-    public static Bitmap applyInvert(@NonNull Bitmap bitmap) {
+    public static Bitmap applyBoxBlur(@NonNull Bitmap bitmap, @NonNull int[] radii,
+                                      @NonNull Convolution.EdgeMode edgeMode, int parallelism,
+                                      int minBandRows) {
         if (bitmap.isRecycled()) {
             return null;
         }
@@ -72,84 +173,138 @@ public class JavaFilters {
         int height = bitmap.getHeight();
         int size = width * height;
 
-        int[] pixels = new int[size];
-
-        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
-
-        for (int i = 0; i < size; i++) {
-            int pixel = pixels[i];
-
-            int alpha = Color.alpha(pixel);
-            int red = Color.red(pixel);
-            int green = Color.green(pixel);
-            int blue = Color.blue(pixel);
-
-            int invertedRed = 255 - red;
-            int invertedGreen = 255 - green;
-            int invertedBlue = 255 - blue;
-
-            pixels[i] = Color.argb(alpha, invertedRed, invertedGreen, invertedBlue);
+        PixelArrayPool pool = PixelArrayPool.getShared();
+        int[] pixels = pool.acquire(size);
+        int[] scratch = pool.acquire(size);
+
+        try {
+            bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+            boolean hasAlpha = bitmap.hasAlpha();
+            if (hasAlpha) {
+                ParallelRows.process(PixelBuffer.wrap(pixels, width, height),
+                        PixelKernels.premultiplyKernel(), parallelism, minBandRows);
+            }
+            BoxBlur.apply(pixels, scratch, width, height, radii, edgeMode, parallelism,
+                    minBandRows);
+            if (hasAlpha) {
+                ParallelRows.process(PixelBuffer.wrap(pixels, width, height),
+                        PixelKernels.unpremultiplyKernel(), parallelism, minBandRows);
+            }
+            bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        } finally {
+            pool.release(scratch);
+            pool.release(pixels);
         }
 
-        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
-
         return bitmap;
     }
 
     /**
-     * Applies the Brightness filter to a bitmap.
+     * Counts the values of every channel of a bitmap on up to {@code parallelism} threads.
+     * Translucent colors are counted unpremultiplied, as {@link Bitmap#getPixels} returns them.
      *
-     * @param bitmap     The bitmap to which the filter will be applied.
-     * @param brightness Amount of brightness to be decreased or increased. Defaults to 0.
+     * @param bitmap      The bitmap to read.
+     * @param parallelism Maximum number of row bands to process concurrently, or
+     *                    {@link ParallelRows#PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
      *
-     * @return the same bitmap with the Brightness filter applied.
+     * @return The histogram of the bitmap, or {@code null} if it has been recycled.
+     *
+     * @see Histogram
      */
-    public static Bitmap applyBrightness(@NonNull Bitmap bitmap, int brightness) {
+    public static Histogram computeHistogram(@NonNull Bitmap bitmap, int parallelism,
+                                             int minBandRows) {
         if (bitmap.isRecycled()) {
             return null;
         }
 
         int width = bitmap.getWidth();
         int height = bitmap.getHeight();
-        int size = width * height;
-
-        int[] pixels = new int[size];
-
-        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
-
-        for (int i = 0; i < size; i++) {
-            int pixel = pixels[i];
 
-            int alpha = Color.alpha(pixel);
-            int red = Color.red(pixel);
-            int green = Color.green(pixel);
-            int blue = Color.blue(pixel);
+        PixelArrayPool pool = PixelArrayPool.getShared();
+        int[] pixels = pool.acquire(width * height);
 
-            red += brightness;
-            green += brightness;
-            blue += brightness;
+        try {
+            bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+            return Histogram.compute(pixels, width, height, parallelism, minBandRows);
+        } finally {
+            pool.release(pixels);
+        }
+    }
 
-            red = clamp(red);
-            green = clamp(green);
-            blue = clamp(blue);
+    /**
+     * Resizes a bitmap into another one on up to {@code parallelism} threads.
+     *
+     * @param src         The bitmap to read.
+     * @param dst         A mutable bitmap, of any size, that receives the resized pixels.
+     * @param method      How pixels are resampled.
+     * @param parallelism Maximum number of row bands to process concurrently, or
+     *                    {@link ParallelRows#PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
+     *
+     * @return dst, or {@code null} if either bitmap has been recycled.
+     *
+     * @see Resampler
+     */
+    public static Bitmap resize(@NonNull Bitmap src, @NonNull Bitmap dst,
+                                @NonNull Resampler.Method method, int parallelism,
+                                int minBandRows) {
+        if (src.isRecycled() || dst.isRecycled()) {
+            return null;
+        }
 
-            pixels[i] = Color.argb(alpha, red, green, blue);
+        int srcWidth = src.getWidth();
+        int srcHeight = src.getHeight();
+        int dstWidth = dst.getWidth();
+        int dstHeight = dst.getHeight();
+
+        PixelArrayPool pool = PixelArrayPool.getShared();
+        int[] source = pool.acquire(srcWidth * srcHeight);
+        int[] destination = pool.acquire(dstWidth * dstHeight);
+
+        try {
+            src.getPixels(source, 0, srcWidth, 0, 0, srcWidth, srcHeight);
+            Resampler.resize(source, srcWidth, srcHeight, destination, dstWidth, dstHeight,
+                    method, parallelism, minBandRows);
+            dst.setPixels(destination, 0, dstWidth, 0, 0, dstWidth, dstHeight);
+        } finally {
+            pool.release(destination);
+            pool.release(source);
         }
 
-        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        return dst;
+    }
 
-        return bitmap;
+    /**
+     * Reads the pixels of a bitmap, runs a {@link RowKernel} over all of them and writes
+     * the result back to the same bitmap. Combined with {@link PixelKernels#fuse}, this applies
+     * several filters with a single {@code getPixels}/{@code setPixels} round trip.
+     *
+     * @param bitmap The bitmap to which the kernel will be applied. Must be mutable.
+     * @param kernel The {@link RowKernel} to run.
+     *
+     * @return the same bitmap with the kernel applied, or {@code null} if it has been recycled.
+     */
+    public static Bitmap applyKernel(@NonNull Bitmap bitmap, @NonNull RowKernel kernel) {
+        return applyKernel(bitmap, kernel, 1, ParallelRows.DEFAULT_MIN_BAND_ROWS);
     }
 
     /**
-     * Applies the Contrast filter to a bitmap.
+     * Reads the pixels of a bitmap, runs a {@link RowKernel} over all of them on up to
+     * {@code parallelism} threads and writes the result back to the same bitmap.
      *
-     * @param bitmap   The bitmap to which the filter will be applied.
-     * @param contrast Amount of contrast to be decreased or increased. Defaults to 1.
+     * @param bitmap      The bitmap to which the kernel will be applied. Must be mutable.
+     * @param kernel      The {@link RowKernel} to run.
+     * @param parallelism Maximum number of row bands to process concurrently, or
+     *                    {@link ParallelRows#PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
      *
-     * @return the same bitmap with the Contrast filter applied.
+     * @return the same bitmap with the kernel applied, or {@code null} if it has been recycled.
+     *
+     * @see ParallelRows
      */
-    public static Bitmap applyContrast(@NonNull Bitmap bitmap, float contrast) {
+    public static Bitmap applyKernel(@NonNull Bitmap bitmap, @NonNull RowKernel kernel,
+                                     int parallelism, int minBandRows) {
         if (bitmap.isRecycled()) {
             return null;
         }
@@ -158,78 +313,75 @@ public class JavaFilters {
         int height = bitmap.getHeight();
         int size = width * height;
 
-        int[] pixels = new int[size];
-
-        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
-
-        for (int i = 0; i < size; i++) {
-            int pixel = pixels[i];
+        // The scratch array is pooled, so repeatedly filtering images of the same size
+        // does not allocate.
+        PixelArrayPool pool = PixelArrayPool.getShared();
+        int[] pixels = pool.acquire(size);
 
-            int contrastedRed = (int) ((Color.red(pixel) - 128) * contrast + 128);
-            int contrastedGreen = (int) ((Color.green(pixel) - 128) * contrast + 128);
-            int contrastedBlue = (int) ((Color.blue(pixel) - 128) * contrast + 128);
+        try {
+            bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
 
-            contrastedRed = clamp(contrastedRed);
-            contrastedGreen = clamp(contrastedGreen);
-            contrastedBlue = clamp(contrastedBlue);
+            PixelBuffer buffer = PixelBuffer.wrap(pixels, width, height);
+            ParallelRows.process(buffer, kernel, parallelism, minBandRows);
 
-            pixels[i] = Color.argb(Color.alpha(pixel), contrastedRed, contrastedGreen, contrastedBlue);
+            bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        } finally {
+            pool.release(pixels);
         }
 
-        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
-
         return bitmap;
     }
 
     /**
-     * Applies the Sepia filter to a bitmap.
+     * Runs a {@link RowKernel} over the raw pixels of a bitmap, without the conversions of
+     * {@code getPixels}/{@code setPixels}. The RGBA_8888 bytes of the bitmap are copied as-is
+     * into a pooled direct {@link ByteBuffer} with {@code copyPixelsToBuffer}, processed in place
+     * and copied back with {@code copyPixelsFromBuffer}. This is the same memory the native
+     * filters operate on, which makes the Java and Assembly timings directly comparable.
      *
-     * @param bitmap The bitmap to which the filter will be applied.
+     * <p>
+     * The bytes hold <b>premultiplied</b> color values, which are only the colors the kernels
+     * expect when every pixel is opaque. Bitmaps that {@link Bitmap#hasAlpha() have alpha} or are
+     * not {@link Bitmap.Config#ARGB_8888} therefore fall back to
+     * {@link #applyKernel(Bitmap, RowKernel, int, int)}, whose results this matches for the others.
+     * </p>
      *
-     * @return the same bitmap with the Sepia filter applied.
+     * @param bitmap      The bitmap to which the kernel will be applied. Must be mutable.
+     * @param kernel      The {@link RowKernel} to run.
+     * @param parallelism Maximum number of row bands to process concurrently, or
+     *                    {@link ParallelRows#PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
+     *
+     * @return the same bitmap with the kernel applied, or {@code null} if it has been recycled.
      */
-    public static Bitmap applySepia(@NonNull Bitmap bitmap) {
+    public static Bitmap applyKernelRaw(@NonNull Bitmap bitmap, @NonNull RowKernel kernel,
+                                        int parallelism, int minBandRows) {
         if (bitmap.isRecycled()) {
             return null;
         }
+        if (bitmap.getConfig() != Bitmap.Config.ARGB_8888 || bitmap.hasAlpha()) {
+            return applyKernel(bitmap, kernel, parallelism, minBandRows);
+        }
 
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-        int size = width * height;
-
-        int[] pixels = new int[size];
-
-        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
-
-        for (int i = 0; i < size; i++) {
-            int pixel = pixels[i];
+        int rowBytes = bitmap.getRowBytes();
+        int byteCount = rowBytes * bitmap.getHeight();
 
-            int alpha = Color.alpha(pixel);
-            int red = Color.red(pixel);
-            int green = Color.green(pixel);
-            int blue = Color.blue(pixel);
+        DirectBufferPool pool = DirectBufferPool.getShared();
+        ByteBuffer buffer = pool.acquire(byteCount);
 
-            double sepiaRed = (red * 0.393) + (green * 0.769) + (blue * 0.189);
-            double sepiaGreen = (red * 0.349) + (green * 0.686) + (blue * 0.168);
-            double sepiaBlue = (red * 0.272) + (green * 0.534) + (blue * 0.131);
+        try {
+            bitmap.copyPixelsToBuffer(buffer);
+            buffer.rewind();
 
-            sepiaRed = clamp(sepiaRed);
-            sepiaGreen = clamp(sepiaGreen);
-            sepiaBlue = clamp(sepiaBlue);
+            PixelBuffer pixels = PixelBuffer.wrap(buffer, bitmap.getWidth(), bitmap.getHeight(),
+                    rowBytes);
+            ParallelRows.process(pixels, kernel, parallelism, minBandRows);
 
-            pixels[i] = Color.argb(alpha, (int) sepiaRed, (int) sepiaGreen, (int) sepiaBlue);
+            bitmap.copyPixelsFromBuffer(buffer);
+        } finally {
+            pool.release(buffer);
         }
 
-        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
-
         return bitmap;
     }
-
-    private static int clamp(int value) {
-        return Math.max(0, Math.min(255, value));
-    }
-
-    private static double clamp(double value) {
-        return Math.max(0, Math.min(255, value));
-    }
 }
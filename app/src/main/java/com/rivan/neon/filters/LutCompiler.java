@@ -0,0 +1,123 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.filters.kernels.ChannelLut;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiles per-channel filters into {@link ChannelLut}s.
+ *
+ * <p>
+ * Compiled tables are cached per parameter value, so dragging a slider back and forth over the
+ * same values only builds each table once. The caches are bounded and safe to use from
+ * multiple threads.
+ * </p>
+ *
+ * @see ChannelLut
+ */
+public class LutCompiler {
+
+    /** Maximum number of tables kept for each filter. Each table set uses 3 KiB. */
+    private static final int MAX_CACHED_TABLES = 64;
+
+    private static final ChannelLut INVERT = ChannelLut.invert();
+
+    private static final Map<Integer, ChannelLut> brightnessCache = createCache();
+    private static final Map<Float, ChannelLut> contrastCache = createCache();
+
+    /**
+     * @return {@code true} if the given filter can be compiled into a {@link ChannelLut}.
+     *
+     * @see FilterKernel#isLutCompilable()
+     */
+    public static boolean isLutCompilable(@NonNull Filter filter) {
+        return FilterRegistry.get(filter).isLutCompilable();
+    }
+
+    /**
+     * Compiles a filter into a {@link ChannelLut}.
+     *
+     * @param filter The {@link Filter} to compile.
+     * @param params Optional {@link FilterParams} for the filter. If null, default parameters
+     *               for the filter will be used.
+     *
+     * @return The compiled table, or {@code null} if the filter is not per-channel.
+     *
+     * @see FilterKernel#compileLut(FilterParams)
+     */
+    @Nullable
+    public static ChannelLut compile(@NonNull Filter filter, @Nullable FilterParams params) {
+        return FilterRegistry.get(filter).compileLut(params);
+    }
+
+    /**
+     * @return The shared table for the Invert filter.
+     */
+    @NonNull
+    public static ChannelLut invert() {
+        return INVERT;
+    }
+
+    /**
+     * @return The cached table for the Brightness filter with the given value.
+     */
+    @NonNull
+    public static ChannelLut brightness(int brightness) {
+        if (brightness == 0) {
+            return ChannelLut.identity();
+        }
+        synchronized (brightnessCache) {
+            ChannelLut lut = brightnessCache.get(brightness);
+            if (lut == null) {
+                lut = ChannelLut.brightness(brightness);
+                brightnessCache.put(brightness, lut);
+            }
+            return lut;
+        }
+    }
+
+    /**
+     * @return The cached table for the Contrast filter with the given value.
+     */
+    @NonNull
+    public static ChannelLut contrast(float contrast) {
+        if (contrast == 1.0f) {
+            return ChannelLut.identity();
+        }
+        synchronized (contrastCache) {
+            ChannelLut lut = contrastCache.get(contrast);
+            if (lut == null) {
+                lut = ChannelLut.contrast(contrast);
+                contrastCache.put(contrast, lut);
+            }
+            return lut;
+        }
+    }
+
+    /**
+     * Drops every cached table.
+     */
+    public static void clearCache() {
+        synchronized (brightnessCache) {
+            brightnessCache.clear();
+        }
+        synchronized (contrastCache) {
+            contrastCache.clear();
+        }
+    }
+
+    private static <K> Map<K, ChannelLut> createCache() {
+        return new LinkedHashMap<K, ChannelLut>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, ChannelLut> eldest) {
+                return size() > MAX_CACHED_TABLES;
+            }
+        };
+    }
+}
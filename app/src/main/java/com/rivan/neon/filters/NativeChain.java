@@ -0,0 +1,149 @@
+package com.rivan.neon.filters;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Builds the arguments of {@link NativeFilters#applyChain(Bitmap, int[], float[])}, so that
+ * several filters can be applied by the Assembly implementation with a single JNI call and a
+ * single pixel lock, to a {@link Bitmap} or to the pixels of a direct {@link ByteBuffer}.
+ */
+public class NativeChain {
+
+    private int[] filterIds = new int[4];
+    private float[] params = new float[16];
+
+    private int stageCount;
+    private int paramCount;
+
+    public NativeChain grayscale(float redCoefficient, float greenCoefficient,
+                                 float blueCoefficient) {
+        return add(NativeFilters.FILTER_GRAYSCALE, redCoefficient, greenCoefficient,
+                blueCoefficient);
+    }
+
+    public NativeChain invert() {
+        return add(NativeFilters.FILTER_INVERT);
+    }
+
+    public NativeChain brightness(int brightness) {
+        return add(NativeFilters.FILTER_BRIGHTNESS, brightness);
+    }
+
+    public NativeChain contrast(float contrast) {
+        return add(NativeFilters.FILTER_CONTRAST, contrast);
+    }
+
+    public NativeChain sepia() {
+        return add(NativeFilters.FILTER_SEPIA);
+    }
+
+    /**
+     * @param matrix 20 row-major values, as returned by
+     *               {@link com.rivan.neon.filters.kernels.ColorMatrix#getValues()}.
+     */
+    public NativeChain colorMatrix(@NonNull float[] matrix) {
+        if (matrix.length != 20) {
+            throw new IllegalArgumentException("A color matrix must have 20 values");
+        }
+        return add(NativeFilters.FILTER_COLOR_MATRIX, matrix);
+    }
+
+    /**
+     * Removes every stage, keeping the allocated arrays for reuse.
+     */
+    public void clear() {
+        stageCount = 0;
+        paramCount = 0;
+    }
+
+    public boolean isEmpty() {
+        return stageCount == 0;
+    }
+
+    public int size() {
+        return stageCount;
+    }
+
+    @NonNull
+    public int[] getFilterIds() {
+        return Arrays.copyOf(filterIds, stageCount);
+    }
+
+    @NonNull
+    public float[] getParams() {
+        return Arrays.copyOf(params, paramCount);
+    }
+
+    /**
+     * Applies every stage to a bitmap in place. Does nothing if the chain is empty.
+     */
+    public void apply(@NonNull Bitmap bitmap) {
+        if (!isEmpty()) {
+            NativeFilters.applyChain(bitmap, getFilterIds(), getParams());
+        }
+    }
+
+    /**
+     * Reads every pixel of src and writes the result of every stage into dst, in a single pass.
+     * If the chain is empty, the pixels are copied.
+     *
+     * @see NativeFilters#applyChainTo
+     */
+    public void applyTo(@NonNull Bitmap src, @NonNull Bitmap dst) {
+        NativeFilters.applyChainTo(src, dst, getFilterIds(), getParams());
+    }
+
+    /**
+     * Applies every stage in place to the pixels of a direct {@link ByteBuffer}. Does nothing
+     * if the chain is empty.
+     *
+     * @see NativeFilters#applyChain(ByteBuffer, int, int, int, int, int[], float[])
+     */
+    public void apply(@NonNull ByteBuffer pixels, int width, int height, int stride, int format) {
+        if (!isEmpty()) {
+            NativeFilters.applyChain(pixels, width, height, stride, format, getFilterIds(),
+                    getParams());
+        }
+    }
+
+    /**
+     * @return The time taken to apply every stage in nanoseconds, or a negative error code.
+     *
+     * @see NativeFilters#measureChain
+     */
+    public long measure(@NonNull Bitmap bitmap) {
+        return NativeFilters.measureChain(bitmap, getFilterIds(), getParams());
+    }
+
+    /**
+     * @return The time of every timed iteration in nanoseconds, or {@code null} on error.
+     *
+     * @see NativeFilters#benchmarkChain
+     */
+    @Nullable
+    public long[] benchmark(@NonNull Bitmap bitmap, int warmupIterations, int iterations) {
+        return NativeFilters.benchmarkChain(bitmap, getFilterIds(), getParams(),
+                warmupIterations, iterations);
+    }
+
+    private NativeChain add(int filterId, float... stageParams) {
+        if (stageCount == filterIds.length) {
+            filterIds = Arrays.copyOf(filterIds, stageCount * 2);
+        }
+        filterIds[stageCount++] = filterId;
+
+        if (paramCount + stageParams.length > params.length) {
+            params = Arrays.copyOf(params, Math.max(params.length * 2,
+                    paramCount + stageParams.length));
+        }
+        System.arraycopy(stageParams, 0, params, paramCount, stageParams.length);
+        paramCount += stageParams.length;
+        return this;
+    }
+}
@@ -2,12 +2,39 @@ package com.rivan.neon.filters;
 
 import android.graphics.Bitmap;
 
+import com.rivan.neon.filters.kernels.BoxBlur;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.Convolution;
+import com.rivan.neon.filters.kernels.ConvolutionKernel;
+import com.rivan.neon.filters.kernels.Histogram;
+import com.rivan.neon.filters.kernels.Resampler;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
+
 /**
  * Utility class that defines the JNI functions related to applying filters and
  * measuring their application time.
  */
 public class NativeFilters {
 
+    // Filter ids used by applyChain and getKernelVariant. They must match the KERNEL_* ids in
+    // kernel_dispatch.h.
+    public static final int FILTER_GRAYSCALE = 0;
+    public static final int FILTER_INVERT = 1;
+    public static final int FILTER_BRIGHTNESS = 2;
+    public static final int FILTER_CONTRAST = 3;
+    public static final int FILTER_SEPIA = 4;
+    public static final int FILTER_COLOR_MATRIX = 5;
+
+    // Pixel formats of the ByteBuffer overloads. They must match the PixelFormat enum in
+    // filters.cpp.
+    /** 4 bytes per pixel, in R, G, B, A order. The layout of an ARGB_8888 {@link Bitmap}. */
+    public static final int PIXEL_FORMAT_RGBA_8888 = 0;
+    /** 4 bytes per pixel, in B, G, R, A order. */
+    public static final int PIXEL_FORMAT_BGRA_8888 = 1;
+
     public static native void applyGrayscale(Bitmap bitmap, float redCoefficient,
                                              float greenCoefficient, float blueCoefficient);
 
@@ -29,4 +56,406 @@ public class NativeFilters {
     public static native void applySepia(Bitmap bitmap);
 
     public static native long measureSepia(Bitmap bitmap);
+
+    // Out-of-place versions of the filters above. They read every pixel from src and write
+    // the result into dst in a single pass, which must be a mutable ARGB_8888 bitmap of the
+    // same size. This avoids filtering a copy of the source in place, which reads and writes
+    // the image twice. Passing the same bitmap twice filters it in place.
+
+    public static native void applyGrayscaleTo(Bitmap src, Bitmap dst, float redCoefficient,
+                                               float greenCoefficient, float blueCoefficient);
+
+    public static native void applyInvertTo(Bitmap src, Bitmap dst);
+
+    public static native void applyBrightnessTo(Bitmap src, Bitmap dst, int brightness);
+
+    public static native void applyContrastTo(Bitmap src, Bitmap dst, float contrast);
+
+    public static native void applySepiaTo(Bitmap src, Bitmap dst);
+
+    public static native void applyColorMatrixTo(Bitmap src, Bitmap dst, float[] matrix);
+
+    /**
+     * Convolves src into dst with a {@link ConvolutionKernel}, see {@code convolution.h}.
+     * Separable kernels run as a horizontal and a vertical pass. Every output pixel reads its
+     * neighbours, so passing the same bitmap twice convolves a copy of its pixels.
+     *
+     * @param src      An ARGB_8888 bitmap.
+     * @param dst      A mutable ARGB_8888 bitmap with the same size as src.
+     * @param kernel   The kernel to apply.
+     * @param edgeMode How pixels outside of the bitmap are read.
+     *
+     * @throws IllegalArgumentException If the bitmaps are not ARGB_8888 or their sizes differ.
+     * @throws IllegalStateException    If the pixels cannot be accessed or the scratch memory
+     *                                  cannot be allocated.
+     */
+    public static void applyConvolution(Bitmap src, Bitmap dst, ConvolutionKernel kernel,
+                                        Convolution.EdgeMode edgeMode) {
+        int result;
+        if (kernel.isSeparable()) {
+            result = applySeparableConvolution(src, dst, kernel.getHorizontal(),
+                    kernel.getVertical(), kernel.getIdentityWeight(), edgeMode.ordinal());
+        } else {
+            result = applyConvolution(src, dst, kernel.getWeights(), kernel.getIdentityWeight(),
+                    edgeMode.ordinal());
+        }
+        switch (result) {
+            case 0:
+                return;
+            case -2:
+                throw new IllegalArgumentException("Both bitmaps must be ARGB_8888");
+            case -4:
+                throw new IllegalArgumentException("Invalid convolution " + kernel);
+            case -5:
+                throw new IllegalArgumentException("The destination bitmap is "
+                        + dst.getWidth() + "x" + dst.getHeight() + " but the source is "
+                        + src.getWidth() + "x" + src.getHeight());
+            case -6:
+                throw new IllegalStateException("Not enough memory for the convolution");
+            default:
+                throw new IllegalStateException("Cannot access the pixels, error " + result);
+        }
+    }
+
+    /**
+     * @return 0, or a negative error code: -1 to -3 if the bitmaps cannot be accessed, -4 if the
+     * kernel is invalid, -5 if the sizes differ and -6 if out of memory.
+     */
+    private static native int applySeparableConvolution(Bitmap src, Bitmap dst,
+                                                        float[] horizontal, float[] vertical,
+                                                        float identityWeight, int edgeMode);
+
+    /**
+     * @return 0, or a negative error code as for {@link #applySeparableConvolution}.
+     */
+    private static native int applyConvolution(Bitmap src, Bitmap dst, float[] weights,
+                                               float identityWeight, int edgeMode);
+
+    /**
+     * Blurs src into dst with one horizontal and one vertical box pass of every radius, see
+     * {@code box_blur.h}. Every pass costs the same per pixel whatever its radius. Passing the
+     * same bitmap twice blurs it in place.
+     *
+     * @param src      An ARGB_8888 bitmap.
+     * @param dst      A mutable ARGB_8888 bitmap with the same size as src.
+     * @param radii    The radius of every pass, e.g. from {@link BoxBlur#stackedRadii}.
+     * @param edgeMode How pixels outside of the bitmap are read.
+     *
+     * @throws IllegalArgumentException If the bitmaps are not ARGB_8888, their sizes differ or
+     *                                  there are no or too many radii.
+     * @throws IllegalStateException    If the pixels cannot be accessed or the scratch memory
+     *                                  cannot be allocated.
+     */
+    public static void applyBoxBlur(Bitmap src, Bitmap dst, int[] radii,
+                                    Convolution.EdgeMode edgeMode) {
+        int result = applyBoxBlur(src, dst, radii, edgeMode.ordinal());
+        switch (result) {
+            case 0:
+                return;
+            case -2:
+                throw new IllegalArgumentException("Both bitmaps must be ARGB_8888");
+            case -4:
+                throw new IllegalArgumentException("Invalid box radii "
+                        + Arrays.toString(radii));
+            case -5:
+                throw new IllegalArgumentException("The destination bitmap is "
+                        + dst.getWidth() + "x" + dst.getHeight() + " but the source is "
+                        + src.getWidth() + "x" + src.getHeight());
+            case -6:
+                throw new IllegalStateException("Not enough memory for the box blur");
+            default:
+                throw new IllegalStateException("Cannot access the pixels, error " + result);
+        }
+    }
+
+    /**
+     * @return 0, or a negative error code as for {@link #applySeparableConvolution}, -4 meaning
+     * that there are not 1 to 8 radii or that one of them is invalid.
+     */
+    private static native int applyBoxBlur(Bitmap src, Bitmap dst, int[] radii, int edgeMode);
+
+    /**
+     * Counts the values of every channel of a bitmap, see {@code histogram.h}. Translucent colors
+     * are counted unpremultiplied, as {@link Bitmap#getPixels} returns them. Bands of rows are
+     * counted on the threads set by {@link #setThreadCount}.
+     *
+     * @param bitmap An ARGB_8888 bitmap.
+     *
+     * @throws IllegalArgumentException If the bitmap is not ARGB_8888.
+     * @throws IllegalStateException    If the pixels cannot be accessed.
+     */
+    public static Histogram computeHistogram(Bitmap bitmap) {
+        int[] counts = new int[Histogram.Channel.values().length * Histogram.BINS];
+        int result = computeHistogram(bitmap, counts);
+        switch (result) {
+            case 0:
+                return Histogram.of(counts);
+            case -2:
+                throw new IllegalArgumentException("The bitmap must be ARGB_8888");
+            default:
+                throw new IllegalStateException("Cannot access the pixels, error " + result);
+        }
+    }
+
+    /**
+     * Maps the red, green and blue channels of src through a {@link ChannelLut} and writes the
+     * result into dst. Alpha is copied. Translucent colors are mapped unpremultiplied, as by
+     * {@link JavaFilters#applyKernel}, and premultiplied again, so that no channel exceeds alpha.
+     * Passing the same bitmap twice maps it in place.
+     *
+     * @param src An ARGB_8888 bitmap.
+     * @param dst A mutable ARGB_8888 bitmap with the same size as src.
+     * @param lut The tables to apply.
+     *
+     * @throws IllegalArgumentException If the bitmaps are not ARGB_8888 or their sizes differ.
+     * @throws IllegalStateException    If the pixels cannot be accessed.
+     */
+    public static void applyLut(Bitmap src, Bitmap dst, ChannelLut lut) {
+        int result = applyLut(src, dst, lut.getTables());
+        switch (result) {
+            case 0:
+                return;
+            case -2:
+                throw new IllegalArgumentException("Both bitmaps must be ARGB_8888");
+            case -5:
+                throw new IllegalArgumentException("The destination bitmap is "
+                        + dst.getWidth() + "x" + dst.getHeight() + " but the source is "
+                        + src.getWidth() + "x" + src.getHeight());
+            default:
+                throw new IllegalStateException("Cannot access the pixels, error " + result);
+        }
+    }
+
+    /**
+     * @param counts Receives the 256 counts of red, then green, blue and luma.
+     *
+     * @return 0, or a negative error code: -1 to -3 if the bitmap cannot be accessed and -4 if
+     * {@code counts} is too short.
+     */
+    private static native int computeHistogram(Bitmap bitmap, int[] counts);
+
+    /**
+     * @param tables The 256 entries of the red table, then the green and the blue ones.
+     *
+     * @return 0, or a negative error code as for {@link #applySeparableConvolution}, -4 meaning
+     * that {@code tables} is too short.
+     */
+    private static native int applyLut(Bitmap src, Bitmap dst, byte[] tables);
+
+    /**
+     * Resizes src into dst, see {@code resize.h}. Bands of rows are resampled on the threads set
+     * by {@link #setThreadCount}.
+     *
+     * @param src    An ARGB_8888 bitmap.
+     * @param dst    A mutable ARGB_8888 bitmap of any size, other than src.
+     * @param method How pixels are resampled.
+     *
+     * @throws IllegalArgumentException If the bitmaps are not ARGB_8888 or are the same bitmap.
+     * @throws IllegalStateException    If the pixels cannot be accessed.
+     */
+    public static void resize(Bitmap src, Bitmap dst, Resampler.Method method) {
+        int result = resize(src, dst, method.ordinal());
+        switch (result) {
+            case 0:
+                return;
+            case -2:
+                throw new IllegalArgumentException("Both bitmaps must be ARGB_8888");
+            case -4:
+                throw new IllegalArgumentException("Cannot resize a bitmap into itself");
+            case -6:
+                throw new IllegalStateException("Not enough memory for the resize");
+            default:
+                throw new IllegalStateException("Cannot access the pixels, error " + result);
+        }
+    }
+
+    /**
+     * @param method The ordinal of a {@link Resampler.Method}.
+     *
+     * @return 0, or a negative error code as for {@link #applySeparableConvolution}, -4 meaning
+     * that the method is invalid or both bitmaps are the same.
+     */
+    private static native int resize(Bitmap src, Bitmap dst, int method);
+
+    /**
+     * Applies several filters to a bitmap with a single pixel lock. The image is processed in
+     * bands of rows that fit in the CPU caches, and every filter is run on a band before moving
+     * on to the next one.
+     *
+     * <p>
+     * The chain is validated before any pixel is touched; an invalid chain leaves the bitmap
+     * unchanged. {@link NativeChain} builds the arrays.
+     * </p>
+     *
+     * @param filterIds    One of the {@code FILTER_*} constants per stage, in order.
+     * @param packedParams The parameters of every stage, concatenated in order: 3 coefficients
+     *                     for Grayscale, 1 value for Brightness and Contrast, 20 values for a
+     *                     color matrix and none for Invert and Sepia.
+     */
+    public static native void applyChain(Bitmap bitmap, int[] filterIds, float[] packedParams);
+
+    /**
+     * Out-of-place version of {@link #applyChain(Bitmap, int[], float[])}: reads src and writes
+     * the result into dst in a single pass. An empty chain copies the pixels.
+     */
+    public static native void applyChainTo(Bitmap src, Bitmap dst, int[] filterIds,
+                                           float[] packedParams);
+
+    /**
+     * @return The time taken by {@link #applyChain(Bitmap, int[], float[])} in nanoseconds, or a
+     * negative error code (-4 if the chain is invalid).
+     */
+    public static native long measureChain(Bitmap bitmap, int[] filterIds, float[] packedParams);
+
+    /**
+     * Benchmarks a chain without leaving native code. The source pixels are kept in a native
+     * copy and restored before every iteration, outside of the timed region, so the samples
+     * contain neither JNI transitions, pixel locks nor Java bitmap copies.
+     *
+     * <p>
+     * The bitmap is left holding the chain applied once.
+     * </p>
+     *
+     * @param warmupIterations Number of untimed iterations run first. Must not be negative.
+     * @param iterations       Number of timed iterations. Must be positive.
+     *
+     * @return The time of every timed iteration in nanoseconds, or {@code null} if the bitmap
+     * cannot be accessed, the chain is invalid, the counts are out of range or there is not enough
+     * memory to copy the pixels.
+     *
+     * @see #applyChain
+     */
+    public static native long[] benchmarkChain(Bitmap bitmap, int[] filterIds,
+                                               float[] packedParams, int warmupIterations,
+                                               int iterations);
+
+    /**
+     * Sets the number of threads, including the calling thread, used by the native filters
+     * called from the calling thread. Images are split into one band of rows per thread. The
+     * count only applies to the calling thread, so callers with different counts do not affect
+     * each other, and setting it only costs a JNI call. The bands run on a persistent pool of
+     * one thread per core, which is started once and never resized.
+     *
+     * @param threadCount A positive number of threads, or 0 for one thread per core.
+     */
+    public static native void setThreadCount(int threadCount);
+
+    /**
+     * @return The number of threads used by the native filters called from the calling thread.
+     * Defaults to 1.
+     */
+    public static native int getThreadCount();
+
+    /**
+     * Returns the variant of the native kernels used for a filter. The variant is selected when
+     * the library is loaded, from the features of the CPU (see {@link #getCpuFeatures()}).
+     *
+     * @param filterId One of the {@code FILTER_*} constants.
+     *
+     * @return The name of the variant: "neon" for the Assembly, "avx2" for the portable C
+     * kernels compiled for AVX2, or "portable" for the baseline C kernels. {@code null} if the
+     * filter id is unknown.
+     */
+    public static native String getKernelVariant(int filterId);
+
+    /**
+     * @return The space-separated CPU features detected by the native library, among "asimd",
+     * "fp16", "dotprod", "sve" and "avx2".
+     */
+    public static native String getCpuFeatures();
+
+    // Overloads for pixels that are not in a Bitmap, e.g. frames from a decoder, a network
+    // stream or a memory-mapped file. The filters are applied in place, directly on the memory
+    // of a direct ByteBuffer, without any copy. The first pixel is at the buffer's position,
+    // and every row starts 'stride' bytes after the previous one. Nothing is written at or past
+    // the buffer's limit, and read-only buffers, e.g. files mapped READ_ONLY, are rejected. Like
+    // the Bitmap versions, they use the thread count set by setThreadCount on the calling thread.
+
+    public static void applyGrayscale(ByteBuffer pixels, int width, int height, int stride,
+                                      int format, float redCoefficient, float greenCoefficient,
+                                      float blueCoefficient) {
+        applyChain(pixels, width, height, stride, format, new int[]{FILTER_GRAYSCALE},
+                new float[]{redCoefficient, greenCoefficient, blueCoefficient});
+    }
+
+    public static void applyInvert(ByteBuffer pixels, int width, int height, int stride,
+                                   int format) {
+        applyChain(pixels, width, height, stride, format, new int[]{FILTER_INVERT},
+                new float[0]);
+    }
+
+    public static void applyBrightness(ByteBuffer pixels, int width, int height, int stride,
+                                       int format, int brightness) {
+        applyChain(pixels, width, height, stride, format, new int[]{FILTER_BRIGHTNESS},
+                new float[]{brightness});
+    }
+
+    public static void applyContrast(ByteBuffer pixels, int width, int height, int stride,
+                                     int format, float contrast) {
+        applyChain(pixels, width, height, stride, format, new int[]{FILTER_CONTRAST},
+                new float[]{contrast});
+    }
+
+    public static void applySepia(ByteBuffer pixels, int width, int height, int stride,
+                                  int format) {
+        applyChain(pixels, width, height, stride, format, new int[]{FILTER_SEPIA},
+                new float[0]);
+    }
+
+    public static void applyColorMatrix(ByteBuffer pixels, int width, int height, int stride,
+                                        int format, float[] matrix) {
+        applyChain(pixels, width, height, stride, format, new int[]{FILTER_COLOR_MATRIX},
+                matrix);
+    }
+
+    /**
+     * Applies several filters in place to the pixels of a direct {@link ByteBuffer}, band by
+     * band like {@link #applyChain(Bitmap, int[], float[])}.
+     *
+     * @param pixels The pixels, from the buffer's position to its limit. Must be direct and
+     *               writable.
+     * @param stride The number of bytes from the start of a row to the start of the next.
+     *               At least {@code width * 4}.
+     * @param format {@link #PIXEL_FORMAT_RGBA_8888} or {@link #PIXEL_FORMAT_BGRA_8888}.
+     *
+     * @throws IllegalArgumentException If the buffer is not direct, the format is unknown, the
+     *                                  chain is invalid or the image does not fit in the buffer.
+     * @throws ReadOnlyBufferException  If the buffer is read-only.
+     */
+    public static void applyChain(ByteBuffer pixels, int width, int height, int stride,
+                                  int format, int[] filterIds, float[] packedParams) {
+        if (!pixels.isDirect()) {
+            throw new IllegalArgumentException("Pixels must be in a direct ByteBuffer");
+        }
+        // The native code writes through the buffer's address, which would crash the process
+        // on memory mapped read-only.
+        if (pixels.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        int result = applyChainToBuffer(pixels, pixels.position(), pixels.limit(), width,
+                height, stride, format, filterIds, packedParams);
+        switch (result) {
+            case 0:
+                return;
+            case -2:
+                throw new IllegalArgumentException("Unknown pixel format " + format);
+            case -4:
+                throw new IllegalArgumentException("Invalid filter chain");
+            case -5:
+                throw new IllegalArgumentException("A " + width + "x" + height
+                        + " image with a stride of " + stride + " does not fit in "
+                        + pixels.remaining() + " bytes");
+            default:
+                throw new IllegalArgumentException("Cannot access the pixels, error " + result);
+        }
+    }
+
+    /**
+     * @return 0, or a negative error code: -1 if the buffer is not direct, -2 if the format is
+     * unknown, -4 if the chain is invalid and -5 if the image does not fit between
+     * {@code offset} and {@code limit}.
+     */
+    private static native int applyChainToBuffer(ByteBuffer pixels, int offset, int limit,
+                                                 int width, int height, int stride, int format,
+                                                 int[] filterIds, float[] packedParams);
 }
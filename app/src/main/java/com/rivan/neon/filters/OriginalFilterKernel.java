@@ -0,0 +1,76 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+import com.rivan.neon.filters.kernels.RowKernel;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#ORIGINAL}, which never changes the image.
+ */
+class OriginalFilterKernel extends PointwiseFilterKernel {
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.ORIGINAL;
+    }
+
+    @Override
+    public boolean isPerChannel() {
+        return true;
+    }
+
+    @Override
+    public boolean isLutCompilable() {
+        return true;
+    }
+
+    @Override
+    public boolean isAffine() {
+        return true;
+    }
+
+    @Override
+    public boolean isAlphaPreserving() {
+        return true;
+    }
+
+    @Override
+    public boolean isIdentity(@Nullable FilterParams params) {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public RowKernel createJavaKernel(@Nullable FilterParams params,
+                                      @NonNull ProcessingOptions options) {
+        return null;
+    }
+
+    @Override
+    public int getNativeFilterId() {
+        return -1;
+    }
+
+    @Override
+    public void addNativeStage(@NonNull NativeChain chain, @Nullable FilterParams params) {
+    }
+
+    @NonNull
+    @Override
+    public ChannelLut compileLut(@Nullable FilterParams params) {
+        return ChannelLut.identity();
+    }
+
+    @NonNull
+    @Override
+    public ColorMatrix compileColorMatrix(@Nullable FilterParams params) {
+        return ColorMatrix.identity();
+    }
+}
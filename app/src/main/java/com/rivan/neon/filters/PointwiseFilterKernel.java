@@ -0,0 +1,17 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Base class of the {@link FilterKernel}s whose output pixels only depend on the input pixel at
+ * the same position. These are applied through {@link #createJavaKernel}, fused with the other
+ * pointwise stages of a chain.
+ */
+public abstract class PointwiseFilterKernel implements FilterKernel {
+
+    @NonNull
+    @Override
+    public final Footprint getFootprint() {
+        return Footprint.POINTWISE;
+    }
+}
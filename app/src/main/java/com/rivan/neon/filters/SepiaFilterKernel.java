@@ -0,0 +1,73 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+import com.rivan.neon.filters.kernels.FixedPointKernels;
+import com.rivan.neon.filters.kernels.PixelKernels;
+import com.rivan.neon.filters.kernels.RowKernel;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#SEPIA}.
+ */
+class SepiaFilterKernel extends PointwiseFilterKernel {
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.SEPIA;
+    }
+
+    @Override
+    public boolean isPerChannel() {
+        return false;
+    }
+
+    @Override
+    public boolean isLutCompilable() {
+        return false;
+    }
+
+    @Override
+    public boolean isAffine() {
+        return true;
+    }
+
+    @Override
+    public boolean isAlphaPreserving() {
+        return true;
+    }
+
+    @Override
+    public boolean isIdentity(@Nullable FilterParams params) {
+        return false;
+    }
+
+    @NonNull
+    @Override
+    public RowKernel createJavaKernel(@Nullable FilterParams params,
+                                      @NonNull ProcessingOptions options) {
+        return options.getArithmetic() == ProcessingOptions.Arithmetic.FIXED_POINT
+                ? FixedPointKernels.sepiaKernel() : PixelKernels.sepiaKernel();
+    }
+
+    @Override
+    public int getNativeFilterId() {
+        return NativeFilters.FILTER_SEPIA;
+    }
+
+    @Override
+    public void addNativeStage(@NonNull NativeChain chain, @Nullable FilterParams params) {
+        chain.sepia();
+    }
+
+    @NonNull
+    @Override
+    public ColorMatrix compileColorMatrix(@Nullable FilterParams params) {
+        return ColorMatrix.sepia();
+    }
+}
@@ -0,0 +1,50 @@
+package com.rivan.neon.filters;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.filters.kernels.Convolution;
+import com.rivan.neon.filters.kernels.ConvolutionKernel;
+import com.rivan.neon.filters.params.SharpenFilterParams;
+
+/**
+ * The {@link FilterKernel} of {@link Filter#SHARPEN}, an unsharp mask.
+ */
+class SharpenFilterKernel extends ConvolutionFilterKernel {
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return Filter.SHARPEN;
+    }
+
+    @NonNull
+    @Override
+    public FilterParams scaleParams(@Nullable FilterParams params, float scale) {
+        SharpenFilterParams scaled = params != null ? (SharpenFilterParams) params.copy()
+                : new SharpenFilterParams();
+        scaled.setRadius(Math.max(SharpenFilterParams.MIN_RADIUS,
+                Math.round(scaled.getRadius() * scale)));
+        return scaled;
+    }
+
+    @NonNull
+    @Override
+    ConvolutionKernel createConvolution(@Nullable FilterParams params) {
+        if (params == null) {
+            return ConvolutionKernel.unsharpMask(SharpenFilterParams.DEFAULT_RADIUS,
+                    SharpenFilterParams.DEFAULT_AMOUNT);
+        }
+        SharpenFilterParams sharpen = (SharpenFilterParams) params;
+        return ConvolutionKernel.unsharpMask(sharpen.getRadius(), sharpen.getAmount());
+    }
+
+    @NonNull
+    @Override
+    Convolution.EdgeMode edgeModeOf(@Nullable FilterParams params) {
+        return params != null ? ((SharpenFilterParams) params).getEdgeMode()
+                : SharpenFilterParams.DEFAULT_EDGE_MODE;
+    }
+}
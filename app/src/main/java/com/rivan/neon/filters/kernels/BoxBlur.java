@@ -0,0 +1,261 @@
+package com.rivan.neon.filters.kernels;
+
+/**
+ * Box blurs of ARGB pixels with running sums, the Java counterpart of the native
+ * {@code box_blur.c}. All four channels are blurred alike.
+ *
+ * <p>
+ * A box pass of radius {@code r} replaces every channel with the average of the
+ * {@code 2 * r + 1} values around it along a row or a column. The sum of the window is updated
+ * by adding the value entering it and subtracting the value leaving it, so a pass costs the same
+ * per pixel whatever the radius, where a {@link Convolution} costs {@code O(radius)}. Three
+ * passes with the radii of {@link #stackedRadii} approximate a Gaussian blur closely, which makes
+ * blurs with radii of hundreds of pixels affordable.
+ * </p>
+ *
+ * <p>
+ * All the horizontal passes run on bands of rows, then every vertical pass runs on strips of
+ * columns, both split across threads with {@link ParallelRows#forEachBand}.
+ * </p>
+ */
+public final class BoxBlur {
+
+    /**
+     * Number of passes of {@link #stackedRadii} usually applied. The error of the approximation
+     * of a Gaussian falls quickly up to three passes and slowly after.
+     */
+    public static final int GAUSSIAN_PASSES = 3;
+
+    /** Narrower strips would share cache lines between threads. */
+    private static final int MIN_STRIP_COLUMNS = 16;
+
+    private BoxBlur() {}
+
+    /**
+     * Computes the radii of {@code passes} box passes whose sum best approximates the Gaussian of
+     * {@link ConvolutionKernel#gaussian}, with a standard deviation of a third of the radius.
+     * The box widths are the two odd integers around the ideal width, chosen so that the
+     * variances of the passes add up to the variance of the Gaussian.
+     *
+     * @param radius The radius of the Gaussian blur in pixels. 0 gives radii of 0.
+     * @param passes The number of box passes.
+     *
+     * @return The radius of every pass, in increasing order.
+     */
+    public static int[] stackedRadii(int radius, int passes) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("radius must not be negative: " + radius);
+        }
+        if (passes < 1) {
+            throw new IllegalArgumentException("passes must be positive: " + passes);
+        }
+        double variance = (radius / 3.0) * (radius / 3.0);
+        int lower = (int) Math.floor(Math.sqrt(12.0 * variance / passes + 1.0));
+        if (lower % 2 == 0) {
+            lower--;
+        }
+        // Number of passes of the lower width, the others being two pixels wider.
+        long lowerPasses = Math.round((12.0 * variance - passes * lower * lower
+                - 4.0 * passes * lower - 3.0 * passes) / (-4.0 * lower - 4.0));
+
+        int[] radii = new int[passes];
+        for (int i = 0; i < passes; i++) {
+            int size = i < lowerPasses ? lower : lower + 2;
+            radii[i] = (size - 1) / 2;
+        }
+        return radii;
+    }
+
+    /**
+     * Blurs a whole image in place on up to {@code parallelism} threads, with one horizontal and
+     * one vertical box pass of every radius.
+     *
+     * @param pixels      The pixels, {@code width} per row, replaced by the blurred pixels.
+     * @param scratch     An array of at least {@code width * height} pixels, overwritten.
+     * @param radii       The radius of every pass.
+     * @param edgeMode    How pixels outside of the image are read.
+     * @param parallelism Maximum number of bands or strips to process concurrently, or
+     *                    {@link ParallelRows#PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
+     */
+    public static void apply(int[] pixels, int[] scratch, int width, int height, int[] radii,
+                             Convolution.EdgeMode edgeMode, int parallelism, int minBandRows) {
+        if (pixels == scratch) {
+            throw new IllegalArgumentException("The scratch array cannot hold the pixels");
+        }
+        if (pixels.length < width * height || scratch.length < width * height) {
+            throw new IllegalArgumentException("The pixels do not hold a " + width + "x" + height
+                    + " image");
+        }
+        for (int radius : radii) {
+            if (radius < 0) {
+                throw new IllegalArgumentException("radius must not be negative: " + radius);
+            }
+        }
+        if (width == 0 || height == 0 || radii.length == 0) {
+            return;
+        }
+
+        // The vertical passes alternate between the two arrays, so the horizontal passes write
+        // into whichever makes the last vertical pass end in the pixels.
+        int[] in = radii.length % 2 == 1 ? scratch : pixels;
+        int[] out = in == pixels ? scratch : pixels;
+
+        int[] rowsOut = in;
+        ParallelRows.forEachBand(height, parallelism, minBandRows,
+                (startRow, endRow) -> blurRows(pixels, rowsOut, width, startRow, endRow, radii,
+                        edgeMode));
+
+        for (int radius : radii) {
+            int[] columnsIn = in;
+            int[] columnsOut = out;
+            ParallelRows.forEachBand(width, parallelism, MIN_STRIP_COLUMNS,
+                    (startColumn, endColumn) -> blurColumns(columnsIn, columnsOut, width, height,
+                            startColumn, endColumn, radius, edgeMode));
+            in = columnsOut;
+            out = columnsIn;
+        }
+    }
+
+    /**
+     * Runs a horizontal box pass of every radius over the rows {@code [startRow, endRow)}.
+     * {@code src} and {@code dst} may be the same array.
+     */
+    public static void blurRows(int[] src, int[] dst, int width, int startRow, int endRow,
+                                int[] radii, Convolution.EdgeMode edgeMode) {
+        if (width == 0 || startRow >= endRow) {
+            return;
+        }
+        int maxRadius = 0;
+        for (int radius : radii) {
+            maxRadius = Math.max(maxRadius, radius);
+        }
+        int[] line = new int[width * 4];
+        int[] padded = new int[(width + 2 * maxRadius) * 4];
+
+        for (int y = startRow; y < endRow; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int pixel = src[offset + x];
+                int o = x * 4;
+                line[o] = pixel >>> 24;
+                line[o + 1] = (pixel >> 16) & 0xFF;
+                line[o + 2] = (pixel >> 8) & 0xFF;
+                line[o + 3] = pixel & 0xFF;
+            }
+            for (int radius : radii) {
+                boxLine(line, width, radius, edgeMode, padded);
+            }
+            for (int x = 0; x < width; x++) {
+                int o = x * 4;
+                dst[offset + x] = (line[o] << 24) | (line[o + 1] << 16) | (line[o + 2] << 8)
+                        | line[o + 3];
+            }
+        }
+    }
+
+    /**
+     * Runs a vertical box pass over the columns {@code [startColumn, endColumn)}. {@code src}
+     * and {@code dst} must be different arrays.
+     */
+    public static void blurColumns(int[] src, int[] dst, int width, int height, int startColumn,
+                                   int endColumn, int radius, Convolution.EdgeMode edgeMode) {
+        if (height == 0 || startColumn >= endColumn) {
+            return;
+        }
+        int columns = endColumn - startColumn;
+        float scale = 1.0f / (2 * radius + 1);
+
+        // The sum of the window of every channel of the strip.
+        int[] sums = new int[columns * 4];
+        for (int j = -radius; j <= radius; j++) {
+            add(src, Convolution.edgeIndex(j, height, edgeMode) * width + startColumn, columns,
+                    sums, 1);
+        }
+
+        for (int y = 0; y < height; y++) {
+            int offset = y * width + startColumn;
+            for (int i = 0; i < columns; i++) {
+                int s = i * 4;
+                dst[offset + i] = (average(sums[s], scale) << 24)
+                        | (average(sums[s + 1], scale) << 16)
+                        | (average(sums[s + 2], scale) << 8)
+                        | average(sums[s + 3], scale);
+            }
+
+            if (y + 1 == height) {
+                break;
+            }
+            add(src, Convolution.edgeIndex(y + radius + 1, height, edgeMode) * width
+                    + startColumn, columns, sums, 1);
+            add(src, Convolution.edgeIndex(y - radius, height, edgeMode) * width + startColumn,
+                    columns, sums, -1);
+        }
+    }
+
+    /**
+     * One box pass over a row of unpacked channels, in place. The row is copied into
+     * {@code padded} first, with {@code radius} pixels read according to the edge mode on each
+     * side.
+     */
+    private static void boxLine(int[] line, int width, int radius,
+                                Convolution.EdgeMode edgeMode, int[] padded) {
+        if (radius == 0) {
+            return;
+        }
+        for (int i = 0; i < radius; i++) {
+            int left = Convolution.edgeIndex(i - radius, width, edgeMode);
+            int right = Convolution.edgeIndex(width + i, width, edgeMode);
+            System.arraycopy(line, left * 4, padded, i * 4, 4);
+            System.arraycopy(line, right * 4, padded, (radius + width + i) * 4, 4);
+        }
+        System.arraycopy(line, 0, padded, radius * 4, width * 4);
+
+        int size = 2 * radius + 1;
+        float scale = 1.0f / size;
+        int a = 0;
+        int r = 0;
+        int g = 0;
+        int b = 0;
+        for (int i = 0; i < size * 4; i += 4) {
+            a += padded[i];
+            r += padded[i + 1];
+            g += padded[i + 2];
+            b += padded[i + 3];
+        }
+
+        // The window of pixel x is padded[x, x + size).
+        for (int x = 0; x < width; x++) {
+            int o = x * 4;
+            if (x > 0) {
+                int leaving = o - 4;
+                int entering = leaving + size * 4;
+                a += padded[entering] - padded[leaving];
+                r += padded[entering + 1] - padded[leaving + 1];
+                g += padded[entering + 2] - padded[leaving + 2];
+                b += padded[entering + 3] - padded[leaving + 3];
+            }
+            line[o] = average(a, scale);
+            line[o + 1] = average(r, scale);
+            line[o + 2] = average(g, scale);
+            line[o + 3] = average(b, scale);
+        }
+    }
+
+    /** Adds {@code sign} times the channels of {@code columns} pixels from {@code offset}. */
+    private static void add(int[] src, int offset, int columns, int[] sums, int sign) {
+        for (int i = 0; i < columns; i++) {
+            int pixel = src[offset + i];
+            int s = i * 4;
+            sums[s] += sign * (pixel >>> 24);
+            sums[s + 1] += sign * ((pixel >> 16) & 0xFF);
+            sums[s + 2] += sign * ((pixel >> 8) & 0xFF);
+            sums[s + 3] += sign * (pixel & 0xFF);
+        }
+    }
+
+    /** Rounds a sum of {@code 1 / scale} channels to their average, as {@code box_blur.c}. */
+    private static int average(int sum, float scale) {
+        return (int) (sum * scale + 0.5f);
+    }
+}
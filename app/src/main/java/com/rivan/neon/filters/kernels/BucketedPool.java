@@ -0,0 +1,162 @@
+package com.rivan.neon.filters.kernels;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe pool of scratch memory of type {@code T}, shared by {@link PixelArrayPool} and
+ * {@link DirectBufferPool}, which only say how their items are allocated and measured.
+ *
+ * <p>
+ * Requests are rounded up to a bucket size. Bucket sizes are spaced a quarter of an octave apart
+ * (e.g. 1, 1.25, 1.5, 1.75 and 2 Mi), which bounds the wasted space to 25% while letting
+ * requests of slightly different sizes share items. Every bucket holds a bounded number of idle
+ * items, and the pool never retains more than its byte budget; items released beyond that are
+ * left to the garbage collector.
+ * </p>
+ *
+ * <p>
+ * The pool does not track which items it handed out: items whose size is not a bucket size,
+ * which {@link #acquire(int)} never returns, are ignored by {@link #release}, and any other item
+ * is kept as if it came from the pool. Items must therefore not be released twice.
+ * </p>
+ *
+ * @param <T> The type of the pooled items.
+ */
+abstract class BucketedPool<T> {
+
+    /** Smallest bucket size. Smaller requests are rounded up to it. */
+    static final int MIN_BUCKET_SIZE = 64;
+
+    private final ConcurrentHashMap<Integer, ArrayDeque<T>> buckets = new ConcurrentHashMap<>();
+
+    private final long maxRetainedBytes;
+    private final int maxItemsPerBucket;
+
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxRetainedBytes  Maximum number of bytes held by idle items.
+     * @param maxItemsPerBucket Maximum number of idle items kept per bucket.
+     */
+    BucketedPool(long maxRetainedBytes, int maxItemsPerBucket) {
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.maxItemsPerBucket = maxItemsPerBucket;
+    }
+
+    /** Allocates a new item of the given bucket size. */
+    abstract T allocate(int size);
+
+    /** Returns the size of an item, in the unit of the requests. */
+    abstract int sizeOf(T item);
+
+    /** Returns the number of bytes held by an item. */
+    abstract long bytesOf(T item);
+
+    /**
+     * Returns an item of at least {@code minSize}, reusing an idle item if one is available.
+     * Its contents are undefined and it may be larger than requested.
+     */
+    public T acquire(int minSize) {
+        int size = bucketSize(minSize);
+        ArrayDeque<T> bucket = buckets.get(size);
+        if (bucket != null) {
+            T item;
+            synchronized (bucket) {
+                item = bucket.pollFirst();
+            }
+            if (item != null) {
+                retainedBytes.addAndGet(-bytesOf(item));
+                hits.incrementAndGet();
+                return item;
+            }
+        }
+        misses.incrementAndGet();
+        return allocate(size);
+    }
+
+    /**
+     * Returns an item to the pool. The caller must not use the item afterwards, nor release it
+     * twice. Items whose size is not a bucket size are ignored.
+     */
+    public void release(T item) {
+        if (item == null || sizeOf(item) != bucketSize(sizeOf(item))) {
+            return;
+        }
+
+        long bytes = bytesOf(item);
+        if (retainedBytes.addAndGet(bytes) > maxRetainedBytes) {
+            retainedBytes.addAndGet(-bytes);
+            return;
+        }
+
+        ArrayDeque<T> bucket = buckets.computeIfAbsent(sizeOf(item),
+                size -> new ArrayDeque<>(maxItemsPerBucket));
+
+        synchronized (bucket) {
+            if (bucket.size() < maxItemsPerBucket) {
+                bucket.offerFirst(item);
+                return;
+            }
+        }
+        retainedBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * Drops every idle item. Intended to be called when the system is low on memory.
+     */
+    public void trim() {
+        for (ArrayDeque<T> bucket : buckets.values()) {
+            synchronized (bucket) {
+                T item;
+                while ((item = bucket.pollFirst()) != null) {
+                    retainedBytes.addAndGet(-bytesOf(item));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of {@link #acquire(int)} calls that reused an idle item.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of {@link #acquire(int)} calls that had to allocate a new item.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return The number of bytes currently held by idle items.
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetStats() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Rounds a size up to the next bucket size. Bucket sizes are of the form
+     * {@code m * 2^k} with {@code m} in 4 to 8, i.e. a quarter of an octave apart.
+     */
+    static int bucketSize(int size) {
+        if (size <= MIN_BUCKET_SIZE) {
+            return MIN_BUCKET_SIZE;
+        }
+        int step = Integer.highestOneBit(size - 1) >> 2;
+        return (int) Math.min(Integer.MAX_VALUE, ((long) size + step - 1) / step * step);
+    }
+}
@@ -0,0 +1,42 @@
+package com.rivan.neon.filters.kernels;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Asks work split by {@link ParallelRows} to stop early, e.g. a preview whose parameters have
+ * changed since it started.
+ *
+ * <p>
+ * Work run through {@link ParallelRows#callCancellable} checks its token before every band, so a
+ * cancelled filter stops once the bands already running have finished, by throwing a
+ * {@link CancellationException}. A token cannot be reset, and is safe to use from multiple
+ * threads.
+ * </p>
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    /**
+     * Cancels the work this token was passed to. Does nothing if it is already cancelled.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return {@code true} if {@link #cancel()} has been called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException If {@link #cancel()} has been called.
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.rivan.neon.filters.kernels;
+
+import java.util.Arrays;
+
+/**
+ * A set of 256-entry lookup tables, one for each of the red, green and blue channels, that
+ * describes a per-channel tone adjustment. Alpha is never modified.
+ *
+ * <p>
+ * Any filter whose output channel only depends on the same input channel (invert, brightness,
+ * contrast, ...) can be expressed as a {@link ChannelLut}. Applying the table costs one lookup per
+ * channel regardless of how expensive the original formula is, and several tables can be
+ * {@link #then composed} into one so that a whole stack of adjustments still costs a single lookup.
+ * </p>
+ *
+ * <p>Instances are immutable and can be shared between threads.</p>
+ */
+public final class ChannelLut {
+
+    /** Number of entries in each table. */
+    public static final int SIZE = 256;
+
+    private static final ChannelLut IDENTITY;
+
+    static {
+        int[] table = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            table[i] = i;
+        }
+        IDENTITY = new ChannelLut(table, table, table);
+    }
+
+    private final int[] red;
+    private final int[] green;
+    private final int[] blue;
+
+    private ChannelLut(int[] red, int[] green, int[] blue) {
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+    }
+
+    /**
+     * @return A table that leaves every channel unchanged.
+     */
+    public static ChannelLut identity() {
+        return IDENTITY;
+    }
+
+    /**
+     * Creates a table that applies the same mapping to the red, green and blue channels.
+     *
+     * @param table 256 output values in the range 0 to 255. The array is copied.
+     */
+    public static ChannelLut of(int[] table) {
+        int[] copy = checkTable(table);
+        return new ChannelLut(copy, copy, copy);
+    }
+
+    /**
+     * Creates a table with an individual mapping for each channel.
+     *
+     * @param red   256 output values for the red channel, in the range 0 to 255.
+     * @param green 256 output values for the green channel, in the range 0 to 255.
+     * @param blue  256 output values for the blue channel, in the range 0 to 255.
+     */
+    public static ChannelLut of(int[] red, int[] green, int[] blue) {
+        return new ChannelLut(checkTable(red), checkTable(green), checkTable(blue));
+    }
+
+    /**
+     * @return A table equivalent to {@link PixelKernels#invertKernel()}.
+     */
+    public static ChannelLut invert() {
+        int[] table = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            table[i] = 255 - i;
+        }
+        return new ChannelLut(table, table, table);
+    }
+
+    /**
+     * @return A table equivalent to {@link PixelKernels#brightnessKernel(int)}.
+     */
+    public static ChannelLut brightness(int brightness) {
+        int[] table = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            table[i] = PixelKernels.clamp(i + brightness);
+        }
+        return new ChannelLut(table, table, table);
+    }
+
+    /**
+     * @return A table equivalent to {@link PixelKernels#contrastKernel(float)}.
+     */
+    public static ChannelLut contrast(float contrast) {
+        int[] table = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            table[i] = PixelKernels.clamp((int) ((i - 128) * contrast + 128));
+        }
+        return new ChannelLut(table, table, table);
+    }
+
+    /**
+     * Composes this table with another one.
+     *
+     * @param next The table to apply after this one.
+     *
+     * @return A single table equivalent to applying this table and then {@code next}.
+     */
+    public ChannelLut then(ChannelLut next) {
+        if (this == IDENTITY) {
+            return next;
+        }
+        if (next == IDENTITY) {
+            return this;
+        }
+        return new ChannelLut(compose(red, next.red), compose(green, next.green),
+                compose(blue, next.blue));
+    }
+
+    /**
+     * @return {@code true} if this table leaves every channel unchanged.
+     */
+    public boolean isIdentity() {
+        return this == IDENTITY || (Arrays.equals(red, IDENTITY.red)
+                && Arrays.equals(green, IDENTITY.green) && Arrays.equals(blue, IDENTITY.blue));
+    }
+
+    /**
+     * @return The output value of the red channel for the given input value.
+     */
+    public int mapRed(int value) {
+        return red[value];
+    }
+
+    /**
+     * @return The output value of the green channel for the given input value.
+     */
+    public int mapGreen(int value) {
+        return green[value];
+    }
+
+    /**
+     * @return The output value of the blue channel for the given input value.
+     */
+    public int mapBlue(int value) {
+        return blue[value];
+    }
+
+    /**
+     * @return The 256 entries of the red table, then the green and the blue ones, as unsigned
+     * bytes, the layout read by the native {@code applyLut}.
+     */
+    public byte[] getTables() {
+        byte[] tables = new byte[3 * SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            tables[i] = (byte) red[i];
+            tables[SIZE + i] = (byte) green[i];
+            tables[2 * SIZE + i] = (byte) blue[i];
+        }
+        return tables;
+    }
+
+    /**
+     * @return A {@link RowKernel} that applies this table to every pixel.
+     */
+    public RowKernel kernel() {
+        final int[] red = this.red;
+        final int[] green = this.green;
+        final int[] blue = this.blue;
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+                pixels[i] = (pixel & 0xFF000000)
+                        | (red[(pixel >> 16) & 0xFF] << 16)
+                        | (green[(pixel >> 8) & 0xFF] << 8)
+                        | blue[pixel & 0xFF];
+            }
+        };
+    }
+
+    private static int[] compose(int[] first, int[] second) {
+        int[] result = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            result[i] = second[first[i]];
+        }
+        return result;
+    }
+
+    private static int[] checkTable(int[] table) {
+        if (table.length != SIZE) {
+            throw new IllegalArgumentException("Lookup tables must have " + SIZE + " entries");
+        }
+        for (int value : table) {
+            if (value < 0 || value > 255) {
+                throw new IllegalArgumentException("Lookup table value out of range: " + value);
+            }
+        }
+        return table.clone();
+    }
+}
@@ -0,0 +1,287 @@
+package com.rivan.neon.filters.kernels;
+
+import java.util.Arrays;
+
+/**
+ * A 4x5 affine color transform, stored row-major in the same layout as
+ * {@code android.graphics.ColorMatrix}:
+ *
+ * <pre>
+ *   [ a, b, c, d, e,
+ *     f, g, h, i, j,
+ *     k, l, m, n, o,
+ *     p, q, r, s, t ]
+ *
+ *   R' = a*R + b*G + c*B + d*A + e;
+ *   G' = f*R + g*G + h*B + i*A + j;
+ *   B' = k*R + l*G + m*B + n*A + o;
+ *   A' = p*R + q*G + r*B + s*A + t;
+ * </pre>
+ *
+ * Channel values and offsets are in the range 0 to 255. Results are clamped to that range.
+ *
+ * <p>
+ * Grayscale, Sepia, Brightness, Contrast and Invert are all affine transforms, so any chain of
+ * them can be collapsed into a single matrix with {@link #then} and applied with one kernel.
+ * Note that the intermediate results of a collapsed chain are not clamped, so a chain that
+ * saturates midway (e.g. a large brightness increase followed by a contrast decrease) can differ
+ * from applying the filters one after another. Only matrices that cannot saturate, see
+ * {@link #canSaturate()}, can be followed by another one without changing the result.
+ * </p>
+ *
+ * <p>Instances are immutable and can be shared between threads.</p>
+ */
+public final class ColorMatrix {
+
+    /** Number of values in the matrix. */
+    public static final int SIZE = 20;
+
+    private static final ColorMatrix IDENTITY = new ColorMatrix(new float[]{
+            1, 0, 0, 0, 0,
+            0, 1, 0, 0, 0,
+            0, 0, 1, 0, 0,
+            0, 0, 0, 1, 0
+    });
+
+    private final float[] values;
+
+    private ColorMatrix(float[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Creates a matrix from 20 row-major values.
+     *
+     * @param values The values of the matrix. The array is copied.
+     */
+    public static ColorMatrix of(float[] values) {
+        if (values.length != SIZE) {
+            throw new IllegalArgumentException("A color matrix must have " + SIZE + " values");
+        }
+        return new ColorMatrix(values.clone());
+    }
+
+    /**
+     * @return A matrix that leaves every channel unchanged.
+     */
+    public static ColorMatrix identity() {
+        return IDENTITY;
+    }
+
+    /**
+     * @return A matrix equivalent to {@link PixelKernels#grayscaleKernel(float, float, float)}.
+     */
+    public static ColorMatrix grayscale(float redCoefficient, float greenCoefficient,
+                                        float blueCoefficient) {
+        return new ColorMatrix(new float[]{
+                redCoefficient, greenCoefficient, blueCoefficient, 0, 0,
+                redCoefficient, greenCoefficient, blueCoefficient, 0, 0,
+                redCoefficient, greenCoefficient, blueCoefficient, 0, 0,
+                0, 0, 0, 1, 0
+        });
+    }
+
+    /**
+     * @return A matrix equivalent to {@link PixelKernels#sepiaKernel()}.
+     */
+    public static ColorMatrix sepia() {
+        return new ColorMatrix(new float[]{
+                0.393f, 0.769f, 0.189f, 0, 0,
+                0.349f, 0.686f, 0.168f, 0, 0,
+                0.272f, 0.534f, 0.131f, 0, 0,
+                0, 0, 0, 1, 0
+        });
+    }
+
+    /**
+     * @return A matrix equivalent to {@link PixelKernels#brightnessKernel(int)}.
+     */
+    public static ColorMatrix brightness(int brightness) {
+        return new ColorMatrix(new float[]{
+                1, 0, 0, 0, brightness,
+                0, 1, 0, 0, brightness,
+                0, 0, 1, 0, brightness,
+                0, 0, 0, 1, 0
+        });
+    }
+
+    /**
+     * @return A matrix equivalent to {@link PixelKernels#contrastKernel(float)}.
+     */
+    public static ColorMatrix contrast(float contrast) {
+        float offset = 128 * (1 - contrast);
+        return new ColorMatrix(new float[]{
+                contrast, 0, 0, 0, offset,
+                0, contrast, 0, 0, offset,
+                0, 0, contrast, 0, offset,
+                0, 0, 0, 1, 0
+        });
+    }
+
+    /**
+     * @return A matrix equivalent to {@link PixelKernels#invertKernel()}.
+     */
+    public static ColorMatrix invert() {
+        return new ColorMatrix(new float[]{
+                -1, 0, 0, 0, 255,
+                0, -1, 0, 0, 255,
+                0, 0, -1, 0, 255,
+                0, 0, 0, 1, 0
+        });
+    }
+
+    /**
+     * Composes this matrix with another one.
+     *
+     * @param next The matrix to apply after this one.
+     *
+     * @return A single matrix equivalent to applying this matrix and then {@code next}
+     * (without clamping in between).
+     */
+    public ColorMatrix then(ColorMatrix next) {
+        if (this == IDENTITY) {
+            return next;
+        }
+        if (next == IDENTITY) {
+            return this;
+        }
+
+        float[] a = next.values;
+        float[] b = values;
+        float[] result = new float[SIZE];
+        for (int row = 0; row < 4; row++) {
+            int r = row * 5;
+            for (int column = 0; column < 4; column++) {
+                result[r + column] = a[r] * b[column]
+                        + a[r + 1] * b[5 + column]
+                        + a[r + 2] * b[10 + column]
+                        + a[r + 3] * b[15 + column];
+            }
+            result[r + 4] = a[r] * b[4]
+                    + a[r + 1] * b[9]
+                    + a[r + 2] * b[14]
+                    + a[r + 3] * b[19]
+                    + a[r + 4];
+        }
+        return new ColorMatrix(result);
+    }
+
+    /**
+     * @return {@code true} if some pixel with channels from 0 to 255 is mapped out of that range,
+     * so that applying this matrix clamps it. Results within half a unit of the range, which
+     * round into it, do not count.
+     */
+    public boolean canSaturate() {
+        for (int row = 0; row < 4; row++) {
+            float min = values[row * 5 + 4];
+            float max = min;
+            for (int column = 0; column < 4; column++) {
+                float extreme = values[row * 5 + column] * 255;
+                if (extreme < 0) {
+                    min += extreme;
+                } else {
+                    max += extreme;
+                }
+            }
+            if (min < -0.5f || max > 255.5f) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if this matrix leaves every channel unchanged.
+     */
+    public boolean isIdentity() {
+        return this == IDENTITY || Arrays.equals(values, IDENTITY.values);
+    }
+
+    /**
+     * @return {@code true} if the alpha row of this matrix is the identity, i.e. the alpha
+     * channel is passed through unchanged.
+     */
+    public boolean preservesAlpha() {
+        return values[15] == 0 && values[16] == 0 && values[17] == 0
+                && values[18] == 1 && values[19] == 0;
+    }
+
+    /**
+     * @return A copy of the 20 row-major values of this matrix.
+     */
+    public float[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * @return A {@link RowKernel} that applies this matrix to every pixel.
+     */
+    public RowKernel kernel() {
+        final float[] m = values;
+        final float rr = m[0], rg = m[1], rb = m[2], ra = m[3], ro = m[4];
+        final float gr = m[5], gg = m[6], gb = m[7], ga = m[8], go = m[9];
+        final float br = m[10], bg = m[11], bb = m[12], ba = m[13], bo = m[14];
+
+        if (preservesAlpha()) {
+            return (pixels, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int pixel = pixels[i];
+
+                    int alpha = pixel >>> 24;
+                    float red = (pixel >> 16) & 0xFF;
+                    float green = (pixel >> 8) & 0xFF;
+                    float blue = pixel & 0xFF;
+
+                    int newRed = PixelKernels.clamp(
+                            (int) (rr * red + rg * green + rb * blue + ra * alpha + ro));
+                    int newGreen = PixelKernels.clamp(
+                            (int) (gr * red + gg * green + gb * blue + ga * alpha + go));
+                    int newBlue = PixelKernels.clamp(
+                            (int) (br * red + bg * green + bb * blue + ba * alpha + bo));
+
+                    pixels[i] = PixelKernels.argb(alpha, newRed, newGreen, newBlue);
+                }
+            };
+        }
+
+        final float ar = m[15], ag = m[16], ab = m[17], aa = m[18], ao = m[19];
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+
+                float alpha = pixel >>> 24;
+                float red = (pixel >> 16) & 0xFF;
+                float green = (pixel >> 8) & 0xFF;
+                float blue = pixel & 0xFF;
+
+                int newRed = PixelKernels.clamp(
+                        (int) (rr * red + rg * green + rb * blue + ra * alpha + ro));
+                int newGreen = PixelKernels.clamp(
+                        (int) (gr * red + gg * green + gb * blue + ga * alpha + go));
+                int newBlue = PixelKernels.clamp(
+                        (int) (br * red + bg * green + bb * blue + ba * alpha + bo));
+                int newAlpha = PixelKernels.clamp(
+                        (int) (ar * red + ag * green + ab * blue + aa * alpha + ao));
+
+                pixels[i] = PixelKernels.argb(newAlpha, newRed, newGreen, newBlue);
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(values, ((ColorMatrix) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "ColorMatrix" + Arrays.toString(values);
+    }
+}
@@ -0,0 +1,278 @@
+package com.rivan.neon.filters.kernels;
+
+import java.util.Arrays;
+
+/**
+ * Applies a {@link ConvolutionKernel} to ARGB pixels, the Java counterpart of the native
+ * {@code convolution.c}. All four channels are convolved alike.
+ *
+ * <p>
+ * Unlike the pointwise {@link RowKernel}s, every output pixel reads its neighbours, so a
+ * convolution reads one array and writes another. The image is processed in columns of tiles
+ * narrow enough for the rows of a tile to stay in cache:
+ * </p>
+ * <ul>
+ *     <li>Separable kernels filter every source row of a tile horizontally once into a ring of
+ *     {@code 2 * radius + 1} rows, and every output row is the weighted sum of the rows in the
+ *     ring. This costs {@code O(radius)} per pixel.</li>
+ *     <li>Other kernels keep a ring of source rows and sum every weight over it, in
+ *     {@code O(radius^2)} per pixel.</li>
+ * </ul>
+ *
+ * <p>
+ * Bands of rows are independent, so {@link #apply} splits them across threads with
+ * {@link ParallelRows#forEachBand}.
+ * </p>
+ */
+public final class Convolution {
+
+    /**
+     * How pixels outside of the image are read. The ordinals must match the
+     * {@code EDGE_MODE_*} constants of {@code convolution.h}.
+     */
+    public enum EdgeMode {
+        /** The nearest edge pixel: {@code aaa|abc|ccc}. */
+        CLAMP,
+        /** Mirrored without repeating the edge pixel: {@code cb|abc|ba}. */
+        REFLECT,
+        /** The opposite side of the image: {@code bc|abc|ab}. */
+        WRAP
+    }
+
+    /**
+     * Floats of filtered rows kept for a tile. Small enough to stay in L2 along with the source
+     * and destination rows.
+     */
+    private static final int TILE_FLOATS = 32 * 1024;
+
+    /** Narrower tiles would spend more time on the edges than on the pixels. */
+    private static final int MIN_TILE_WIDTH = 64;
+
+    private Convolution() {}
+
+    /**
+     * Convolves a whole image on up to {@code parallelism} threads.
+     *
+     * @param src         The source pixels, {@code width} per row.
+     * @param dst         The destination pixels, {@code width} per row. Must not be {@code src}.
+     * @param kernel      The {@link ConvolutionKernel} to apply.
+     * @param edgeMode    How pixels outside of the image are read.
+     * @param parallelism Maximum number of row bands to process concurrently, or
+     *                    {@link ParallelRows#PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
+     */
+    public static void apply(int[] src, int[] dst, int width, int height,
+                             ConvolutionKernel kernel, EdgeMode edgeMode, int parallelism,
+                             int minBandRows) {
+        if (src == dst) {
+            throw new IllegalArgumentException("A convolution cannot be applied in place");
+        }
+        if (src.length < width * height || dst.length < width * height) {
+            throw new IllegalArgumentException("The pixels do not hold a " + width + "x" + height
+                    + " image");
+        }
+        ParallelRows.forEachBand(height, parallelism, minBandRows,
+                (startRow, endRow) -> applyRows(src, dst, width, height, startRow, endRow,
+                        kernel, edgeMode));
+    }
+
+    /**
+     * Convolves the rows {@code [startRow, endRow)} of an image. Nothing outside of these rows is
+     * written, so bands of rows can run on different threads.
+     */
+    public static void applyRows(int[] src, int[] dst, int width, int height, int startRow,
+                                 int endRow, ConvolutionKernel kernel, EdgeMode edgeMode) {
+        if (width == 0 || startRow >= endRow) {
+            return;
+        }
+        if (kernel.isSeparable()) {
+            applySeparable(src, dst, width, height, startRow, endRow, kernel, edgeMode);
+        } else {
+            apply2d(src, dst, width, height, startRow, endRow, kernel, edgeMode);
+        }
+    }
+
+    /**
+     * Maps a coordinate to {@code [0, size)} according to the edge mode.
+     */
+    public static int edgeIndex(int index, int size, EdgeMode edgeMode) {
+        if (index >= 0 && index < size) {
+            return index;
+        }
+        switch (edgeMode) {
+            case REFLECT: {
+                if (size == 1) {
+                    return 0;
+                }
+                int period = 2 * (size - 1);
+                index = Math.abs(index) % period;
+                return index < size ? index : period - index;
+            }
+            case WRAP:
+                return Math.floorMod(index, size);
+            default:
+                return index < 0 ? 0 : size - 1;
+        }
+    }
+
+    private static void applySeparable(int[] src, int[] dst, int width, int height,
+                                       int startRow, int endRow, ConvolutionKernel kernel,
+                                       EdgeMode edgeMode) {
+        int radius = kernel.getRadius();
+        int size = kernel.getSize();
+        float[] horizontal = kernel.horizontal();
+        float[] vertical = kernel.vertical();
+        float identityWeight = kernel.getIdentityWeight();
+
+        int tileWidth = tileWidthFor(width, size, 0);
+        float[] padded = new float[(tileWidth + 2 * radius) * 4];
+        float[][] ring = new float[size][tileWidth * 4];
+        float[] sum = new float[tileWidth * 4];
+
+        // Every source row from radius rows above the band to radius rows below it is filtered
+        // horizontally once into the ring. Once the ring holds the 'size' rows around an output
+        // row, the vertical pass sums them up.
+        int top = startRow - radius;
+        int bottom = endRow + radius;
+
+        for (int x0 = 0; x0 < width; x0 += tileWidth) {
+            int columns = Math.min(tileWidth, width - x0);
+            int count = columns * 4;
+
+            for (int y = top; y < bottom; y++) {
+                int j = y - top;
+                loadPaddedRow(src, edgeIndex(y, height, edgeMode) * width, width, x0, columns,
+                        radius, edgeMode, padded);
+
+                float[] filtered = ring[j % size];
+                scale(padded, 0, horizontal[0], filtered, count);
+                for (int k = 1; k < size; k++) {
+                    accumulate(padded, k * 4, horizontal[k], filtered, count);
+                }
+
+                if (j + 1 < size) {
+                    continue;
+                }
+
+                int first = j + 1 - size;
+                scale(ring[first % size], 0, vertical[0], sum, count);
+                for (int k = 1; k < size; k++) {
+                    accumulate(ring[(first + k) % size], 0, vertical[k], sum, count);
+                }
+
+                int outRow = (y - radius) * width + x0;
+                store(sum, src, dst, outRow, columns, identityWeight);
+            }
+        }
+    }
+
+    private static void apply2d(int[] src, int[] dst, int width, int height, int startRow,
+                                int endRow, ConvolutionKernel kernel, EdgeMode edgeMode) {
+        int radius = kernel.getRadius();
+        int size = kernel.getSize();
+        float[] weights = kernel.weights();
+        float identityWeight = kernel.getIdentityWeight();
+
+        int tileWidth = tileWidthFor(width, size, 2 * radius);
+        float[][] ring = new float[size][(tileWidth + 2 * radius) * 4];
+        float[] sum = new float[tileWidth * 4];
+
+        int top = startRow - radius;
+        int bottom = endRow + radius;
+
+        for (int x0 = 0; x0 < width; x0 += tileWidth) {
+            int columns = Math.min(tileWidth, width - x0);
+            int count = columns * 4;
+
+            for (int y = top; y < bottom; y++) {
+                int j = y - top;
+                loadPaddedRow(src, edgeIndex(y, height, edgeMode) * width, width, x0, columns,
+                        radius, edgeMode, ring[j % size]);
+
+                if (j + 1 < size) {
+                    continue;
+                }
+
+                int first = j + 1 - size;
+                Arrays.fill(sum, 0, count, 0.0f);
+                for (int ky = 0; ky < size; ky++) {
+                    float[] padded = ring[(first + ky) % size];
+                    for (int kx = 0; kx < size; kx++) {
+                        float weight = weights[ky * size + kx];
+                        if (weight != 0.0f) {
+                            accumulate(padded, kx * 4, weight, sum, count);
+                        }
+                    }
+                }
+
+                int outRow = (y - radius) * width + x0;
+                store(sum, src, dst, outRow, columns, identityWeight);
+            }
+        }
+    }
+
+    /**
+     * Unpacks the pixels of a row from column {@code x0 - radius} to
+     * {@code x0 + columns + radius - 1} into 4 floats each, reading the pixels outside of the
+     * row according to the edge mode.
+     */
+    private static void loadPaddedRow(int[] src, int rowOffset, int width, int x0, int columns,
+                                      int radius, EdgeMode edgeMode, float[] out) {
+        int paddedWidth = columns + 2 * radius;
+        boolean interior = x0 >= radius && x0 + columns + radius <= width;
+        for (int i = 0; i < paddedWidth; i++) {
+            int x = interior ? x0 + i - radius : edgeIndex(x0 + i - radius, width, edgeMode);
+            int pixel = src[rowOffset + x];
+            int o = i * 4;
+            out[o] = (pixel >>> 24);
+            out[o + 1] = (pixel >> 16) & 0xFF;
+            out[o + 2] = (pixel >> 8) & 0xFF;
+            out[o + 3] = pixel & 0xFF;
+        }
+    }
+
+    /** {@code out[i] = weight * in[offset + i]} for {@code count} channels. */
+    private static void scale(float[] in, int offset, float weight, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = weight * in[offset + i];
+        }
+    }
+
+    /** {@code out[i] += weight * in[offset + i]} for {@code count} channels. */
+    private static void accumulate(float[] in, int offset, float weight, float[] out,
+                                   int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] += weight * in[offset + i];
+        }
+    }
+
+    /**
+     * Adds {@code identityWeight} times the source pixels to the sums, rounds and clamps them,
+     * and packs them into {@code columns} pixels of {@code dst} from {@code offset}.
+     */
+    private static void store(float[] sum, int[] src, int[] dst, int offset, int columns,
+                              float identityWeight) {
+        for (int i = 0; i < columns; i++) {
+            int pixel = src[offset + i];
+            int s = i * 4;
+            int alpha = toByte(sum[s] + identityWeight * (pixel >>> 24));
+            int red = toByte(sum[s + 1] + identityWeight * ((pixel >> 16) & 0xFF));
+            int green = toByte(sum[s + 2] + identityWeight * ((pixel >> 8) & 0xFF));
+            int blue = toByte(sum[s + 3] + identityWeight * (pixel & 0xFF));
+            dst[offset + i] = (alpha << 24) | (red << 16) | (green << 8) | blue;
+        }
+    }
+
+    private static int toByte(float value) {
+        return value <= 0.0f ? 0 : value >= 255.0f ? 255 : (int) (value + 0.5f);
+    }
+
+    /**
+     * @return The number of pixels in a tile, for a ring of {@code rows} rows of
+     * {@code extraPixels} plus the tile width pixels.
+     */
+    private static int tileWidthFor(int width, int rows, int extraPixels) {
+        int tileWidth = TILE_FLOATS / (rows * 4) - extraPixels;
+        return Math.min(width, Math.max(MIN_TILE_WIDTH, tileWidth));
+    }
+}
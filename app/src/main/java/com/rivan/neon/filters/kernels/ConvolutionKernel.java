@@ -0,0 +1,303 @@
+package com.rivan.neon.filters.kernels;
+
+import java.util.Arrays;
+
+/**
+ * A square convolution kernel of odd size {@code 2 * radius + 1}, applied by {@link Convolution}.
+ * Every output channel is
+ *
+ * <pre>
+ *   out(x, y) = identityWeight * in(x, y) + sum of weight(i, j) * in(x + i, y + j)
+ * </pre>
+ *
+ * for {@code i} and {@code j} in {@code [-radius, radius]}, rounded and clamped to 0 to 255.
+ * The identity weight lets an unsharp mask ({@code (1 + amount) * in - amount * blur(in)}) stay
+ * separable.
+ *
+ * <p>
+ * A kernel is separable if its weights are the outer product of a vertical and a horizontal 1D
+ * kernel. Separable kernels are applied as two 1D passes, in {@code O(radius)} instead of
+ * {@code O(radius^2)} per pixel. {@link #of} detects separable weights, and the factories of the
+ * common kernels create them directly.
+ * </p>
+ *
+ * <p>Instances are immutable and can be shared between threads.</p>
+ */
+public final class ConvolutionKernel {
+
+    /**
+     * Largest difference, relative to the largest weight, between a weight and its separable
+     * approximation for {@link #of} to treat a kernel as separable.
+     */
+    private static final float SEPARABLE_TOLERANCE = 1e-5f;
+
+    private static final ConvolutionKernel IDENTITY =
+            new ConvolutionKernel(0, new float[]{0}, new float[]{0}, new float[]{0}, 1.0f);
+
+    private final int radius;
+    private final float[] weights;
+    private final float[] horizontal;
+    private final float[] vertical;
+    private final float identityWeight;
+
+    private ConvolutionKernel(int radius, float[] weights, float[] horizontal, float[] vertical,
+                              float identityWeight) {
+        this.radius = radius;
+        this.weights = weights;
+        this.horizontal = horizontal;
+        this.vertical = vertical;
+        this.identityWeight = identityWeight;
+    }
+
+    /**
+     * Creates a kernel from row-major weights, detecting whether it is separable.
+     *
+     * @param weights The {@code (2 * radius + 1)^2} weights of the kernel. The array is copied.
+     */
+    public static ConvolutionKernel of(float[] weights) {
+        return of(weights, 0.0f);
+    }
+
+    /**
+     * Creates a kernel from row-major weights, detecting whether it is separable.
+     *
+     * @param weights        The {@code (2 * radius + 1)^2} weights of the kernel. The array is
+     *                       copied.
+     * @param identityWeight The weight of the source pixel, added to the convolution.
+     */
+    public static ConvolutionKernel of(float[] weights, float identityWeight) {
+        int size = (int) Math.round(Math.sqrt(weights.length));
+        if (size % 2 == 0 || size * size != weights.length) {
+            throw new IllegalArgumentException(
+                    "A kernel must have an odd square number of weights, not " + weights.length);
+        }
+        float[] copy = weights.clone();
+
+        // If the kernel is separable, every row is a multiple of the row holding the largest
+        // weight, by the factors in the column holding it.
+        int pivot = 0;
+        for (int i = 1; i < copy.length; i++) {
+            if (Math.abs(copy[i]) > Math.abs(copy[pivot])) {
+                pivot = i;
+            }
+        }
+        float pivotWeight = copy[pivot];
+        if (pivotWeight == 0.0f) {
+            return new ConvolutionKernel(size / 2, copy, null, null, identityWeight);
+        }
+
+        int pivotRow = pivot / size;
+        int pivotColumn = pivot % size;
+        float[] horizontal = Arrays.copyOfRange(copy, pivotRow * size, (pivotRow + 1) * size);
+        float[] vertical = new float[size];
+        for (int y = 0; y < size; y++) {
+            vertical[y] = copy[y * size + pivotColumn] / pivotWeight;
+        }
+
+        float tolerance = Math.abs(pivotWeight) * SEPARABLE_TOLERANCE;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (Math.abs(copy[y * size + x] - vertical[y] * horizontal[x]) > tolerance) {
+                    return new ConvolutionKernel(size / 2, copy, null, null, identityWeight);
+                }
+            }
+        }
+        return new ConvolutionKernel(size / 2, copy, horizontal, vertical, identityWeight);
+    }
+
+    /**
+     * Creates the separable kernel {@code vertical * horizontal^T}.
+     *
+     * @param horizontal     The {@code 2 * radius + 1} weights of the horizontal pass. The array
+     *                       is copied.
+     * @param vertical       The {@code 2 * radius + 1} weights of the vertical pass. The array is
+     *                       copied.
+     * @param identityWeight The weight of the source pixel, added to the convolution.
+     */
+    public static ConvolutionKernel separable(float[] horizontal, float[] vertical,
+                                              float identityWeight) {
+        int size = horizontal.length;
+        if (size % 2 == 0 || vertical.length != size) {
+            throw new IllegalArgumentException("Both passes must have the same odd number of "
+                    + "weights, not " + horizontal.length + " and " + vertical.length);
+        }
+        return new ConvolutionKernel(size / 2, outerProduct(horizontal, vertical),
+                horizontal.clone(), vertical.clone(), identityWeight);
+    }
+
+    /**
+     * @return A kernel that leaves every pixel unchanged.
+     */
+    public static ConvolutionKernel identity() {
+        return IDENTITY;
+    }
+
+    /**
+     * Creates a normalized Gaussian blur with a standard deviation of a third of the radius,
+     * so that the weights beyond the radius would be negligible.
+     *
+     * @param radius The radius of the blur in pixels. 0 leaves the image unchanged.
+     */
+    public static ConvolutionKernel gaussian(int radius) {
+        if (radius == 0) {
+            return IDENTITY;
+        }
+        float[] weights = gaussianWeights(radius, 1.0f);
+        return new ConvolutionKernel(radius, outerProduct(weights, weights), weights, weights,
+                0.0f);
+    }
+
+    /**
+     * Creates an unsharp mask, which sharpens an image by adding the difference between the
+     * image and a Gaussian blur of it: {@code in + amount * (in - blur(in))}.
+     *
+     * @param radius The radius of the blur in pixels.
+     * @param amount How much of the difference is added. 0 leaves the image unchanged.
+     */
+    public static ConvolutionKernel unsharpMask(int radius, float amount) {
+        if (radius == 0 || amount == 0.0f) {
+            return IDENTITY;
+        }
+        float[] horizontal = gaussianWeights(radius, -amount);
+        float[] vertical = gaussianWeights(radius, 1.0f);
+        return new ConvolutionKernel(radius, outerProduct(horizontal, vertical), horizontal,
+                vertical, 1.0f + amount);
+    }
+
+    /**
+     * @return A 3x3 emboss kernel, lit from the top left. Flat areas keep their color, and
+     * edges become lighter or darker depending on their direction.
+     */
+    public static ConvolutionKernel emboss() {
+        return of(new float[]{
+                -2, -1, 0,
+                -1, 1, 1,
+                0, 1, 2
+        });
+    }
+
+    private static float[] gaussianWeights(int radius, float scale) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("radius must not be negative: " + radius);
+        }
+        float sigma = radius / 3.0f;
+        float[] weights = new float[2 * radius + 1];
+        float sum = 0.0f;
+        for (int i = -radius; i <= radius; i++) {
+            weights[i + radius] = (float) Math.exp(-(i * i) / (2.0 * sigma * sigma));
+            sum += weights[i + radius];
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] *= scale / sum;
+        }
+        return weights;
+    }
+
+    private static float[] outerProduct(float[] horizontal, float[] vertical) {
+        int size = horizontal.length;
+        float[] weights = new float[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                weights[y * size + x] = vertical[y] * horizontal[x];
+            }
+        }
+        return weights;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * @return The number of weights in each row and column, {@code 2 * radius + 1}.
+     */
+    public int getSize() {
+        return 2 * radius + 1;
+    }
+
+    /**
+     * @return A copy of the row-major 2D weights.
+     */
+    public float[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * @return {@code true} if the kernel can be applied as a horizontal and a vertical pass.
+     */
+    public boolean isSeparable() {
+        return horizontal != null;
+    }
+
+    /**
+     * @return A copy of the weights of the horizontal pass, or {@code null} if the kernel is not
+     * {@link #isSeparable() separable}.
+     */
+    public float[] getHorizontal() {
+        return horizontal != null ? horizontal.clone() : null;
+    }
+
+    /**
+     * @return A copy of the weights of the vertical pass, or {@code null} if the kernel is not
+     * {@link #isSeparable() separable}.
+     */
+    public float[] getVertical() {
+        return vertical != null ? vertical.clone() : null;
+    }
+
+    public float getIdentityWeight() {
+        return identityWeight;
+    }
+
+    /**
+     * @return {@code true} if the kernel leaves every pixel unchanged.
+     */
+    public boolean isIdentity() {
+        if (identityWeight + weights[weights.length / 2] != 1.0f) {
+            return false;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            if (i != weights.length / 2 && weights[i] != 0.0f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Package-private accessors for Convolution, which does not modify the arrays.
+
+    float[] weights() {
+        return weights;
+    }
+
+    float[] horizontal() {
+        return horizontal;
+    }
+
+    float[] vertical() {
+        return vertical;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConvolutionKernel)) {
+            return false;
+        }
+        ConvolutionKernel other = (ConvolutionKernel) o;
+        return identityWeight == other.identityWeight && Arrays.equals(weights, other.weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(weights) + Float.hashCode(identityWeight);
+    }
+
+    @Override
+    public String toString() {
+        return "ConvolutionKernel{radius=" + radius + ", separable=" + isSeparable()
+                + ", identityWeight=" + identityWeight + "}";
+    }
+}
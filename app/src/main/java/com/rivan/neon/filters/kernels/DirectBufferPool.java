@@ -0,0 +1,76 @@
+package com.rivan.neon.filters.kernels;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A thread-safe pool of direct {@link ByteBuffer}s holding raw pixel bytes. This is the
+ * {@link ByteBuffer} counterpart of {@link PixelArrayPool} and shares its {@link BucketedPool}
+ * implementation, so that the raw pixel path never allocates in the steady state either. Direct
+ * buffers are expensive to allocate and are only freed when the garbage collector gets around to
+ * it, which makes pooling them even more important than pooling arrays.
+ *
+ * <p>
+ * Buffers handed out by {@link #acquire(int)} have undefined contents, a position of 0, a limit
+ * equal to the requested size and little-endian byte order. {@link #release} ignores buffers
+ * that are not direct or whose capacity is not a bucket size.
+ * </p>
+ */
+public final class DirectBufferPool extends BucketedPool<ByteBuffer> {
+
+    /** Default maximum number of bytes retained by the shared pool. */
+    public static final long DEFAULT_MAX_RETAINED_BYTES = 128L * 1024 * 1024;
+
+    /** Maximum number of idle buffers kept per bucket. */
+    public static final int MAX_BUFFERS_PER_BUCKET = 2;
+
+    private static final DirectBufferPool SHARED = new DirectBufferPool(DEFAULT_MAX_RETAINED_BYTES);
+
+    /**
+     * @param maxRetainedBytes Maximum number of bytes held by idle buffers.
+     */
+    public DirectBufferPool(long maxRetainedBytes) {
+        super(maxRetainedBytes, MAX_BUFFERS_PER_BUCKET);
+    }
+
+    /**
+     * @return The pool shared by all Java filters.
+     */
+    public static DirectBufferPool getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns a direct buffer with at least {@code minBytes} bytes of capacity, reusing an idle
+     * buffer if one is available.
+     */
+    @Override
+    public ByteBuffer acquire(int minBytes) {
+        ByteBuffer buffer = super.acquire(minBytes);
+        buffer.clear();
+        buffer.limit(minBytes);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect()) {
+            super.release(buffer);
+        }
+    }
+
+    @Override
+    ByteBuffer allocate(int size) {
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    @Override
+    int sizeOf(ByteBuffer buffer) {
+        return buffer.capacity();
+    }
+
+    @Override
+    long bytesOf(ByteBuffer buffer) {
+        return buffer.capacity();
+    }
+}
@@ -0,0 +1,160 @@
+package com.rivan.neon.filters.kernels;
+
+/**
+ * Integer-only variants of the kernels in {@link PixelKernels}. Floating-point coefficients are
+ * converted once, when the kernel is created, to Q16 fixed-point numbers (16 fractional bits), so
+ * the per-pixel loops only use integer multiplies, adds and shifts and never allocate.
+ *
+ * <h3>Accuracy</h3>
+ * <p>
+ * Rounding a coefficient to Q16 introduces an error of at most 2<sup>-17</sup>. Across the
+ * terms of a single output channel this adds up to far less than one level:
+ * <ul>
+ *     <li>Grayscale and Sepia: 3 &times; 255 &times; 2<sup>-17</sup> &lt; 0.006</li>
+ *     <li>Contrast: 128 &times; 2<sup>-17</sup> &lt; 0.001</li>
+ *     <li>Color matrix: 4 &times; 255 &times; 2<sup>-17</sup> + 2<sup>-17</sup> &lt; 0.008</li>
+ * </ul>
+ * Both paths truncate towards zero before clamping, so the result of a fixed-point kernel
+ * differs from the floating-point kernel by <b>at most 1</b> in any channel, and only for inputs
+ * whose exact result lies within that distance of an integer. Invert and Brightness are integer
+ * operations to begin with and are bit-exact.
+ * </p>
+ */
+public final class FixedPointKernels {
+
+    /** Number of fractional bits of the fixed-point coefficients. */
+    public static final int FRACTION_BITS = 16;
+
+    private static final int ONE = 1 << FRACTION_BITS;
+
+    private FixedPointKernels() {}
+
+    /**
+     * Converts a value to a Q16 fixed-point number, rounding to the nearest representable value.
+     */
+    public static int toFixed(float value) {
+        return Math.round(value * ONE);
+    }
+
+    public static RowKernel grayscaleKernel(float redCoefficient, float greenCoefficient,
+                                            float blueCoefficient) {
+        final int red = toFixed(redCoefficient);
+        final int green = toFixed(greenCoefficient);
+        final int blue = toFixed(blueCoefficient);
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+
+                int gray = (red * ((pixel >> 16) & 0xFF)
+                        + green * ((pixel >> 8) & 0xFF)
+                        + blue * (pixel & 0xFF)) >> FRACTION_BITS;
+
+                gray = PixelKernels.clamp(gray);
+
+                pixels[i] = (pixel & 0xFF000000) | (gray << 16) | (gray << 8) | gray;
+            }
+        };
+    }
+
+    public static RowKernel invertKernel() {
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                pixels[i] ^= 0x00FFFFFF;
+            }
+        };
+    }
+
+    public static RowKernel brightnessKernel(int brightness) {
+        return PixelKernels.brightnessKernel(brightness);
+    }
+
+    public static RowKernel contrastKernel(float contrast) {
+        final int factor = toFixed(contrast);
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+
+                // (v - 128) * c + 128, with the truncation towards zero of the float path
+                // emulated by clamping negative results to 0 below.
+                int red = ((((pixel >> 16) & 0xFF) - 128) * factor + (128 << FRACTION_BITS))
+                        >> FRACTION_BITS;
+                int green = ((((pixel >> 8) & 0xFF) - 128) * factor + (128 << FRACTION_BITS))
+                        >> FRACTION_BITS;
+                int blue = (((pixel & 0xFF) - 128) * factor + (128 << FRACTION_BITS))
+                        >> FRACTION_BITS;
+
+                pixels[i] = (pixel & 0xFF000000)
+                        | (PixelKernels.clamp(red) << 16)
+                        | (PixelKernels.clamp(green) << 8)
+                        | PixelKernels.clamp(blue);
+            }
+        };
+    }
+
+    public static RowKernel sepiaKernel() {
+        final int rr = toFixed(0.393f), rg = toFixed(0.769f), rb = toFixed(0.189f);
+        final int gr = toFixed(0.349f), gg = toFixed(0.686f), gb = toFixed(0.168f);
+        final int br = toFixed(0.272f), bg = toFixed(0.534f), bb = toFixed(0.131f);
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+
+                int red = (pixel >> 16) & 0xFF;
+                int green = (pixel >> 8) & 0xFF;
+                int blue = pixel & 0xFF;
+
+                int sepiaRed = (rr * red + rg * green + rb * blue) >> FRACTION_BITS;
+                int sepiaGreen = (gr * red + gg * green + gb * blue) >> FRACTION_BITS;
+                int sepiaBlue = (br * red + bg * green + bb * blue) >> FRACTION_BITS;
+
+                pixels[i] = (pixel & 0xFF000000)
+                        | (Math.min(255, sepiaRed) << 16)
+                        | (Math.min(255, sepiaGreen) << 8)
+                        | Math.min(255, sepiaBlue);
+            }
+        };
+    }
+
+    /**
+     * Creates a fixed-point kernel for an arbitrary color matrix. Since the coefficients of a
+     * matrix are unbounded, the products are accumulated in a {@code long}.
+     */
+    public static RowKernel colorMatrixKernel(ColorMatrix matrix) {
+        final float[] m = matrix.getValues();
+        final long[] q = new long[ColorMatrix.SIZE];
+        for (int i = 0; i < q.length; i++) {
+            q[i] = Math.round((double) m[i] * ONE);
+        }
+        final long rr = q[0], rg = q[1], rb = q[2], ra = q[3], ro = q[4];
+        final long gr = q[5], gg = q[6], gb = q[7], ga = q[8], go = q[9];
+        final long br = q[10], bg = q[11], bb = q[12], ba = q[13], bo = q[14];
+        final long ar = q[15], ag = q[16], ab = q[17], aa = q[18], ao = q[19];
+        final boolean preservesAlpha = matrix.preservesAlpha();
+
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+
+                int alpha = pixel >>> 24;
+                int red = (pixel >> 16) & 0xFF;
+                int green = (pixel >> 8) & 0xFF;
+                int blue = pixel & 0xFF;
+
+                int newRed = clampFixed(rr * red + rg * green + rb * blue + ra * alpha + ro);
+                int newGreen = clampFixed(gr * red + gg * green + gb * blue + ga * alpha + go);
+                int newBlue = clampFixed(br * red + bg * green + bb * blue + ba * alpha + bo);
+                int newAlpha = preservesAlpha ? alpha
+                        : clampFixed(ar * red + ag * green + ab * blue + aa * alpha + ao);
+
+                pixels[i] = (newAlpha << 24) | (newRed << 16) | (newGreen << 8) | newBlue;
+            }
+        };
+    }
+
+    private static int clampFixed(long value) {
+        if (value <= 0) {
+            return 0;
+        }
+        return (int) Math.min(255, value >> FRACTION_BITS);
+    }
+}
@@ -0,0 +1,202 @@
+package com.rivan.neon.filters.kernels;
+
+import java.util.Arrays;
+
+/**
+ * The number of pixels of an image with each of the 256 values of every channel, the Java
+ * counterpart of the native {@code histogram.c}. Besides red, green and blue, it counts the luma
+ * {@code (77 * R + 150 * G + 29 * B + 128) >> 8}, the Rec. 601 weights in 8-bit fixed point.
+ * Alpha is not counted.
+ *
+ * <p>
+ * {@link #compute} splits the rows across threads with {@link ParallelRows#forEachBand}. Every
+ * band counts into its own counters, alternating between two sets so that runs of equal pixels
+ * do not increment the same counter back to back, and the bands are merged once at the end.
+ * </p>
+ *
+ * <p>Instances are immutable and can be shared between threads.</p>
+ */
+public final class Histogram {
+
+    /** Number of values of a channel. */
+    public static final int BINS = 256;
+
+    /**
+     * The channels of a histogram. The ordinals must match the {@code HISTOGRAM_*} constants of
+     * {@code histogram.h}.
+     */
+    public enum Channel {
+        RED,
+        GREEN,
+        BLUE,
+        LUMA
+    }
+
+    private static final int CHANNELS = Channel.values().length;
+
+    private static final int LUMA_RED = 77;
+    private static final int LUMA_GREEN = 150;
+    private static final int LUMA_BLUE = 29;
+
+    /** The counts of every channel, channel by channel. */
+    private final int[] counts;
+
+    private final long pixelCount;
+
+    private Histogram(int[] counts) {
+        this.counts = counts;
+        long total = 0;
+        for (int v = 0; v < BINS; v++) {
+            total += counts[v];
+        }
+        pixelCount = total;
+    }
+
+    /**
+     * Creates a histogram from counts laid out as by the native {@code computeHistogram}: the
+     * 256 counts of red, then green, blue and luma.
+     *
+     * @param counts {@code 4 * 256} counts. The array is copied.
+     */
+    public static Histogram of(int[] counts) {
+        if (counts.length != CHANNELS * BINS) {
+            throw new IllegalArgumentException("A histogram has " + CHANNELS * BINS
+                    + " counts, not " + counts.length);
+        }
+        return new Histogram(counts.clone());
+    }
+
+    /**
+     * Counts the pixels of a whole image on up to {@code parallelism} threads.
+     *
+     * @param pixels      The pixels, {@code width} per row.
+     * @param parallelism Maximum number of row bands to process concurrently, or
+     *                    {@link ParallelRows#PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
+     */
+    public static Histogram compute(int[] pixels, int width, int height, int parallelism,
+                                    int minBandRows) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("The pixels do not hold a " + width + "x" + height
+                    + " image");
+        }
+        int[] totals = new int[CHANNELS * BINS];
+        ParallelRows.forEachBand(height, parallelism, minBandRows, (startRow, endRow) -> {
+            int[] bandCounts = new int[CHANNELS * BINS];
+            countRows(pixels, width, startRow, endRow, bandCounts);
+            synchronized (totals) {
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += bandCounts[i];
+                }
+            }
+        });
+        return new Histogram(totals);
+    }
+
+    /**
+     * Adds the pixels of the rows {@code [startRow, endRow)} to {@code counts}, laid out as for
+     * {@link #of}.
+     */
+    public static void countRows(int[] pixels, int width, int startRow, int endRow,
+                                 int[] counts) {
+        // Odd pixels go to the second set of counters, from offset 'stripe'.
+        int stripe = CHANNELS * BINS;
+        int[] stripes = new int[2 * stripe];
+        int green = BINS;
+        int blue = 2 * BINS;
+        int luma = 3 * BINS;
+
+        for (int y = startRow; y < endRow; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int pixel = pixels[offset + x];
+                int r = (pixel >> 16) & 0xFF;
+                int g = (pixel >> 8) & 0xFF;
+                int b = pixel & 0xFF;
+                int base = (x & 1) * stripe;
+                stripes[base + r]++;
+                stripes[base + green + g]++;
+                stripes[base + blue + b]++;
+                stripes[base + luma + luma(r, g, b)]++;
+            }
+        }
+
+        for (int i = 0; i < stripe; i++) {
+            counts[i] += stripes[i] + stripes[stripe + i];
+        }
+    }
+
+    /**
+     * @return The luma counted by the histogram for a color.
+     */
+    public static int luma(int red, int green, int blue) {
+        return (LUMA_RED * red + LUMA_GREEN * green + LUMA_BLUE * blue + 128) >> 8;
+    }
+
+    /**
+     * @return The number of pixels counted.
+     */
+    public long getPixelCount() {
+        return pixelCount;
+    }
+
+    /**
+     * @return The number of pixels whose channel has the given value.
+     */
+    public int getCount(Channel channel, int value) {
+        return counts[channel.ordinal() * BINS + value];
+    }
+
+    /**
+     * @return A copy of the 256 counts of a channel.
+     */
+    public int[] getCounts(Channel channel) {
+        int from = channel.ordinal() * BINS;
+        return Arrays.copyOfRange(counts, from, from + BINS);
+    }
+
+    /**
+     * Finds the value below which a fraction of the pixels lies, e.g. 0.01 for the darkest 1%.
+     *
+     * @param fraction A fraction of the pixels, from 0 to 1.
+     *
+     * @return The smallest value such that more than {@code fraction} of the pixels have this
+     * value or less, or 0 if the histogram is empty.
+     */
+    public int percentile(Channel channel, double fraction) {
+        if (pixelCount == 0) {
+            return 0;
+        }
+        long rank = Math.min(pixelCount - 1, (long) (fraction * pixelCount));
+        int from = channel.ordinal() * BINS;
+        long cumulative = 0;
+        for (int v = 0; v < BINS; v++) {
+            cumulative += counts[from + v];
+            if (cumulative > rank) {
+                return v;
+            }
+        }
+        return BINS - 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Histogram)) {
+            return false;
+        }
+        return Arrays.equals(counts, ((Histogram) o).counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{pixels=" + pixelCount + "}";
+    }
+}
@@ -0,0 +1,274 @@
+package com.rivan.neon.filters.kernels;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Runs a {@link RowKernel} over a {@link PixelBuffer} on multiple cores. The buffer is split into
+ * horizontal bands of whole rows, and each band is processed in place by a task on a shared
+ * {@link ForkJoinPool}. Since the kernels are pointwise, bands never touch each other's pixels and
+ * no synchronisation is needed beyond waiting for every band to finish.
+ *
+ * <p>
+ * {@link #forEachBand} splits any row-based work the same way, e.g. a {@link Convolution} that
+ * reads one image and writes another.
+ * </p>
+ *
+ * <p>
+ * Work run through {@link #callCancellable} checks a {@link CancellationToken} before every band,
+ * including the bands of nested calls on the worker threads, so that it can be abandoned between
+ * bands without changing the signature of every filter. {@link #process} also checks it every
+ * {@link #CANCEL_CHECK_ROWS} rows, since a pointwise pass is a single round of bands that all
+ * start at once. A cancelled call only returns once none of its bands is running any more, so
+ * the arrays they write can be reused right away.
+ * </p>
+ */
+public final class ParallelRows {
+
+    /**
+     * Work done on a band of rows.
+     */
+    public interface BandAction {
+
+        /**
+         * Processes the rows in {@code [startRow, endRow)}.
+         */
+        void run(int startRow, int endRow);
+    }
+
+    /** Requests one band per available processor. */
+    public static final int PARALLELISM_AUTO = 0;
+
+    /**
+     * Default minimum number of rows in a band. Smaller bands cost more in scheduling than
+     * they gain in parallelism.
+     */
+    public static final int DEFAULT_MIN_BAND_ROWS = 16;
+
+    /**
+     * Number of rows {@link #process} runs between two checks of the token of cancellable work.
+     */
+    static final int CANCEL_CHECK_ROWS = 32;
+
+    private static volatile ForkJoinPool sharedPool;
+
+    /** The token of the cancellable work running on each thread, if any. */
+    private static final ThreadLocal<CancellationToken> currentToken = new ThreadLocal<>();
+
+    private ParallelRows() {}
+
+    /**
+     * @return The pool shared by all parallel filter invocations, created on first use with
+     * one thread per available processor.
+     */
+    public static ForkJoinPool getSharedPool() {
+        ForkJoinPool pool = sharedPool;
+        if (pool == null) {
+            synchronized (ParallelRows.class) {
+                pool = sharedPool;
+                if (pool == null) {
+                    pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+                    sharedPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Resolves a requested parallelism to the actual number of bands to use.
+     *
+     * @param parallelism The requested parallelism, or {@link #PARALLELISM_AUTO}.
+     */
+    public static int resolveParallelism(int parallelism) {
+        if (parallelism == PARALLELISM_AUTO) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("parallelism must not be negative: " + parallelism);
+        }
+        return parallelism;
+    }
+
+    /**
+     * Runs work on the calling thread, checking a token before every band the work splits with
+     * {@link #forEachBand}.
+     *
+     * @param token The {@link CancellationToken} to check.
+     * @param work  The work to run.
+     *
+     * @return The result of the work.
+     *
+     * @throws CancellationException If the token was cancelled before the work finished.
+     */
+    public static <T> T callCancellable(CancellationToken token, Supplier<T> work) {
+        CancellationToken previous = currentToken.get();
+        currentToken.set(token);
+        try {
+            token.throwIfCancelled();
+            return work.get();
+        } finally {
+            currentToken.set(previous);
+        }
+    }
+
+    /**
+     * Runs a kernel over every row of a buffer, splitting the work into at most
+     * {@code parallelism} bands of at least {@code minBandRows} rows each. If that leaves a single
+     * band, the kernel runs on the calling thread.
+     *
+     * @param buffer      The buffer to process in place.
+     * @param kernel      The {@link RowKernel} to run. Must be safe to call from multiple threads.
+     * @param parallelism Maximum number of bands to run concurrently, or {@link #PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
+     */
+    public static void process(PixelBuffer buffer, RowKernel kernel, int parallelism,
+                               int minBandRows) {
+        CancellationToken token = currentToken.get();
+        if (token == null) {
+            forEachBand(buffer.getHeight(), parallelism, minBandRows,
+                    (startRow, endRow) -> buffer.processRows(startRow, endRow, kernel));
+            return;
+        }
+        // Rows of a pointwise pass do not depend on each other, so splitting a band costs
+        // nothing, and a cancelled pass stops within its bands rather than only before them.
+        forEachBand(buffer.getHeight(), parallelism, minBandRows, (startRow, endRow) -> {
+            for (int row = startRow; row < endRow; row += CANCEL_CHECK_ROWS) {
+                token.throwIfCancelled();
+                buffer.processRows(row, Math.min(endRow, row + CANCEL_CHECK_ROWS), kernel);
+            }
+        });
+    }
+
+    /**
+     * Splits the rows {@code [0, height)} into at most {@code parallelism} bands of at least
+     * {@code minBandRows} rows each, and runs an action on every band. If that leaves a single
+     * band, the action runs on the calling thread.
+     *
+     * <p>
+     * Inside {@link #callCancellable}, every band first checks the token, so no band starts once
+     * it has been cancelled. The call waits for every band to end before it throws.
+     * </p>
+     *
+     * @param height      Number of rows.
+     * @param parallelism Maximum number of bands to run concurrently, or {@link #PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
+     * @param action      The {@link BandAction} to run. Must be safe to call from multiple threads.
+     *
+     * @throws CancellationException If the work is cancellable and was cancelled.
+     */
+    public static void forEachBand(int height, int parallelism, int minBandRows,
+                                   BandAction action) {
+        int bandRows = bandRows(height, resolveParallelism(parallelism), minBandRows);
+        CancellationToken token = currentToken.get();
+
+        if (bandRows >= height) {
+            if (token != null) {
+                token.throwIfCancelled();
+            }
+            action.run(0, height);
+            return;
+        }
+
+        List<Band> bands = new ArrayList<>();
+        for (int startRow = 0; startRow < height; startRow += bandRows) {
+            bands.add(new Band(action, token, startRow, Math.min(height, startRow + bandRows)));
+        }
+
+        if (ForkJoinTask.inForkJoinPool()) {
+            invokeAndJoin(bands);
+        } else {
+            getSharedPool().invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAndJoin(bands);
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs every band and waits for all of them to end, even if one fails, then rethrows the
+     * first failure, preferring errors over cancellations. Unlike
+     * {@link ForkJoinTask#invokeAll}, no band can still be running when this returns or throws.
+     * Must be called from a {@link ForkJoinPool} worker.
+     */
+    private static void invokeAndJoin(List<Band> bands) {
+        for (int i = 1; i < bands.size(); i++) {
+            bands.get(i).fork();
+        }
+        bands.get(0).quietlyInvoke();
+        for (int i = 1; i < bands.size(); i++) {
+            bands.get(i).quietlyJoin();
+        }
+
+        CancellationException cancellation = null;
+        for (Band band : bands) {
+            Throwable failure = band.getException();
+            if (failure instanceof CancellationException) {
+                if (cancellation == null) {
+                    cancellation = (CancellationException) failure;
+                }
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new IllegalStateException(failure);
+            }
+        }
+        if (cancellation != null) {
+            throw cancellation;
+        }
+    }
+
+    /**
+     * @return The number of rows in each band (the last band may be shorter).
+     */
+    static int bandRows(int height, int parallelism, int minBandRows) {
+        int bands = Math.max(1, parallelism);
+        int rows = (height + bands - 1) / bands;
+        return Math.max(Math.max(1, minBandRows), rows);
+    }
+
+    private static final class Band extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BandAction action;
+        private final CancellationToken token;
+        private final int startRow;
+        private final int endRow;
+
+        Band(BandAction action, CancellationToken token, int startRow, int endRow) {
+            this.action = action;
+            this.token = token;
+            this.startRow = startRow;
+            this.endRow = endRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (token == null) {
+                action.run(startRow, endRow);
+                return;
+            }
+            // Bands the action splits itself run on this worker, and check the same token.
+            token.throwIfCancelled();
+            CancellationToken previous = currentToken.get();
+            currentToken.set(token);
+            try {
+                action.run(startRow, endRow);
+            } finally {
+                currentToken.set(previous);
+            }
+        }
+    }
+}
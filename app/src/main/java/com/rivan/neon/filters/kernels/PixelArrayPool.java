@@ -0,0 +1,57 @@
+package com.rivan.neon.filters.kernels;
+
+/**
+ * A thread-safe pool of {@code int[]} scratch arrays used by the Java kernels, so that filtering
+ * the same image over and over (previews, benchmarks) allocates nothing in the steady state.
+ *
+ * <p>
+ * Requested lengths are rounded up to a bucket size a quarter of an octave apart, see
+ * {@link BucketedPool}. Every bucket holds at most {@link #MAX_ARRAYS_PER_BUCKET} arrays, and the
+ * pool never retains more than its byte budget.
+ * </p>
+ *
+ * <p>
+ * Arrays handed out by {@link #acquire(int)} have undefined contents and may be longer than
+ * requested. The pool does not track which arrays it handed out: {@link #release} ignores arrays
+ * whose length is not a bucket size, and keeps any other array as if it came from the pool.
+ * </p>
+ */
+public final class PixelArrayPool extends BucketedPool<int[]> {
+
+    /** Default maximum number of bytes retained by the shared pool. */
+    public static final long DEFAULT_MAX_RETAINED_BYTES = 128L * 1024 * 1024;
+
+    /** Maximum number of idle arrays kept per bucket. */
+    public static final int MAX_ARRAYS_PER_BUCKET = 2;
+
+    private static final PixelArrayPool SHARED = new PixelArrayPool(DEFAULT_MAX_RETAINED_BYTES);
+
+    /**
+     * @param maxRetainedBytes Maximum number of bytes held by idle arrays.
+     */
+    public PixelArrayPool(long maxRetainedBytes) {
+        super(maxRetainedBytes, MAX_ARRAYS_PER_BUCKET);
+    }
+
+    /**
+     * @return The pool shared by all Java filters.
+     */
+    public static PixelArrayPool getShared() {
+        return SHARED;
+    }
+
+    @Override
+    int[] allocate(int size) {
+        return new int[size];
+    }
+
+    @Override
+    int sizeOf(int[] array) {
+        return array.length;
+    }
+
+    @Override
+    long bytesOf(int[] array) {
+        return 4L * array.length;
+    }
+}
@@ -0,0 +1,278 @@
+package com.rivan.neon.filters.kernels;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * A platform-independent view over a block of 32-bit pixels. This class has no dependency on
+ * the Android framework, which allows the Java filter kernels to be run and profiled on the JVM.
+ *
+ * <p>
+ * A buffer is backed by either:
+ * <ul>
+ *     <li>an {@code int[]} holding ARGB pixels (as returned by {@code Bitmap.getPixels}), in which
+ *     case the stride is measured in <b>pixels</b>; or</li>
+ *     <li>a {@link ByteBuffer} holding RGBA_8888 bytes (as returned by
+ *     {@code Bitmap.copyPixelsToBuffer} or {@code AndroidBitmap_lockPixels}), in which case
+ *     the stride is measured in <b>bytes</b>.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Kernels never need to know which backing is used: {@link #processRows(int, int, RowKernel)}
+ * presents every row to the kernel as ARGB {@code int}s.
+ * </p>
+ */
+public final class PixelBuffer {
+
+    /** Number of bytes used to store a single pixel. */
+    public static final int BYTES_PER_PIXEL = 4;
+
+    private final int width;
+    private final int height;
+    private final int stride;
+
+    private final int[] pixels;
+    private final int offset;
+
+    private final ByteBuffer bytes;
+
+    private PixelBuffer(int width, int height, int stride, int[] pixels, int offset,
+                        ByteBuffer bytes) {
+        this.width = width;
+        this.height = height;
+        this.stride = stride;
+        this.pixels = pixels;
+        this.offset = offset;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Allocates a new array-backed buffer with a stride equal to its width.
+     *
+     * @param width  Width of the buffer in pixels.
+     * @param height Height of the buffer in pixels.
+     *
+     * @return A new, zero-filled {@link PixelBuffer}.
+     */
+    public static PixelBuffer allocate(int width, int height) {
+        checkDimensions(width, height);
+        return new PixelBuffer(width, height, width, new int[width * height], 0, null);
+    }
+
+    /**
+     * Wraps an array of tightly packed ARGB pixels.
+     *
+     * @param pixels The array holding the pixels. Must contain at least {@code width * height} pixels.
+     * @param width  Width of the image in pixels.
+     * @param height Height of the image in pixels.
+     *
+     * @return A {@link PixelBuffer} that reads from and writes to {@code pixels}.
+     */
+    public static PixelBuffer wrap(int[] pixels, int width, int height) {
+        return wrap(pixels, 0, width, height, width);
+    }
+
+    /**
+     * Wraps a region of an array of ARGB pixels.
+     *
+     * @param pixels The array holding the pixels.
+     * @param offset Index of the first pixel of the first row.
+     * @param width  Width of the image in pixels.
+     * @param height Height of the image in pixels.
+     * @param stride Number of pixels between the start of two consecutive rows.
+     *
+     * @return A {@link PixelBuffer} that reads from and writes to {@code pixels}.
+     */
+    public static PixelBuffer wrap(int[] pixels, int offset, int width, int height, int stride) {
+        checkDimensions(width, height);
+        if (stride < width) {
+            throw new IllegalArgumentException("stride (" + stride + ") < width (" + width + ")");
+        }
+        if (height > 0 && (offset < 0
+                || (long) offset + (long) (height - 1) * stride + width > pixels.length)) {
+            throw new IllegalArgumentException("Pixel array is too small for the given dimensions");
+        }
+        return new PixelBuffer(width, height, stride, pixels, offset, null);
+    }
+
+    /**
+     * Wraps a buffer of RGBA_8888 pixel bytes, starting at the buffer's current position.
+     * The buffer may be either heap or direct.
+     *
+     * @param buffer   The buffer holding the pixels.
+     * @param width    Width of the image in pixels.
+     * @param height   Height of the image in pixels.
+     * @param rowBytes Number of bytes between the start of two consecutive rows. Must be a
+     *                 multiple of {@link #BYTES_PER_PIXEL}.
+     *
+     * @return A {@link PixelBuffer} that reads from and writes to {@code buffer}.
+     */
+    public static PixelBuffer wrap(ByteBuffer buffer, int width, int height, int rowBytes) {
+        checkDimensions(width, height);
+        if (rowBytes < width * BYTES_PER_PIXEL || rowBytes % BYTES_PER_PIXEL != 0) {
+            throw new IllegalArgumentException("Invalid rowBytes: " + rowBytes);
+        }
+        if (height > 0
+                && (long) (height - 1) * rowBytes + (long) width * BYTES_PER_PIXEL > buffer.remaining()) {
+            throw new IllegalArgumentException("Byte buffer is too small for the given dimensions");
+        }
+        ByteBuffer slice = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        return new PixelBuffer(width, height, rowBytes, null, 0, slice);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The row stride, in pixels for array-backed buffers and in bytes for
+     * {@link ByteBuffer}-backed buffers.
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * @return {@code true} if this buffer is backed by an accessible {@code int[]}.
+     */
+    public boolean hasArray() {
+        return pixels != null;
+    }
+
+    /**
+     * @return The backing array of ARGB pixels.
+     *
+     * @throws UnsupportedOperationException if this buffer is not array-backed.
+     */
+    public int[] array() {
+        if (pixels == null) {
+            throw new UnsupportedOperationException("PixelBuffer is not backed by an array");
+        }
+        return pixels;
+    }
+
+    /**
+     * @return Index of the first pixel within {@link #array()}.
+     */
+    public int arrayOffset() {
+        return offset;
+    }
+
+    /**
+     * @return The backing buffer of RGBA_8888 bytes, or {@code null} if this buffer is array-backed.
+     */
+    public ByteBuffer byteBuffer() {
+        return bytes;
+    }
+
+    /**
+     * Returns a single pixel. Intended for tests and non-performance-critical code; kernels
+     * should use {@link #processRows(int, int, RowKernel)} instead.
+     *
+     * @return The pixel at ({@code x}, {@code y}) in ARGB format.
+     */
+    public int getPixel(int x, int y) {
+        checkCoordinates(x, y);
+        if (pixels != null) {
+            return pixels[offset + y * stride + x];
+        }
+        return abgrToArgb(bytes.getInt(y * stride + x * BYTES_PER_PIXEL));
+    }
+
+    /**
+     * Sets a single pixel. Intended for tests and non-performance-critical code.
+     *
+     * @param argb The new pixel value in ARGB format.
+     */
+    public void setPixel(int x, int y, int argb) {
+        checkCoordinates(x, y);
+        if (pixels != null) {
+            pixels[offset + y * stride + x] = argb;
+        } else {
+            bytes.putInt(y * stride + x * BYTES_PER_PIXEL, abgrToArgb(argb));
+        }
+    }
+
+    /**
+     * Runs the given kernel over every pixel of the rows in {@code [startRow, endRow)}.
+     * Array-backed buffers are processed in place without any copying. {@link ByteBuffer}-backed
+     * buffers are processed one row at a time through a pooled scratch array (see
+     * {@link PixelArrayPool}), converting between the RGBA_8888 memory layout and ARGB on the way
+     * in and out.
+     *
+     * @param startRow The first row to process (inclusive).
+     * @param endRow   The last row to process (exclusive).
+     * @param kernel   The {@link RowKernel} to run.
+     */
+    public void processRows(int startRow, int endRow, RowKernel kernel) {
+        if (startRow < 0 || endRow > height || startRow > endRow) {
+            throw new IndexOutOfBoundsException("Invalid row range [" + startRow + ", " + endRow + ")");
+        }
+
+        if (pixels != null) {
+            for (int y = startRow; y < endRow; y++) {
+                int rowStart = offset + y * stride;
+                kernel.processRow(pixels, rowStart, rowStart + width);
+            }
+            return;
+        }
+
+        // Each call gets its own view so that concurrent callers do not share buffer positions.
+        IntBuffer ints = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        PixelArrayPool pool = PixelArrayPool.getShared();
+        int[] row = pool.acquire(width);
+        try {
+            processByteRows(ints, startRow, endRow, kernel, row);
+        } finally {
+            pool.release(row);
+        }
+    }
+
+    private void processByteRows(IntBuffer ints, int startRow, int endRow, RowKernel kernel,
+                                 int[] row) {
+        int intStride = stride / BYTES_PER_PIXEL;
+        for (int y = startRow; y < endRow; y++) {
+            int rowStart = y * intStride;
+            ints.position(rowStart);
+            ints.get(row, 0, width);
+            for (int x = 0; x < width; x++) {
+                row[x] = abgrToArgb(row[x]);
+            }
+
+            kernel.processRow(row, 0, width);
+
+            for (int x = 0; x < width; x++) {
+                row[x] = abgrToArgb(row[x]);
+            }
+            ints.position(rowStart);
+            ints.put(row, 0, width);
+        }
+    }
+
+    /**
+     * Swaps the red and blue channels of a packed pixel. Since the swap is its own inverse,
+     * this converts a little-endian RGBA_8888 word (0xAABBGGRR) to ARGB (0xAARRGGBB) and back.
+     */
+    static int abgrToArgb(int pixel) {
+        return (pixel & 0xFF00FF00) | ((pixel >>> 16) & 0xFF) | ((pixel & 0xFF) << 16);
+    }
+
+    private void checkCoordinates(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside of "
+                    + width + "x" + height);
+        }
+    }
+
+    private static void checkDimensions(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Invalid dimensions: " + width + "x" + height);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.rivan.neon.filters.kernels;
+
+/**
+ * Platform-independent Java implementations of the image filters. Every filter is exposed in
+ * two forms:
+ * <ul>
+ *     <li>a {@code xxxKernel} factory returning a {@link RowKernel}, which allows the kernel to be
+ *     scheduled by other code (e.g. over a subset of rows); and</li>
+ *     <li>a convenience method that runs the kernel over a whole {@link PixelBuffer}.</li>
+ * </ul>
+ *
+ * @see com.rivan.neon.filters.JavaFilters
+ */
+public final class PixelKernels {
+
+    /**
+     * Number of pixels processed by every stage of a fused kernel before moving on to the next
+     * tile. 4096 ARGB pixels occupy 16 KiB, which keeps a tile resident in the L1 data cache of
+     * all current Arm cores while the stages run over it.
+     */
+    public static final int FUSED_TILE_PIXELS = 4096;
+
+    private PixelKernels() {}
+
+    /**
+     * Fuses several kernels into one. The returned kernel walks the row in tiles of
+     * {@link #FUSED_TILE_PIXELS} and runs every kernel over a tile before moving on to the next,
+     * so the pixels only travel to and from main memory once regardless of the number of stages.
+     *
+     * @param kernels The kernels to run, in order.
+     *
+     * @return A {@link RowKernel} equivalent to running {@code kernels} one after another.
+     */
+    public static RowKernel fuse(RowKernel... kernels) {
+        if (kernels.length == 1) {
+            return kernels[0];
+        }
+        RowKernel[] stages = kernels.clone();
+        return (pixels, from, to) -> {
+            for (int tileStart = from; tileStart < to; tileStart += FUSED_TILE_PIXELS) {
+                int tileEnd = Math.min(to, tileStart + FUSED_TILE_PIXELS);
+                for (RowKernel stage : stages) {
+                    stage.processRow(pixels, tileStart, tileEnd);
+                }
+            }
+        };
+    }
+
+    /**
+     * Applies the Grayscale filter to every pixel of a buffer.
+     *
+     * @param buffer           The buffer to which the filter will be applied.
+     * @param redCoefficient   Amount of Red value in a pixel.
+     * @param greenCoefficient Amount of Green value in a pixel.
+     * @param blueCoefficient  Amount of Blue value in a pixel.
+     */
+    public static void grayscale(PixelBuffer buffer, float redCoefficient,
+                                 float greenCoefficient, float blueCoefficient) {
+        buffer.processRows(0, buffer.getHeight(),
+                grayscaleKernel(redCoefficient, greenCoefficient, blueCoefficient));
+    }
+
+    public static RowKernel grayscaleKernel(float redCoefficient, float greenCoefficient,
+                                            float blueCoefficient) {
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+
+                int alpha = pixel >>> 24;
+                int red = (pixel >> 16) & 0xFF;
+                int green = (pixel >> 8) & 0xFF;
+                int blue = pixel & 0xFF;
+
+                int gray = (int) (redCoefficient * red + greenCoefficient * green
+                        + blueCoefficient * blue);
+
+                gray = clamp(gray);
+
+                pixels[i] = argb(alpha, gray, gray, gray);
+            }
+        };
+    }
+
+    /**
+     * Applies the Invert filter to every pixel of a buffer.
+     *
+     * @param buffer The buffer to which the filter will be applied.
+     */
+    public static void invert(PixelBuffer buffer) {
+        buffer.processRows(0, buffer.getHeight(), invertKernel());
+    }
+
+    public static RowKernel invertKernel() {
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+
+                int alpha = pixel >>> 24;
+                int red = (pixel >> 16) & 0xFF;
+                int green = (pixel >> 8) & 0xFF;
+                int blue = pixel & 0xFF;
+
+                pixels[i] = argb(alpha, 255 - red, 255 - green, 255 - blue);
+            }
+        };
+    }
+
+    /**
+     * Applies the Brightness filter to every pixel of a buffer.
+     *
+     * @param buffer     The buffer to which the filter will be applied.
+     * @param brightness Amount of brightness to be decreased or increased.
+     */
+    public static void brightness(PixelBuffer buffer, int brightness) {
+        buffer.processRows(0, buffer.getHeight(), brightnessKernel(brightness));
+    }
+
+    public static RowKernel brightnessKernel(int brightness) {
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+
+                int alpha = pixel >>> 24;
+                int red = clamp(((pixel >> 16) & 0xFF) + brightness);
+                int green = clamp(((pixel >> 8) & 0xFF) + brightness);
+                int blue = clamp((pixel & 0xFF) + brightness);
+
+                pixels[i] = argb(alpha, red, green, blue);
+            }
+        };
+    }
+
+    /**
+     * Applies the Contrast filter to every pixel of a buffer.
+     *
+     * @param buffer   The buffer to which the filter will be applied.
+     * @param contrast Amount of contrast to be decreased or increased.
+     */
+    public static void contrast(PixelBuffer buffer, float contrast) {
+        buffer.processRows(0, buffer.getHeight(), contrastKernel(contrast));
+    }
+
+    public static RowKernel contrastKernel(float contrast) {
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+
+                int alpha = pixel >>> 24;
+                int red = clamp((int) ((((pixel >> 16) & 0xFF) - 128) * contrast + 128));
+                int green = clamp((int) ((((pixel >> 8) & 0xFF) - 128) * contrast + 128));
+                int blue = clamp((int) (((pixel & 0xFF) - 128) * contrast + 128));
+
+                pixels[i] = argb(alpha, red, green, blue);
+            }
+        };
+    }
+
+    /**
+     * Applies the Sepia filter to every pixel of a buffer.
+     *
+     * @param buffer The buffer to which the filter will be applied.
+     */
+    public static void sepia(PixelBuffer buffer) {
+        buffer.processRows(0, buffer.getHeight(), sepiaKernel());
+    }
+
+    public static RowKernel sepiaKernel() {
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+
+                int alpha = pixel >>> 24;
+                int red = (pixel >> 16) & 0xFF;
+                int green = (pixel >> 8) & 0xFF;
+                int blue = pixel & 0xFF;
+
+                double sepiaRed = (red * 0.393) + (green * 0.769) + (blue * 0.189);
+                double sepiaGreen = (red * 0.349) + (green * 0.686) + (blue * 0.168);
+                double sepiaBlue = (red * 0.272) + (green * 0.534) + (blue * 0.131);
+
+                pixels[i] = argb(alpha, (int) clamp(sepiaRed), (int) clamp(sepiaGreen),
+                        (int) clamp(sepiaBlue));
+            }
+        };
+    }
+
+    /**
+     * Applies a per-channel lookup table to every pixel of a buffer.
+     *
+     * @param buffer The buffer to which the table will be applied.
+     * @param lut    The {@link ChannelLut} to apply.
+     */
+    public static void lut(PixelBuffer buffer, ChannelLut lut) {
+        buffer.processRows(0, buffer.getHeight(), lut.kernel());
+    }
+
+    /**
+     * Applies a color matrix to every pixel of a buffer.
+     *
+     * @param buffer The buffer to which the matrix will be applied.
+     * @param matrix The {@link ColorMatrix} to apply.
+     */
+    public static void colorMatrix(PixelBuffer buffer, ColorMatrix matrix) {
+        buffer.processRows(0, buffer.getHeight(), matrix.kernel());
+    }
+
+    /**
+     * Returns a kernel that multiplies the colors of every pixel by its alpha, rounding like
+     * Skia and {@code histogram.c}. Neighborhood filters must run on premultiplied colors, as the
+     * native filters do, so that the colors of transparent pixels do not bleed into their
+     * neighbours.
+     *
+     * @see #unpremultiplyKernel()
+     */
+    public static RowKernel premultiplyKernel() {
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+                int alpha = pixel >>> 24;
+                if (alpha == 255) {
+                    continue;
+                }
+
+                pixels[i] = argb(alpha, premultiply((pixel >> 16) & 0xFF, alpha),
+                        premultiply((pixel >> 8) & 0xFF, alpha), premultiply(pixel & 0xFF, alpha));
+            }
+        };
+    }
+
+    /**
+     * Returns the inverse of {@link #premultiplyKernel()}. Colors above the alpha of their pixel,
+     * which sharpening can produce, saturate at 255, and fully transparent pixels become
+     * transparent black.
+     */
+    public static RowKernel unpremultiplyKernel() {
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+                int alpha = pixel >>> 24;
+                if (alpha == 255) {
+                    continue;
+                }
+
+                pixels[i] = argb(alpha, unpremultiply((pixel >> 16) & 0xFF, alpha),
+                        unpremultiply((pixel >> 8) & 0xFF, alpha),
+                        unpremultiply(pixel & 0xFF, alpha));
+            }
+        };
+    }
+
+    /** value * alpha / 255, rounded to nearest. */
+    static int premultiply(int value, int alpha) {
+        int product = value * alpha + 128;
+        return (product + (product >> 8)) >> 8;
+    }
+
+    /** value * 255 / alpha, rounded to nearest and saturated, or 0 if alpha is 0. */
+    static int unpremultiply(int value, int alpha) {
+        if (alpha == 0) {
+            return 0;
+        }
+        return Math.min(255, (value * 255 + alpha / 2) / alpha);
+    }
+
+    static int argb(int alpha, int red, int green, int blue) {
+        return (alpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    static double clamp(double value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,260 @@
+package com.rivan.neon.filters.kernels;
+
+import java.util.Arrays;
+
+/**
+ * Resampling of ARGB pixels to another size, the Java counterpart of the native
+ * {@code resize.c}. All four channels are treated alike.
+ *
+ * <p>
+ * Images are resized separably: every column is first resampled to the new height, then every
+ * row to the new width. Along each axis, every output pixel is a weighted sum of a few
+ * consecutive input pixels, its taps. {@link Method#AREA} averages the area that each output
+ * pixel covers, so that every input pixel contributes and fine detail does not alias, and
+ * {@link Method#BILINEAR} interpolates between the two nearest pixels, which is sharper for small
+ * factors and for upscaling. Weights are in 1.14 fixed point and computed with integers only,
+ * exactly as the native implementation computes them.
+ * </p>
+ *
+ * <p>
+ * Both passes run on bands of output rows, split across threads with
+ * {@link ParallelRows#forEachBand}.
+ * </p>
+ */
+public final class Resampler {
+
+    /**
+     * Resampling methods. The ordinals must match the {@code RESIZE_*} constants of
+     * {@code resize.h}.
+     */
+    public enum Method {
+        /** {@link #AREA} from a factor of 2, {@link #BILINEAR} otherwise, along each axis. */
+        AUTO,
+        BILINEAR,
+        /** Area average when downscaling, {@link #BILINEAR} when upscaling. */
+        AREA
+    }
+
+    /** Fractional bits of the weights. */
+    public static final int WEIGHT_BITS = 14;
+
+    private static final int WEIGHT_ONE = 1 << WEIGHT_BITS;
+    private static final int WEIGHT_HALF = 1 << (WEIGHT_BITS - 1);
+
+    private Resampler() {}
+
+    /**
+     * @return The method used to resize an axis from {@code srcSize} to {@code dstSize} pixels,
+     * {@link Method#BILINEAR} or {@link Method#AREA}.
+     */
+    public static Method effectiveMethod(int srcSize, int dstSize, Method method) {
+        if (method == Method.AUTO) {
+            return srcSize >= 2L * dstSize ? Method.AREA : Method.BILINEAR;
+        }
+        if (method == Method.AREA && srcSize <= dstSize) {
+            return Method.BILINEAR;
+        }
+        return method;
+    }
+
+    /**
+     * Resizes an image on up to {@code parallelism} threads.
+     *
+     * @param src         The pixels to read, {@code srcWidth} per row.
+     * @param dst         Receives the {@code dstWidth * dstHeight} resized pixels.
+     * @param parallelism Maximum number of row bands to process concurrently, or
+     *                    {@link ParallelRows#PARALLELISM_AUTO}.
+     * @param minBandRows Minimum number of rows in a band.
+     */
+    public static void resize(int[] src, int srcWidth, int srcHeight, int[] dst, int dstWidth,
+                              int dstHeight, Method method, int parallelism, int minBandRows) {
+        if (srcWidth <= 0 || srcHeight <= 0 || dstWidth <= 0 || dstHeight <= 0) {
+            throw new IllegalArgumentException("Cannot resize " + srcWidth + "x" + srcHeight
+                    + " to " + dstWidth + "x" + dstHeight);
+        }
+        Taps horizontal = Taps.of(srcWidth, dstWidth, method);
+        Taps vertical = Taps.of(srcHeight, dstHeight, method);
+
+        int[] middle = new int[srcWidth * dstHeight];
+        ParallelRows.forEachBand(dstHeight, parallelism, minBandRows, (startRow, endRow) ->
+                resizeColumns(src, middle, srcWidth, startRow, endRow, vertical));
+        ParallelRows.forEachBand(dstHeight, parallelism, minBandRows, (startRow, endRow) ->
+                resizeRows(middle, srcWidth, dst, startRow, endRow, horizontal));
+    }
+
+    /**
+     * Computes rows {@code [startRow, endRow)} of {@code dst} from the rows of {@code src}
+     * selected by the taps. Both images are {@code width} pixels wide.
+     */
+    static void resizeColumns(int[] src, int[] dst, int width, int startRow, int endRow,
+                              Taps taps) {
+        int count = taps.count;
+        int[] sums = new int[4 * width];
+        for (int y = startRow; y < endRow; y++) {
+            Arrays.fill(sums, WEIGHT_HALF);
+            int first = taps.first[y];
+            for (int t = 0; t < count; t++) {
+                int weight = taps.weights[y * count + t];
+                if (weight == 0) {
+                    continue;
+                }
+                // Every input row is read sequentially.
+                int offset = (first + t) * width;
+                for (int x = 0; x < width; x++) {
+                    int pixel = src[offset + x];
+                    sums[4 * x] += weight * ((pixel >>> 24) & 0xFF);
+                    sums[4 * x + 1] += weight * ((pixel >> 16) & 0xFF);
+                    sums[4 * x + 2] += weight * ((pixel >> 8) & 0xFF);
+                    sums[4 * x + 3] += weight * (pixel & 0xFF);
+                }
+            }
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                dst[offset + x] = pack(sums[4 * x], sums[4 * x + 1], sums[4 * x + 2],
+                        sums[4 * x + 3]);
+            }
+        }
+    }
+
+    /**
+     * Resamples rows {@code [startRow, endRow)} of {@code src}, {@code srcWidth} pixels wide, to
+     * the width of the taps, into the same rows of {@code dst}.
+     */
+    static void resizeRows(int[] src, int srcWidth, int[] dst, int startRow, int endRow,
+                           Taps taps) {
+        int count = taps.count;
+        int dstWidth = taps.first.length;
+        for (int y = startRow; y < endRow; y++) {
+            int in = y * srcWidth;
+            int out = y * dstWidth;
+            for (int x = 0; x < dstWidth; x++) {
+                int a = WEIGHT_HALF;
+                int r = WEIGHT_HALF;
+                int g = WEIGHT_HALF;
+                int b = WEIGHT_HALF;
+                int pixelIndex = in + taps.first[x];
+                int weightIndex = x * count;
+                for (int t = 0; t < count; t++) {
+                    int pixel = src[pixelIndex + t];
+                    int weight = taps.weights[weightIndex + t];
+                    a += weight * ((pixel >>> 24) & 0xFF);
+                    r += weight * ((pixel >> 16) & 0xFF);
+                    g += weight * ((pixel >> 8) & 0xFF);
+                    b += weight * (pixel & 0xFF);
+                }
+                dst[out + x] = pack(a, r, g, b);
+            }
+        }
+    }
+
+    /**
+     * Packs sums of channels weighted in 1.14 fixed point, rounding included. The weights add
+     * up to 1.0, so every channel fits in 8 bits.
+     */
+    private static int pack(int a, int r, int g, int b) {
+        return ((a >> WEIGHT_BITS) << 24) | ((r >> WEIGHT_BITS) << 16)
+                | ((g >> WEIGHT_BITS) << 8) | (b >> WEIGHT_BITS);
+    }
+
+    /**
+     * The taps of every output pixel along one axis. Every output pixel has the same number of
+     * taps, some of them with a weight of 0, and its weights add up to {@code 1 << WEIGHT_BITS}.
+     */
+    static final class Taps {
+
+        /** Number of taps of every output pixel. */
+        final int count;
+
+        /** Index of the first input pixel of every output pixel. */
+        final int[] first;
+
+        /** {@link #count} weights per output pixel. */
+        final int[] weights;
+
+        private Taps(int count, int[] first, int[] weights) {
+            this.count = count;
+            this.first = first;
+            this.weights = weights;
+        }
+
+        /**
+         * Computes the taps to resize an axis from {@code srcSize} to {@code dstSize} pixels.
+         */
+        static Taps of(int srcSize, int dstSize, Method method) {
+            boolean area = effectiveMethod(srcSize, dstSize, method) == Method.AREA;
+            // An area of srcSize / dstSize pixels overlaps one more pixel unless it is a whole
+            // number.
+            int count = area ? srcSize / dstSize + (srcSize % dstSize == 0 ? 0 : 2) : 2;
+            count = Math.min(count, srcSize);
+
+            int[] first = new int[dstSize];
+            int[] weights = new int[dstSize * count];
+            int[] pixelWeights = new int[count + 1];
+            for (int x = 0; x < dstSize; x++) {
+                Arrays.fill(pixelWeights, 0);
+                int start = area ? areaTaps(x, srcSize, dstSize, pixelWeights)
+                        : bilinearTaps(x, srcSize, dstSize, pixelWeights);
+
+                // Rounding may leave the sum a little off; the largest weight absorbs the
+                // difference.
+                int sum = 0;
+                int largest = 0;
+                for (int t = 0; t <= count; t++) {
+                    sum += pixelWeights[t];
+                    largest = pixelWeights[t] > pixelWeights[largest] ? t : largest;
+                }
+                pixelWeights[largest] += WEIGHT_ONE - sum;
+
+                // Every output pixel reads 'count' pixels, so the last ones start earlier.
+                first[x] = start + count > srcSize ? srcSize - count : start;
+                for (int t = 0; t <= count; t++) {
+                    if (pixelWeights[t] != 0) {
+                        weights[x * count + start + t - first[x]] = pixelWeights[t];
+                    }
+                }
+            }
+            return new Taps(count, first, weights);
+        }
+
+        private static int areaTaps(int x, int srcSize, int dstSize, int[] weights) {
+            // Positions are in units of 1 / dstSize input pixels, so that output pixel x covers
+            // [x * srcSize, (x + 1) * srcSize) exactly.
+            long low = (long) x * srcSize;
+            long high = low + srcSize;
+            int start = (int) (low / dstSize);
+            int end = (int) ((high + dstSize - 1) / dstSize);
+            for (int i = start; i < end; i++) {
+                long from = Math.max((long) i * dstSize, low);
+                long to = Math.min((long) (i + 1) * dstSize, high);
+                weights[i - start] = weightOf(to - from, srcSize);
+            }
+            return start;
+        }
+
+        private static int bilinearTaps(int x, int srcSize, int dstSize, int[] weights) {
+            // The center of output pixel x, in units of 1 / (2 * dstSize) input pixels.
+            long center = (long) (2 * x + 1) * srcSize - dstSize;
+            long unit = 2L * dstSize;
+            if (center <= 0) {
+                weights[0] = WEIGHT_ONE;
+                return 0;
+            }
+            int start = (int) (center / unit);
+            if (start >= srcSize - 1) {
+                weights[0] = WEIGHT_ONE;
+                return srcSize - 1;
+            }
+            int next = weightOf(center % unit, unit);
+            weights[0] = WEIGHT_ONE - next;
+            weights[1] = next;
+            return start;
+        }
+
+        /**
+         * @return {@code numerator / denominator} in 1.14 fixed point, rounded.
+         */
+        private static int weightOf(long numerator, long denominator) {
+            return (int) ((numerator * WEIGHT_ONE + denominator / 2) / denominator);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.rivan.neon.filters.kernels;
+
+/**
+ * A pointwise operation that is applied to a contiguous run of pixels within a single row.
+ * Pixels are always presented as packed ARGB {@code int}s (the same layout used by
+ * {@code android.graphics.Color}), regardless of how the backing {@link PixelBuffer} stores them.
+ *
+ * @see PixelBuffer#processRows(int, int, RowKernel)
+ */
+public interface RowKernel {
+
+    /**
+     * Processes the pixels in the range {@code [from, to)} of the given array in place.
+     *
+     * @param pixels The array holding the row's pixels in ARGB format.
+     * @param from   Index of the first pixel to process (inclusive).
+     * @param to     Index of the last pixel to process (exclusive).
+     */
+    void processRow(int[] pixels, int from, int to);
+}
@@ -0,0 +1,171 @@
+package com.rivan.neon.filters.kernels;
+
+/**
+ * SIMD-within-a-register (SWAR) variants of the Invert and Brightness kernels. Instead of
+ * unpacking every pixel into four channels and packing it again, these kernels operate on all the
+ * color channels of a pixel at once with masked integer arithmetic. The {@code long} variants go
+ * one step further and process two pixels per operation.
+ *
+ * <p>
+ * Saturating addition works by spreading the channels into 16-bit lanes, two per {@code int}
+ * (red and blue, or alpha and green), so that every lane has spare bits above its 8 value bits.
+ * Adding a constant of at most 255 to a lane never carries into the next lane, and bit 8 of a
+ * lane is set exactly when the lane overflowed. That bit is then turned into a mask of
+ * {@code 0xFF} that saturates the lane. Subtraction works the same way with a guard bit set above
+ * every lane: the guard bit survives exactly when the lane did not underflow.
+ * </p>
+ *
+ * <p>
+ * The results are bit-exact with the corresponding kernels in {@link PixelKernels}. Alpha is
+ * never modified.
+ * </p>
+ */
+public final class SwarKernels {
+
+    /** Low byte of every 16-bit lane of an {@code int}. */
+    private static final int LANES = 0x00FF00FF;
+    /** Bit 8 of every 16-bit lane of an {@code int}. */
+    private static final int GUARDS = 0x01000100;
+
+    /** Low byte of every 16-bit lane of a {@code long}. */
+    private static final long LONG_LANES = 0x00FF00FF00FF00FFL;
+    /** Bit 8 of every 16-bit lane of a {@code long}. */
+    private static final long LONG_GUARDS = 0x0100010001000100L;
+
+    private SwarKernels() {}
+
+    /**
+     * Inverts the color channels of a pixel with a single XOR.
+     */
+    public static RowKernel invertKernel() {
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                pixels[i] ^= 0x00FFFFFF;
+            }
+        };
+    }
+
+    /**
+     * Inverts the color channels of two pixels per XOR.
+     */
+    public static RowKernel invertKernelLong() {
+        return (pixels, from, to) -> {
+            int end = from + ((to - from) & ~1);
+            for (int i = from; i < end; i += 2) {
+                long pair = pack(pixels[i], pixels[i + 1]) ^ 0x00FFFFFF00FFFFFFL;
+                pixels[i] = (int) pair;
+                pixels[i + 1] = (int) (pair >>> 32);
+            }
+            if (end < to) {
+                pixels[end] ^= 0x00FFFFFF;
+            }
+        };
+    }
+
+    /**
+     * Adds a constant to the color channels of a pixel with saturation, one pixel at a time.
+     *
+     * @param brightness Amount added to every color channel. Values outside of [-255, 255]
+     *                   saturate every channel.
+     */
+    public static RowKernel brightnessKernel(int brightness) {
+        if (brightness == 0) {
+            return (pixels, from, to) -> {};
+        }
+
+        final int amount = Math.min(255, Math.abs(brightness));
+        // Red and blue lanes, and the green lane (the alpha lane is left alone).
+        final int rbAmount = amount * 0x00010001;
+        final int gAmount = amount;
+
+        if (brightness > 0) {
+            return (pixels, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int pixel = pixels[i];
+                    int rb = addSaturate(pixel & LANES, rbAmount);
+                    int ag = addSaturate((pixel >>> 8) & LANES, gAmount);
+                    pixels[i] = rb | (ag << 8);
+                }
+            };
+        }
+        return (pixels, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int pixel = pixels[i];
+                int rb = subtractSaturate(pixel & LANES, rbAmount);
+                int ag = subtractSaturate((pixel >>> 8) & LANES, gAmount);
+                pixels[i] = rb | (ag << 8);
+            }
+        };
+    }
+
+    /**
+     * Adds a constant to the color channels of two pixels at a time, with saturation.
+     *
+     * @see #brightnessKernel(int)
+     */
+    public static RowKernel brightnessKernelLong(int brightness) {
+        if (brightness == 0) {
+            return (pixels, from, to) -> {};
+        }
+
+        final RowKernel tail = brightnessKernel(brightness);
+        final long amount = Math.min(255, Math.abs(brightness));
+        // After spreading, the lanes of a pair are (from the bottom) B0, R0, B1, R1 for the
+        // red/blue half and G0, A0, G1, A1 for the alpha/green half.
+        final long rbAmount = amount * 0x0001000100010001L;
+        final long gAmount = amount * 0x0000000100000001L;
+        final boolean add = brightness > 0;
+
+        return (pixels, from, to) -> {
+            int end = from + ((to - from) & ~1);
+            for (int i = from; i < end; i += 2) {
+                long pair = pack(pixels[i], pixels[i + 1]);
+                long rb = pair & LONG_LANES;
+                long ag = (pair >>> 8) & LONG_LANES;
+                if (add) {
+                    rb = addSaturate(rb, rbAmount);
+                    ag = addSaturate(ag, gAmount);
+                } else {
+                    rb = subtractSaturate(rb, rbAmount);
+                    ag = subtractSaturate(ag, gAmount);
+                }
+                pair = rb | (ag << 8);
+                pixels[i] = (int) pair;
+                pixels[i + 1] = (int) (pair >>> 32);
+            }
+            if (end < to) {
+                tail.processRow(pixels, end, to);
+            }
+        };
+    }
+
+    private static long pack(int low, int high) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    private static int addSaturate(int lanes, int amount) {
+        int sum = lanes + amount;
+        int overflow = sum & GUARDS;
+        // 0x100 - 0x1 = 0xFF for every lane that overflowed.
+        return (sum | (overflow - (overflow >>> 8))) & LANES;
+    }
+
+    private static int subtractSaturate(int lanes, int amount) {
+        int difference = (lanes | GUARDS) - amount;
+        int guards = difference & GUARDS;
+        // Lanes that underflowed lost their guard bit and are cleared to 0.
+        return difference & (guards - (guards >>> 8));
+    }
+
+    private static long addSaturate(long lanes, long amount) {
+        long sum = lanes + amount;
+        long overflow = sum & LONG_GUARDS;
+        return (sum | (overflow - (overflow >>> 8))) & LONG_LANES;
+    }
+
+    private static long subtractSaturate(long lanes, long amount) {
+        long difference = (lanes | LONG_GUARDS) - amount;
+        long guards = difference & LONG_GUARDS;
+        return difference & (guards - (guards >>> 8));
+    }
+}
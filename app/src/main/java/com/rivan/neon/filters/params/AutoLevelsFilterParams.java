@@ -0,0 +1,62 @@
+package com.rivan.neon.filters.params;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+
+import java.util.Objects;
+
+/**
+ * Parameters that can be adjusted for the Auto Levels filter.
+ *
+ * @see com.rivan.neon.FilterParams
+ */
+public class AutoLevelsFilterParams implements FilterParams {
+
+    /**
+     * Percentage of the darkest and of the brightest pixels of every channel that are clipped
+     * to black and white, so that a few outliers do not prevent the stretch.
+     */
+    public static final float DEFAULT_CLIP_PERCENT = 0.5f;
+
+    public static final float MIN_CLIP_PERCENT = 0.0f;
+    public static final float MAX_CLIP_PERCENT = 5.0f;
+
+    private float clipPercent;
+
+    public AutoLevelsFilterParams() {
+        clipPercent = DEFAULT_CLIP_PERCENT;
+    }
+
+    public float getClipPercent() {
+        return clipPercent;
+    }
+
+    public void setClipPercent(float clipPercent) {
+        this.clipPercent = clipPercent;
+    }
+
+    @Override
+    public Filter getFilterType() {
+        return Filter.AUTO_LEVELS;
+    }
+
+    @Override
+    public FilterParams copy() {
+        AutoLevelsFilterParams copy = new AutoLevelsFilterParams();
+        copy.setClipPercent(clipPercent);
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AutoLevelsFilterParams that = (AutoLevelsFilterParams) o;
+        return Float.compare(clipPercent, that.clipPercent) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(clipPercent);
+    }
+}
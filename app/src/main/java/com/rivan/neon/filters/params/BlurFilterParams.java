@@ -0,0 +1,118 @@
+package com.rivan.neon.filters.params;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.filters.kernels.Convolution;
+
+import java.util.Objects;
+
+/**
+ * Parameters that can be adjusted for the Blur filter.
+ *
+ * @see com.rivan.neon.FilterParams
+ */
+public class BlurFilterParams implements FilterParams {
+
+    /**
+     * How the blur is computed.
+     */
+    public enum Mode {
+        /** {@link #GAUSSIAN} up to {@link #MAX_GAUSSIAN_RADIUS}, {@link #STACKED_BOX} above. */
+        AUTO,
+        /** A Gaussian convolution, which costs {@code O(radius)} per pixel. */
+        GAUSSIAN,
+        /** A single box pass, which costs the same per pixel whatever the radius. */
+        BOX,
+        /**
+         * Three box passes approximating the Gaussian, which cost the same per pixel whatever
+         * the radius.
+         */
+        STACKED_BOX
+    }
+
+    public static final int DEFAULT_RADIUS = 8;
+
+    public static final int MIN_RADIUS = 0;
+    public static final int MAX_RADIUS = 200;
+
+    /** Largest radius for which {@link Mode#AUTO} convolves with a Gaussian. */
+    public static final int MAX_GAUSSIAN_RADIUS = 25;
+
+    public static final Convolution.EdgeMode DEFAULT_EDGE_MODE = Convolution.EdgeMode.CLAMP;
+
+    public static final Mode DEFAULT_MODE = Mode.AUTO;
+
+    private int radius;
+
+    private Convolution.EdgeMode edgeMode;
+
+    private Mode mode;
+
+    public BlurFilterParams() {
+        radius = DEFAULT_RADIUS;
+        edgeMode = DEFAULT_EDGE_MODE;
+        mode = DEFAULT_MODE;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public void setRadius(int radius) {
+        this.radius = radius;
+    }
+
+    public Convolution.EdgeMode getEdgeMode() {
+        return edgeMode;
+    }
+
+    public void setEdgeMode(Convolution.EdgeMode edgeMode) {
+        this.edgeMode = edgeMode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @return The mode used for the current radius: {@link #getMode()}, with {@link Mode#AUTO}
+     * resolved.
+     */
+    public Mode getEffectiveMode() {
+        if (mode != Mode.AUTO) {
+            return mode;
+        }
+        return radius <= MAX_GAUSSIAN_RADIUS ? Mode.GAUSSIAN : Mode.STACKED_BOX;
+    }
+
+    @Override
+    public Filter getFilterType() {
+        return Filter.BLUR;
+    }
+
+    @Override
+    public FilterParams copy() {
+        BlurFilterParams copy = new BlurFilterParams();
+        copy.setRadius(radius);
+        copy.setEdgeMode(edgeMode);
+        copy.setMode(mode);
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BlurFilterParams that = (BlurFilterParams) o;
+        return radius == that.radius && edgeMode == that.edgeMode && mode == that.mode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(radius, edgeMode, mode);
+    }
+}
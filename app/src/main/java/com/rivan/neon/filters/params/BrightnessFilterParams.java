@@ -3,6 +3,8 @@ package com.rivan.neon.filters.params;
 import com.rivan.neon.Filter;
 import com.rivan.neon.FilterParams;
 
+import java.util.Objects;
+
 /**
  * Parameters that can be adjusted for the Brightness filter.
  *
@@ -40,4 +42,17 @@ public class BrightnessFilterParams implements FilterParams {
         copy.setBrightness(brightness);
         return copy;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BrightnessFilterParams that = (BrightnessFilterParams) o;
+        return brightness == that.brightness;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(brightness);
+    }
 }
@@ -3,6 +3,8 @@ package com.rivan.neon.filters.params;
 import com.rivan.neon.Filter;
 import com.rivan.neon.FilterParams;
 
+import java.util.Objects;
+
 /**
  * Parameters that can be adjusted for the Contrast filter.
  *
@@ -40,4 +42,17 @@ public class ContrastFilterParams implements FilterParams {
         copy.setContrast(contrast);
         return copy;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ContrastFilterParams that = (ContrastFilterParams) o;
+        return Float.compare(contrast, that.contrast) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(contrast);
+    }
 }
@@ -0,0 +1,59 @@
+package com.rivan.neon.filters.params;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+
+import java.util.Objects;
+
+/**
+ * Parameters that can be adjusted for the Equalize filter.
+ *
+ * @see com.rivan.neon.FilterParams
+ */
+public class EqualizeFilterParams implements FilterParams {
+
+    /** How much of the equalized image is blended with the original one. */
+    public static final float DEFAULT_AMOUNT = 1.0f;
+
+    public static final float MIN_AMOUNT = 0.0f;
+    public static final float MAX_AMOUNT = 1.0f;
+
+    private float amount;
+
+    public EqualizeFilterParams() {
+        amount = DEFAULT_AMOUNT;
+    }
+
+    public float getAmount() {
+        return amount;
+    }
+
+    public void setAmount(float amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public Filter getFilterType() {
+        return Filter.EQUALIZE;
+    }
+
+    @Override
+    public FilterParams copy() {
+        EqualizeFilterParams copy = new EqualizeFilterParams();
+        copy.setAmount(amount);
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EqualizeFilterParams that = (EqualizeFilterParams) o;
+        return Float.compare(amount, that.amount) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(amount);
+    }
+}
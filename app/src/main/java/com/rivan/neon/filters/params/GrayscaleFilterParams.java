@@ -3,6 +3,8 @@ package com.rivan.neon.filters.params;
 import com.rivan.neon.Filter;
 import com.rivan.neon.FilterParams;
 
+import java.util.Objects;
+
 /**
  * Parameters that can be adjusted for the Grayscale filter.
  *
@@ -64,4 +66,19 @@ public class GrayscaleFilterParams implements FilterParams {
         copy.setBlueCoefficient(blueCoefficient);
         return copy;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GrayscaleFilterParams that = (GrayscaleFilterParams) o;
+        return Float.compare(redCoefficient, that.redCoefficient) == 0
+                && Float.compare(greenCoefficient, that.greenCoefficient) == 0
+                && Float.compare(blueCoefficient, that.blueCoefficient) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(redCoefficient, greenCoefficient, blueCoefficient);
+    }
 }
@@ -0,0 +1,92 @@
+package com.rivan.neon.filters.params;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.filters.kernels.Convolution;
+
+import java.util.Objects;
+
+/**
+ * Parameters that can be adjusted for the Sharpen filter, an unsharp mask.
+ *
+ * @see com.rivan.neon.FilterParams
+ */
+public class SharpenFilterParams implements FilterParams {
+
+    public static final float DEFAULT_AMOUNT = 1.0f;
+
+    public static final float MIN_AMOUNT = 0.0f;
+    public static final float MAX_AMOUNT = 3.0f;
+
+    public static final int DEFAULT_RADIUS = 2;
+
+    public static final int MIN_RADIUS = 1;
+    public static final int MAX_RADIUS = 10;
+
+    public static final Convolution.EdgeMode DEFAULT_EDGE_MODE = Convolution.EdgeMode.CLAMP;
+
+    private float amount;
+
+    private int radius;
+
+    private Convolution.EdgeMode edgeMode;
+
+    public SharpenFilterParams() {
+        amount = DEFAULT_AMOUNT;
+        radius = DEFAULT_RADIUS;
+        edgeMode = DEFAULT_EDGE_MODE;
+    }
+
+    public float getAmount() {
+        return amount;
+    }
+
+    public void setAmount(float amount) {
+        this.amount = amount;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public void setRadius(int radius) {
+        this.radius = radius;
+    }
+
+    public Convolution.EdgeMode getEdgeMode() {
+        return edgeMode;
+    }
+
+    public void setEdgeMode(Convolution.EdgeMode edgeMode) {
+        this.edgeMode = edgeMode;
+    }
+
+    @Override
+    public Filter getFilterType() {
+        return Filter.SHARPEN;
+    }
+
+    @Override
+    public FilterParams copy() {
+        SharpenFilterParams copy = new SharpenFilterParams();
+        copy.setAmount(amount);
+        copy.setRadius(radius);
+        copy.setEdgeMode(edgeMode);
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SharpenFilterParams that = (SharpenFilterParams) o;
+        return Float.compare(amount, that.amount) == 0
+                && radius == that.radius
+                && edgeMode == that.edgeMode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(amount, radius, edgeMode);
+    }
+}
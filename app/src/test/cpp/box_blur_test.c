@@ -0,0 +1,194 @@
+// Host test driver for the box blur passes (box_blur.h).
+//
+// Checks stacked horizontal and vertical box passes, with every edge mode and radii larger than
+// the image, against a straightforward windowed average, then measures the throughput of a
+// three-pass box blur for a range of radii, which should not depend on the radius. Built by the
+// host (non-Android) configuration of app/src/main/cpp/CMakeLists.txt:
+//
+//     build/native/box_blur_test [width height iterations]
+//
+// Exits with a non-zero status if any result does not match the reference.
+
+#include "test_util.h"
+
+#include "box_blur.h"
+#include "convolution.h"
+
+#include <math.h>
+#include <stddef.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+#define PASSES 3
+
+// One box pass, horizontal if dx is 1 and vertical if dy is 1, rounding half up like the passes.
+static void referencePass(const uint8_t* src, uint8_t* dst, uint32_t width, uint32_t height,
+                          uint32_t radius, int horizontal, int edgeMode) {
+    uint32_t size = 2 * radius + 1;
+    for (uint32_t y = 0; y < height; y++) {
+        for (uint32_t x = 0; x < width; x++) {
+            for (int c = 0; c < 4; c++) {
+                uint32_t sum = 0;
+                for (int32_t k = -(int32_t) radius; k <= (int32_t) radius; k++) {
+                    int32_t sx = horizontal ? convolution_edge_index((int32_t) x + k,
+                                                                     (int32_t) width, edgeMode)
+                            : (int32_t) x;
+                    int32_t sy = horizontal ? (int32_t) y
+                            : convolution_edge_index((int32_t) y + k, (int32_t) height,
+                                                     edgeMode);
+                    sum += src[((size_t) sy * width + sx) * 4 + c];
+                }
+                dst[((size_t) y * width + x) * 4 + c] = (uint8_t) ((2 * sum + size) / (2 * size));
+            }
+        }
+    }
+}
+
+// Runs the passes like the native filter: every horizontal pass on two bands of rows, in place,
+// then the vertical passes on two strips of columns, alternating between two images.
+static int run(uint8_t* image, uint8_t* scratch, uint32_t stride, uint32_t width,
+               uint32_t height, const uint32_t* radii, int edgeMode) {
+    uint32_t split = height / 2;
+    if (box_blur_rows(image, stride, image, stride, width, 0, split, radii, PASSES, edgeMode) != 0
+            || box_blur_rows(image, stride, image, stride, width, split, height, radii, PASSES,
+                             edgeMode) != 0) {
+        return -1;
+    }
+
+    uint8_t* in = image;
+    uint8_t* out = scratch;
+    uint32_t columnSplit = width / 2;
+    for (int p = 0; p < PASSES; p++) {
+        if (box_blur_columns(in, stride, out, stride, height, 0, columnSplit, radii[p],
+                             edgeMode) != 0
+                || box_blur_columns(in, stride, out, stride, height, columnSplit, width,
+                                    radii[p], edgeMode) != 0) {
+            return -1;
+        }
+        uint8_t* swap = in;
+        in = out;
+        out = swap;
+    }
+    if (in != image) {
+        for (uint32_t y = 0; y < height; y++) {
+            memcpy(image + (size_t) y * stride, in + (size_t) y * stride, (size_t) width * 4);
+        }
+    }
+    return 0;
+}
+
+static int check(const uint32_t* radii, uint32_t width, uint32_t height, int edgeMode) {
+    static const char* EDGE_NAMES[] = {"clamp", "reflect", "wrap"};
+    uint32_t stride = width * 4 + ROW_PADDING;
+    uint8_t* image = createImage(width, height, stride, width * 31 + height);
+    uint8_t* scratch = malloc((size_t) stride * height);
+    memset(scratch, PADDING_BYTE, (size_t) stride * height);
+
+    // The reference works on unpadded copies.
+    size_t bytes = (size_t) width * height * 4;
+    uint8_t* expected = malloc(bytes);
+    uint8_t* temp = malloc(bytes);
+    for (uint32_t y = 0; y < height; y++) {
+        memcpy(expected + (size_t) y * width * 4, image + (size_t) y * stride, (size_t) width * 4);
+    }
+    for (int p = 0; p < PASSES; p++) {
+        referencePass(expected, temp, width, height, radii[p], 1, edgeMode);
+        memcpy(expected, temp, bytes);
+    }
+    for (int p = 0; p < PASSES; p++) {
+        referencePass(expected, temp, width, height, radii[p], 0, edgeMode);
+        memcpy(expected, temp, bytes);
+    }
+
+    int failures = 0;
+    if (run(image, scratch, stride, width, height, radii, edgeMode) != 0) {
+        fprintf(stderr, "FAIL: out of memory\n");
+        failures++;
+    }
+
+    for (uint32_t y = 0; y < height && failures == 0; y++) {
+        const uint8_t* row = image + (size_t) y * stride;
+        for (uint32_t i = 0; i < width * 4; i++) {
+            uint8_t e = expected[(size_t) y * width * 4 + i];
+            if (row[i] != e) {
+                fprintf(stderr, "FAIL radii %u/%u/%u %s %ux%u: pixel (%u, %u) channel %u is %d, "
+                        "expected %d\n", radii[0], radii[1], radii[2], EDGE_NAMES[edgeMode],
+                        width, height, i / 4, y, i % 4, row[i], e);
+                failures++;
+                break;
+            }
+        }
+        for (uint32_t i = width * 4; i < stride && failures == 0; i++) {
+            if (row[i] != PADDING_BYTE
+                    || scratch[(size_t) y * stride + i] != PADDING_BYTE) {
+                fprintf(stderr, "FAIL %s %ux%u: row %u padding was modified\n",
+                        EDGE_NAMES[edgeMode], width, height, y);
+                failures++;
+            }
+        }
+    }
+
+    free(temp);
+    free(expected);
+    free(scratch);
+    free(image);
+    return failures;
+}
+
+static void measure(uint32_t radius, uint32_t width, uint32_t height, int iterations) {
+    const uint32_t radii[PASSES] = {radius, radius, radius};
+    uint32_t stride = width * 4;
+    uint8_t* image = createImage(width, height, stride, 1);
+    uint8_t* scratch = malloc((size_t) stride * height);
+
+    double best = INFINITY;
+    for (int i = 0; i < iterations; i++) {
+        double start = nowSeconds();
+        run(image, scratch, stride, width, height, radii, EDGE_MODE_CLAMP);
+        double elapsed = nowSeconds() - start;
+        best = elapsed < best ? elapsed : best;
+    }
+    printf("3 x box r=%-4u %9.3f ms %10.1f MP/s\n", radius, best * 1e3,
+           (double) width * height / best / 1e6);
+
+    free(scratch);
+    free(image);
+}
+
+int main(int argc, char** argv) {
+    uint32_t width = argc > 2 ? (uint32_t) atoi(argv[1]) : 1920;
+    uint32_t height = argc > 2 ? (uint32_t) atoi(argv[2]) : 1080;
+    int iterations = argc > 3 ? atoi(argv[3]) : 5;
+
+    // Radii of 0, and radii larger than the image, which wrap around the edges several times.
+    const uint32_t radii[][PASSES] = {{1, 1, 1}, {0, 2, 0}, {5, 4, 4}, {23, 24, 24},
+                                      {60, 60, 61}};
+    const uint32_t widths[] = {1, 7, 40, 131};
+    const uint32_t heights[] = {1, 9, 57};
+
+    int failures = 0;
+    for (size_t r = 0; r < sizeof(radii) / sizeof(radii[0]); r++) {
+        for (int edgeMode = 0; edgeMode < EDGE_MODE_COUNT; edgeMode++) {
+            for (size_t w = 0; w < sizeof(widths) / sizeof(widths[0]); w++) {
+                for (size_t h = 0; h < sizeof(heights) / sizeof(heights[0]); h++) {
+                    failures += check(radii[r], widths[w], heights[h], edgeMode);
+                }
+            }
+        }
+    }
+    if (failures > 0) {
+        fprintf(stderr, "%d check(s) failed\n", failures);
+        return 1;
+    }
+    printf("All box blurs match the reference\n");
+
+    if (iterations > 0) {
+        printf("Throughput on %ux%u, single thread, best of %d:\n", width, height, iterations);
+        const uint32_t measuredRadii[] = {5, 50, 100, 200};
+        for (size_t i = 0; i < sizeof(measuredRadii) / sizeof(measuredRadii[0]); i++) {
+            measure(measuredRadii[i], width, height, iterations);
+        }
+    }
+    return 0;
+}
@@ -0,0 +1,261 @@
+// Host test driver for the convolution engine (convolution.h).
+//
+// Checks separable and 2D convolutions, with every edge mode, against a straightforward 2D
+// reference on images with odd widths, padded strides and several tiles per row, and that no
+// color ends up above the alpha of its pixel, then measures the throughput of a Gaussian blur for
+// a range of radii. Built by the host (non-Android) configuration of
+// app/src/main/cpp/CMakeLists.txt:
+//
+//     build/native/convolution_test [width height iterations]
+//
+// Exits with a non-zero status if any result does not match the reference.
+
+#include "test_util.h"
+
+#include "convolution.h"
+
+#include <math.h>
+#include <stddef.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+// Fused and unfused multiply-adds, and the order of the sums, may round differently.
+#define TOLERANCE 1
+
+#define MAX_RADIUS 25
+
+typedef struct {
+    const char* name;
+    uint32_t radius;
+    // 1D weights for separable cases; the 2D weights are their outer product.
+    int separable;
+    float horizontal[2 * MAX_RADIUS + 1];
+    float vertical[2 * MAX_RADIUS + 1];
+    float weights[(2 * MAX_RADIUS + 1) * (2 * MAX_RADIUS + 1)];
+    float identityWeight;
+} ConvolutionCase;
+
+static void gaussian(float* weights, uint32_t radius, float sigma, float scale) {
+    float sum = 0.0f;
+    for (int32_t i = -(int32_t) radius; i <= (int32_t) radius; i++) {
+        weights[i + radius] = expf(-(float) (i * i) / (2.0f * sigma * sigma));
+        sum += weights[i + radius];
+    }
+    for (uint32_t i = 0; i < 2 * radius + 1; i++) {
+        weights[i] *= scale / sum;
+    }
+}
+
+static void outerProduct(ConvolutionCase* c) {
+    uint32_t size = 2 * c->radius + 1;
+    for (uint32_t y = 0; y < size; y++) {
+        for (uint32_t x = 0; x < size; x++) {
+            c->weights[y * size + x] = c->vertical[y] * c->horizontal[x];
+        }
+    }
+}
+
+static uint8_t reference(const uint8_t* src, uint32_t stride, uint32_t width, uint32_t height,
+                         uint32_t x, uint32_t y, int channel, const ConvolutionCase* c,
+                         int edgeMode) {
+    int32_t radius = (int32_t) c->radius;
+    uint32_t size = 2 * c->radius + 1;
+    double sum = c->identityWeight * src[(size_t) y * stride + x * 4 + channel];
+    for (int32_t j = -radius; j <= radius; j++) {
+        int32_t sy = convolution_edge_index((int32_t) y + j, (int32_t) height, edgeMode);
+        for (int32_t i = -radius; i <= radius; i++) {
+            int32_t sx = convolution_edge_index((int32_t) x + i, (int32_t) width, edgeMode);
+            sum += c->weights[(j + radius) * size + (i + radius)]
+                    * src[(size_t) sy * stride + sx * 4 + channel];
+        }
+    }
+    sum = sum < 0.0 ? 0.0 : sum > 255.0 ? 255.0 : sum;
+    uint8_t value = (uint8_t) lrint(sum);
+    if (channel == 3) {
+        return value;
+    }
+    // Premultiplied colors never exceed alpha.
+    uint8_t alpha = reference(src, stride, width, height, x, y, 3, c, edgeMode);
+    return value < alpha ? value : alpha;
+}
+
+static int run(const ConvolutionCase* c, const uint8_t* src, uint32_t srcStride, uint8_t* dst,
+               uint32_t dstStride, uint32_t width, uint32_t height, uint32_t firstRow,
+               uint32_t lastRow, int edgeMode) {
+    if (c->separable) {
+        return convolve_separable(src, srcStride, dst, dstStride, width, height, firstRow,
+                                  lastRow, c->horizontal, c->vertical, c->radius,
+                                  c->identityWeight, edgeMode);
+    }
+    return convolve_2d(src, srcStride, dst, dstStride, width, height, firstRow, lastRow,
+                       c->weights, c->radius, c->identityWeight, edgeMode);
+}
+
+static int check(const ConvolutionCase* c, uint32_t width, uint32_t height, int edgeMode) {
+    static const char* EDGE_NAMES[] = {"clamp", "reflect", "wrap"};
+    uint32_t stride = width * 4 + ROW_PADDING;
+    uint8_t* src = createImage(width, height, stride, width * 31 + height);
+    uint8_t* dst = malloc((size_t) stride * height);
+    memset(dst, PADDING_BYTE, (size_t) stride * height);
+
+    // Two bands, to check that a band only depends on its own rows.
+    uint32_t split = height / 2;
+    int failures = 0;
+    if (run(c, src, stride, dst, stride, width, height, 0, split, edgeMode) != 0
+            || run(c, src, stride, dst, stride, width, height, split, height, edgeMode) != 0) {
+        fprintf(stderr, "FAIL %s: out of memory\n", c->name);
+        failures++;
+    }
+
+    for (uint32_t y = 0; y < height && failures == 0; y++) {
+        const uint8_t* out = dst + (size_t) y * stride;
+        for (uint32_t x = 0; x < width && failures == 0; x++) {
+            for (int channel = 0; channel < 4; channel++) {
+                uint8_t expected = reference(src, stride, width, height, x, y, channel, c,
+                                             edgeMode);
+                if (abs(out[x * 4 + channel] - expected) > TOLERANCE) {
+                    fprintf(stderr, "FAIL %s/%s %ux%u: pixel (%u, %u) channel %d is %d, "
+                            "expected %d\n", c->name, EDGE_NAMES[edgeMode], width, height, x, y,
+                            channel, out[x * 4 + channel], expected);
+                    failures++;
+                    break;
+                }
+                if (channel < 3 && out[x * 4 + channel] > out[x * 4 + 3]) {
+                    fprintf(stderr, "FAIL %s/%s %ux%u: pixel (%u, %u) channel %d is %d, above "
+                            "alpha %d\n", c->name, EDGE_NAMES[edgeMode], width, height, x, y,
+                            channel, out[x * 4 + channel], out[x * 4 + 3]);
+                    failures++;
+                    break;
+                }
+            }
+        }
+        for (uint32_t i = width * 4; i < stride && failures == 0; i++) {
+            if (out[i] != PADDING_BYTE) {
+                fprintf(stderr, "FAIL %s/%s %ux%u: row %u padding was modified\n", c->name,
+                        EDGE_NAMES[edgeMode], width, height, y);
+                failures++;
+            }
+        }
+    }
+
+    free(dst);
+    free(src);
+    return failures;
+}
+
+static void measure(uint32_t radius, uint32_t width, uint32_t height, int iterations) {
+    float weights[2 * MAX_RADIUS + 1];
+    gaussian(weights, radius, radius / 3.0f, 1.0f);
+
+    uint32_t stride = width * 4;
+    uint8_t* src = createImage(width, height, stride, 1);
+    uint8_t* dst = malloc((size_t) stride * height);
+
+    double best = INFINITY;
+    for (int i = 0; i < iterations; i++) {
+        double start = nowSeconds();
+        convolve_separable(src, stride, dst, stride, width, height, 0, height, weights, weights,
+                           radius, 0.0f, EDGE_MODE_CLAMP);
+        double elapsed = nowSeconds() - start;
+        best = elapsed < best ? elapsed : best;
+    }
+    printf("gaussian r=%-3u %9.3f ms %10.1f MP/s\n", radius, best * 1e3,
+           (double) width * height / best / 1e6);
+
+    free(dst);
+    free(src);
+}
+
+int main(int argc, char** argv) {
+    uint32_t width = argc > 2 ? (uint32_t) atoi(argv[1]) : 1920;
+    uint32_t height = argc > 2 ? (uint32_t) atoi(argv[2]) : 1080;
+    int iterations = argc > 3 ? atoi(argv[3]) : 5;
+
+    static ConvolutionCase cases[6];
+    int caseCount = 0;
+
+    ConvolutionCase* c = &cases[caseCount++];
+    c->name = "gaussian r1";
+    c->radius = 1;
+    c->separable = 1;
+    gaussian(c->horizontal, 1, 0.8f, 1.0f);
+    gaussian(c->vertical, 1, 0.8f, 1.0f);
+
+    c = &cases[caseCount++];
+    c->name = "gaussian r7";
+    c->radius = 7;
+    c->separable = 1;
+    gaussian(c->horizontal, 7, 2.5f, 1.0f);
+    gaussian(c->vertical, 7, 2.5f, 1.0f);
+
+    // A large radius makes the tiles narrower than the wider images.
+    c = &cases[caseCount++];
+    c->name = "gaussian r25";
+    c->radius = 25;
+    c->separable = 1;
+    gaussian(c->horizontal, 25, 8.0f, 1.0f);
+    gaussian(c->vertical, 25, 8.0f, 1.0f);
+
+    // Unsharp mask: 2 * in - blur(in).
+    c = &cases[caseCount++];
+    c->name = "unsharp r3";
+    c->radius = 3;
+    c->separable = 1;
+    gaussian(c->horizontal, 3, 1.0f, -1.0f);
+    gaussian(c->vertical, 3, 1.0f, 1.0f);
+    c->identityWeight = 2.0f;
+
+    c = &cases[caseCount++];
+    c->name = "emboss";
+    c->radius = 1;
+    c->separable = 0;
+    {
+        const float emboss[9] = {-2.0f, -1.0f, 0.0f, -1.0f, 1.0f, 1.0f, 0.0f, 1.0f, 2.0f};
+        memcpy(c->weights, emboss, sizeof(emboss));
+    }
+
+    c = &cases[caseCount++];
+    c->name = "laplacian";
+    c->radius = 1;
+    c->separable = 0;
+    {
+        const float laplacian[9] = {0.0f, -1.0f, 0.0f, -1.0f, 4.0f, -1.0f, 0.0f, -1.0f, 0.0f};
+        memcpy(c->weights, laplacian, sizeof(laplacian));
+    }
+
+    for (int i = 0; i < caseCount; i++) {
+        if (cases[i].separable) {
+            outerProduct(&cases[i]);
+        }
+    }
+
+    // Widths below, around and above the tile width of the large kernel.
+    const uint32_t widths[] = {1, 7, 17, 101, 333};
+    const uint32_t heights[] = {1, 9, 40};
+
+    int failures = 0;
+    for (int i = 0; i < caseCount; i++) {
+        for (int edgeMode = 0; edgeMode < EDGE_MODE_COUNT; edgeMode++) {
+            for (size_t w = 0; w < sizeof(widths) / sizeof(widths[0]); w++) {
+                for (size_t h = 0; h < sizeof(heights) / sizeof(heights[0]); h++) {
+                    failures += check(&cases[i], widths[w], heights[h], edgeMode);
+                }
+            }
+        }
+    }
+    if (failures > 0) {
+        fprintf(stderr, "%d check(s) failed\n", failures);
+        return 1;
+    }
+    printf("All convolutions match the reference\n");
+
+    if (iterations > 0) {
+        printf("Throughput on %ux%u, single thread, best of %d:\n", width, height, iterations);
+        const uint32_t radii[] = {1, 3, 8, 25};
+        for (size_t i = 0; i < sizeof(radii) / sizeof(radii[0]); i++) {
+            measure(radii[i], width, height, iterations);
+        }
+    }
+    return 0;
+}
@@ -0,0 +1,225 @@
+// Host test driver for the histograms and table lookups (histogram.h).
+//
+// Checks histograms counted in several bands against a straightforward count, on images with odd
+// widths, padded strides, long runs of equal pixels and translucent pixels, and table lookups in
+// and out of place, then measures the throughput of both. Built by the host (non-Android) configuration of
+// app/src/main/cpp/CMakeLists.txt:
+//
+//     build/native/histogram_test [width height iterations]
+//
+// Exits with a non-zero status if any result does not match the reference.
+
+#include "test_util.h"
+
+#include "histogram.h"
+
+#include <math.h>
+#include <stddef.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+// Random premultiplied pixels, or runs of equal pixels if 'runs' is non-zero. Pixels are opaque
+// unless 'translucent' is non-zero.
+static uint8_t* createPremultipliedImage(uint32_t width, uint32_t height, uint32_t stride,
+                                         unsigned seed, int runs, int translucent) {
+    uint8_t* pixels = malloc((size_t) stride * height);
+    srand(seed);
+    uint8_t pixel[4] = {0, 0, 0, 0};
+    for (uint32_t y = 0; y < height; y++) {
+        uint8_t* row = pixels + (size_t) y * stride;
+        for (uint32_t x = 0; x < width; x++) {
+            if (!runs || rand() % 37 == 0) {
+                pixel[3] = translucent ? (uint8_t) (rand() & 0xFF) : 255;
+                for (int c = 0; c < 3; c++) {
+                    pixel[c] = (uint8_t) (rand() % (pixel[3] + 1));
+                }
+            }
+            memcpy(row + x * 4, pixel, 4);
+        }
+        memset(row + width * 4, PADDING_BYTE, stride - width * 4);
+    }
+    return pixels;
+}
+
+// The unpremultiplied color of a pixel, rounded to the nearest, as Bitmap.getPixels returns it.
+static void unpremultiplied(const uint8_t* pixel, uint8_t* color) {
+    for (int c = 0; c < 3; c++) {
+        color[c] = pixel[3] == 0 ? 0 : (uint8_t) lround(pixel[c] * 255.0 / pixel[3]);
+    }
+}
+
+static int checkHistogram(uint32_t width, uint32_t height, int runs, int translucent) {
+    uint32_t stride = width * 4 + ROW_PADDING;
+    uint8_t* pixels = createPremultipliedImage(width, height, stride, width * 31 + height, runs,
+                                               translucent);
+
+    static uint32_t expected[HISTOGRAM_CHANNELS][HISTOGRAM_BINS];
+    memset(expected, 0, sizeof(expected));
+    for (uint32_t y = 0; y < height; y++) {
+        const uint8_t* row = pixels + (size_t) y * stride;
+        for (uint32_t x = 0; x < width; x++) {
+            uint8_t p[3];
+            unpremultiplied(row + x * 4, p);
+            expected[HISTOGRAM_RED][p[0]]++;
+            expected[HISTOGRAM_GREEN][p[1]]++;
+            expected[HISTOGRAM_BLUE][p[2]]++;
+            long luma = lround(0.299 * p[0] + 0.587 * p[1] + 0.114 * p[2]);
+            // The fixed-point weights may round the other way near a half.
+            uint32_t fixed = (77u * p[0] + 150u * p[1] + 29u * p[2] + 128u) >> 8;
+            if (labs(luma - (long) fixed) > 1) {
+                fprintf(stderr, "FAIL luma of (%d, %d, %d) is %u, expected %ld\n", p[0], p[1],
+                        p[2], fixed, luma);
+                free(pixels);
+                return 1;
+            }
+            expected[HISTOGRAM_LUMA][fixed]++;
+        }
+    }
+
+    // Three bands, each counted into the same totals, as the JNI layer does.
+    static uint32_t counts[HISTOGRAM_CHANNELS][HISTOGRAM_BINS];
+    memset(counts, 0, sizeof(counts));
+    uint32_t first = height / 3;
+    uint32_t second = 2 * height / 3;
+    histogram_rows(pixels, stride, width, 0, first, counts);
+    histogram_rows(pixels, stride, width, first, second, counts);
+    histogram_rows(pixels, stride, width, second, height, counts);
+
+    int failures = 0;
+    for (int c = 0; c < HISTOGRAM_CHANNELS && failures == 0; c++) {
+        for (int v = 0; v < HISTOGRAM_BINS; v++) {
+            if (counts[c][v] != expected[c][v]) {
+                fprintf(stderr, "FAIL histogram %ux%u%s%s: channel %d value %d counted %u times, "
+                        "expected %u\n", width, height, runs ? " runs" : "",
+                        translucent ? " translucent" : "", c, v, counts[c][v], expected[c][v]);
+                failures++;
+                break;
+            }
+        }
+    }
+
+    free(pixels);
+    return failures;
+}
+
+static int checkLut(uint32_t width, uint32_t height, int inPlace, int translucent) {
+    uint32_t stride = width * 4 + ROW_PADDING;
+    uint8_t* src = createPremultipliedImage(width, height, stride, width + height, 0, translucent);
+    uint8_t* dst = inPlace ? src : malloc((size_t) stride * height);
+    uint8_t* original = malloc((size_t) stride * height);
+    memcpy(original, src, (size_t) stride * height);
+    if (!inPlace) {
+        memset(dst, PADDING_BYTE, (size_t) stride * height);
+    }
+
+    uint8_t tables[3][HISTOGRAM_BINS];
+    for (int v = 0; v < HISTOGRAM_BINS; v++) {
+        tables[0][v] = (uint8_t) (255 - v);
+        tables[1][v] = (uint8_t) (v * v / 255);
+        tables[2][v] = (uint8_t) ((v + 100) & 0xFF);
+    }
+
+    uint32_t split = height / 2;
+    lut_apply_rows(src, stride, dst, stride, width, 0, split, tables);
+    lut_apply_rows(src, stride, dst, stride, width, split, height, tables);
+
+    int failures = 0;
+    for (uint32_t y = 0; y < height && failures == 0; y++) {
+        const uint8_t* in = original + (size_t) y * stride;
+        const uint8_t* out = dst + (size_t) y * stride;
+        for (uint32_t x = 0; x < width; x++) {
+            const uint8_t* p = in + x * 4;
+            const uint8_t* q = out + x * 4;
+            // The mapped color, premultiplied again.
+            uint8_t color[3];
+            unpremultiplied(p, color);
+            int mismatch = q[3] != p[3];
+            for (int c = 0; c < 3; c++) {
+                mismatch |= q[c] != (uint8_t) lround(tables[c][color[c]] * p[3] / 255.0);
+            }
+            if (mismatch) {
+                fprintf(stderr, "FAIL lut %ux%u%s%s: pixel (%u, %u)\n", width, height,
+                        inPlace ? " in place" : "", translucent ? " translucent" : "", x, y);
+                failures++;
+                break;
+            }
+        }
+        for (uint32_t i = width * 4; i < stride && failures == 0; i++) {
+            if (out[i] != PADDING_BYTE) {
+                fprintf(stderr, "FAIL lut %ux%u: row %u padding was modified\n", width, height,
+                        y);
+                failures++;
+            }
+        }
+    }
+
+    if (!inPlace) {
+        free(dst);
+    }
+    free(original);
+    free(src);
+    return failures;
+}
+
+static void measure(uint32_t width, uint32_t height, int iterations) {
+    uint32_t stride = width * 4;
+    uint8_t* pixels = createPremultipliedImage(width, height, stride, 1, 0, 0);
+    static uint32_t counts[HISTOGRAM_CHANNELS][HISTOGRAM_BINS];
+    uint8_t tables[3][HISTOGRAM_BINS];
+    for (int v = 0; v < HISTOGRAM_BINS; v++) {
+        tables[0][v] = tables[1][v] = tables[2][v] = (uint8_t) (255 - v);
+    }
+
+    double bestHistogram = INFINITY;
+    double bestLut = INFINITY;
+    for (int i = 0; i < iterations; i++) {
+        memset(counts, 0, sizeof(counts));
+        double start = nowSeconds();
+        histogram_rows(pixels, stride, width, 0, height, counts);
+        double middle = nowSeconds();
+        lut_apply_rows(pixels, stride, pixels, stride, width, 0, height, tables);
+        double end = nowSeconds();
+        bestHistogram = middle - start < bestHistogram ? middle - start : bestHistogram;
+        bestLut = end - middle < bestLut ? end - middle : bestLut;
+    }
+    printf("histogram %9.3f ms %10.1f MP/s\n", bestHistogram * 1e3,
+           (double) width * height / bestHistogram / 1e6);
+    printf("lut       %9.3f ms %10.1f MP/s\n", bestLut * 1e3,
+           (double) width * height / bestLut / 1e6);
+
+    free(pixels);
+}
+
+int main(int argc, char** argv) {
+    uint32_t width = argc > 2 ? (uint32_t) atoi(argv[1]) : 1920;
+    uint32_t height = argc > 2 ? (uint32_t) atoi(argv[2]) : 1080;
+    int iterations = argc > 3 ? atoi(argv[3]) : 5;
+
+    // Widths below, around and above the 16 pixels of a vector and the 64 of a chunk.
+    const uint32_t widths[] = {1, 7, 16, 33, 64, 131};
+    const uint32_t heights[] = {1, 9, 40};
+
+    int failures = 0;
+    for (size_t w = 0; w < sizeof(widths) / sizeof(widths[0]); w++) {
+        for (size_t h = 0; h < sizeof(heights) / sizeof(heights[0]); h++) {
+            for (int translucent = 0; translucent <= 1; translucent++) {
+                failures += checkHistogram(widths[w], heights[h], 0, translucent);
+                failures += checkHistogram(widths[w], heights[h], 1, translucent);
+                failures += checkLut(widths[w], heights[h], 0, translucent);
+                failures += checkLut(widths[w], heights[h], 1, translucent);
+            }
+        }
+    }
+    if (failures > 0) {
+        fprintf(stderr, "%d check(s) failed\n", failures);
+        return 1;
+    }
+    printf("All histograms and lookups match the reference\n");
+
+    if (iterations > 0) {
+        printf("Throughput on %ux%u, single thread, best of %d:\n", width, height, iterations);
+        measure(width, height, iterations);
+    }
+    return 0;
+}
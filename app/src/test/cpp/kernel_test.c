@@ -0,0 +1,248 @@
+// Host test driver for the native filter kernels.
+//
+// Checks every kernel of every variant the CPU supports (see kernel_dispatch.h) against a
+// straightforward scalar reference on images with odd widths and padded strides, then
+// measures the throughput of each kernel. Built by the
+// host (non-Android) configuration of app/src/main/cpp/CMakeLists.txt:
+//
+//     cmake -S app/src/main/cpp -B build/native && cmake --build build/native
+//     ctest --test-dir build/native
+//     build/native/kernel_test [width height iterations]
+//
+// Exits with a non-zero status if any kernel does not match the reference.
+
+#include "test_util.h"
+
+#include "kernel_dispatch.h"
+
+#include <math.h>
+#include <stddef.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+// Fused and unfused multiply-adds may round differently, so results may be off by one.
+#define TOLERANCE 1
+
+typedef void (*Reference)(const uint8_t* in, uint8_t* out, const float* params);
+
+typedef struct {
+    const char* name;
+    int kernelId;
+    float params[20];
+    Reference reference;
+} KernelCase;
+
+// Runs the kernel of a case from a variant. Returns 0 if the variant does not implement it.
+static int apply(const KernelVariant* variant, const KernelCase* kernel, uint8_t* pixels,
+                 uint32_t width, uint32_t height, uint32_t stride) {
+    const float* p = kernel->params;
+    switch (kernel->kernelId) {
+        case KERNEL_GRAYSCALE:
+            if (variant->grayscale == NULL) return 0;
+            variant->grayscale(pixels, width, height, stride, p[0], p[1], p[2]);
+            return 1;
+        case KERNEL_INVERT:
+            if (variant->invert == NULL) return 0;
+            variant->invert(pixels, width, height, stride);
+            return 1;
+        case KERNEL_BRIGHTNESS:
+            if (variant->brightness == NULL) return 0;
+            variant->brightness(pixels, width, height, stride, (int32_t) p[0]);
+            return 1;
+        case KERNEL_CONTRAST:
+            if (variant->contrast == NULL) return 0;
+            variant->contrast(pixels, width, height, stride, p[0]);
+            return 1;
+        case KERNEL_SEPIA:
+            if (variant->sepia == NULL) return 0;
+            variant->sepia(pixels, width, height, stride);
+            return 1;
+        default:
+            if (variant->colorMatrix == NULL) return 0;
+            variant->colorMatrix(pixels, width, height, stride, p);
+            return 1;
+    }
+}
+
+static uint8_t toByte(float value) {
+    value = value < 0.0f ? 0.0f : value > 255.0f ? 255.0f : value;
+    return (uint8_t) lrintf(value);
+}
+
+static void grayscaleReference(const uint8_t* in, uint8_t* out, const float* params) {
+    uint8_t gray = toByte(params[0] * in[0] + params[1] * in[1] + params[2] * in[2]);
+    out[0] = out[1] = out[2] = gray;
+    out[3] = in[3];
+}
+
+static void invertReference(const uint8_t* in, uint8_t* out, const float* params) {
+    (void) params;
+    out[0] = (uint8_t) (255 - in[0]);
+    out[1] = (uint8_t) (255 - in[1]);
+    out[2] = (uint8_t) (255 - in[2]);
+    out[3] = in[3];
+}
+
+static void brightnessReference(const uint8_t* in, uint8_t* out, const float* params) {
+    for (int c = 0; c < 3; c++) {
+        int value = in[c] + (int) params[0];
+        out[c] = (uint8_t) (value < 0 ? 0 : value > 255 ? 255 : value);
+    }
+    out[3] = in[3];
+}
+
+static void contrastReference(const uint8_t* in, uint8_t* out, const float* params) {
+    for (int c = 0; c < 3; c++) {
+        out[c] = toByte((in[c] - 128.0f) * params[0] + 128.0f);
+    }
+    out[3] = in[3];
+}
+
+static void sepiaReference(const uint8_t* in, uint8_t* out, const float* params) {
+    (void) params;
+    out[0] = toByte(in[0] * 0.393f + in[1] * 0.769f + in[2] * 0.189f);
+    out[1] = toByte(in[0] * 0.349f + in[1] * 0.686f + in[2] * 0.168f);
+    out[2] = toByte(in[0] * 0.272f + in[1] * 0.534f + in[2] * 0.131f);
+    out[3] = in[3];
+}
+
+static void colorMatrixReference(const uint8_t* in, uint8_t* out, const float* params) {
+    for (int c = 0; c < 4; c++) {
+        const float* row = params + c * 4;
+        float value = params[16 + c]
+                + in[0] * row[0] + in[1] * row[1] + in[2] * row[2] + in[3] * row[3];
+        value = value < 0.0f ? 0.0f : value > 255.0f ? 255.0f : value;
+        out[c] = (uint8_t) value;
+    }
+}
+
+static int check(const KernelVariant* variant, const KernelCase* kernel, uint32_t width,
+                 uint32_t height) {
+    uint32_t stride = width * 4 + ROW_PADDING;
+    uint8_t* source = createImage(width, height, stride, width * 31 + height);
+    uint8_t* pixels = malloc((size_t) stride * height);
+    memcpy(pixels, source, (size_t) stride * height);
+
+    int failures = 0;
+    if (!apply(variant, kernel, pixels, width, height, stride)) {
+        free(pixels);
+        free(source);
+        return 0;
+    }
+    for (uint32_t y = 0; y < height && failures == 0; y++) {
+        const uint8_t* in = source + (size_t) y * stride;
+        const uint8_t* out = pixels + (size_t) y * stride;
+        for (uint32_t x = 0; x < width && failures == 0; x++) {
+            uint8_t expected[4];
+            kernel->reference(in + x * 4, expected, kernel->params);
+            for (int c = 0; c < 4; c++) {
+                if (abs(out[x * 4 + c] - expected[c]) > TOLERANCE) {
+                    fprintf(stderr, "FAIL %s/%s %ux%u: pixel (%u, %u) channel %d is %d, "
+                            "expected %d\n", variant->name, kernel->name, width, height, x, y, c, out[x * 4 + c], expected[c]);
+                    failures++;
+                    break;
+                }
+            }
+        }
+        for (uint32_t i = width * 4; i < stride && failures == 0; i++) {
+            if (out[i] != PADDING_BYTE) {
+                fprintf(stderr, "FAIL %s/%s %ux%u: row %u padding was modified\n",
+                        variant->name, kernel->name, width, height, y);
+                failures++;
+            }
+        }
+    }
+
+    free(pixels);
+    free(source);
+    return failures;
+}
+
+static void measure(const KernelVariant* variant, const KernelCase* kernel, uint32_t width,
+                    uint32_t height, int iterations) {
+    uint32_t stride = width * 4;
+    uint8_t* pixels = createImage(width, height, stride, 1);
+
+    if (apply(variant, kernel, pixels, width, height, stride)) {
+        double best = INFINITY;
+        for (int i = 0; i < iterations; i++) {
+            double start = nowSeconds();
+            apply(variant, kernel, pixels, width, height, stride);
+            double elapsed = nowSeconds() - start;
+            best = elapsed < best ? elapsed : best;
+        }
+
+        printf("%-9s %-13s %8.3f ms %10.1f MP/s\n", variant->name, kernel->name, best * 1e3,
+               (double) width * height / best / 1e6);
+    }
+    free(pixels);
+}
+
+int main(int argc, char** argv) {
+    uint32_t width = argc > 2 ? (uint32_t) atoi(argv[1]) : 1920;
+    uint32_t height = argc > 2 ? (uint32_t) atoi(argv[2]) : 1080;
+    int iterations = argc > 3 ? atoi(argv[3]) : 20;
+
+    const KernelCase kernels[] = {
+            {"grayscale", KERNEL_GRAYSCALE, {0.299f, 0.587f, 0.114f}, grayscaleReference},
+            {"invert", KERNEL_INVERT, {0}, invertReference},
+            {"brightness+", KERNEL_BRIGHTNESS, {60}, brightnessReference},
+            {"brightness-", KERNEL_BRIGHTNESS, {-60}, brightnessReference},
+            {"contrast", KERNEL_CONTRAST, {1.5f}, contrastReference},
+            {"sepia", KERNEL_SEPIA, {0}, sepiaReference},
+            // Sepia with a half-strength alpha, in the packed layout.
+            {"color_matrix", KERNEL_COLOR_MATRIX, {0.393f, 0.769f, 0.189f, 0.0f,
+                                                   0.349f, 0.686f, 0.168f, 0.0f,
+                                                   0.272f, 0.534f, 0.131f, 0.0f,
+                                                   0.0f, 0.0f, 0.0f, 0.5f,
+                                                   10.0f, -10.0f, 0.0f, 0.0f},
+                    colorMatrixReference},
+    };
+    const int kernelCount = sizeof(kernels) / sizeof(kernels[0]);
+
+    // Widths that exercise the 16-pixel, 8-pixel and single-pixel paths of the Assembly.
+    const uint32_t widths[] = {1, 7, 8, 15, 16, 17, 33, 101};
+
+    int variantCount;
+    const KernelVariant* variants = kernelVariants(&variantCount);
+    uint32_t features = cpuFeatures();
+
+    int failures = 0;
+    for (int v = 0; v < variantCount; v++) {
+        if ((variants[v].requiredFeatures & ~features) != 0) {
+            printf("Skipping %s: not supported by this CPU\n", variants[v].name);
+            continue;
+        }
+        for (int k = 0; k < kernelCount; k++) {
+            for (size_t w = 0; w < sizeof(widths) / sizeof(widths[0]); w++) {
+                failures += check(&variants[v], &kernels[k], widths[w], 5);
+            }
+        }
+    }
+    if (failures > 0) {
+        fprintf(stderr, "%d check(s) failed\n", failures);
+        return 1;
+    }
+    printf("All kernels match the reference\n");
+
+    const KernelTable* table = activeKernels();
+    printf("Selected variants:");
+    for (int id = 0; id < KERNEL_COUNT; id++) {
+        printf(" %s", table->variants[id]);
+    }
+    printf("\n");
+
+    if (iterations > 0) {
+        printf("Throughput on %ux%u, best of %d:\n", width, height, iterations);
+        for (int v = 0; v < variantCount; v++) {
+            if ((variants[v].requiredFeatures & ~features) != 0) {
+                continue;
+            }
+            for (int k = 0; k < kernelCount; k++) {
+                measure(&variants[v], &kernels[k], width, height, iterations);
+            }
+        }
+    }
+    return 0;
+}
@@ -0,0 +1,246 @@
+// Host test driver for the resampling (resize.h).
+//
+// Checks area averages and bilinear interpolation, downscaling and upscaling by various factors,
+// against a floating-point reference, checks that flat images stay flat, then measures the
+// throughput of preview-sized downscales. Built by the host (non-Android) configuration of
+// app/src/main/cpp/CMakeLists.txt:
+//
+//     build/native/resize_test [width height iterations]
+//
+// Exits with a non-zero status if any result does not match the reference.
+
+#include "test_util.h"
+
+#include "resize.h"
+
+#include <math.h>
+#include <stddef.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+// Both passes round, so a channel may be off by one from the exact result, plus a little for the
+// rounding of the weights.
+#define TOLERANCE 1.02
+
+// The exact weights of the input pixels of output pixel x, into weights[0, srcSize).
+static void referenceWeights(uint32_t x, uint32_t srcSize, uint32_t dstSize, int method,
+                             double* weights) {
+    memset(weights, 0, sizeof(double) * srcSize);
+    double scale = (double) srcSize / dstSize;
+    if (resize_method(srcSize, dstSize, method) == RESIZE_AREA) {
+        double low = x * scale;
+        double high = low + scale;
+        for (uint32_t i = (uint32_t) low; i < srcSize && i < high; i++) {
+            double from = i > low ? i : low;
+            double to = i + 1 < high ? i + 1 : high;
+            weights[i] = (to - from) / scale;
+        }
+        return;
+    }
+    double center = (x + 0.5) * scale - 0.5;
+    if (center <= 0) {
+        weights[0] = 1;
+    } else if (center >= srcSize - 1) {
+        weights[srcSize - 1] = 1;
+    } else {
+        uint32_t i = (uint32_t) center;
+        weights[i] = 1 - (center - i);
+        weights[i + 1] = center - i;
+    }
+}
+
+// Resizes src into dst with both passes, as the JNI layer does, split into a few bands.
+static int resize(const uint8_t* src, uint32_t srcWidth, uint32_t srcHeight, uint32_t srcStride,
+                  uint8_t* dst, uint32_t dstWidth, uint32_t dstHeight, uint32_t dstStride,
+                  int method) {
+    ResizeTaps horizontal;
+    ResizeTaps vertical;
+    if (resize_taps_init(&horizontal, srcWidth, dstWidth, method) != 0) {
+        return -1;
+    }
+    if (resize_taps_init(&vertical, srcHeight, dstHeight, method) != 0) {
+        resize_taps_free(&horizontal);
+        return -1;
+    }
+    uint32_t middleStride = srcWidth * 4;
+    uint8_t* middle = malloc((size_t) middleStride * dstHeight);
+
+    uint32_t split = dstHeight / 3;
+    resize_columns(src, srcStride, middle, middleStride, srcWidth, 0, split, &vertical);
+    resize_columns(src, srcStride, middle, middleStride, srcWidth, split, dstHeight, &vertical);
+    split = dstHeight / 2;
+    resize_rows(middle, middleStride, dst, dstStride, 0, split, &horizontal);
+    resize_rows(middle, middleStride, dst, dstStride, split, dstHeight, &horizontal);
+
+    free(middle);
+    resize_taps_free(&vertical);
+    resize_taps_free(&horizontal);
+    return 0;
+}
+
+static int checkTaps(uint32_t srcSize, uint32_t dstSize, int method) {
+    ResizeTaps taps;
+    if (resize_taps_init(&taps, srcSize, dstSize, method) != 0) {
+        fprintf(stderr, "FAIL taps %u -> %u: out of memory\n", srcSize, dstSize);
+        return 1;
+    }
+    int failures = 0;
+    for (uint32_t x = 0; x < dstSize && failures == 0; x++) {
+        uint32_t sum = 0;
+        for (uint32_t t = 0; t < taps.taps; t++) {
+            sum += taps.weights[(size_t) x * taps.taps + t];
+        }
+        if (sum != 1u << RESIZE_WEIGHT_BITS || taps.first[x] + taps.taps > srcSize) {
+            fprintf(stderr, "FAIL taps %u -> %u method %d: pixel %u starts at %u with a sum of "
+                    "%u\n", srcSize, dstSize, method, x, taps.first[x], sum);
+            failures++;
+        }
+    }
+    resize_taps_free(&taps);
+    return failures;
+}
+
+static int checkResize(uint32_t srcWidth, uint32_t srcHeight, uint32_t dstWidth,
+                       uint32_t dstHeight, int method) {
+    uint32_t srcStride = srcWidth * 4 + ROW_PADDING;
+    uint32_t dstStride = dstWidth * 4 + ROW_PADDING;
+    uint8_t* src = createImage(srcWidth, srcHeight, srcStride, srcWidth * 7 + dstHeight);
+    uint8_t* dst = malloc((size_t) dstStride * dstHeight);
+    memset(dst, PADDING_BYTE, (size_t) dstStride * dstHeight);
+    double* xWeights = malloc(sizeof(double) * srcWidth);
+    double* yWeights = malloc(sizeof(double) * srcHeight);
+
+    int failures = checkTaps(srcWidth, dstWidth, method) + checkTaps(srcHeight, dstHeight, method);
+    if (failures == 0 && resize(src, srcWidth, srcHeight, srcStride, dst, dstWidth, dstHeight,
+                                dstStride, method) != 0) {
+        fprintf(stderr, "FAIL resize: out of memory\n");
+        failures++;
+    }
+
+    for (uint32_t y = 0; y < dstHeight && failures == 0; y++) {
+        referenceWeights(y, srcHeight, dstHeight, method, yWeights);
+        const uint8_t* out = dst + (size_t) y * dstStride;
+        for (uint32_t x = 0; x < dstWidth && failures == 0; x++) {
+            referenceWeights(x, srcWidth, dstWidth, method, xWeights);
+            for (int c = 0; c < 4; c++) {
+                double expected = 0;
+                for (uint32_t sy = 0; sy < srcHeight; sy++) {
+                    if (yWeights[sy] == 0) {
+                        continue;
+                    }
+                    const uint8_t* row = src + (size_t) sy * srcStride;
+                    for (uint32_t sx = 0; sx < srcWidth; sx++) {
+                        expected += yWeights[sy] * xWeights[sx] * row[sx * 4 + c];
+                    }
+                }
+                if (fabs(out[x * 4 + c] - expected) > TOLERANCE) {
+                    fprintf(stderr, "FAIL resize %ux%u -> %ux%u method %d: pixel (%u, %u) "
+                            "channel %d is %d, expected %.2f\n", srcWidth, srcHeight, dstWidth,
+                            dstHeight, method, x, y, c, out[x * 4 + c], expected);
+                    failures++;
+                    break;
+                }
+            }
+        }
+        for (uint32_t i = dstWidth * 4; i < dstStride && failures == 0; i++) {
+            if (out[i] != PADDING_BYTE) {
+                fprintf(stderr, "FAIL resize: row %u padding was modified\n", y);
+                failures++;
+            }
+        }
+    }
+
+    free(yWeights);
+    free(xWeights);
+    free(dst);
+    free(src);
+    return failures;
+}
+
+static int checkFlat(uint32_t srcWidth, uint32_t srcHeight, uint32_t dstWidth,
+                     uint32_t dstHeight) {
+    uint32_t srcStride = srcWidth * 4;
+    uint32_t dstStride = dstWidth * 4;
+    uint8_t* src = malloc((size_t) srcStride * srcHeight);
+    uint8_t* dst = malloc((size_t) dstStride * dstHeight);
+    for (size_t i = 0; i < (size_t) srcStride * srcHeight; i += 4) {
+        src[i] = 0x33;
+        src[i + 1] = 0x66;
+        src[i + 2] = 0x99;
+        src[i + 3] = 0xFF;
+    }
+
+    int failures = 0;
+    resize(src, srcWidth, srcHeight, srcStride, dst, dstWidth, dstHeight, dstStride,
+           RESIZE_AUTO);
+    for (size_t i = 0; i < (size_t) dstStride * dstHeight; i += 4) {
+        if (dst[i] != 0x33 || dst[i + 1] != 0x66 || dst[i + 2] != 0x99 || dst[i + 3] != 0xFF) {
+            fprintf(stderr, "FAIL flat %ux%u -> %ux%u: pixel %zu changed\n", srcWidth,
+                    srcHeight, dstWidth, dstHeight, i / 4);
+            failures++;
+            break;
+        }
+    }
+
+    free(dst);
+    free(src);
+    return failures;
+}
+
+static void measure(uint32_t width, uint32_t height, uint32_t divisor, int iterations) {
+    uint32_t dstWidth = width / divisor > 0 ? width / divisor : 1;
+    uint32_t dstHeight = height / divisor > 0 ? height / divisor : 1;
+    uint8_t* src = createImage(width, height, width * 4, 1);
+    uint8_t* dst = malloc((size_t) dstWidth * 4 * dstHeight);
+
+    double best = INFINITY;
+    for (int i = 0; i < iterations; i++) {
+        double start = nowSeconds();
+        resize(src, width, height, width * 4, dst, dstWidth, dstHeight, dstWidth * 4,
+               RESIZE_AUTO);
+        double elapsed = nowSeconds() - start;
+        best = elapsed < best ? elapsed : best;
+    }
+    printf("1/%-2u %4ux%-4u %9.3f ms %10.1f MP/s\n", divisor, dstWidth, dstHeight, best * 1e3,
+           (double) width * height / best / 1e6);
+
+    free(dst);
+    free(src);
+}
+
+int main(int argc, char** argv) {
+    uint32_t width = argc > 2 ? (uint32_t) atoi(argv[1]) : 1920;
+    uint32_t height = argc > 2 ? (uint32_t) atoi(argv[2]) : 1080;
+    int iterations = argc > 3 ? atoi(argv[3]) : 5;
+
+    // Sizes {srcWidth, srcHeight, dstWidth, dstHeight}: large and fractional factors, factors
+    // just below and above 2, upscales and single pixels.
+    const uint32_t sizes[][4] = {
+            {64, 48, 8, 6}, {97, 61, 13, 7}, {40, 30, 21, 16}, {40, 30, 19, 14},
+            {33, 17, 50, 40}, {7, 5, 7, 5}, {1, 1, 3, 2}, {9, 9, 1, 1}, {5, 1, 2, 1},
+    };
+    const int methods[] = {RESIZE_AUTO, RESIZE_BILINEAR, RESIZE_AREA};
+
+    int failures = 0;
+    for (size_t s = 0; s < sizeof(sizes) / sizeof(sizes[0]); s++) {
+        for (size_t m = 0; m < sizeof(methods) / sizeof(methods[0]); m++) {
+            failures += checkResize(sizes[s][0], sizes[s][1], sizes[s][2], sizes[s][3],
+                                    methods[m]);
+        }
+        failures += checkFlat(sizes[s][0], sizes[s][1], sizes[s][2], sizes[s][3]);
+    }
+    if (failures > 0) {
+        fprintf(stderr, "%d check(s) failed\n", failures);
+        return 1;
+    }
+    printf("All resized images match the reference\n");
+
+    if (iterations > 0) {
+        printf("Throughput from %ux%u, single thread, best of %d:\n", width, height, iterations);
+        measure(width, height, 2, iterations);
+        measure(width, height, 4, iterations);
+        measure(width, height, 8, iterations);
+    }
+    return 0;
+}
@@ -0,0 +1,36 @@
+#pragma once
+
+// Helpers shared by the host test drivers. Must be included before any other header, so that
+// clock_gettime is declared.
+
+#define _POSIX_C_SOURCE 199309L
+
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+#include <time.h>
+
+// Bytes of padding at the end of each row, filled with PADDING_BYTE, that must never change.
+#define ROW_PADDING 12
+#define PADDING_BYTE 0xA5
+
+// Random RGBA_8888 bytes, with every row followed by stride - width * 4 bytes of PADDING_BYTE.
+static inline uint8_t* createImage(uint32_t width, uint32_t height, uint32_t stride,
+                                   unsigned seed) {
+    uint8_t* pixels = malloc((size_t) stride * height);
+    srand(seed);
+    for (uint32_t y = 0; y < height; y++) {
+        uint8_t* row = pixels + (size_t) y * stride;
+        for (uint32_t i = 0; i < width * 4; i++) {
+            row[i] = (uint8_t) (rand() & 0xFF);
+        }
+        memset(row + width * 4, PADDING_BYTE, stride - width * 4);
+    }
+    return pixels;
+}
+
+static inline double nowSeconds(void) {
+    struct timespec time;
+    clock_gettime(CLOCK_MONOTONIC, &time);
+    return time.tv_sec + time.tv_nsec / 1e9;
+}
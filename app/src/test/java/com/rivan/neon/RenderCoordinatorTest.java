@@ -0,0 +1,118 @@
+package com.rivan.neon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.rivan.neon.filters.kernels.ParallelRows;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * JVM tests for {@link RenderCoordinator}. Renders run one at a time when {@link #runAll} drains
+ * the worker queue, and results are delivered on the same thread.
+ */
+public class RenderCoordinatorTest {
+
+    private final Queue<Runnable> worker = new ArrayDeque<>();
+    private final List<String> rendered = new ArrayList<>();
+    private final List<String> delivered = new ArrayList<>();
+    private final RenderCoordinator<String> coordinator =
+            new RenderCoordinator<>(2, worker::add, Runnable::run);
+
+    @Test
+    public void rendersSubmittedWhileOneIsInFlight_keepOnlyTheLatest() {
+        submit(0, "a", false);
+        submit(0, "b", false);
+        submit(0, "c", false);
+        submit(0, "d", false);
+        assertEquals(1, worker.size());
+
+        runAll();
+
+        assertEquals(Arrays.asList("a", "d"), rendered);
+        assertEquals(Arrays.asList("d"), delivered);
+        assertEquals(2, coordinator.getDroppedCount());
+        assertEquals(0, coordinator.getCancelledCount());
+    }
+
+    @Test
+    public void interruptibleRender_stopsAtTheNextBand() {
+        coordinator.submit(0, true, () -> {
+            rendered.add("a");
+            ParallelRows.forEachBand(10, 1, 1, (startRow, endRow) -> submit(0, "b", true));
+            ParallelRows.forEachBand(10, 1, 1, (startRow, endRow) -> rendered.add("a again"));
+            return "a";
+        }, delivered::add);
+
+        runAll();
+
+        assertEquals(Arrays.asList("a", "b"), rendered);
+        assertEquals(Arrays.asList("b"), delivered);
+        assertEquals(1, coordinator.getCancelledCount());
+    }
+
+    @Test
+    public void uninterruptibleRender_finishesWithoutBeingDelivered() {
+        coordinator.submit(0, false, () -> {
+            rendered.add("a");
+            ParallelRows.forEachBand(10, 1, 1, (startRow, endRow) -> submit(0, "b", false));
+            ParallelRows.forEachBand(10, 1, 1, (startRow, endRow) -> rendered.add("a again"));
+            return "a";
+        }, delivered::add);
+
+        runAll();
+
+        assertEquals(Arrays.asList("a", "a again", "b"), rendered);
+        assertEquals(Arrays.asList("b"), delivered);
+        assertEquals(0, coordinator.getCancelledCount());
+    }
+
+    @Test
+    public void cancel_deliversNothing() {
+        submit(0, "a", false);
+        submit(0, "b", false);
+        coordinator.cancel(0);
+
+        runAll();
+
+        assertTrue(rendered.isEmpty());
+        assertTrue(delivered.isEmpty());
+        assertEquals(1, coordinator.getCancelledCount());
+
+        submit(0, "c", false);
+        runAll();
+        assertEquals(Arrays.asList("c"), delivered);
+    }
+
+    @Test
+    public void slots_areIndependent() {
+        submit(0, "a", true);
+        submit(1, "b", true);
+        assertEquals(2, worker.size());
+
+        runAll();
+
+        assertEquals(Arrays.asList("a", "b"), delivered);
+        assertEquals(0, coordinator.getDroppedCount());
+    }
+
+    private void submit(int slot, String result, boolean interruptible) {
+        coordinator.submit(slot, interruptible, () -> {
+            rendered.add(result);
+            return result;
+        }, delivered::add);
+    }
+
+    private void runAll() {
+        Runnable next;
+        while ((next = worker.poll()) != null) {
+            next.run();
+        }
+    }
+}
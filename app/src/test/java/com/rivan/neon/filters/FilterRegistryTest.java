@@ -0,0 +1,224 @@
+package com.rivan.neon.filters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.ProcessingOptions;
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+import com.rivan.neon.filters.kernels.RowKernel;
+import com.rivan.neon.filters.params.BlurFilterParams;
+import com.rivan.neon.filters.params.BrightnessFilterParams;
+import com.rivan.neon.filters.params.ContrastFilterParams;
+import com.rivan.neon.filters.params.EqualizeFilterParams;
+import com.rivan.neon.filters.params.SharpenFilterParams;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link FilterRegistry}, checking that the traits every {@link FilterKernel}
+ * declares hold for its Java implementation.
+ */
+public class FilterRegistryTest {
+
+    private static final ProcessingOptions OPTIONS = new ProcessingOptions();
+
+    @Test
+    public void everyFilter_hasKernel() {
+        for (Filter filter : Filter.values()) {
+            assertEquals(filter, FilterRegistry.get(filter).getFilter());
+        }
+    }
+
+    @Test
+    public void lutCompilableKernels_matchTheirLut() {
+        for (Filter filter : Filter.values()) {
+            FilterKernel kernel = FilterRegistry.get(filter);
+            FilterParams params = sampleParams(filter);
+            if (!kernel.isLutCompilable() || kernel.isIdentity(params)) {
+                continue;
+            }
+            assertTrue(filter.name(), kernel.isPerChannel() && kernel.isAlphaPreserving());
+
+            ChannelLut lut = kernel.compileLut(params);
+            assertNotNull(filter.name(), lut);
+            assertKernelsMatch(kernel.createJavaKernel(params, OPTIONS), lut.kernel(), 0);
+        }
+    }
+
+    @Test
+    public void affineKernels_matchTheirColorMatrix() {
+        for (Filter filter : Filter.values()) {
+            FilterKernel kernel = FilterRegistry.get(filter);
+            FilterParams params = sampleParams(filter);
+            if (!kernel.isAffine() || kernel.isIdentity(params)) {
+                continue;
+            }
+
+            ColorMatrix matrix = kernel.compileColorMatrix(params);
+            assertNotNull(filter.name(), matrix);
+            assertEquals(filter.name(), kernel.isAlphaPreserving(), matrix.preservesAlpha());
+            assertKernelsMatch(kernel.createJavaKernel(params, OPTIONS), matrix.kernel(), 1);
+        }
+    }
+
+    /**
+     * FilterProcessor composes runs of per-channel affine stages into a lookup table, and the
+     * other affine stages into a color matrix.
+     */
+    @Test
+    public void perChannelKernels_matchTheirColorMatrix() {
+        for (Filter filter : Filter.values()) {
+            FilterKernel kernel = FilterRegistry.get(filter);
+            FilterParams params = sampleParams(filter);
+            if (!kernel.isAffine() || kernel.isIdentity(params)) {
+                continue;
+            }
+
+            float[] values = kernel.compileColorMatrix(params).getValues();
+            boolean mixesChannels = false;
+            for (int row = 0; row < 3; row++) {
+                for (int column = 0; column < 3; column++) {
+                    mixesChannels |= row != column && values[row * 5 + column] != 0;
+                }
+            }
+            assertEquals(filter.name(), !mixesChannels, kernel.isPerChannel());
+            if (kernel.isPerChannel() && kernel.getFootprint() == FilterKernel.Footprint.POINTWISE) {
+                assertTrue(filter.name(), kernel.isLutCompilable());
+            }
+        }
+    }
+
+    @Test
+    public void identityParams_haveNoKernel() {
+        BrightnessFilterParams brightness = new BrightnessFilterParams();
+        ContrastFilterParams contrast = new ContrastFilterParams();
+        BlurFilterParams blur = new BlurFilterParams();
+        blur.setRadius(0);
+        SharpenFilterParams sharpen = new SharpenFilterParams();
+        sharpen.setAmount(0.0f);
+        EqualizeFilterParams equalize = new EqualizeFilterParams();
+        equalize.setAmount(0.0f);
+        assertIdentity(Filter.ORIGINAL, null);
+        assertIdentity(Filter.BRIGHTNESS, brightness);
+        assertIdentity(Filter.CONTRAST, contrast);
+        assertIdentity(Filter.BLUR, blur);
+        blur.setMode(BlurFilterParams.Mode.STACKED_BOX);
+        assertIdentity(Filter.BLUR, blur);
+        assertIdentity(Filter.SHARPEN, sharpen);
+        assertIdentity(Filter.EQUALIZE, equalize);
+
+        brightness.setBrightness(20);
+        assertNotNull(FilterRegistry.get(Filter.BRIGHTNESS).createJavaKernel(brightness, OPTIONS));
+    }
+
+    @Test
+    public void neighborhoodKernels_haveNoPointwiseImplementation() {
+        for (Filter filter : Filter.values()) {
+            FilterKernel kernel = FilterRegistry.get(filter);
+            if (kernel.getFootprint() != FilterKernel.Footprint.NEIGHBORHOOD) {
+                continue;
+            }
+            FilterParams params = sampleParams(filter);
+            assertTrue(filter.name(), !kernel.isIdentity(params));
+            assertTrue(filter.name(), !kernel.isLutCompilable() && !kernel.isAffine());
+            assertNull(filter.name(), kernel.createJavaKernel(params, OPTIONS));
+            assertEquals(filter.name(), -1, kernel.getNativeFilterId());
+        }
+    }
+
+    @Test
+    public void globalKernels_haveNoPointwiseImplementation() {
+        for (Filter filter : Filter.values()) {
+            FilterKernel kernel = FilterRegistry.get(filter);
+            if (kernel.getFootprint() != FilterKernel.Footprint.GLOBAL) {
+                continue;
+            }
+            FilterParams params = sampleParams(filter);
+            assertTrue(filter.name(), !kernel.isIdentity(params));
+            assertTrue(filter.name(), !kernel.isLutCompilable() && !kernel.isAffine());
+            assertTrue(filter.name(), kernel.isPerChannel() && kernel.isAlphaPreserving());
+            assertNull(filter.name(), kernel.createJavaKernel(params, OPTIONS));
+            assertEquals(filter.name(), -1, kernel.getNativeFilterId());
+        }
+    }
+
+    @Test
+    public void scaleParams_scalesRadiiOnly() {
+        for (Filter filter : Filter.values()) {
+            FilterKernel kernel = FilterRegistry.get(filter);
+            if (kernel.getFootprint() == FilterKernel.Footprint.POINTWISE) {
+                FilterParams params = sampleParams(filter);
+                assertSame(filter.name(), params, kernel.scaleParams(params, 0.25f));
+            }
+        }
+
+        BlurFilterParams blur = new BlurFilterParams();
+        blur.setRadius(40);
+        BlurFilterParams scaledBlur =
+                (BlurFilterParams) FilterRegistry.get(Filter.BLUR).scaleParams(blur, 0.25f);
+        assertEquals(10, scaledBlur.getRadius());
+        assertEquals(40, blur.getRadius());
+        blur.setRadius(1);
+        assertEquals(1, ((BlurFilterParams) FilterRegistry.get(Filter.BLUR)
+                .scaleParams(blur, 0.25f)).getRadius());
+        blur.setRadius(0);
+        assertTrue(FilterRegistry.get(Filter.BLUR).isIdentity(
+                FilterRegistry.get(Filter.BLUR).scaleParams(blur, 0.25f)));
+
+        SharpenFilterParams sharpen = new SharpenFilterParams();
+        sharpen.setRadius(SharpenFilterParams.MAX_RADIUS);
+        sharpen.setAmount(2.5f);
+        SharpenFilterParams scaledSharpen = (SharpenFilterParams) FilterRegistry
+                .get(Filter.SHARPEN).scaleParams(sharpen, 0.25f);
+        assertEquals(3, scaledSharpen.getRadius());
+        assertEquals(2.5f, scaledSharpen.getAmount(), 0.0f);
+        assertEquals(SharpenFilterParams.MIN_RADIUS, ((SharpenFilterParams) FilterRegistry
+                .get(Filter.SHARPEN).scaleParams(null, 0.125f)).getRadius());
+    }
+
+    /**
+     * @return Parameters with which the filter changes the image.
+     */
+    private static FilterParams sampleParams(Filter filter) {
+        FilterParams params = filter.createDefaultParams();
+        if (params instanceof BrightnessFilterParams) {
+            ((BrightnessFilterParams) params).setBrightness(-35);
+        } else if (params instanceof ContrastFilterParams) {
+            ((ContrastFilterParams) params).setContrast(1.7f);
+        }
+        return params;
+    }
+
+    private static void assertIdentity(Filter filter, FilterParams params) {
+        FilterKernel kernel = FilterRegistry.get(filter);
+        assertTrue(filter.name(), kernel.isIdentity(params));
+        assertNull(filter.name(), kernel.createJavaKernel(params, OPTIONS));
+    }
+
+    private static void assertKernelsMatch(RowKernel expectedKernel, RowKernel actualKernel,
+                                           int tolerance) {
+        int[] expected = new int[4096];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i * 0x9E3779B1;
+        }
+        int[] actual = expected.clone();
+
+        expectedKernel.processRow(expected, 0, expected.length);
+        actualKernel.processRow(actual, 0, actual.length);
+
+        for (int i = 0; i < expected.length; i++) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                int e = (expected[i] >>> shift) & 0xFF;
+                int a = (actual[i] >>> shift) & 0xFF;
+                assertTrue("pixel " + i + ": " + Integer.toHexString(expected[i]) + " != "
+                        + Integer.toHexString(actual[i]), Math.abs(e - a) <= tolerance);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.rivan.neon.filters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.Histogram;
+import com.rivan.neon.filters.params.AutoLevelsFilterParams;
+import com.rivan.neon.filters.params.EqualizeFilterParams;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for the tables that {@link AutoLevelsFilterKernel} and {@link EqualizeFilterKernel}
+ * compute from a {@link Histogram}.
+ */
+public class HistogramFilterKernelTest {
+
+    @Test
+    public void autoLevels_stretchesEveryChannel() {
+        // Red from 50 to 150, green from 0 to 255 and blue a single value.
+        Histogram histogram = histogram(new int[]{50, 100, 150}, new int[]{0, 128, 255},
+                new int[]{90, 90, 90});
+        AutoLevelsFilterParams params = new AutoLevelsFilterParams();
+        params.setClipPercent(0.0f);
+
+        ChannelLut lut = new AutoLevelsFilterKernel().createLut(histogram, params);
+
+        assertEquals(0, lut.mapRed(50));
+        assertEquals(128, lut.mapRed(100));
+        assertEquals(255, lut.mapRed(150));
+        assertEquals(0, lut.mapRed(10));
+        assertEquals(255, lut.mapRed(200));
+        for (int v = 0; v < ChannelLut.SIZE; v++) {
+            assertEquals(v, lut.mapGreen(v));
+            assertEquals(v, lut.mapBlue(v));
+        }
+    }
+
+    @Test
+    public void autoLevels_clipsOutliers() {
+        // One pixel in a thousand at 0 and at 255, the rest from 100 to 120.
+        int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100 + i % 21;
+        }
+        values[0] = 0;
+        values[1] = 255;
+        Histogram histogram = histogram(values, values, values);
+        AutoLevelsFilterParams params = new AutoLevelsFilterParams();
+
+        ChannelLut lut = new AutoLevelsFilterKernel().createLut(histogram, params);
+
+        assertEquals(0, lut.mapRed(100));
+        assertEquals(255, lut.mapRed(120));
+
+        params.setClipPercent(0.0f);
+        assertTrue(new AutoLevelsFilterKernel().createLut(histogram, params).isIdentity());
+    }
+
+    @Test
+    public void equalize_spreadsTheLuma() {
+        // Four gray levels, a quarter of the pixels each.
+        int[] values = {60, 61, 62, 63};
+        ChannelLut lut = new EqualizeFilterKernel().createLut(histogram(values, values, values),
+                new EqualizeFilterParams());
+
+        assertEquals(0, lut.mapRed(60));
+        assertEquals(85, lut.mapGreen(61));
+        assertEquals(170, lut.mapBlue(62));
+        assertEquals(255, lut.mapRed(63));
+        assertEquals(255, lut.mapRed(200));
+        for (int v = 0; v < ChannelLut.SIZE; v++) {
+            assertTrue(lut.mapRed(v) <= lut.mapRed(Math.min(v + 1, ChannelLut.SIZE - 1)));
+        }
+    }
+
+    @Test
+    public void equalize_blendsWithTheOriginal() {
+        int[] values = {60, 61, 62, 63};
+        EqualizeFilterParams params = new EqualizeFilterParams();
+        params.setAmount(0.5f);
+        ChannelLut lut = new EqualizeFilterKernel().createLut(histogram(values, values, values),
+                params);
+
+        assertEquals(30, lut.mapRed(60));
+        assertEquals(159, lut.mapRed(63));
+    }
+
+    @Test
+    public void equalize_keepsFlatImages() {
+        int[] values = {128, 128, 128};
+        assertTrue(new EqualizeFilterKernel().createLut(histogram(values, values, values),
+                new EqualizeFilterParams()).isIdentity());
+    }
+
+    /**
+     * @return The histogram of pixels with the given red, green and blue values.
+     */
+    private static Histogram histogram(int[] red, int[] green, int[] blue) {
+        int[] counts = new int[4 * Histogram.BINS];
+        for (int i = 0; i < red.length; i++) {
+            counts[red[i]]++;
+            counts[Histogram.BINS + green[i]]++;
+            counts[2 * Histogram.BINS + blue[i]]++;
+            counts[3 * Histogram.BINS + Histogram.luma(red[i], green[i], blue[i])]++;
+        }
+        return Histogram.of(counts);
+    }
+}
@@ -0,0 +1,199 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * JVM tests for {@link BoxBlur}, checking it against a straightforward sum of every window.
+ */
+public class BoxBlurTest {
+
+    @Test
+    public void boxPasses_matchReference() {
+        int[][] radii = {{1}, {0, 2}, {1, 1, 1}, {5, 4, 4}, {23, 24, 24}};
+        for (int[] passes : radii) {
+            for (Convolution.EdgeMode edgeMode : Convolution.EdgeMode.values()) {
+                assertMatchesReference(passes, edgeMode, 37, 23);
+            }
+        }
+    }
+
+    @Test
+    public void radiiLargerThanTheImage_matchReference() {
+        for (Convolution.EdgeMode edgeMode : Convolution.EdgeMode.values()) {
+            assertMatchesReference(new int[]{60, 60, 61}, edgeMode, 13, 9);
+            assertMatchesReference(new int[]{3, 3}, edgeMode, 1, 1);
+        }
+    }
+
+    @Test
+    public void parallelBandsAndStrips_matchSequential() {
+        int width = 157;
+        int height = 211;
+        int[] radii = BoxBlur.stackedRadii(40, BoxBlur.GAUSSIAN_PASSES);
+        int[] sequential = createImage(width, height);
+        int[] parallel = sequential.clone();
+
+        BoxBlur.apply(sequential, new int[sequential.length], width, height, radii,
+                Convolution.EdgeMode.REFLECT, 1, ParallelRows.DEFAULT_MIN_BAND_ROWS);
+        BoxBlur.apply(parallel, new int[parallel.length], width, height, radii,
+                Convolution.EdgeMode.REFLECT, 8, 4);
+
+        assertArrayEquals(sequential, parallel);
+    }
+
+    @Test
+    public void boxPasses_keepFlatImages() {
+        int[] pixels = new int[40 * 30];
+        Arrays.fill(pixels, 0xFF336699);
+        int[] expected = pixels.clone();
+        BoxBlur.apply(pixels, new int[pixels.length], 40, 30,
+                BoxBlur.stackedRadii(150, BoxBlur.GAUSSIAN_PASSES), Convolution.EdgeMode.CLAMP,
+                1, ParallelRows.DEFAULT_MIN_BAND_ROWS);
+        assertArrayEquals(expected, pixels);
+    }
+
+    @Test
+    public void stackedRadii_matchTheGaussianVariance() {
+        for (int radius = 6; radius <= 200; radius++) {
+            int[] radii = BoxBlur.stackedRadii(radius, BoxBlur.GAUSSIAN_PASSES);
+            assertEquals(BoxBlur.GAUSSIAN_PASSES, radii.length);
+            assertTrue(radii[radii.length - 1] - radii[0] <= 1);
+
+            // A box of width w has a variance of (w^2 - 1) / 12, and variances add up.
+            double variance = 0.0;
+            for (int r : radii) {
+                int size = 2 * r + 1;
+                variance += (size * size - 1) / 12.0;
+            }
+            double sigma = radius / 3.0;
+            assertEquals("radius " + radius, sigma, Math.sqrt(variance), 0.1 * sigma);
+        }
+        assertArrayEquals(new int[]{0, 0, 0}, BoxBlur.stackedRadii(0, 3));
+    }
+
+    @Test
+    public void stackedBoxes_approximateTheGaussian() {
+        int width = 120;
+        int height = 90;
+        int radius = 24;
+        int[] src = createGradient(width, height);
+        int[] gaussian = new int[src.length];
+        Convolution.apply(src, gaussian, width, height, ConvolutionKernel.gaussian(radius),
+                Convolution.EdgeMode.REFLECT, 1, ParallelRows.DEFAULT_MIN_BAND_ROWS);
+        int[] boxes = src.clone();
+        BoxBlur.apply(boxes, new int[src.length], width, height,
+                BoxBlur.stackedRadii(radius, BoxBlur.GAUSSIAN_PASSES),
+                Convolution.EdgeMode.REFLECT, 1, ParallelRows.DEFAULT_MIN_BAND_ROWS);
+
+        for (int i = 0; i < src.length; i++) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                int g = (gaussian[i] >>> shift) & 0xFF;
+                int b = (boxes[i] >>> shift) & 0xFF;
+                assertTrue("pixel " + i + ": " + Integer.toHexString(boxes[i]) + " != "
+                        + Integer.toHexString(gaussian[i]), Math.abs(g - b) <= 4);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void apply_rejectsScratchHoldingThePixels() {
+        int[] pixels = new int[16];
+        BoxBlur.apply(pixels, pixels, 4, 4, new int[]{1}, Convolution.EdgeMode.CLAMP, 1, 1);
+    }
+
+    private static void assertMatchesReference(int[] radii, Convolution.EdgeMode edgeMode,
+                                               int width, int height) {
+        int[] src = createImage(width, height);
+        int[] pixels = src.clone();
+        BoxBlur.apply(pixels, new int[src.length], width, height, radii, edgeMode, 1,
+                ParallelRows.DEFAULT_MIN_BAND_ROWS);
+
+        int[] expected = reference(src, width, height, radii, edgeMode);
+        for (int i = 0; i < src.length; i++) {
+            assertEquals(Arrays.toString(radii) + " " + edgeMode + " " + width + "x" + height
+                            + " pixel (" + i % width + ", " + i / width + ")",
+                    Integer.toHexString(expected[i]), Integer.toHexString(pixels[i]));
+        }
+    }
+
+    /**
+     * Sums every window again for every pixel: all the horizontal passes, then all the vertical
+     * ones, each rounded to bytes.
+     */
+    private static int[] reference(int[] src, int width, int height, int[] radii,
+                                   Convolution.EdgeMode edgeMode) {
+        int[] pixels = src.clone();
+        for (int radius : radii) {
+            int[] out = new int[pixels.length];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int[] sums = new int[4];
+                    for (int i = -radius; i <= radius; i++) {
+                        add(sums, pixels[y * width + Convolution.edgeIndex(x + i, width,
+                                edgeMode)]);
+                    }
+                    out[y * width + x] = average(sums, radius);
+                }
+            }
+            pixels = out;
+        }
+        for (int radius : radii) {
+            int[] out = new int[pixels.length];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int[] sums = new int[4];
+                    for (int j = -radius; j <= radius; j++) {
+                        add(sums, pixels[Convolution.edgeIndex(y + j, height, edgeMode) * width
+                                + x]);
+                    }
+                    out[y * width + x] = average(sums, radius);
+                }
+            }
+            pixels = out;
+        }
+        return pixels;
+    }
+
+    private static void add(int[] sums, int pixel) {
+        for (int c = 0; c < 4; c++) {
+            sums[c] += (pixel >>> (24 - 8 * c)) & 0xFF;
+        }
+    }
+
+    private static int average(int[] sums, int radius) {
+        float scale = 1.0f / (2 * radius + 1);
+        int pixel = 0;
+        for (int c = 0; c < 4; c++) {
+            pixel |= (int) (sums[c] * scale + 0.5f) << (24 - 8 * c);
+        }
+        return pixel;
+    }
+
+    private static int[] createImage(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i * 0x9E3779B1;
+        }
+        return pixels;
+    }
+
+    /** A smooth image, on which blurs differ by their shape rather than by rounding noise. */
+    private static int[] createGradient(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = x * 255 / (width - 1);
+                int green = y * 255 / (height - 1);
+                int blue = ((x / 20 + y / 20) % 2) * 255;
+                pixels[y * width + x] = 0xFF000000 | (red << 16) | (green << 8) | blue;
+            }
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,69 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link ChannelLut}.
+ */
+public class ChannelLutTest {
+
+    @Test
+    public void tables_matchDirectKernels() {
+        int[] expected = allColors();
+        int[] actual = expected.clone();
+
+        PixelKernels.contrastKernel(1.7f).processRow(expected, 0, expected.length);
+        ChannelLut.contrast(1.7f).kernel().processRow(actual, 0, actual.length);
+        assertArraysEqual(expected, actual);
+
+        PixelKernels.brightnessKernel(-35).processRow(expected, 0, expected.length);
+        ChannelLut.brightness(-35).kernel().processRow(actual, 0, actual.length);
+        assertArraysEqual(expected, actual);
+
+        PixelKernels.invertKernel().processRow(expected, 0, expected.length);
+        ChannelLut.invert().kernel().processRow(actual, 0, actual.length);
+        assertArraysEqual(expected, actual);
+    }
+
+    @Test
+    public void then_matchesSequentialApplication() {
+        int[] expected = allColors();
+        int[] actual = expected.clone();
+
+        PixelKernels.brightnessKernel(60).processRow(expected, 0, expected.length);
+        PixelKernels.contrastKernel(0.6f).processRow(expected, 0, expected.length);
+        PixelKernels.invertKernel().processRow(expected, 0, expected.length);
+
+        ChannelLut composed = ChannelLut.brightness(60)
+                .then(ChannelLut.contrast(0.6f))
+                .then(ChannelLut.invert());
+        composed.kernel().processRow(actual, 0, actual.length);
+
+        assertArraysEqual(expected, actual);
+    }
+
+    @Test
+    public void identity_isDetected() {
+        assertTrue(ChannelLut.identity().isIdentity());
+        assertTrue(ChannelLut.brightness(0).isIdentity());
+        assertTrue(ChannelLut.invert().then(ChannelLut.invert()).isIdentity());
+    }
+
+    /** One pixel for every channel value, with varying alpha. */
+    private static int[] allColors() {
+        int[] pixels = new int[256];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = ((255 - i) << 24) | (i << 16) | (((i * 7) & 0xFF) << 8) | ((i * 13) & 0xFF);
+        }
+        return pixels;
+    }
+
+    private static void assertArraysEqual(int[] expected, int[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i]);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link ColorMatrix}.
+ */
+public class ColorMatrixTest {
+
+    @Test
+    public void matrices_matchDirectKernels() {
+        assertKernelsMatch(PixelKernels.grayscaleKernel(0.299f, 0.587f, 0.114f),
+                ColorMatrix.grayscale(0.299f, 0.587f, 0.114f).kernel(), 0);
+        assertKernelsMatch(PixelKernels.brightnessKernel(-42),
+                ColorMatrix.brightness(-42).kernel(), 0);
+        assertKernelsMatch(PixelKernels.invertKernel(), ColorMatrix.invert().kernel(), 0);
+        // Sepia is computed in double precision by the direct kernel
+        assertKernelsMatch(PixelKernels.sepiaKernel(), ColorMatrix.sepia().kernel(), 1);
+        assertKernelsMatch(PixelKernels.contrastKernel(1.3f), ColorMatrix.contrast(1.3f).kernel(), 1);
+    }
+
+    @Test
+    public void then_matchesSequentialApplicationWithoutSaturation() {
+        // Stays within 0 to 255 at every stage, so clamping never kicks in
+        ColorMatrix composed = ColorMatrix.contrast(0.5f)
+                .then(ColorMatrix.brightness(20))
+                .then(ColorMatrix.grayscale(0.299f, 0.587f, 0.114f));
+
+        RowKernel sequential = PixelKernels.fuse(
+                ColorMatrix.contrast(0.5f).kernel(),
+                ColorMatrix.brightness(20).kernel(),
+                ColorMatrix.grayscale(0.299f, 0.587f, 0.114f).kernel());
+
+        assertKernelsMatch(sequential, composed.kernel(), 1);
+    }
+
+    @Test
+    public void canSaturate_onlyIfSomeChannelIsClamped() {
+        assertFalse(ColorMatrix.identity().canSaturate());
+        assertFalse(ColorMatrix.invert().canSaturate());
+        assertFalse(ColorMatrix.contrast(0.5f).canSaturate());
+        assertFalse(ColorMatrix.grayscale(0.299f, 0.587f, 0.114f).canSaturate());
+        assertTrue(ColorMatrix.brightness(100).canSaturate());
+        assertTrue(ColorMatrix.brightness(-1).canSaturate());
+        assertTrue(ColorMatrix.contrast(1.5f).canSaturate());
+        assertTrue(ColorMatrix.sepia().canSaturate());
+    }
+
+    @Test
+    public void then_afterSaturation_differsFromSequentialApplication() {
+        // 200 + 100 is clamped to 255 before the decrease, so applying the filters one after
+        // another gives 155, but the composed matrix is the identity.
+        ColorMatrix composed = ColorMatrix.brightness(100).then(ColorMatrix.brightness(-100));
+        int[] sequential = {0xFFC8C8C8};
+        ColorMatrix.brightness(100).kernel().processRow(sequential, 0, 1);
+        ColorMatrix.brightness(-100).kernel().processRow(sequential, 0, 1);
+
+        assertTrue(ColorMatrix.brightness(100).canSaturate());
+        assertTrue(composed.isIdentity());
+        assertEquals(0xFF9B9B9B, sequential[0]);
+    }
+
+    @Test
+    public void then_withIdentity_returnsSameMatrix() {
+        ColorMatrix sepia = ColorMatrix.sepia();
+        assertEquals(sepia, ColorMatrix.identity().then(sepia));
+        assertEquals(sepia, sepia.then(ColorMatrix.identity()));
+        assertTrue(ColorMatrix.invert().then(ColorMatrix.invert()).isIdentity());
+        assertTrue(sepia.preservesAlpha());
+    }
+
+    private static void assertKernelsMatch(RowKernel expectedKernel, RowKernel actualKernel,
+                                           int tolerance) {
+        int[] expected = new int[4096];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i * 0x9E3779B1;
+        }
+        int[] actual = expected.clone();
+
+        expectedKernel.processRow(expected, 0, expected.length);
+        actualKernel.processRow(actual, 0, actual.length);
+
+        for (int i = 0; i < expected.length; i++) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                int e = (expected[i] >>> shift) & 0xFF;
+                int a = (actual[i] >>> shift) & 0xFF;
+                assertTrue("pixel " + i + ": " + Integer.toHexString(expected[i]) + " != "
+                        + Integer.toHexString(actual[i]), Math.abs(e - a) <= tolerance);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link ConvolutionKernel}.
+ */
+public class ConvolutionKernelTest {
+
+    @Test
+    public void gaussian_isNormalizedAndSymmetric() {
+        ConvolutionKernel kernel = ConvolutionKernel.gaussian(5);
+        assertEquals(11, kernel.getSize());
+        assertTrue(kernel.isSeparable());
+
+        float[] horizontal = kernel.getHorizontal();
+        float sum = 0.0f;
+        for (int i = 0; i < horizontal.length; i++) {
+            sum += horizontal[i];
+            assertEquals(horizontal[i], horizontal[horizontal.length - 1 - i], 0.0f);
+        }
+        assertEquals(1.0f, sum, 1e-5f);
+        assertArrayEquals(horizontal, kernel.getVertical(), 0.0f);
+    }
+
+    @Test
+    public void unsharpMask_keepsFlatAreas() {
+        ConvolutionKernel kernel = ConvolutionKernel.unsharpMask(3, 1.5f);
+        float sum = kernel.getIdentityWeight();
+        for (float weight : kernel.getWeights()) {
+            sum += weight;
+        }
+        assertEquals(1.0f, sum, 1e-5f);
+        assertEquals(2.5f, kernel.getIdentityWeight(), 0.0f);
+        assertTrue(kernel.isSeparable());
+    }
+
+    @Test
+    public void of_detectsSeparableKernels() {
+        float[] sobel = {
+                -1, 0, 1,
+                -2, 0, 2,
+                -1, 0, 1
+        };
+        ConvolutionKernel separable = ConvolutionKernel.of(sobel);
+        assertTrue(separable.isSeparable());
+        assertWeightsMatch(sobel, separable);
+
+        ConvolutionKernel gaussian = ConvolutionKernel.gaussian(4);
+        ConvolutionKernel detected = ConvolutionKernel.of(gaussian.getWeights());
+        assertTrue(detected.isSeparable());
+        assertWeightsMatch(gaussian.getWeights(), detected);
+
+        ConvolutionKernel emboss = ConvolutionKernel.emboss();
+        assertFalse(emboss.isSeparable());
+        assertNull(emboss.getHorizontal());
+    }
+
+    @Test
+    public void identity_isDetected() {
+        assertTrue(ConvolutionKernel.identity().isIdentity());
+        assertSame(ConvolutionKernel.identity(), ConvolutionKernel.gaussian(0));
+        assertSame(ConvolutionKernel.identity(), ConvolutionKernel.unsharpMask(2, 0.0f));
+        assertTrue(ConvolutionKernel.of(new float[]{0, 0, 0, 0, 1, 0, 0, 0, 0}).isIdentity());
+        assertFalse(ConvolutionKernel.gaussian(1).isIdentity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void of_rejectsEvenSizes() {
+        ConvolutionKernel.of(new float[16]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void separable_rejectsMismatchedPasses() {
+        ConvolutionKernel.separable(new float[3], new float[5], 0.0f);
+    }
+
+    private static void assertWeightsMatch(float[] expected, ConvolutionKernel kernel) {
+        float[] horizontal = kernel.getHorizontal();
+        float[] vertical = kernel.getVertical();
+        int size = kernel.getSize();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                assertEquals(expected[y * size + x], vertical[y] * horizontal[x], 1e-6f);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * JVM tests for {@link Convolution}, checking it against a straightforward 2D reference.
+ */
+public class ConvolutionTest {
+
+    @Test
+    public void separableKernels_matchReference() {
+        ConvolutionKernel[] kernels = {
+                ConvolutionKernel.gaussian(1),
+                ConvolutionKernel.gaussian(6),
+                ConvolutionKernel.unsharpMask(2, 1.5f)
+        };
+        for (ConvolutionKernel kernel : kernels) {
+            for (Convolution.EdgeMode edgeMode : Convolution.EdgeMode.values()) {
+                assertMatchesReference(kernel, edgeMode, 37, 23);
+            }
+        }
+    }
+
+    @Test
+    public void kernels2d_matchReference() {
+        ConvolutionKernel laplacian = ConvolutionKernel.of(new float[]{
+                0, -1, 0,
+                -1, 4, -1,
+                0, -1, 0
+        });
+        for (Convolution.EdgeMode edgeMode : Convolution.EdgeMode.values()) {
+            assertMatchesReference(ConvolutionKernel.emboss(), edgeMode, 29, 17);
+            assertMatchesReference(laplacian, edgeMode, 29, 17);
+        }
+    }
+
+    @Test
+    public void wideImages_spanSeveralTiles() {
+        assertMatchesReference(ConvolutionKernel.gaussian(25), Convolution.EdgeMode.REFLECT, 301,
+                7);
+        assertMatchesReference(ConvolutionKernel.emboss(), Convolution.EdgeMode.CLAMP, 3001, 3);
+    }
+
+    @Test
+    public void parallelBands_matchSequential() {
+        int width = 53;
+        int height = 211;
+        int[] src = createImage(width, height);
+        int[] sequential = new int[src.length];
+        int[] parallel = new int[src.length];
+        ConvolutionKernel kernel = ConvolutionKernel.gaussian(4);
+
+        Convolution.applyRows(src, sequential, width, height, 0, height, kernel,
+                Convolution.EdgeMode.CLAMP);
+        Convolution.apply(src, parallel, width, height, kernel, Convolution.EdgeMode.CLAMP, 8, 4);
+
+        assertArrayEquals(sequential, parallel);
+    }
+
+    @Test
+    public void normalizedKernels_keepFlatImages() {
+        int[] src = new int[40 * 30];
+        Arrays.fill(src, 0xFF336699);
+        int[] dst = new int[src.length];
+        Convolution.apply(src, dst, 40, 30, ConvolutionKernel.gaussian(9),
+                Convolution.EdgeMode.CLAMP, 1, ParallelRows.DEFAULT_MIN_BAND_ROWS);
+        assertArrayEquals(src, dst);
+    }
+
+    @Test
+    public void edgeIndex_mapsOutsideCoordinates() {
+        assertEquals(0, Convolution.edgeIndex(-3, 5, Convolution.EdgeMode.CLAMP));
+        assertEquals(4, Convolution.edgeIndex(7, 5, Convolution.EdgeMode.CLAMP));
+        assertEquals(2, Convolution.edgeIndex(-2, 5, Convolution.EdgeMode.REFLECT));
+        assertEquals(3, Convolution.edgeIndex(5, 5, Convolution.EdgeMode.REFLECT));
+        assertEquals(4, Convolution.edgeIndex(-1, 5, Convolution.EdgeMode.WRAP));
+        assertEquals(1, Convolution.edgeIndex(6, 5, Convolution.EdgeMode.WRAP));
+        assertEquals(0, Convolution.edgeIndex(-4, 1, Convolution.EdgeMode.REFLECT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void apply_rejectsInPlace() {
+        int[] pixels = new int[16];
+        Convolution.apply(pixels, pixels, 4, 4, ConvolutionKernel.gaussian(1),
+                Convolution.EdgeMode.CLAMP, 1, 1);
+    }
+
+    private static void assertMatchesReference(ConvolutionKernel kernel,
+                                               Convolution.EdgeMode edgeMode, int width,
+                                               int height) {
+        int[] src = createImage(width, height);
+        int[] dst = new int[src.length];
+        Convolution.apply(src, dst, width, height, kernel, edgeMode, 1,
+                ParallelRows.DEFAULT_MIN_BAND_ROWS);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int expected = reference(src, width, height, x, y, kernel, edgeMode);
+                int actual = dst[y * width + x];
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int e = (expected >>> shift) & 0xFF;
+                    int a = (actual >>> shift) & 0xFF;
+                    assertTrue(kernel + " " + edgeMode + " pixel (" + x + ", " + y + "): "
+                                    + Integer.toHexString(actual) + " != "
+                                    + Integer.toHexString(expected),
+                            Math.abs(e - a) <= 1);
+                }
+            }
+        }
+    }
+
+    private static int reference(int[] src, int width, int height, int x, int y,
+                                 ConvolutionKernel kernel, Convolution.EdgeMode edgeMode) {
+        int radius = kernel.getRadius();
+        int size = kernel.getSize();
+        float[] weights = kernel.getWeights();
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            double sum = kernel.getIdentityWeight() * ((src[y * width + x] >>> shift) & 0xFF);
+            for (int j = -radius; j <= radius; j++) {
+                int sy = Convolution.edgeIndex(y + j, height, edgeMode);
+                for (int i = -radius; i <= radius; i++) {
+                    int sx = Convolution.edgeIndex(x + i, width, edgeMode);
+                    sum += weights[(j + radius) * size + (i + radius)]
+                            * ((src[sy * width + sx] >>> shift) & 0xFF);
+                }
+            }
+            long value = Math.round(Math.max(0.0, Math.min(255.0, sum)));
+            result |= (int) value << shift;
+        }
+        return result;
+    }
+
+    private static int[] createImage(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i * 0x9E3779B1;
+        }
+        return pixels;
+    }
+}
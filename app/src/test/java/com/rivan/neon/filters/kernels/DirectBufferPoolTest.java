@@ -0,0 +1,56 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * JVM tests for {@link DirectBufferPool}.
+ */
+public class DirectBufferPoolTest {
+
+    @Test
+    public void acquire_returnsResetDirectBuffers() {
+        DirectBufferPool pool = new DirectBufferPool(DirectBufferPool.DEFAULT_MAX_RETAINED_BYTES);
+
+        ByteBuffer first = pool.acquire(4000);
+        first.position(100);
+        pool.release(first);
+        ByteBuffer second = pool.acquire(3900);
+
+        assertSame(first, second);
+        assertTrue(second.isDirect());
+        assertEquals(0, second.position());
+        assertEquals(3900, second.limit());
+        assertEquals(ByteOrder.LITTLE_ENDIAN, second.order());
+        assertEquals(1, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+    }
+
+    @Test
+    public void directBuffer_processesLikeArray() {
+        int width = 5;
+        int height = 3;
+        int[] expected = new int[width * height];
+        ByteBuffer bytes = DirectBufferPool.getShared().acquire(width * height * 4);
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i * 0x9E3779B1;
+            bytes.putInt(i * 4, PixelBuffer.abgrToArgb(expected[i]));
+        }
+
+        RowKernel kernel = PixelKernels.sepiaKernel();
+        PixelBuffer.wrap(expected, width, height).processRows(0, height, kernel);
+        PixelBuffer actual = PixelBuffer.wrap(bytes, width, height, width * 4);
+        actual.processRows(0, height, kernel);
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual.getPixel(i % width, i / width));
+        }
+        DirectBufferPool.getShared().release(bytes);
+    }
+}
@@ -0,0 +1,72 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Verifies the documented maximum error of {@link FixedPointKernels} against the
+ * floating-point kernels in {@link PixelKernels}.
+ */
+public class FixedPointKernelsTest {
+
+    private static final int MAX_ERROR = 1;
+
+    @Test
+    public void grayscale_withinMaxError() {
+        assertMaxError(PixelKernels.grayscaleKernel(0.299f, 0.587f, 0.114f),
+                FixedPointKernels.grayscaleKernel(0.299f, 0.587f, 0.114f), MAX_ERROR);
+        assertMaxError(PixelKernels.grayscaleKernel(1.0f, 1.0f, 1.0f),
+                FixedPointKernels.grayscaleKernel(1.0f, 1.0f, 1.0f), MAX_ERROR);
+    }
+
+    @Test
+    public void contrast_withinMaxError() {
+        for (float contrast = 0.5f; contrast <= 2.0f; contrast += 0.05f) {
+            assertMaxError(PixelKernels.contrastKernel(contrast),
+                    FixedPointKernels.contrastKernel(contrast), MAX_ERROR);
+        }
+    }
+
+    @Test
+    public void sepia_withinMaxError() {
+        assertMaxError(PixelKernels.sepiaKernel(), FixedPointKernels.sepiaKernel(), MAX_ERROR);
+    }
+
+    @Test
+    public void colorMatrix_withinMaxError() {
+        ColorMatrix matrix = ColorMatrix.contrast(1.4f).then(ColorMatrix.sepia());
+        assertMaxError(matrix.kernel(), FixedPointKernels.colorMatrixKernel(matrix), MAX_ERROR);
+    }
+
+    @Test
+    public void integerKernels_areExact() {
+        assertMaxError(PixelKernels.invertKernel(), FixedPointKernels.invertKernel(), 0);
+        assertMaxError(PixelKernels.brightnessKernel(-77),
+                FixedPointKernels.brightnessKernel(-77), 0);
+    }
+
+    private static void assertMaxError(RowKernel floatKernel, RowKernel fixedKernel, int maxError) {
+        // Every combination of red and green, with blue and alpha derived from them
+        int[] expected = new int[256 * 256];
+        for (int i = 0; i < expected.length; i++) {
+            int red = i >> 8;
+            int green = i & 0xFF;
+            int blue = (red * 31 + green * 17) & 0xFF;
+            expected[i] = ((255 - green) << 24) | (red << 16) | (green << 8) | blue;
+        }
+        int[] actual = expected.clone();
+
+        floatKernel.processRow(expected, 0, expected.length);
+        fixedKernel.processRow(actual, 0, actual.length);
+
+        for (int i = 0; i < expected.length; i++) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                int difference = Math.abs(((expected[i] >>> shift) & 0xFF)
+                        - ((actual[i] >>> shift) & 0xFF));
+                assertTrue("pixel " + i + ": " + Integer.toHexString(expected[i]) + " != "
+                        + Integer.toHexString(actual[i]), difference <= maxError);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * JVM tests for {@link Histogram}, checking it against a straightforward count of every pixel.
+ */
+public class HistogramTest {
+
+    @Test
+    public void compute_matchesReference() {
+        int[][] sizes = {{1, 1}, {7, 3}, {64, 9}, {131, 40}};
+        for (int[] size : sizes) {
+            int[] pixels = createImage(size[0], size[1], false);
+            assertReference(pixels, Histogram.compute(pixels, size[0], size[1], 1,
+                    ParallelRows.DEFAULT_MIN_BAND_ROWS));
+        }
+    }
+
+    @Test
+    public void runsOfEqualPixels_matchReference() {
+        int[] pixels = createImage(97, 31, true);
+        assertReference(pixels, Histogram.compute(pixels, 97, 31, 1,
+                ParallelRows.DEFAULT_MIN_BAND_ROWS));
+    }
+
+    @Test
+    public void parallelBands_matchSequential() {
+        int width = 157;
+        int height = 211;
+        int[] pixels = createImage(width, height, false);
+        Histogram sequential = Histogram.compute(pixels, width, height, 1,
+                ParallelRows.DEFAULT_MIN_BAND_ROWS);
+        Histogram parallel = Histogram.compute(pixels, width, height, 8, 4);
+        assertEquals(sequential, parallel);
+        assertEquals((long) width * height, parallel.getPixelCount());
+    }
+
+    @Test
+    public void percentile_findsTheValueBelowAFraction() {
+        // 10 pixels of 20, 80 of 100 and 10 of 240 in every channel.
+        int[] counts = new int[4 * Histogram.BINS];
+        for (int c = 0; c < 4; c++) {
+            counts[c * Histogram.BINS + 20] = 10;
+            counts[c * Histogram.BINS + 100] = 80;
+            counts[c * Histogram.BINS + 240] = 10;
+        }
+        Histogram histogram = Histogram.of(counts);
+
+        assertEquals(100, histogram.getPixelCount());
+        assertEquals(20, histogram.percentile(Histogram.Channel.RED, 0.0));
+        assertEquals(20, histogram.percentile(Histogram.Channel.RED, 0.09));
+        assertEquals(100, histogram.percentile(Histogram.Channel.GREEN, 0.1));
+        assertEquals(100, histogram.percentile(Histogram.Channel.BLUE, 0.89));
+        assertEquals(240, histogram.percentile(Histogram.Channel.LUMA, 0.9));
+        assertEquals(240, histogram.percentile(Histogram.Channel.LUMA, 1.0));
+        assertEquals(0, Histogram.of(new int[4 * Histogram.BINS])
+                .percentile(Histogram.Channel.RED, 0.5));
+    }
+
+    @Test
+    public void of_copiesTheCounts() {
+        int[] counts = new int[4 * Histogram.BINS];
+        counts[Histogram.BINS + 7] = 3;
+        Histogram histogram = Histogram.of(counts);
+        counts[Histogram.BINS + 7] = 5;
+
+        assertEquals(3, histogram.getCount(Histogram.Channel.GREEN, 7));
+        int[] green = histogram.getCounts(Histogram.Channel.GREEN);
+        green[7] = 9;
+        assertEquals(3, histogram.getCount(Histogram.Channel.GREEN, 7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void of_rejectsWrongSizes() {
+        Histogram.of(new int[Histogram.BINS]);
+    }
+
+    @Test
+    public void luma_isCloseToRec601() {
+        Random random = new Random(3);
+        for (int i = 0; i < 10000; i++) {
+            int r = random.nextInt(256);
+            int g = random.nextInt(256);
+            int b = random.nextInt(256);
+            long expected = Math.round(0.299 * r + 0.587 * g + 0.114 * b);
+            int luma = Histogram.luma(r, g, b);
+            assertEquals(expected, luma, 1);
+        }
+        assertEquals(0, Histogram.luma(0, 0, 0));
+        assertEquals(255, Histogram.luma(255, 255, 255));
+    }
+
+    private static void assertReference(int[] pixels, Histogram histogram) {
+        int[][] expected = new int[4][Histogram.BINS];
+        for (int pixel : pixels) {
+            int r = (pixel >> 16) & 0xFF;
+            int g = (pixel >> 8) & 0xFF;
+            int b = pixel & 0xFF;
+            expected[0][r]++;
+            expected[1][g]++;
+            expected[2][b]++;
+            expected[3][Histogram.luma(r, g, b)]++;
+        }
+        Histogram.Channel[] channels = Histogram.Channel.values();
+        for (int c = 0; c < channels.length; c++) {
+            assertArrayEquals(channels[c].name(), expected[c], histogram.getCounts(channels[c]));
+        }
+        assertEquals(pixels.length, histogram.getPixelCount());
+    }
+
+    /**
+     * @return Random pixels, or runs of equal pixels if {@code runs} is {@code true}.
+     */
+    private static int[] createImage(int width, int height, boolean runs) {
+        Random random = new Random(width * 31L + height);
+        int[] pixels = new int[width * height];
+        int pixel = random.nextInt();
+        for (int i = 0; i < pixels.length; i++) {
+            if (!runs || random.nextInt(37) == 0) {
+                pixel = random.nextInt();
+            }
+            pixels[i] = pixel;
+        }
+        return pixels;
+    }
+}
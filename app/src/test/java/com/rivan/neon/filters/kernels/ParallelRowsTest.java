@@ -0,0 +1,173 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JVM tests for {@link ParallelRows}.
+ */
+public class ParallelRowsTest {
+
+    @Test
+    public void process_matchesSequentialApplication() {
+        int width = 37;
+        int height = 301;
+        int[] sequential = new int[width * height];
+        for (int i = 0; i < sequential.length; i++) {
+            sequential[i] = i * 0x9E3779B1;
+        }
+        int[] parallel = sequential.clone();
+
+        RowKernel kernel = PixelKernels.sepiaKernel();
+        PixelBuffer.wrap(sequential, width, height).processRows(0, height, kernel);
+        ParallelRows.process(PixelBuffer.wrap(parallel, width, height), kernel, 8, 4);
+
+        assertArrayEquals(sequential, parallel);
+    }
+
+    @Test
+    public void process_usesMultipleThreads() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        RowKernel kernel = (pixels, from, to) -> {
+            threads.add(Thread.currentThread());
+            long end = System.nanoTime() + 1_000_000;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+        };
+
+        ParallelRows.process(PixelBuffer.allocate(1, 64), kernel, 4, 16);
+
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            assertTrue(threads.size() > 1);
+        }
+    }
+
+    @Test
+    public void callCancellable_stopsBetweenBands() {
+        CancellationToken token = new CancellationToken();
+        AtomicInteger bands = new AtomicInteger();
+        try {
+            ParallelRows.callCancellable(token, () -> {
+                // One band at a time, so that the first one cancels all that follow.
+                ParallelRows.forEachBand(100, 1, 10, (startRow, endRow) -> bands.incrementAndGet());
+                ParallelRows.forEachBand(100, 4, 10, (startRow, endRow) -> {
+                    bands.incrementAndGet();
+                    token.cancel();
+                });
+                ParallelRows.forEachBand(100, 1, 10, (startRow, endRow) -> bands.incrementAndGet());
+                return null;
+            });
+            fail("The work was not cancelled");
+        } catch (CancellationException expected) {
+            // The bands of the second call that started before the cancellation still ran.
+            assertTrue(bands.get() >= 2 && bands.get() <= 5);
+        }
+
+        // The token only applies inside callCancellable.
+        ParallelRows.forEachBand(100, 4, 10, (startRow, endRow) -> bands.incrementAndGet());
+    }
+
+    @Test
+    public void callCancellable_checksNestedBands() {
+        CancellationToken token = new CancellationToken();
+        AtomicInteger innerBands = new AtomicInteger();
+        try {
+            ParallelRows.callCancellable(token, () -> {
+                ParallelRows.forEachBand(64, 2, 32, (startRow, endRow) -> {
+                    token.cancel();
+                    ParallelRows.forEachBand(64, 4, 16,
+                            (innerStart, innerEnd) -> innerBands.incrementAndGet());
+                });
+                return null;
+            });
+            fail("The work was not cancelled");
+        } catch (CancellationException expected) {
+            assertEquals(0, innerBands.get());
+        }
+    }
+
+    @Test
+    public void callCancellable_waitsForRunningBandsBeforeThrowing() {
+        CancellationToken token = new CancellationToken();
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        try {
+            ParallelRows.callCancellable(token, () -> {
+                ParallelRows.forEachBand(64, 4, 16, (startRow, endRow) -> {
+                    started.incrementAndGet();
+                    if (startRow == 0) {
+                        // Let the other bands start, so that they are running when this one
+                        // fails.
+                        long timeout = System.nanoTime() + 1_000_000_000L;
+                        while (started.get() < 4 && System.nanoTime() < timeout) {
+                            Thread.onSpinWait();
+                        }
+                        token.cancel();
+                        ParallelRows.forEachBand(1, 1, 1, (innerStart, innerEnd) -> { });
+                    }
+                    long end = System.nanoTime() + 20_000_000;
+                    while (System.nanoTime() < end) {
+                        Thread.onSpinWait();
+                    }
+                    finished.incrementAndGet();
+                });
+                return null;
+            });
+            fail("The work was not cancelled");
+        } catch (CancellationException expected) {
+            // Every band that started, except the one that threw, ran to its end.
+            assertEquals(started.get() - 1, finished.get());
+        }
+    }
+
+    @Test
+    public void process_stopsWithinABandOnceCancelled() {
+        int height = 10 * ParallelRows.CANCEL_CHECK_ROWS;
+        CancellationToken token = new CancellationToken();
+        AtomicInteger rows = new AtomicInteger();
+        RowKernel kernel = (pixels, from, to) -> {
+            rows.incrementAndGet();
+            token.cancel();
+        };
+        try {
+            ParallelRows.callCancellable(token, () -> {
+                ParallelRows.process(PixelBuffer.allocate(1, height), kernel, 1, 16);
+                return null;
+            });
+            fail("The work was not cancelled");
+        } catch (CancellationException expected) {
+            assertEquals(ParallelRows.CANCEL_CHECK_ROWS, rows.get());
+        }
+    }
+
+    @Test
+    public void callCancellable_returnsResultIfNotCancelled() {
+        int[] rows = new int[1];
+        int result = ParallelRows.callCancellable(new CancellationToken(), () -> {
+            ParallelRows.forEachBand(100, 4, 10, (startRow, endRow) -> {
+                synchronized (rows) {
+                    rows[0] += endRow - startRow;
+                }
+            });
+            return rows[0];
+        });
+        assertEquals(100, result);
+    }
+
+    @Test
+    public void bandRows_respectsMinimumAndParallelism() {
+        assertEquals(250, ParallelRows.bandRows(1000, 4, 16));
+        assertEquals(16, ParallelRows.bandRows(100, 32, 16));
+        assertEquals(100, ParallelRows.bandRows(100, 1, 16));
+    }
+}
@@ -0,0 +1,66 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link PixelArrayPool}.
+ */
+public class PixelArrayPoolTest {
+
+    @Test
+    public void bucketSize_roundsUpToQuarterOctaves() {
+        assertEquals(PixelArrayPool.MIN_BUCKET_SIZE, PixelArrayPool.bucketSize(1));
+        assertEquals(1 << 20, PixelArrayPool.bucketSize(1 << 20));
+        assertEquals(5 << 18, PixelArrayPool.bucketSize((1 << 20) + 1));
+        assertEquals(6 << 18, PixelArrayPool.bucketSize(5 << 18 | 1));
+        for (int length = 1; length < 100_000; length += 97) {
+            int size = PixelArrayPool.bucketSize(length);
+            assertTrue(size >= length);
+            assertEquals(size, PixelArrayPool.bucketSize(size));
+        }
+    }
+
+    @Test
+    public void acquire_reusesReleasedArrays() {
+        PixelArrayPool pool = new PixelArrayPool(PixelArrayPool.DEFAULT_MAX_RETAINED_BYTES);
+
+        int[] first = pool.acquire(1000);
+        pool.release(first);
+        int[] second = pool.acquire(990);
+
+        assertSame(first, second);
+        assertEquals(1, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void release_respectsByteBudget() {
+        PixelArrayPool pool = new PixelArrayPool(4 * 1024);
+
+        int[] small = pool.acquire(1024);
+        int[] large = pool.acquire(2048);
+        pool.release(small);
+        pool.release(large);
+
+        assertEquals(4 * 1024, pool.getRetainedBytes());
+        assertNotSame(large, pool.acquire(2048));
+    }
+
+    @Test
+    public void trim_dropsIdleArrays() {
+        PixelArrayPool pool = new PixelArrayPool(PixelArrayPool.DEFAULT_MAX_RETAINED_BYTES);
+
+        int[] array = pool.acquire(4096);
+        pool.release(array);
+        pool.trim();
+
+        assertEquals(0, pool.getRetainedBytes());
+        assertNotSame(array, pool.acquire(4096));
+    }
+}
@@ -0,0 +1,163 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * JVM tests for the platform-independent kernels in {@link PixelKernels}.
+ */
+public class PixelKernelsTest {
+
+    private static final int[] SAMPLE = {
+            0xFF000000, 0xFFFFFFFF, 0x80102030, 0xFF7F8081,
+            0x00FF0000, 0xFF00FF00, 0xC00000FF, 0xFFC86432
+    };
+
+    @Test
+    public void grayscale_matchesReferenceFormula() {
+        PixelBuffer buffer = PixelBuffer.wrap(SAMPLE.clone(), 4, 2);
+        PixelKernels.grayscale(buffer, 0.299f, 0.587f, 0.114f);
+
+        // 0.299 * 0xC8 + 0.587 * 0x64 + 0.114 * 0x32 = 124.2
+        assertEquals(0xFF7C7C7C, buffer.getPixel(3, 1));
+        assertEquals(0xFFFFFFFF, buffer.getPixel(1, 0));
+    }
+
+    @Test
+    public void invert_preservesAlpha() {
+        PixelBuffer buffer = PixelBuffer.wrap(SAMPLE.clone(), 4, 2);
+        PixelKernels.invert(buffer);
+
+        assertEquals(0x80EFDFCF, buffer.getPixel(2, 0));
+        assertEquals(0xFFFFFFFF, buffer.getPixel(0, 0));
+    }
+
+    @Test
+    public void brightness_saturates() {
+        PixelBuffer buffer = PixelBuffer.wrap(SAMPLE.clone(), 4, 2);
+        PixelKernels.brightness(buffer, 100);
+
+        assertEquals(0xFFFFC896, buffer.getPixel(3, 1));
+        assertEquals(0xFFFFFFFF, buffer.getPixel(1, 0));
+
+        PixelKernels.brightness(buffer, -255);
+        assertEquals(0xFF000000, buffer.getPixel(3, 1));
+    }
+
+    @Test
+    public void contrast_identityLeavesPixelsUnchanged() {
+        int[] pixels = SAMPLE.clone();
+        PixelKernels.contrast(PixelBuffer.wrap(pixels, 4, 2), 1.0f);
+
+        for (int i = 0; i < SAMPLE.length; i++) {
+            assertEquals(SAMPLE[i], pixels[i]);
+        }
+    }
+
+    @Test
+    public void sepia_matchesReferenceFormula() {
+        PixelBuffer buffer = PixelBuffer.wrap(SAMPLE.clone(), 4, 2);
+        PixelKernels.sepia(buffer);
+
+        assertEquals(0xFF000000, buffer.getPixel(0, 0));
+        assertEquals(0xFFFFFFEE, buffer.getPixel(1, 0));
+        // r = 200, g = 100, b = 50 -> (164.95, 146.8, 114.35)
+        assertEquals(0xFFA49272, buffer.getPixel(3, 1));
+    }
+
+    @Test
+    public void byteBufferBacking_matchesArrayBacking() {
+        int width = 3;
+        int height = 2;
+        int rowBytes = 16; // One pixel of padding per row
+        ByteBuffer bytes = ByteBuffer.allocateDirect(rowBytes * height).order(ByteOrder.LITTLE_ENDIAN);
+        PixelBuffer byteBacked = PixelBuffer.wrap(bytes, width, height, rowBytes);
+        PixelBuffer arrayBacked = PixelBuffer.allocate(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                byteBacked.setPixel(x, y, SAMPLE[y * width + x]);
+                arrayBacked.setPixel(x, y, SAMPLE[y * width + x]);
+            }
+        }
+
+        // RGBA_8888 stores red in the lowest byte
+        assertEquals(0x30, bytes.get(2 * 4 + 2) & 0xFF);
+        assertEquals(0x10, bytes.get(2 * 4) & 0xFF);
+
+        PixelKernels.sepia(byteBacked);
+        PixelKernels.sepia(arrayBacked);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(arrayBacked.getPixel(x, y), byteBacked.getPixel(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void fuse_matchesSequentialApplication() {
+        int width = PixelKernels.FUSED_TILE_PIXELS + 3;
+        int[] sequential = new int[width];
+        for (int i = 0; i < width; i++) {
+            sequential[i] = SAMPLE[i % SAMPLE.length];
+        }
+        int[] fused = sequential.clone();
+
+        PixelBuffer sequentialBuffer = PixelBuffer.wrap(sequential, width, 1);
+        PixelKernels.brightness(sequentialBuffer, 40);
+        PixelKernels.contrast(sequentialBuffer, 1.5f);
+        PixelKernels.sepia(sequentialBuffer);
+
+        PixelBuffer.wrap(fused, width, 1).processRows(0, 1, PixelKernels.fuse(
+                PixelKernels.brightnessKernel(40),
+                PixelKernels.contrastKernel(1.5f),
+                PixelKernels.sepiaKernel()));
+
+        for (int i = 0; i < width; i++) {
+            assertEquals(sequential[i], fused[i]);
+        }
+    }
+
+    @Test
+    public void premultiply_roundTripsEveryColor() {
+        int[] pixels = new int[256 * 256];
+        for (int alpha = 0; alpha < 256; alpha++) {
+            for (int value = 0; value < 256; value++) {
+                pixels[alpha * 256 + value] = alpha << 24 | value;
+            }
+        }
+        PixelBuffer buffer = PixelBuffer.wrap(pixels, 256, 256);
+
+        buffer.processRows(0, 256, PixelKernels.premultiplyKernel());
+        for (int alpha = 0; alpha < 256; alpha++) {
+            for (int value = 0; value < 256; value++) {
+                int premultiplied = pixels[alpha * 256 + value];
+                assertEquals(alpha, premultiplied >>> 24);
+                assertEquals(Math.round(value * alpha / 255.0f), premultiplied & 0xFF);
+            }
+        }
+
+        // Unpremultiplying and premultiplying again gives back the premultiplied colors.
+        int[] premultiplied = pixels.clone();
+        buffer.processRows(0, 256, PixelKernels.unpremultiplyKernel());
+        buffer.processRows(0, 256, PixelKernels.premultiplyKernel());
+        for (int i = 0; i < pixels.length; i++) {
+            assertEquals(premultiplied[i], pixels[i]);
+        }
+    }
+
+    @Test
+    public void unpremultiply_saturatesColorsAboveAlpha() {
+        int[] pixels = {0x40804020, 0x00102030, 0xFF102030};
+        PixelBuffer.wrap(pixels, 3, 1).processRows(0, 1, PixelKernels.unpremultiplyKernel());
+
+        assertEquals(0x40FFFF80, pixels[0]);
+        assertEquals(0x00000000, pixels[1]);
+        assertEquals(0xFF102030, pixels[2]);
+    }
+}
@@ -0,0 +1,165 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * JVM tests for {@link Resampler}, checking it against a floating-point reference of the area
+ * averages and the bilinear interpolation.
+ */
+public class ResamplerTest {
+
+    /** Both passes round, plus a little for the rounding of the weights. */
+    private static final double TOLERANCE = 1.02;
+
+    private static final int[][] SIZES = {
+            {64, 48, 8, 6}, {97, 61, 13, 7}, {40, 30, 21, 16}, {40, 30, 19, 14},
+            {33, 17, 50, 40}, {7, 5, 7, 5}, {1, 1, 3, 2}, {9, 9, 1, 1}, {5, 1, 2, 1},
+    };
+
+    @Test
+    public void resize_matchesReference() {
+        for (int[] size : SIZES) {
+            for (Resampler.Method method : Resampler.Method.values()) {
+                assertMatchesReference(size[0], size[1], size[2], size[3], method);
+            }
+        }
+    }
+
+    @Test
+    public void taps_addUpToOne() {
+        for (int[] size : SIZES) {
+            for (Resampler.Method method : Resampler.Method.values()) {
+                assertTapsAddUpToOne(size[0], size[2], method);
+                assertTapsAddUpToOne(size[1], size[3], method);
+            }
+        }
+        assertTapsAddUpToOne(4000, 333, Resampler.Method.AUTO);
+    }
+
+    @Test
+    public void effectiveMethod_averagesAreasFromAFactorOf2() {
+        assertEquals(Resampler.Method.AREA,
+                Resampler.effectiveMethod(200, 100, Resampler.Method.AUTO));
+        assertEquals(Resampler.Method.BILINEAR,
+                Resampler.effectiveMethod(199, 100, Resampler.Method.AUTO));
+        assertEquals(Resampler.Method.BILINEAR,
+                Resampler.effectiveMethod(50, 100, Resampler.Method.AREA));
+        assertEquals(Resampler.Method.AREA,
+                Resampler.effectiveMethod(150, 100, Resampler.Method.AREA));
+    }
+
+    @Test
+    public void flatImages_stayFlat() {
+        int[] src = new int[97 * 61];
+        Arrays.fill(src, 0x80336699);
+        int[] dst = new int[13 * 7];
+        Resampler.resize(src, 97, 61, dst, 13, 7, Resampler.Method.AUTO, 1,
+                ParallelRows.DEFAULT_MIN_BAND_ROWS);
+
+        int[] expected = new int[dst.length];
+        Arrays.fill(expected, 0x80336699);
+        assertArrayEquals(expected, dst);
+    }
+
+    @Test
+    public void parallelBands_matchSequential() {
+        int[] src = createImage(640, 480);
+        int[] sequential = new int[160 * 120];
+        int[] parallel = new int[sequential.length];
+        Resampler.resize(src, 640, 480, sequential, 160, 120, Resampler.Method.AUTO, 1,
+                ParallelRows.DEFAULT_MIN_BAND_ROWS);
+        Resampler.resize(src, 640, 480, parallel, 160, 120, Resampler.Method.AUTO, 8, 4);
+        assertArrayEquals(sequential, parallel);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resize_rejectsEmptySizes() {
+        Resampler.resize(new int[4], 2, 2, new int[0], 0, 3, Resampler.Method.AUTO, 1,
+                ParallelRows.DEFAULT_MIN_BAND_ROWS);
+    }
+
+    private static void assertTapsAddUpToOne(int srcSize, int dstSize, Resampler.Method method) {
+        Resampler.Taps taps = Resampler.Taps.of(srcSize, dstSize, method);
+        for (int x = 0; x < dstSize; x++) {
+            int sum = 0;
+            for (int t = 0; t < taps.count; t++) {
+                sum += taps.weights[x * taps.count + t];
+            }
+            assertEquals(1 << Resampler.WEIGHT_BITS, sum);
+            assertTrue(taps.first[x] >= 0 && taps.first[x] + taps.count <= srcSize);
+        }
+    }
+
+    private static void assertMatchesReference(int srcWidth, int srcHeight, int dstWidth,
+                                               int dstHeight, Resampler.Method method) {
+        int[] src = createImage(srcWidth, srcHeight);
+        int[] dst = new int[dstWidth * dstHeight];
+        Resampler.resize(src, srcWidth, srcHeight, dst, dstWidth, dstHeight, method, 1,
+                ParallelRows.DEFAULT_MIN_BAND_ROWS);
+
+        for (int y = 0; y < dstHeight; y++) {
+            double[] yWeights = referenceWeights(y, srcHeight, dstHeight, method);
+            for (int x = 0; x < dstWidth; x++) {
+                double[] xWeights = referenceWeights(x, srcWidth, dstWidth, method);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    double expected = 0;
+                    for (int sy = 0; sy < srcHeight; sy++) {
+                        for (int sx = 0; sx < srcWidth; sx++) {
+                            int value = (src[sy * srcWidth + sx] >>> shift) & 0xFF;
+                            expected += yWeights[sy] * xWeights[sx] * value;
+                        }
+                    }
+                    int actual = (dst[y * dstWidth + x] >>> shift) & 0xFF;
+                    assertTrue(srcWidth + "x" + srcHeight + " -> " + dstWidth + "x" + dstHeight
+                                    + " " + method + ": pixel (" + x + ", " + y + ") is "
+                                    + actual + ", expected " + expected,
+                            Math.abs(actual - expected) <= TOLERANCE);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The exact weights of the input pixels of output pixel {@code x}.
+     */
+    private static double[] referenceWeights(int x, int srcSize, int dstSize,
+                                             Resampler.Method method) {
+        double[] weights = new double[srcSize];
+        double scale = (double) srcSize / dstSize;
+        if (Resampler.effectiveMethod(srcSize, dstSize, method) == Resampler.Method.AREA) {
+            double low = x * scale;
+            double high = low + scale;
+            for (int i = (int) low; i < srcSize && i < high; i++) {
+                weights[i] = (Math.min(i + 1, high) - Math.max(i, low)) / scale;
+            }
+            return weights;
+        }
+        double center = (x + 0.5) * scale - 0.5;
+        if (center <= 0) {
+            weights[0] = 1;
+        } else if (center >= srcSize - 1) {
+            weights[srcSize - 1] = 1;
+        } else {
+            int i = (int) center;
+            weights[i] = 1 - (center - i);
+            weights[i + 1] = center - i;
+        }
+        return weights;
+    }
+
+    private static int[] createImage(int width, int height) {
+        Random random = new Random(width * 7L + height);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,48 @@
+package com.rivan.neon.filters.kernels;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for {@link SwarKernels}.
+ */
+public class SwarKernelsTest {
+
+    private static int[] samplePixels() {
+        // Odd length, so the long kernels also have to handle a trailing pixel.
+        int[] pixels = new int[4097];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i * 0x9E3779B1;
+        }
+        pixels[0] = 0xFFFFFFFF;
+        pixels[1] = 0x00000000;
+        pixels[2] = 0x80FF0001;
+        return pixels;
+    }
+
+    private static void assertSameResult(RowKernel expectedKernel, RowKernel actualKernel) {
+        int[] expected = samplePixels();
+        int[] actual = expected.clone();
+        expectedKernel.processRow(expected, 0, expected.length);
+        actualKernel.processRow(actual, 0, actual.length);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void invert_matchesReferenceKernel() {
+        assertSameResult(PixelKernels.invertKernel(), SwarKernels.invertKernel());
+        assertSameResult(PixelKernels.invertKernel(), SwarKernels.invertKernelLong());
+    }
+
+    @Test
+    public void brightness_matchesReferenceKernel() {
+        int[] amounts = {-300, -255, -128, -1, 0, 1, 37, 128, 255, 300};
+        for (int amount : amounts) {
+            assertSameResult(PixelKernels.brightnessKernel(amount),
+                    SwarKernels.brightnessKernel(amount));
+            assertSameResult(PixelKernels.brightnessKernel(amount),
+                    SwarKernels.brightnessKernelLong(amount));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.rivan.neon.filters.params;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+
+import com.rivan.neon.Filter;
+import com.rivan.neon.FilterParams;
+import com.rivan.neon.filters.kernels.Convolution;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for the value semantics of the {@link FilterParams} implementations, which key
+ * cached results.
+ */
+public class FilterParamsTest {
+
+    @Test
+    public void copies_areEqualWithEqualHashCodes() {
+        for (Filter filter : Filter.values()) {
+            FilterParams params = filter.createDefaultParams();
+            if (params == null) {
+                continue;
+            }
+            FilterParams copy = params.copy();
+            assertNotSame(filter.name(), params, copy);
+            assertEquals(filter.name(), params, copy);
+            assertEquals(filter.name(), params.hashCode(), copy.hashCode());
+            assertEquals(filter.name(), params, filter.createDefaultParams());
+        }
+    }
+
+    @Test
+    public void everyValue_takesPartInEquality() {
+        GrayscaleFilterParams grayscale = new GrayscaleFilterParams();
+        grayscale.setBlueCoefficient(0.5f);
+        assertNotEquals(new GrayscaleFilterParams(), grayscale);
+
+        BrightnessFilterParams brightness = new BrightnessFilterParams();
+        brightness.setBrightness(10);
+        assertNotEquals(new BrightnessFilterParams(), brightness);
+
+        ContrastFilterParams contrast = new ContrastFilterParams();
+        contrast.setContrast(1.5f);
+        assertNotEquals(new ContrastFilterParams(), contrast);
+
+        BlurFilterParams blurRadius = new BlurFilterParams();
+        blurRadius.setRadius(3);
+        assertNotEquals(new BlurFilterParams(), blurRadius);
+        BlurFilterParams blurEdges = new BlurFilterParams();
+        blurEdges.setEdgeMode(Convolution.EdgeMode.WRAP);
+        assertNotEquals(new BlurFilterParams(), blurEdges);
+        BlurFilterParams blurMode = new BlurFilterParams();
+        blurMode.setMode(BlurFilterParams.Mode.BOX);
+        assertNotEquals(new BlurFilterParams(), blurMode);
+
+        SharpenFilterParams sharpenAmount = new SharpenFilterParams();
+        sharpenAmount.setAmount(2.0f);
+        assertNotEquals(new SharpenFilterParams(), sharpenAmount);
+        SharpenFilterParams sharpenRadius = new SharpenFilterParams();
+        sharpenRadius.setRadius(5);
+        assertNotEquals(new SharpenFilterParams(), sharpenRadius);
+
+        AutoLevelsFilterParams autoLevels = new AutoLevelsFilterParams();
+        autoLevels.setClipPercent(2.0f);
+        assertNotEquals(new AutoLevelsFilterParams(), autoLevels);
+
+        EqualizeFilterParams equalize = new EqualizeFilterParams();
+        equalize.setAmount(0.5f);
+        assertNotEquals(new EqualizeFilterParams(), equalize);
+    }
+
+    @Test
+    public void differentFilters_areNeverEqual() {
+        SharpenFilterParams sharpen = new SharpenFilterParams();
+        EqualizeFilterParams equalize = new EqualizeFilterParams();
+        assertEquals(sharpen.getAmount(), equalize.getAmount(), 0.0f);
+        assertNotEquals(sharpen, equalize);
+        assertNotEquals(equalize, sharpen);
+    }
+}
@@ -0,0 +1,40 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+sourceSets {
+    main {
+        java {
+            // The kernels have no Android dependencies, so they are compiled straight from the
+            // app sources instead of being copied or published.
+            setSrcDirs(listOf("../app/src/main/java"))
+            include("com/rivan/neon/filters/kernels/**")
+        }
+    }
+}
+
+dependencies {
+    jmh(libs.jmh.core)
+    jmh(libs.jmh.generator.annprocess)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    // JSON results can be archived by CI and compared with tools such as JMH Visualizer.
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    fork.set(2)
+    warmupIterations.set(5)
+    iterations.set(10)
+    timeUnit.set("ms")
+    benchmarkMode.set(listOf("avgt"))
+
+    // Allows running a subset, e.g. ./gradlew :benchmark:jmh -Pjmh.includes=Swar
+    project.findProperty("jmh.includes")?.let { includes.set(listOf(it.toString())) }
+}
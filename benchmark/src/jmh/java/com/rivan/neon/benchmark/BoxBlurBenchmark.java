@@ -0,0 +1,75 @@
+package com.rivan.neon.benchmark;
+
+import com.rivan.neon.filters.kernels.BoxBlur;
+import com.rivan.neon.filters.kernels.Convolution;
+import com.rivan.neon.filters.kernels.ParallelRows;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * JMH benchmarks of the Java {@link BoxBlur}. Every pass keeps a running sum, so unlike the
+ * Gaussian of {@link ConvolutionBenchmark}, the time of a blur should not depend on its radius.
+ */
+@State(Scope.Benchmark)
+public class BoxBlurBenchmark {
+
+    /** Image size as {@code WIDTHxHEIGHT}. */
+    @Param({"1920x1080", "4000x3000"})
+    public String size;
+
+    /** Radius of the Gaussian approximated by {@link BoxBlur#GAUSSIAN_PASSES} box passes. */
+    @Param({"25", "50", "100", "200"})
+    public int radius;
+
+    /** Number of row bands and column strips processed concurrently; 0 uses one per processor. */
+    @Param({"1", "0"})
+    public int threads;
+
+    private int[] radii;
+
+    private int width;
+    private int height;
+
+    private int[] source;
+    private int[] pixels;
+    private int[] scratch;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        int separator = size.indexOf('x');
+        width = Integer.parseInt(size.substring(0, separator));
+        height = Integer.parseInt(size.substring(separator + 1));
+
+        source = new int[width * height];
+        pixels = new int[source.length];
+        scratch = new int[source.length];
+        Random random = new Random(42);
+        for (int i = 0; i < source.length; i++) {
+            source[i] = 0xFF000000 | random.nextInt(0x01000000);
+        }
+        radii = BoxBlur.stackedRadii(radius, BoxBlur.GAUSSIAN_PASSES);
+
+        // Start the shared pool outside of the measurement.
+        ParallelRows.getSharedPool();
+    }
+
+    // Blurring pixels again costs the same, so they are only restored before every iteration.
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        System.arraycopy(source, 0, pixels, 0, source.length);
+    }
+
+    @Benchmark
+    public int apply() {
+        BoxBlur.apply(pixels, scratch, width, height, radii, Convolution.EdgeMode.CLAMP, threads,
+                ParallelRows.DEFAULT_MIN_BAND_ROWS);
+        return pixels[pixels.length - 1];
+    }
+}
@@ -0,0 +1,85 @@
+package com.rivan.neon.benchmark;
+
+import com.rivan.neon.filters.kernels.Convolution;
+import com.rivan.neon.filters.kernels.ConvolutionKernel;
+import com.rivan.neon.filters.kernels.ParallelRows;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * JMH benchmarks of the Java {@link Convolution} engine. Separable kernels should cost
+ * {@code O(radius)} per pixel, so the time of a Gaussian blur should grow linearly with the
+ * radius; {@code emboss} measures a 3x3 kernel that is not separable.
+ */
+@State(Scope.Benchmark)
+public class ConvolutionBenchmark {
+
+    /** Image size as {@code WIDTHxHEIGHT}. */
+    @Param({"1920x1080", "4000x3000"})
+    public String size;
+
+    /** {@code gaussian:RADIUS}, {@code unsharp:RADIUS} or {@code emboss}. */
+    @Param({"gaussian:1", "gaussian:3", "gaussian:8", "gaussian:25", "unsharp:2", "emboss"})
+    public String kernel;
+
+    /** Number of row bands processed concurrently; 0 uses one band per processor. */
+    @Param({"1", "0"})
+    public int threads;
+
+    private ConvolutionKernel convolution;
+
+    private int width;
+    private int height;
+
+    private int[] source;
+    private int[] destination;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        int separator = size.indexOf('x');
+        width = Integer.parseInt(size.substring(0, separator));
+        height = Integer.parseInt(size.substring(separator + 1));
+
+        source = new int[width * height];
+        destination = new int[source.length];
+        Random random = new Random(42);
+        for (int i = 0; i < source.length; i++) {
+            source[i] = 0xFF000000 | random.nextInt(0x01000000);
+        }
+
+        int colon = kernel.indexOf(':');
+        String name = colon < 0 ? kernel : kernel.substring(0, colon);
+        int radius = colon < 0 ? 0 : Integer.parseInt(kernel.substring(colon + 1));
+        switch (name) {
+            case "gaussian":
+                convolution = ConvolutionKernel.gaussian(radius);
+                break;
+            case "unsharp":
+                convolution = ConvolutionKernel.unsharpMask(radius, 1.0f);
+                break;
+            case "emboss":
+                convolution = ConvolutionKernel.emboss();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown kernel " + kernel);
+        }
+
+        // Start the shared pool outside of the measurement.
+        ParallelRows.getSharedPool();
+    }
+
+    @Benchmark
+    public int apply() {
+        // The source is never modified, so it does not need to be restored.
+        Convolution.apply(source, destination, width, height, convolution,
+                Convolution.EdgeMode.CLAMP, threads, ParallelRows.DEFAULT_MIN_BAND_ROWS);
+        return destination[destination.length - 1];
+    }
+}
@@ -0,0 +1,65 @@
+package com.rivan.neon.benchmark;
+
+import com.rivan.neon.filters.kernels.Histogram;
+import com.rivan.neon.filters.kernels.ParallelRows;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * JMH benchmarks of the Java {@link Histogram}, which is counted whenever an image is loaded.
+ * Flat images are the worst case for counting, since every pixel increments the same counters.
+ */
+@State(Scope.Benchmark)
+public class HistogramBenchmark {
+
+    /** Image size as {@code WIDTHxHEIGHT}. */
+    @Param({"1920x1080", "4000x3000"})
+    public String size;
+
+    /** {@code random} pixels, or a {@code flat} image of a single color. */
+    @Param({"random", "flat"})
+    public String content;
+
+    /** Number of row bands counted concurrently; 0 uses one per processor. */
+    @Param({"1", "0"})
+    public int threads;
+
+    private int width;
+    private int height;
+
+    private int[] pixels;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        int separator = size.indexOf('x');
+        width = Integer.parseInt(size.substring(0, separator));
+        height = Integer.parseInt(size.substring(separator + 1));
+
+        pixels = new int[width * height];
+        if (content.equals("flat")) {
+            Arrays.fill(pixels, 0xFF336699);
+        } else {
+            Random random = new Random(42);
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = 0xFF000000 | random.nextInt(0x01000000);
+            }
+        }
+
+        // Start the shared pool outside of the measurement.
+        ParallelRows.getSharedPool();
+    }
+
+    @Benchmark
+    public Histogram compute() {
+        return Histogram.compute(pixels, width, height, threads,
+                ParallelRows.DEFAULT_MIN_BAND_ROWS);
+    }
+}
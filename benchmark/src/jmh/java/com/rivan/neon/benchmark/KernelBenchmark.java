@@ -0,0 +1,119 @@
+package com.rivan.neon.benchmark;
+
+import com.rivan.neon.filters.kernels.ParallelRows;
+import com.rivan.neon.filters.kernels.PixelBuffer;
+import com.rivan.neon.filters.kernels.RowKernel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * JMH benchmarks of the Java filter kernels.
+ *
+ * <p>
+ * Unlike the on-device {@code BenchmarkUtils}, the pixels are restored outside of the measured
+ * region (before every invocation) and the benchmark method returns a pixel of the result so that
+ * the kernel can never be eliminated as dead code. Every parameter can be overridden from the
+ * command line of the JMH jar, e.g. {@code -p size=8000x6000 -p threads=8}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class KernelBenchmark {
+
+    /** Image size as {@code WIDTHxHEIGHT}. */
+    @Param({"1920x1080", "4000x3000"})
+    public String size;
+
+    /** See {@link KernelSpecs}. */
+    @Param({
+            "grayscale", "grayscale-fixed",
+            "invert", "invert-swar", "invert-swar-long",
+            "brightness:40", "brightness:-40",
+            "brightness-swar:40", "brightness-swar:-40",
+            "brightness-swar-long:40", "brightness-swar-long:-40",
+            "brightness-lut:40",
+            "contrast:1.5", "contrast-fixed:1.5", "contrast-lut:1.5",
+            "sepia", "sepia-fixed", "sepia-matrix", "sepia-matrix-fixed",
+            "fused:40,1.5"
+    })
+    public String kernel;
+
+    /** Number of row bands processed concurrently; 0 uses one band per processor. */
+    @Param({"1", "0"})
+    public int threads;
+
+    /**
+     * {@code array} for the {@code getPixels} path, {@code direct} for the raw
+     * {@code copyPixelsToBuffer} path.
+     */
+    @Param({"array", "direct"})
+    public String backing;
+
+    private RowKernel rowKernel;
+
+    private int[] source;
+
+    private int[] pixels;
+    private ByteBuffer bytes;
+
+    private PixelBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        int separator = size.indexOf('x');
+        int width = Integer.parseInt(size.substring(0, separator));
+        int height = Integer.parseInt(size.substring(separator + 1));
+
+        source = new int[width * height];
+        Random random = new Random(42);
+        for (int i = 0; i < source.length; i++) {
+            source[i] = 0xFF000000 | random.nextInt(0x01000000);
+        }
+
+        rowKernel = KernelSpecs.create(kernel);
+
+        if ("direct".equals(backing)) {
+            bytes = ByteBuffer.allocateDirect(source.length * PixelBuffer.BYTES_PER_PIXEL)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer = PixelBuffer.wrap(bytes, width, height, width * PixelBuffer.BYTES_PER_PIXEL);
+        } else {
+            pixels = new int[source.length];
+            buffer = PixelBuffer.wrap(pixels, width, height);
+        }
+
+        // Start the shared pool outside of the measurement.
+        ParallelRows.getSharedPool();
+    }
+
+    /**
+     * Restores the original pixels before every call, since the kernels run in place: within an
+     * iteration, a few calls of brightness or contrast would saturate the image, and the rest
+     * would benchmark a flat one. Every call filters two megapixels or more, next to which the
+     * per-invocation overhead of JMH is negligible.
+     */
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        if (bytes != null) {
+            bytes.clear();
+            // Same bytes as RGBA_8888 bitmap memory; the red and blue swap does not matter for
+            // random data.
+            bytes.asIntBuffer().put(source);
+        } else {
+            System.arraycopy(source, 0, pixels, 0, source.length);
+        }
+    }
+
+    @Benchmark
+    public int apply() {
+        ParallelRows.process(buffer, rowKernel, threads, ParallelRows.DEFAULT_MIN_BAND_ROWS);
+        return buffer.getPixel(buffer.getWidth() - 1, buffer.getHeight() - 1);
+    }
+}
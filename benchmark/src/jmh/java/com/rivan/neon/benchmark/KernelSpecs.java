@@ -0,0 +1,80 @@
+package com.rivan.neon.benchmark;
+
+import com.rivan.neon.filters.kernels.ChannelLut;
+import com.rivan.neon.filters.kernels.ColorMatrix;
+import com.rivan.neon.filters.kernels.FixedPointKernels;
+import com.rivan.neon.filters.kernels.PixelKernels;
+import com.rivan.neon.filters.kernels.RowKernel;
+import com.rivan.neon.filters.kernels.SwarKernels;
+
+/**
+ * Creates the {@link RowKernel}s benchmarked by {@link KernelBenchmark} from short textual specs,
+ * so that kernels and their parameters can be passed to JMH as a single {@code @Param}.
+ *
+ * <p>
+ * A spec is a kernel name optionally followed by a colon and comma-separated arguments, e.g.
+ * {@code brightness-swar:-40} or {@code grayscale:0.299,0.587,0.114}.
+ * </p>
+ */
+final class KernelSpecs {
+
+    private KernelSpecs() {}
+
+    static RowKernel create(String spec) {
+        int colon = spec.indexOf(':');
+        String name = colon < 0 ? spec : spec.substring(0, colon);
+        String[] args = colon < 0 ? new String[0] : spec.substring(colon + 1).split(",");
+
+        switch (name) {
+            case "grayscale":
+                return PixelKernels.grayscaleKernel(floatArg(args, 0, 0.299f),
+                        floatArg(args, 1, 0.587f), floatArg(args, 2, 0.114f));
+            case "grayscale-fixed":
+                return FixedPointKernels.grayscaleKernel(floatArg(args, 0, 0.299f),
+                        floatArg(args, 1, 0.587f), floatArg(args, 2, 0.114f));
+            case "invert":
+                return PixelKernels.invertKernel();
+            case "invert-swar":
+                return SwarKernels.invertKernel();
+            case "invert-swar-long":
+                return SwarKernels.invertKernelLong();
+            case "brightness":
+                return PixelKernels.brightnessKernel(intArg(args, 0, 40));
+            case "brightness-swar":
+                return SwarKernels.brightnessKernel(intArg(args, 0, 40));
+            case "brightness-swar-long":
+                return SwarKernels.brightnessKernelLong(intArg(args, 0, 40));
+            case "brightness-lut":
+                return ChannelLut.brightness(intArg(args, 0, 40)).kernel();
+            case "contrast":
+                return PixelKernels.contrastKernel(floatArg(args, 0, 1.5f));
+            case "contrast-fixed":
+                return FixedPointKernels.contrastKernel(floatArg(args, 0, 1.5f));
+            case "contrast-lut":
+                return ChannelLut.contrast(floatArg(args, 0, 1.5f)).kernel();
+            case "sepia":
+                return PixelKernels.sepiaKernel();
+            case "sepia-fixed":
+                return FixedPointKernels.sepiaKernel();
+            case "sepia-matrix":
+                return ColorMatrix.sepia().kernel();
+            case "sepia-matrix-fixed":
+                return FixedPointKernels.colorMatrixKernel(ColorMatrix.sepia());
+            case "fused":
+                // Brightness, contrast and sepia fused into a single pass.
+                return PixelKernels.fuse(PixelKernels.brightnessKernel(intArg(args, 0, 40)),
+                        PixelKernels.contrastKernel(floatArg(args, 1, 1.5f)),
+                        PixelKernels.sepiaKernel());
+            default:
+                throw new IllegalArgumentException("Unknown kernel: " + spec);
+        }
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return index < args.length ? Integer.parseInt(args[index].trim()) : defaultValue;
+    }
+
+    private static float floatArg(String[] args, int index, float defaultValue) {
+        return index < args.length ? Float.parseFloat(args[index].trim()) : defaultValue;
+    }
+}
@@ -0,0 +1,71 @@
+package com.rivan.neon.benchmark;
+
+import com.rivan.neon.filters.kernels.ParallelRows;
+import com.rivan.neon.filters.kernels.Resampler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * JMH benchmarks of the Java {@link Resampler}, scaling an image down to preview sizes. Both
+ * passes read every input pixel about once, so the time should mostly depend on the size of the
+ * source.
+ */
+@State(Scope.Benchmark)
+public class ResamplerBenchmark {
+
+    /** Image size as {@code WIDTHxHEIGHT}. */
+    @Param({"1920x1080", "4000x3000"})
+    public String size;
+
+    /** The source is divided by this factor along both axes. */
+    @Param({"2", "4", "8"})
+    public int divisor;
+
+    @Param({"AUTO", "BILINEAR"})
+    public Resampler.Method method;
+
+    /** Number of row bands processed concurrently; 0 uses one per processor. */
+    @Param({"1", "0"})
+    public int threads;
+
+    private int width;
+    private int height;
+    private int dstWidth;
+    private int dstHeight;
+
+    private int[] source;
+    private int[] destination;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        int separator = size.indexOf('x');
+        width = Integer.parseInt(size.substring(0, separator));
+        height = Integer.parseInt(size.substring(separator + 1));
+        dstWidth = width / divisor;
+        dstHeight = height / divisor;
+
+        source = new int[width * height];
+        destination = new int[dstWidth * dstHeight];
+        Random random = new Random(42);
+        for (int i = 0; i < source.length; i++) {
+            source[i] = 0xFF000000 | random.nextInt(0x01000000);
+        }
+
+        // Start the shared pool outside of the measurement.
+        ParallelRows.getSharedPool();
+    }
+
+    @Benchmark
+    public int resize() {
+        Resampler.resize(source, width, height, destination, dstWidth, dstHeight, method,
+                threads, ParallelRows.DEFAULT_MIN_BAND_ROWS);
+        return destination[destination.length - 1];
+    }
+}
@@ -21,3 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "Neon"
 include(":app")
+include(":benchmark")